@@ -0,0 +1,166 @@
+package animation;
+
+import glMath.FastMath;
+import glMath.Quaternion;
+import glMath.transforms.Transform;
+import glMath.vectors.Vec3;
+
+/**
+ * Keyframed animation of a Transform made up of a position, rotation and scale track. Any of the tracks may be null in
+ * which case that part of the Transform is left as it is. Positions and scales are linearly interpolated between keys
+ * and rotations are interpolated with {@link Quaternion#slerp(Quaternion, Quaternion, float, FastMath.Mode, Quaternion)}
+ * using the clip's interpolation mode, in {@link FastMath.Mode#FAST} mode nearby keys are interpolated with nlerp.
+ * <p>
+ * A clip is immutable once constructed and can be sampled by any number of threads at once, the per playback state is
+ * kept in an {@link AnimationCursor}.
+ * </p>
+ *
+ * @author Kevin Mango
+ *
+ */
+public class AnimationClip {
+
+	private final String name;
+	private final KeyframeTrack position, rotation, scale;
+	private final float duration;
+	private final FastMath.Mode interpolation;
+
+	/**
+	 * Constructs a clip from the given tracks that interpolates rotations with the global FastMath mode at the time of
+	 * construction
+	 *
+	 * @param name Name of this clip
+	 * @param position Track of 3 component positions, or null
+	 * @param rotation Track of 4 component quaternions, or null
+	 * @param scale Track of 3 component scales, or null
+	 * @throws IllegalArgumentException If a track has the wrong number of components
+	 */
+	public AnimationClip(String name, KeyframeTrack position, KeyframeTrack rotation, KeyframeTrack scale)
+			throws IllegalArgumentException{
+		this(name, position, rotation, scale, FastMath.getMode());
+	}
+
+	/**
+	 * Constructs a clip from the given tracks
+	 *
+	 * @param name Name of this clip
+	 * @param position Track of 3 component positions, or null
+	 * @param rotation Track of 4 component quaternions, or null
+	 * @param scale Track of 3 component scales, or null
+	 * @param interpolation Mode used to interpolate the rotation keys
+	 * @throws IllegalArgumentException If a track has the wrong number of components
+	 */
+	public AnimationClip(String name, KeyframeTrack position, KeyframeTrack rotation, KeyframeTrack scale,
+			FastMath.Mode interpolation) throws IllegalArgumentException{
+		checkComponents(position, KeyframeTrack.VECTOR_COMPONENTS, "position");
+		checkComponents(rotation, KeyframeTrack.QUATERNION_COMPONENTS, "rotation");
+		checkComponents(scale, KeyframeTrack.VECTOR_COMPONENTS, "scale");
+		this.name = name;
+		this.position = position;
+		this.rotation = rotation;
+		this.scale = scale;
+		this.interpolation = interpolation;
+
+		float duration = 0;
+		if(position != null){
+			duration = Math.max(duration, position.getEndTime());
+		}
+		if(rotation != null){
+			duration = Math.max(duration, rotation.getEndTime());
+		}
+		if(scale != null){
+			duration = Math.max(duration, scale.getEndTime());
+		}
+		this.duration = duration;
+	}
+
+	private static void checkComponents(KeyframeTrack track, int components, String type) throws IllegalArgumentException{
+		if(track != null && track.getComponents() != components){
+			throw new IllegalArgumentException("A "+type+" track must have "+components+" components per key, found "+
+					track.getComponents());
+		}
+	}
+
+	/**
+	 * Gets the name of this clip
+	 *
+	 * @return Name of this clip
+	 */
+	public String getName(){
+		return name;
+	}
+
+	/**
+	 * Gets the length of this clip, this is the time of the last key of any of its tracks
+	 *
+	 * @return Length of this clip in seconds
+	 */
+	public float getDuration(){
+		return duration;
+	}
+
+	/**
+	 * Gets the mode used to interpolate the rotation keys of this clip
+	 *
+	 * @return Rotation interpolation mode
+	 */
+	public FastMath.Mode getInterpolation(){
+		return interpolation;
+	}
+
+	/**
+	 * Samples this clip at the given time and writes the result into {@code target}. This does not allocate any objects.
+	 * Values that equal what {@code target} already holds are not written, so a track that holds still doesn't change the
+	 * version of {@code target} and nothing derived from it is recomputed.
+	 *
+	 * @param time Time to sample at in seconds, times outside of the clip are clamped to the first or last keys
+	 * @param cursor Playback state of the caller, used to speed up finding keys
+	 * @param target Transform to write the sampled position, rotation and scale to
+	 */
+	public void sample(float time, AnimationCursor cursor, Transform target){
+		if(position != null){
+			int key = cursor.positionKey = position.findKey(time, cursor.positionKey);
+			float blend = position.getBlend(key, time);
+			int next = blend > 0 ? key+1 : key;
+			float x = lerp(position.getValue(key, 0), position.getValue(next, 0), blend);
+			float y = lerp(position.getValue(key, 1), position.getValue(next, 1), blend);
+			float z = lerp(position.getValue(key, 2), position.getValue(next, 2), blend);
+			Vec3 current = target.getTranslation();
+			if(current.x != x || current.y != y || current.z != z){
+				target.setTranslation(x, y, z);
+			}
+		}
+		if(rotation != null){
+			int key = cursor.rotationKey = rotation.findKey(time, cursor.rotationKey);
+			float blend = rotation.getBlend(key, time);
+			cursor.start.set(rotation.getValue(key, 0), rotation.getValue(key, 1),
+					rotation.getValue(key, 2), rotation.getValue(key, 3));
+			if(blend > 0){
+				cursor.end.set(rotation.getValue(key+1, 0), rotation.getValue(key+1, 1),
+						rotation.getValue(key+1, 2), rotation.getValue(key+1, 3));
+				Quaternion.slerp(cursor.start, cursor.end, blend, interpolation, cursor.rotation);
+				if(!cursor.rotation.equals(target.getOrientation())){
+					target.setOrientation(cursor.rotation);
+				}
+			}else if(!cursor.start.equals(target.getOrientation())){
+				target.setOrientation(cursor.start);
+			}
+		}
+		if(scale != null){
+			int key = cursor.scaleKey = scale.findKey(time, cursor.scaleKey);
+			float blend = scale.getBlend(key, time);
+			int next = blend > 0 ? key+1 : key;
+			float x = lerp(scale.getValue(key, 0), scale.getValue(next, 0), blend);
+			float y = lerp(scale.getValue(key, 1), scale.getValue(next, 1), blend);
+			float z = lerp(scale.getValue(key, 2), scale.getValue(next, 2), blend);
+			Vec3 current = target.getScalars();
+			if(current.x != x || current.y != y || current.z != z){
+				target.setScale(x, y, z);
+			}
+		}
+	}
+
+	private static float lerp(float start, float end, float blend){
+		return start+(end-start)*blend;
+	}
+}
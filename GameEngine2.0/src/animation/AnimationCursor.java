@@ -0,0 +1,36 @@
+package animation;
+
+import glMath.Quaternion;
+
+/**
+ * Playback state used while sampling an AnimationClip. The cursor remembers the key found on each track by the last
+ * sample so the next sample can usually find its key without searching, and holds the scratch quaternions used for
+ * rotation interpolation so sampling doesn't allocate. A cursor should only be used by one thread at a time.
+ *
+ * @author Kevin Mango
+ *
+ */
+public class AnimationCursor {
+
+	int positionKey, rotationKey, scaleKey;
+	final Quaternion start, end, rotation;
+
+	/**
+	 * Constructs a cursor positioned at the start of a clip
+	 */
+	public AnimationCursor(){
+		start = new Quaternion();
+		end = new Quaternion();
+		rotation = new Quaternion();
+		reset();
+	}
+
+	/**
+	 * Moves this cursor back to the start of a clip, this should be called when the cursor is used with a different clip
+	 */
+	public void reset(){
+		positionKey = 0;
+		rotationKey = 0;
+		scaleKey = 0;
+	}
+}
@@ -0,0 +1,143 @@
+package animation;
+
+import glMath.transforms.Transform;
+
+/**
+ * Playback of a single AnimationClip on a Transform, created by {@link Animator#play(AnimationClip, Transform)}
+ *
+ * @author Kevin Mango
+ *
+ */
+public class AnimationState {
+
+	private final AnimationClip clip;
+	private final Transform target;
+	private final AnimationCursor cursor;
+	private float time, speed;
+	private boolean looping, playing;
+
+	AnimationState(AnimationClip clip, Transform target){
+		this.clip = clip;
+		this.target = target;
+		cursor = new AnimationCursor();
+		time = 0;
+		speed = 1;
+		looping = true;
+		playing = true;
+	}
+
+	/**
+	 * Advances the playback time and samples the clip into the target Transform
+	 *
+	 * @param delta Seconds since the last update
+	 */
+	void update(float delta){
+		if(!playing){
+			return;
+		}
+		time += delta*speed;
+		float duration = clip.getDuration();
+		if(looping && duration > 0){
+			if(time >= duration || time < 0){
+				time -= (float)Math.floor(time/duration)*duration;
+			}
+		}else if(time > duration){
+			time = duration;
+			playing = false;
+		}else if(time < 0){
+			time = 0;
+			playing = false;
+		}
+		clip.sample(time, cursor, target);
+	}
+
+	/**
+	 * Gets the clip being played
+	 *
+	 * @return Clip being played
+	 */
+	public AnimationClip getClip(){
+		return clip;
+	}
+
+	/**
+	 * Gets the Transform the clip is written to
+	 *
+	 * @return Animated Transform
+	 */
+	public Transform getTarget(){
+		return target;
+	}
+
+	/**
+	 * Gets the current playback time
+	 *
+	 * @return Time into the clip in seconds
+	 */
+	public float getTime(){
+		return time;
+	}
+
+	/**
+	 * Moves playback to the given time, the target is updated on the next update
+	 *
+	 * @param time Time into the clip in seconds
+	 */
+	public void setTime(float time){
+		this.time = time;
+	}
+
+	/**
+	 * Gets the playback speed
+	 *
+	 * @return Multiplier applied to the time passed to each update
+	 */
+	public float getSpeed(){
+		return speed;
+	}
+
+	/**
+	 * Sets the playback speed, negative speeds play the clip backwards
+	 *
+	 * @param speed Multiplier applied to the time passed to each update
+	 */
+	public void setSpeed(float speed){
+		this.speed = speed;
+	}
+
+	/**
+	 * Gets whether playback wraps around at the ends of the clip
+	 *
+	 * @return True if the clip loops
+	 */
+	public boolean isLooping(){
+		return looping;
+	}
+
+	/**
+	 * Sets whether playback wraps around at the ends of the clip, a clip that doesn't loop stops at its end
+	 *
+	 * @param looping True if the clip should loop
+	 */
+	public void setLooping(boolean looping){
+		this.looping = looping;
+	}
+
+	/**
+	 * Gets whether this clip is playing
+	 *
+	 * @return True if the clip is being advanced each update
+	 */
+	public boolean isPlaying(){
+		return playing;
+	}
+
+	/**
+	 * Sets whether this clip is playing, a paused clip does not change its target
+	 *
+	 * @param playing True to advance the clip each update
+	 */
+	public void setPlaying(boolean playing){
+		this.playing = playing;
+	}
+}
@@ -0,0 +1,120 @@
+package animation;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import glMath.transforms.Transform;
+
+/**
+ * Plays AnimationClips on Transforms. Each call to {@link #update(float)} advances every playing clip and writes the
+ * sampled values straight into its Transform. When at least {@link #PARALLEL_THRESHOLD} clips are playing the work is
+ * split across the common fork join pool, each Transform should therefore only be animated by one clip at a time.
+ * <p>
+ * Transforms are written from the worker threads, so a Transform with listeners that are not thread safe, such as a
+ * collider in a spatial tree, should be put in deferred mode with {@link Transform#setDeferred(boolean)} and
+ * {@link Transform#flushAll()} called on the main thread after the update.
+ * </p>
+ *
+ * @author Kevin Mango
+ *
+ */
+public class Animator {
+
+	public static final int PARALLEL_THRESHOLD = 128;
+	private static final int LEAF_SIZE = 32;
+
+	private ArrayList<AnimationState> states;
+
+	/**
+	 * Constructs an Animator with nothing playing
+	 */
+	public Animator(){
+		states = new ArrayList<AnimationState>();
+	}
+
+	/**
+	 * Starts playing the given clip on the given Transform, the clip loops by default
+	 *
+	 * @param clip Clip to play
+	 * @param target Transform to animate
+	 *
+	 * @return Playback state used to control the clip
+	 */
+	public AnimationState play(AnimationClip clip, Transform target){
+		AnimationState state = new AnimationState(clip, target);
+		states.add(state);
+		return state;
+	}
+
+	/**
+	 * Stops the given playback and removes it from this Animator
+	 *
+	 * @param state Playback to remove
+	 *
+	 * @return True if the playback was part of this Animator
+	 */
+	public boolean stop(AnimationState state){
+		return states.remove(state);
+	}
+
+	/**
+	 * Removes all playback from this Animator
+	 */
+	public void clear(){
+		states.clear();
+	}
+
+	/**
+	 * Gets the number of clips being played by this Animator, including paused clips
+	 *
+	 * @return Number of clips in this Animator
+	 */
+	public int size(){
+		return states.size();
+	}
+
+	/**
+	 * Advances every playing clip by the given time and writes the results to their Transforms
+	 *
+	 * @param delta Seconds since the last update
+	 */
+	public void update(float delta){
+		if(states.size() >= PARALLEL_THRESHOLD){
+			ForkJoinPool.commonPool().invoke(new UpdateTask(0, states.size(), delta));
+		}else{
+			update(0, states.size(), delta);
+		}
+	}
+
+	private void update(int start, int end, float delta){
+		for(int state = start; state < end; state++){
+			states.get(state).update(delta);
+		}
+	}
+
+	/**
+	 * Task that updates a range of the playback states, splitting the range in half until it is small enough
+	 */
+	private class UpdateTask extends RecursiveAction{
+		private static final long serialVersionUID = 1L;
+		private int start, end;
+		private float delta;
+
+		private UpdateTask(int start, int end, float delta){
+			this.start = start;
+			this.end = end;
+			this.delta = delta;
+		}
+
+		@Override
+		protected void compute(){
+			if(end-start <= LEAF_SIZE){
+				update(start, end, delta);
+			}else{
+				int mid = (start+end) >>> 1;
+				invokeAll(new UpdateTask(start, mid, delta), new UpdateTask(mid, end, delta));
+			}
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package animation;
+
+import java.util.Arrays;
+
+/**
+ * Sequence of keyframes for a single animated property. The key times and key values are stored in two flat float arrays,
+ * the values of key {@code i} are the {@code components} floats starting at {@code i*components} in the value array.
+ * Position and scale tracks have 3 components, x, y, z, and rotation tracks have 4, the x, y, z, w of a quaternion.
+ *
+ * @author Kevin Mango
+ *
+ */
+public class KeyframeTrack {
+
+	private final float[] times, values;
+	private final int components;
+	public static final int VECTOR_COMPONENTS = 3, QUATERNION_COMPONENTS = 4;
+
+	/**
+	 * Constructs a track from the given key times and values, the arrays are copied
+	 *
+	 * @param components Number of floats that make up the value of a single key
+	 * @param times Times of each key in seconds, must be in increasing order
+	 * @param values Values of each key, {@code times.length*components} floats
+	 * @throws IllegalArgumentException If there are no keys, the times are not increasing or the number of values
+	 * does not match the number of times
+	 */
+	public KeyframeTrack(int components, float[] times, float[] values) throws IllegalArgumentException{
+		if(components < 1){
+			throw new IllegalArgumentException("A track must have at least 1 component per key");
+		}
+		if(times.length == 0){
+			throw new IllegalArgumentException("A track must have at least 1 key");
+		}
+		if(values.length != times.length*components){
+			throw new IllegalArgumentException("Expected "+times.length*components+" values for "+times.length+
+					" keys, found "+values.length);
+		}
+		for(int key = 1; key < times.length; key++){
+			if(times[key] <= times[key-1]){
+				throw new IllegalArgumentException("Key times must be increasing, key "+key+" at "+times[key]+
+						" follows "+times[key-1]);
+			}
+		}
+		this.components = components;
+		this.times = Arrays.copyOf(times, times.length);
+		this.values = Arrays.copyOf(values, values.length);
+	}
+
+	/**
+	 * Gets the number of keys in this track
+	 *
+	 * @return Number of keys in this track
+	 */
+	public int getKeyCount(){
+		return times.length;
+	}
+
+	/**
+	 * Gets the number of floats that make up the value of a single key
+	 *
+	 * @return Number of components per key
+	 */
+	public int getComponents(){
+		return components;
+	}
+
+	/**
+	 * Gets the time of the last key of this track
+	 *
+	 * @return Time of the last key in seconds
+	 */
+	public float getEndTime(){
+		return times[times.length-1];
+	}
+
+	/**
+	 * Gets the time of the given key
+	 *
+	 * @param key Index of the key
+	 *
+	 * @return Time of the key in seconds
+	 * @throws IndexOutOfBoundsException
+	 */
+	public float getTime(int key) throws IndexOutOfBoundsException{
+		return times[key];
+	}
+
+	/**
+	 * Gets a single component of the value of the given key
+	 *
+	 * @param key Index of the key
+	 * @param component Component of the key's value to get
+	 *
+	 * @return Value of the component
+	 * @throws IndexOutOfBoundsException
+	 */
+	public float getValue(int key, int component) throws IndexOutOfBoundsException{
+		return values[key*components+component];
+	}
+
+	/**
+	 * Finds the key that starts the segment of this track containing the given time, that is the last key whose time is at
+	 * or before {@code time}. Times before the first key give key 0. The key found by the previous lookup is given as a
+	 * hint, playback moves forward a little each frame so the answer is usually the hint or the key after it and the
+	 * binary search is only needed after a jump.
+	 *
+	 * @param time Time to find the key for
+	 * @param hint Key returned by the previous lookup on this track, or any key if unknown
+	 *
+	 * @return Index of the key starting the segment containing {@code time}
+	 */
+	public int findKey(float time, int hint){
+		int last = times.length-1;
+		if(hint >= 0 && hint < last && times[hint] <= time){
+			if(time < times[hint+1]){
+				return hint;
+			}else if(hint+1 == last || time < times[hint+2]){
+				return hint+1;
+			}
+		}
+		if(time <= times[0]){
+			return 0;
+		}else if(time >= times[last]){
+			return last;
+		}
+		//binary search for the last key at or before time, times[low] <= time < times[high]
+		int low = 0, high = last;
+		while(high-low > 1){
+			int mid = (low+high) >>> 1;
+			if(times[mid] <= time){
+				low = mid;
+			}else{
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Computes how far {@code time} is between the given key and the key after it
+	 *
+	 * @param key Key starting the segment, as returned by {@link #findKey(float, int)}
+	 * @param time Time within the segment
+	 *
+	 * @return Value from 0 to 1, 0 at the time of {@code key} and 1 at the time of the next key. The last key and
+	 * times before the first key give 0.
+	 */
+	public float getBlend(int key, float time){
+		if(key >= times.length-1){
+			return 0;
+		}
+		float blend = (time-times[key])/(times[key+1]-times[key]);
+		return Math.max(0, Math.min(1, blend));
+	}
+}
@@ -1,12 +1,12 @@
 package core;
 import static glMath.VecUtil.dot;
+import glMath.MathArena;
 import glMath.MatrixUtil;
 import glMath.Quaternion;
 import glMath.VecUtil;
 import glMath.matrices.Mat4;
 import glMath.transforms.Transform;
 import glMath.vectors.Vec3;
-import glMath.vectors.Vec4;
 import physics.collision.Ray;
 
 public class Camera {
@@ -129,18 +129,35 @@ public class Camera {
 //	}
 
 	public Mat4 getLookAt() {
-		Quaternion rot = new Quaternion(phi,theta,0);
+		return getLookAt(new Mat4());
+	}
+	
+	/**
+	 * Computes the view matrix of this camera storing it in {@code dest}, this also updates the forward, up and right 
+	 * vectors of this camera
+	 * 
+	 * @param dest Matrix to store the view matrix in
+	 * 
+	 * @return The {@code dest} matrix
+	 */
+	public Mat4 getLookAt(Mat4 dest) {
+		MathArena arena = MathArena.get();
+		int mark = arena.mark();
+		Quaternion rot = arena.quaternion();
+		rot.set(phi,theta,0);
 		
-		forward = rot.multVec(Transform.zAxis);
-		up = rot.multVec(Transform.yAxis);
-		right = up.cross(forward);
+		rot.rotate(Transform.zAxis, forward);
+		rot.rotate(Transform.yAxis, up);
+		VecUtil.crossProduct(up, forward, right);
+		arena.release(mark);
 		
-		return  new Mat4(
-				new Vec4(right.x, up.x, forward.x, 0),
-				new Vec4(right.y, up.y, forward.y, 0),
-				new Vec4(right.z, up.z, forward.z, 0),
-				new Vec4(-dot(right,position),-dot(up,position),-dot(forward,position),1.0f)
-				);
+		dest.setColumn(0, right.x, up.x, forward.x, 0);
+		dest.setColumn(1, right.y, up.y, forward.y, 0);
+		dest.setColumn(2, right.z, up.z, forward.z, 0);
+		dest.setColumn(3, -dot(right,position),-dot(up,position),-dot(forward,position),1.0f);
+		//the view is the inverse of the camera's rotation and translation
+		dest.setProperties(Mat4.RIGID);
+		return dest;
 	}
 	
 	public Mat4 getProjection(){
@@ -187,11 +204,15 @@ public class Camera {
 	 * @param amt how far to move 
 	 */
 	public void move(float amt){
-		Quaternion rot = new Quaternion(0,theta,0);
+		MathArena arena = MathArena.get();
+		int mark = arena.mark();
+		Quaternion rot = arena.quaternion();
+		rot.set(0,theta,0);
 		
-		Vec3 dir = rot.multVec(Transform.zAxis);
+		Vec3 dir = rot.rotate(Transform.zAxis, arena.vec3());
 		
-		position.add(dir.scale(amt));
+		position.add(dir.x*amt, dir.y*amt, dir.z*amt);
+		arena.release(mark);
 	}
 	
 	public void moveUpDown(float amt){
@@ -11,7 +11,6 @@ import core.Camera;
 import core.Entity;
 import core.managers.SceneManager;
 import glMath.Quaternion;
-import glMath.VecUtil;
 import glMath.transforms.Transform;
 import glMath.vectors.Vec3;
 import static core.gizmo.TransformType.ROTATE;
@@ -52,7 +51,7 @@ public class RotationGizmo extends TransformGizmo {
 		yzWheel.getTransform().setTranslation(target.getPos());
 		xzWheel.getTransform().setTranslation(target.getPos());
 		//scale the gizmo for better interaction relative to the camera
-		float scale = VecUtil.subtract(view.getPos(), target.getPos()).length()/viewScale;///(view.getHeight()/view.getAspect()/5);
+		float scale = getViewDistanceScale();
 		//set the scale of the wheels to match this factor
 		xyWheel.getTransform().setScale(scale);
 		yzWheel.getTransform().setScale(scale);
@@ -3,7 +3,7 @@ package core.gizmo;
 import static core.gizmo.TransformType.SCALE;
 
 import glMath.Quaternion;
-import glMath.VecUtil;
+import glMath.MathArena;
 import glMath.transforms.Transform;
 import glMath.vectors.Vec3;
 import mesh.Arrow;
@@ -45,7 +45,7 @@ public class ScaleGizmo extends TransformGizmo {
 		yaxis.setPos(target.getPos());
 		zaxis.setPos(target.getPos());
 		//scale the gizmo for better interaction relative to the camera
-		float scale = VecUtil.subtract(view.getPos(), target.getPos()).length()/viewScale;///(view.getHeight()/view.getAspect()/5);
+		float scale = getViewDistanceScale();
 		//set the scale of the arrows to match this factor
 		xaxis.setScale(scale);
 		yaxis.setScale(scale);
@@ -74,12 +74,14 @@ public class ScaleGizmo extends TransformGizmo {
 				Ray preMoveRay = view.genRay((float)prevX, (float)prevY);
 				//get the Ray for the current movement
 				Ray moveRay = view.genRay((float)xpos, (float)ypos);
+				MathArena arena = MathArena.get();
+				int mark = arena.mark();
 				//project both rays onto the plane
 				float d = CollisionDetector.depth(preMoveRay, view.getForwardVec(), target.getPos());
-				Vec3 prevPoint = preMoveRay.getDirection().scale(d);
+				Vec3 prevPoint = preMoveRay.getDirection(arena.vec3()).scale(d);
 				//repeat for the move ray
 				d = CollisionDetector.depth(moveRay, view.getForwardVec(), target.getPos());
-				Vec3 curPoint = moveRay.getDirection().scale(d);
+				Vec3 curPoint = moveRay.getDirection(arena.vec3()).scale(d);
 				//move the points to be relative to where they were emitted
 				prevPoint.add(preMoveRay.getPos());
 				curPoint.add(moveRay.getPos());
@@ -89,6 +91,7 @@ public class ScaleGizmo extends TransformGizmo {
 				float scale = curPoint.subtract(target.getPos()).length()/origClickDist;
 				float previousScale = prevPoint.subtract(target.getPos()).length()/origClickDist;//used to undo previous scaling factor
 				scale /= previousScale;//scale*(1/previousScale) = scale/previousScale
+				arena.release(mark);
 				
 				switch(activeController){
 					case CENTER:
@@ -117,10 +120,13 @@ public class ScaleGizmo extends TransformGizmo {
 			Ray clickRay = view.genRay((float)window.cursorX, (float)window.cursorY);
 			//set the original distance for the first click
 			//first get the point where the click ray intersects the view plane
-			Vec3 clickPoint = VecUtil.scale(clickRay.getDirection(), CollisionDetector.depth(clickRay, view.getForwardVec(), target.getPos()));
+			MathArena arena = MathArena.get();
+			int mark = arena.mark();
+			Vec3 clickPoint = clickRay.getDirection(arena.vec3()).scale(CollisionDetector.depth(clickRay, view.getForwardVec(), target.getPos()));
 			clickPoint.add(clickRay.getPos());
 			//then get the distance of this point from the targets position
-			origClickDist = VecUtil.subtract(clickPoint, target.getPos()).length();
+			origClickDist = clickPoint.subtract(target.getPos()).length();
+			arena.release(mark);
 			//perform each collision check, starting with the center sphere
 			if(CollisionDetector.intersects(clickRay, center.getCollider()).areColliding()){
 				activeController = ActiveControl.CENTER;
@@ -12,6 +12,7 @@ import core.Camera;
 import core.Entity;
 import core.SpatialAsset;
 import core.managers.SceneManager;
+import glMath.MathArena;
 import glMath.VecUtil;
 import glMath.transforms.Transform;
 import glMath.vectors.Vec3;
@@ -54,6 +55,20 @@ public abstract class TransformGizmo implements MouseListener{
 		TransformGizmo.view = view;
 	}
 	
+	/**
+	 * Computes the scale of the gizmo from its distance to the camera, this keeps the gizmo a usable size on screen
+	 * at any distance
+	 * 
+	 * @return Scale factor for the gizmo
+	 */
+	protected float getViewDistanceScale(){
+		MathArena arena = MathArena.get();
+		int mark = arena.mark();
+		float scale = VecUtil.sub(view.getPos(), target.getPos(), arena.vec3()).length()/viewScale;///(view.getHeight()/view.getAspect()/5);
+		arena.release(mark);
+		return scale;
+	}
+	
 	/**
 	 * Renders the gizmo to the screen, modifying values in the ShaderProgram {@code program}. The shader program 
 	 * is expected to have a model matrix variable called "model" that is of type mat4, and a color variable
@@ -70,7 +85,7 @@ public abstract class TransformGizmo implements MouseListener{
 			//center the gizmo at the target object
 			center.getTransform().setTranslation(target.getPos());
 			//scale the gizmo for better interaction relative to the camera
-			float scale = VecUtil.subtract(view.getPos(), target.getPos()).length()/viewScale;///(view.getHeight()/view.getAspect()/5);
+			float scale = getViewDistanceScale();
 			//set the scale of the center to match this factor
 			Vec3 scalars = center.getTransform().getScalars();
 			center.transform(new Transform().scale(scale/scalars.x));
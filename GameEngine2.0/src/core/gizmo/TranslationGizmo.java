@@ -1,6 +1,5 @@
 package core.gizmo;
 
-import glMath.VecUtil;
 import glMath.transforms.Transform;
 import glMath.vectors.Vec3;
 import mesh.Arrow;
@@ -35,7 +34,7 @@ public class TranslationGizmo extends TransformGizmo{
 		yaxis.setPos(target.getPos());
 		zaxis.setPos(target.getPos());
 		//scale the gizmo for better interaction relative to the camera
-		float scale = VecUtil.subtract(view.getPos(), target.getPos()).length()/viewScale;///(view.getHeight()/view.getAspect()/5);
+		float scale = getViewDistanceScale();
 		//set the scale of the arrows to match this factor
 		xaxis.setScale(scale);
 		yaxis.setScale(scale);
@@ -0,0 +1,214 @@
+package glMath;
+
+/**
+ * Policy for the trigonometric and square root functions used by glMath. In {@link Mode#EXACT} mode, the default, every
+ * function defers to {@link java.lang.Math}. In {@link Mode#FAST} mode they use cheaper approximations with the error
+ * bounds documented on each function. The mode can be set globally through {@link #setMode(Mode)}, which changes the
+ * behavior of functions such as {@code Vec3.normalize()} and the Euler angle constructors of Quaternion, or chosen
+ * at a single call site with the overloads taking a {@link Mode}.
+ *
+ * @author Kevin Mango
+ *
+ */
+public abstract class FastMath {
+
+	/**
+	 * Precision mode of the functions in FastMath
+	 */
+	public enum Mode {
+		EXACT,
+		FAST
+	}
+
+	private static volatile Mode mode = Mode.EXACT;
+
+	private static final float PI = (float)Math.PI;
+	private static final float HALF_PI = (float)(Math.PI/2);
+	//2pi split into a high part with few significant bits, so multiples of it are exact, and the remainder
+	private static final float TWO_PI_HI = 6.28125f;
+	private static final float TWO_PI_LO = (float)(Math.PI*2-6.28125);
+	private static final float INV_TWO_PI = (float)(1/(Math.PI*2));
+	//beyond this the range reduction loses too much precision, so the exact functions are used instead
+	private static final float MAX_FAST_ANGLE = 8192;
+	//taylor coefficients of sin up to x^9
+	private static final float S3 = -1/6.0f, S5 = 1/120.0f, S7 = -1/5040.0f, S9 = 1/362880.0f;
+
+	/**
+	 * Sets the mode used by every function that is not given a mode explicitly
+	 *
+	 * @param mode Mode to use
+	 */
+	public static void setMode(Mode mode){
+		FastMath.mode = mode;
+	}
+
+	/**
+	 * Gets the mode used by every function that is not given a mode explicitly
+	 *
+	 * @return Current global mode
+	 */
+	public static Mode getMode(){
+		return mode;
+	}
+
+	/**
+	 * Gets whether the global mode is {@link Mode#FAST}
+	 *
+	 * @return True if approximations are being used globally
+	 */
+	public static boolean isFast(){
+		return mode == Mode.FAST;
+	}
+
+	/**
+	 * Computes the sine of the given angle using the global mode
+	 *
+	 * @param radians Angle in radians
+	 *
+	 * @return Sine of the angle
+	 */
+	public static float sin(float radians){
+		return sin(radians, mode);
+	}
+
+	/**
+	 * Computes the sine of the given angle. In fast mode the angle is reduced to [-pi/2, pi/2] and evaluated with a 9th
+	 * degree polynomial, the absolute error is at most 4e-6 for angles within +-8192 radians. Angles outside that range
+	 * use {@link Math#sin(double)}.
+	 *
+	 * @param radians Angle in radians
+	 * @param mode Mode to compute the sine with
+	 *
+	 * @return Sine of the angle
+	 */
+	public static float sin(float radians, Mode mode){
+		if(mode == Mode.EXACT || radians > MAX_FAST_ANGLE || radians < -MAX_FAST_ANGLE){
+			return (float)Math.sin(radians);
+		}
+		return polySin(reduce(radians));
+	}
+
+	/**
+	 * Computes the cosine of the given angle using the global mode
+	 *
+	 * @param radians Angle in radians
+	 *
+	 * @return Cosine of the angle
+	 */
+	public static float cos(float radians){
+		return cos(radians, mode);
+	}
+
+	/**
+	 * Computes the cosine of the given angle. In fast mode this is the fast sine shifted by pi/2 and has the same error
+	 * bound as {@link #sin(float, Mode)}.
+	 *
+	 * @param radians Angle in radians
+	 * @param mode Mode to compute the cosine with
+	 *
+	 * @return Cosine of the angle
+	 */
+	public static float cos(float radians, Mode mode){
+		if(mode == Mode.EXACT){
+			return (float)Math.cos(radians);
+		}
+		if(radians > MAX_FAST_ANGLE || radians < -MAX_FAST_ANGLE){
+			return (float)Math.cos(radians);
+		}
+		//cos(x) = sin(x+pi/2), the shift is done after reducing the angle so it doesn't lose precision
+		float x = reduce(radians)+HALF_PI;
+		if(x > PI){
+			x -= TWO_PI_HI;
+			x -= TWO_PI_LO;
+		}
+		return polySin(x);
+	}
+	
+	/**
+	 * Reduces the given angle to the range [-pi, pi]
+	 * 
+	 * @param radians Angle in radians within +-{@link #MAX_FAST_ANGLE}
+	 * 
+	 * @return Equivalent angle in [-pi, pi]
+	 */
+	private static float reduce(float radians){
+		//truncation toward zero after offsetting by half rounds to the nearest whole turn
+		float turns = (int)(radians*INV_TWO_PI + (radians < 0 ? -0.5f : 0.5f));
+		return (radians - turns*TWO_PI_HI) - turns*TWO_PI_LO;
+	}
+	
+	/**
+	 * Evaluates the sine polynomial for an angle in [-pi, pi]
+	 * 
+	 * @param x Angle in radians in [-pi, pi]
+	 * 
+	 * @return Sine of the angle
+	 */
+	private static float polySin(float x){
+		//sin is symmetric about +-pi/2, reflect into [-pi/2, pi/2] where the polynomial is accurate
+		if(x > HALF_PI){
+			x = PI - x;
+		}else if(x < -HALF_PI){
+			x = -PI - x;
+		}
+		float x2 = x*x;
+		return x*(1 + x2*(S3 + x2*(S5 + x2*(S7 + x2*S9))));
+	}
+
+	/**
+	 * Computes the reciprocal of the square root of the given value using the global mode
+	 *
+	 * @param value Value to compute the reciprocal square root of
+	 *
+	 * @return 1/sqrt(value)
+	 */
+	public static float invSqrt(float value){
+		return invSqrt(value, mode);
+	}
+
+	/**
+	 * Computes the reciprocal of the square root of the given value. In fast mode an estimate is formed from the bits of
+	 * the float and refined with one Newton step, the relative error is at most 0.18%. In fast mode the result for 0,
+	 * negative and non finite values is undefined.
+	 *
+	 * @param value Value to compute the reciprocal square root of
+	 * @param mode Mode to compute the reciprocal square root with
+	 *
+	 * @return 1/sqrt(value)
+	 */
+	public static float invSqrt(float value, Mode mode){
+		if(mode == Mode.EXACT){
+			return (float)(1/Math.sqrt(value));
+		}
+		float estimate = Float.intBitsToFloat(0x5f3759df - (Float.floatToRawIntBits(value) >> 1));
+		//newton step for f(y) = 1/y^2 - value
+		return estimate*(1.5f - 0.5f*value*estimate*estimate);
+	}
+
+	/**
+	 * Computes the square root of the given value using the global mode
+	 *
+	 * @param value Value to compute the square root of
+	 *
+	 * @return Square root of the value
+	 */
+	public static float sqrt(float value){
+		return sqrt(value, mode);
+	}
+
+	/**
+	 * Computes the square root of the given value. In fast mode this is {@code value*invSqrt(value)} and has the same
+	 * 0.18% relative error bound, 0 returns 0.
+	 *
+	 * @param value Value to compute the square root of
+	 * @param mode Mode to compute the square root with
+	 *
+	 * @return Square root of the value
+	 */
+	public static float sqrt(float value, Mode mode){
+		if(mode == Mode.EXACT){
+			return (float)Math.sqrt(value);
+		}
+		return value == 0 ? 0 : value*invSqrt(value, mode);
+	}
+}
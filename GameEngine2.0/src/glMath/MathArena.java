@@ -0,0 +1,294 @@
+package glMath;
+
+import glMath.matrices.Mat4;
+import glMath.vectors.Vec3;
+
+import java.util.Arrays;
+
+/**
+ * Per thread pool of temporary math objects. Code that needs short lived Vec3s, Quaternions or Mat4s takes them from the
+ * arena of its thread between a {@link #mark()} and a matching {@link #release(int)}. Everything taken after the mark is
+ * returned to the arena by the release and handed out again by later calls, so temporaries don't create garbage.
+ * <pre>
+ * MathArena arena = MathArena.get();
+ * int mark = arena.mark();
+ * Vec3 temp = arena.vec3();
+ * ...
+ * arena.release(mark);
+ * </pre>
+ * Objects taken from the arena must not be kept or returned past the release of their mark. In debug mode, enabled with
+ * {@link #setDebug(boolean)}, released objects are filled with NaN so any use of an escaped reference shows up
+ * immediately. An object that was written to after it was released is reported with an IllegalStateException the next
+ * time the arena hands it out. Marks must also be released in the reverse order they were made.
+ *
+ * @author Kevin Mango
+ *
+ */
+public class MathArena {
+
+	private static final ThreadLocal<MathArena> arenas = new ThreadLocal<MathArena>(){
+		@Override
+		protected MathArena initialValue(){
+			return new MathArena();
+		}
+	};
+	private static volatile boolean debug = false;
+	private static final float[] POISON = new float[Mat4.SIZE_IN_FLOATS];
+	static{
+		Arrays.fill(POISON, Float.NaN);
+	}
+
+	private Vec3[] vec3s;
+	private Quaternion[] quats;
+	private Mat4[] mats;
+	//marks the released objects that were poisoned in debug mode and should still be poisoned when handed out again
+	private boolean[] vec3Poisoned, quatPoisoned, matPoisoned;
+	private int vec3Count, quatCount, matCount;
+	private int[] marks;//the 3 counts at each mark
+	private int markDepth;
+
+	private MathArena(){
+		vec3s = new Vec3[32];
+		quats = new Quaternion[8];
+		mats = new Mat4[8];
+		vec3Poisoned = new boolean[vec3s.length];
+		quatPoisoned = new boolean[quats.length];
+		matPoisoned = new boolean[mats.length];
+		marks = new int[3*8];
+	}
+
+	/**
+	 * Gets the arena of the calling thread
+	 *
+	 * @return Arena of the calling thread
+	 */
+	public static MathArena get(){
+		return arenas.get();
+	}
+
+	/**
+	 * Sets whether arenas check for escaped references, this should be turned on during development only since poisoning
+	 * and checking objects costs time on every release and allocation
+	 *
+	 * @param debug True to poison released objects and check them when they are handed out again
+	 */
+	public static void setDebug(boolean debug){
+		MathArena.debug = debug;
+	}
+
+	/**
+	 * Gets whether arenas check for escaped references
+	 *
+	 * @return True if debug mode is on
+	 */
+	public static boolean isDebug(){
+		return debug;
+	}
+
+	/**
+	 * Marks the current position of this arena, every object taken after this is returned when the mark is released
+	 *
+	 * @return Mark to pass to {@link #release(int)}
+	 */
+	public int mark(){
+		if(markDepth*3 == marks.length){
+			marks = Arrays.copyOf(marks, marks.length*2);
+		}
+		marks[markDepth*3] = vec3Count;
+		marks[markDepth*3+1] = quatCount;
+		marks[markDepth*3+2] = matCount;
+		return markDepth++;
+	}
+
+	/**
+	 * Returns every object taken since the given mark to this arena, along with any marks made after it
+	 *
+	 * @param mark Mark returned by {@link #mark()}
+	 * @throws IllegalStateException If the mark was already released
+	 */
+	public void release(int mark) throws IllegalStateException{
+		if(mark < 0 || mark >= markDepth){
+			throw new IllegalStateException("Mark "+mark+" has already been released, there are "+markDepth+" open marks");
+		}
+		if(debug && mark != markDepth-1){
+			throw new IllegalStateException("Mark "+mark+" was released before the "+(markDepth-1-mark)+" marks made after it");
+		}
+		int vec3Mark = marks[mark*3], quatMark = marks[mark*3+1], matMark = marks[mark*3+2];
+		if(debug){
+			poison(vec3Mark, quatMark, matMark);
+		}
+		vec3Count = vec3Mark;
+		quatCount = quatMark;
+		matCount = matMark;
+		markDepth = mark;
+	}
+
+	/**
+	 * Returns every object to this arena and removes all marks, this is meant to be called once a frame by the main loop
+	 * of each thread that uses the arena so a forgotten release doesn't hold onto objects
+	 */
+	public void reset(){
+		if(debug){
+			poison(0, 0, 0);
+		}
+		vec3Count = 0;
+		quatCount = 0;
+		matCount = 0;
+		markDepth = 0;
+	}
+
+	/**
+	 * Gets a temporary vector set to 0
+	 *
+	 * @return Temporary vector owned by this arena
+	 */
+	public Vec3 vec3(){
+		return vec3(0, 0, 0);
+	}
+
+	/**
+	 * Gets a temporary vector set to the given values
+	 *
+	 * @param x X component
+	 * @param y Y component
+	 * @param z Z component
+	 *
+	 * @return Temporary vector owned by this arena
+	 */
+	public Vec3 vec3(float x, float y, float z){
+		return nextVec3().set(x, y, z);
+	}
+
+	/**
+	 * Gets a temporary vector that is a copy of the given vector
+	 *
+	 * @param copy Vector to copy
+	 *
+	 * @return Temporary vector owned by this arena
+	 */
+	public Vec3 vec3(Vec3 copy){
+		return nextVec3().set(copy.x, copy.y, copy.z);
+	}
+
+	/**
+	 * Takes {@code count} consecutive temporary vectors from this arena, the vectors are accessed with
+	 * {@link #vec3At(int)} and are not cleared. This lets algorithms that need an indexed work array use the arena.
+	 *
+	 * @param count Number of vectors to take
+	 *
+	 * @return Index of the first vector in the block
+	 */
+	public int vec3Block(int count){
+		int first = vec3Count;
+		for(int vec = 0; vec < count; vec++){
+			nextVec3();
+		}
+		return first;
+	}
+
+	/**
+	 * Gets a vector taken from this arena by index, this is meant for accessing the vectors of {@link #vec3Block(int)}
+	 *
+	 * @param index Index of the vector
+	 *
+	 * @return Vector at the given index
+	 * @throws IndexOutOfBoundsException If the vector at the index has not been taken from this arena
+	 */
+	public Vec3 vec3At(int index) throws IndexOutOfBoundsException{
+		if(index < 0 || index >= vec3Count){
+			throw new IndexOutOfBoundsException("Arena vector "+index+" has not been taken, "+vec3Count+" are in use");
+		}
+		return vec3s[index];
+	}
+
+	/**
+	 * Gets a temporary identity quaternion
+	 *
+	 * @return Temporary quaternion owned by this arena
+	 */
+	public Quaternion quaternion(){
+		if(quatCount == quats.length){
+			quats = Arrays.copyOf(quats, quats.length*2);
+			quatPoisoned = Arrays.copyOf(quatPoisoned, quats.length);
+		}
+		if(quats[quatCount] == null){
+			quats[quatCount] = new Quaternion();
+		}else if(quatPoisoned[quatCount]){
+			checkPoisoned(!quats[quatCount].isNaN(), "Quaternion");
+			quatPoisoned[quatCount] = false;
+		}
+		Quaternion quat = quats[quatCount++];
+		quat.set(0, 0, 0, 1);
+		return quat;
+	}
+
+	/**
+	 * Gets a temporary identity matrix
+	 *
+	 * @return Temporary matrix owned by this arena
+	 */
+	public Mat4 mat4(){
+		if(matCount == mats.length){
+			mats = Arrays.copyOf(mats, mats.length*2);
+			matPoisoned = Arrays.copyOf(matPoisoned, mats.length);
+		}
+		if(mats[matCount] == null){
+			mats[matCount] = new Mat4();
+		}else if(matPoisoned[matCount]){
+			Mat4 mat = mats[matCount];
+			boolean modified = false;
+			for(int element = 0; element < Mat4.SIZE_IN_FLOATS && !modified; element++){
+				modified = !Float.isNaN(mat.valueAt(element));
+			}
+			checkPoisoned(modified, "Mat4");
+			matPoisoned[matCount] = false;
+		}
+		return mats[matCount++].loadIdentity();
+	}
+
+	/**
+	 * Gets the number of vectors, quaternions and matrices currently taken from this arena
+	 *
+	 * @return Total number of objects in use
+	 */
+	public int inUse(){
+		return vec3Count+quatCount+matCount;
+	}
+
+	private Vec3 nextVec3(){
+		if(vec3Count == vec3s.length){
+			vec3s = Arrays.copyOf(vec3s, vec3s.length*2);
+			vec3Poisoned = Arrays.copyOf(vec3Poisoned, vec3s.length);
+		}
+		if(vec3s[vec3Count] == null){
+			vec3s[vec3Count] = new Vec3();
+		}else if(vec3Poisoned[vec3Count]){
+			Vec3 vec = vec3s[vec3Count];
+			checkPoisoned(!Float.isNaN(vec.x) || !Float.isNaN(vec.y) || !Float.isNaN(vec.z), "Vec3");
+			vec3Poisoned[vec3Count] = false;
+		}
+		return vec3s[vec3Count++];
+	}
+
+	private void checkPoisoned(boolean modified, String type) throws IllegalStateException{
+		if(modified){
+			throw new IllegalStateException("An arena "+type+" was modified after it was released, "
+					+ "a reference to it escaped its mark");
+		}
+	}
+
+	private void poison(int vec3Mark, int quatMark, int matMark){
+		for(int vec = vec3Mark; vec < vec3Count; vec++){
+			vec3s[vec].set(Float.NaN, Float.NaN, Float.NaN);
+			vec3Poisoned[vec] = true;
+		}
+		for(int quat = quatMark; quat < quatCount; quat++){
+			quats[quat].set(Float.NaN, Float.NaN, Float.NaN, Float.NaN);
+			quatPoisoned[quat] = true;
+		}
+		for(int mat = matMark; mat < matCount; mat++){
+			mats[mat].load(POISON, 0);
+			matPoisoned[mat] = true;
+		}
+	}
+}
@@ -257,11 +257,14 @@ public abstract class MatrixUtil {
 	 */
 	public static Mat4 getOrtho(float left, float right, float bottom, float top, float zNear, float zFar){
 		
-		return new Mat4(
+		Mat4 ortho = new Mat4(
 				2/(right-left),0,0,0,
 				0,2/(top-bottom),0,0,
 				0,0,1/(zFar-zNear),0,
 				-((right+left)/(right-left)), -((top+bottom)/(top-bottom)), -(zNear/(zFar-zNear)), 1
 				);
+		//an orthographic projection is only a scale and translation
+		ortho.setProperties(Mat4.AFFINE);
+		return ortho;
 	}
 }
@@ -9,6 +9,8 @@ import glMath.vectors.Vec4;
 public class Quaternion {
 	private Vec4 data;//retains this quaternions data, which consists of 4 components
     private static final float DOT_THRESHOLD = 0.9995f;
+    //cosine of the largest half angle nlerp is used for in fast mode, about 23 degrees of rotation
+    private static final float NLERP_THRESHOLD = 0.98f;
 	
 	/**
 	 * Constructs an unrotated quaternion
@@ -44,23 +46,7 @@ public class Quaternion {
 	 * @param angles Rotation angles to set the quaternion with, read as roll, pitch, and yaw
 	 */
 	public Quaternion(Vec3 angles){
-		Vec3 radAngles = (new Vec3(angles)).scale((float)(Math.PI/180)/2.0f);
-		
-		float sinr = (float)Math.sin(radAngles.x);
-		float sinp = (float)Math.sin(radAngles.y);
-		float siny = (float)Math.sin(radAngles.z);
-		
-		float cosr = (float)Math.cos(radAngles.x);
-		float cosp = (float)Math.cos(radAngles.y);
-		float cosy = (float)Math.cos(radAngles.z);
-		
-	 
-		data = new Vec4(sinr*cosp*cosy - cosr*sinp*siny,
-				cosr*sinp*cosy + sinr*cosp*siny,
-				cosr*cosp*siny - sinr*sinp*cosy,
-				cosr*cosp*cosy + sinr*sinp*siny);
-		
-		this.normalize();
+		this(angles.x, angles.y, angles.z);
 	}
 	
 	/**
@@ -71,23 +57,8 @@ public class Quaternion {
 	 * @param yaw Z-rotation for the quaternion
 	 */
 	public Quaternion(float roll, float pitch, float yaw){
-		Vec3 radAngles = (new Vec3(roll, pitch, yaw)).scale((float)(Math.PI/180)/2.0f);
-		
-		float sinr = (float)Math.sin(radAngles.x);
-		float sinp = (float)Math.sin(radAngles.y);
-		float siny = (float)Math.sin(radAngles.z);
-		
-		float cosr = (float)Math.cos(radAngles.x);
-		float cosp = (float)Math.cos(radAngles.y);
-		float cosy = (float)Math.cos(radAngles.z);
-		
-	 
-		data = new Vec4(sinr*cosp*cosy - cosr*sinp*siny,
-				cosr*sinp*cosy + sinr*cosp*siny,
-				cosr*cosp*siny - sinr*sinp*cosy,
-				cosr*cosp*cosy + sinr*sinp*siny);
-		
-		this.normalize();
+		data = new Vec4();
+		set(roll, pitch, yaw);
 	}
 	
 	/**
@@ -109,6 +80,38 @@ public class Quaternion {
 		return new Quaternion(-data.x,-data.y,-data.z,data.w);
 	}
 	
+	/**
+	 * Computes the normalized conjugate of this quaternion storing it in {@code dest}, unlike {@link #conjugate()} this
+	 * does not normalize this quaternion or allocate a new quaternion
+	 * 
+	 * @param dest Quaternion to store the conjugate in, this may be this quaternion
+	 * 
+	 * @return The {@code dest} quaternion
+	 */
+	public Quaternion conjugate(Quaternion dest){
+		float length = FastMath.sqrt(data.x*data.x+data.y*data.y+data.z*data.z+data.w*data.w);
+		float inv = length != 0 ? 1/length : 0;
+		dest.data.set(-data.x*inv, -data.y*inv, -data.z*inv, data.w*inv);
+		return dest;
+	}
+	
+	/**
+	 * Multiplies two quaternions together storing the result in {@code dest}
+	 * 
+	 * @param rhs Value to multiply this quaternion with
+	 * @param dest Quaternion to store the product in, this may be this quaternion or {@code rhs}
+	 * 
+	 * @return The {@code dest} quaternion containing this*rhs
+	 */
+	public Quaternion mult(Quaternion rhs, Quaternion dest){
+		Vec4 multData = rhs.data;
+		dest.data.set(data.w*multData.x + data.x*multData.w + data.y*multData.z - data.z*multData.y,
+	                data.w*multData.y + data.y*multData.w + data.z*multData.x - data.x*multData.z,
+	                data.w*multData.z + data.z*multData.w + data.x*multData.y - data.y*multData.x,
+	                data.w*multData.w - data.x*multData.x - data.y*multData.y - data.z*multData.z);
+		return dest;
+	}
+	
 	/**
 	 * Multiplies two quaternions together
 	 * 
@@ -172,8 +175,50 @@ public class Quaternion {
 	 * @return The given vector rotated by the rotation represented by this quaternion
 	 */
 	public Vec3 multVec(Vec3 vector){
-		Quaternion vec = new Quaternion(new Vec4(vector, 0));
-		return (Vec3)multiply(this, vec, conjugate()).data.swizzle("xyz");
+		return rotate(vector, new Vec3());
+	}
+	
+	/**
+	 * Rotates the given vector by the rotation represented by this quaternion storing the result in {@code dest}, this
+	 * gives the same result as {@link #multVec(Vec3)} without allocating any objects
+	 * 
+	 * @param vector Vector to rotate
+	 * @param dest Vector to store the result in, this may be the same object as {@code vector}
+	 * 
+	 * @return The {@code dest} vector
+	 */
+	public Vec3 rotate(Vec3 vector, Vec3 dest){
+		return rotate(vector, dest, 1);
+	}
+	
+	/**
+	 * Rotates the given vector by the inverse of the rotation represented by this quaternion storing the result in 
+	 * {@code dest}, this is equivalent to {@code conjugate().multVec(vector)} without allocating any objects
+	 * 
+	 * @param vector Vector to rotate
+	 * @param dest Vector to store the result in, this may be the same object as {@code vector}
+	 * 
+	 * @return The {@code dest} vector
+	 */
+	public Vec3 inverseRotate(Vec3 vector, Vec3 dest){
+		return rotate(vector, dest, -1);
+	}
+	
+	private Vec3 rotate(Vec3 vector, Vec3 dest, float sign){
+		//rotation of a vector by a unit quaternion q, v' = v + w*t + (q.xyz x t), where t = 2*(q.xyz x v)
+		float length = FastMath.sqrt(data.x*data.x+data.y*data.y+data.z*data.z+data.w*data.w);
+		if(length == 0){
+			return dest.set(vector);
+		}
+		float qx = data.x*sign/length, qy = data.y*sign/length, qz = data.z*sign/length, qw = data.w/length;
+		float tx = 2*(qy*vector.z - qz*vector.y);
+		float ty = 2*(qz*vector.x - qx*vector.z);
+		float tz = 2*(qx*vector.y - qy*vector.x);
+		return dest.set(
+				vector.x + qw*tx + (qy*tz - qz*ty),
+				vector.y + qw*ty + (qz*tx - qx*tz),
+				vector.z + qw*tz + (qx*ty - qy*tx)
+				);
 	}
 	
 	/**
@@ -193,15 +238,17 @@ public class Quaternion {
 	 * @param yaw Z-rotation for the quaternion
 	 */
 	public void set(float roll, float pitch, float yaw){
-		Vec3 radAngles = (new Vec3(roll, pitch, yaw)).scale((float)(Math.PI/180)/2.0f);
+		//half angles in radians
+		float halfRad = (float)(Math.PI/180)/2.0f;
+		float halfRoll = roll*halfRad, halfPitch = pitch*halfRad, halfYaw = yaw*halfRad;
 		
-		float sinr = (float)Math.sin(radAngles.x);
-		float sinp = (float)Math.sin(radAngles.y);
-		float siny = (float)Math.sin(radAngles.z);
+		float sinr = FastMath.sin(halfRoll);
+		float sinp = FastMath.sin(halfPitch);
+		float siny = FastMath.sin(halfYaw);
 		
-		float cosr = (float)Math.cos(radAngles.x);
-		float cosp = (float)Math.cos(radAngles.y);
-		float cosy = (float)Math.cos(radAngles.z);
+		float cosr = FastMath.cos(halfRoll);
+		float cosp = FastMath.cos(halfPitch);
+		float cosy = FastMath.cos(halfYaw);
 		
 	 
 		data.set(sinr*cosp*cosy - cosr*sinp*siny,
@@ -212,6 +259,15 @@ public class Quaternion {
 		this.normalize();
 	}
 	
+	/**
+	 * Gets whether any component of this quaternion is NaN
+	 * 
+	 * @return True if a component of this quaternion is NaN
+	 */
+	boolean isNaN(){
+		return Float.isNaN(data.x) || Float.isNaN(data.y) || Float.isNaN(data.z) || Float.isNaN(data.w);
+	}
+	
 	/**
 	 * Sets this quaternion components with the given values
 	 * 
@@ -244,11 +300,14 @@ public class Quaternion {
 		float wy = data.w*-data.y;
 		float wz = data.w*-data.z;
 		
-		return new Mat4( 1.0f - 2.0f * (y2 + z2), 2.0f * (xy - wz), 2.0f * (xz + wy), 0.0f,
+		Mat4 result = new Mat4( 1.0f - 2.0f * (y2 + z2), 2.0f * (xy - wz), 2.0f * (xz + wy), 0.0f,
 						2.0f * (xy + wz), 1.0f - 2.0f * (x2 + z2), 2.0f * (yz - wx), 0.0f,
 						2.0f * (xz - wy), 2.0f * (yz + wx), 1.0f - 2.0f * (x2 + y2), 0.0f,
 						0.0f, 0.0f, 0.0f, 1.0f
 		);
+		//a unit quaternion is a pure rotation
+		result.setProperties(Mat4.RIGID);
+		return result;
 	}
 	
 	/**
@@ -305,6 +364,20 @@ public class Quaternion {
 		data.print();
 	}
 	
+	@Override
+	public boolean equals(Object quat){
+		if(quat instanceof Quaternion){
+			return data.equals(((Quaternion)quat).data);
+		}else{
+			return false;
+		}
+	}
+	
+	@Override
+	public int hashCode(){
+		return data.hashCode();
+	}
+	
 	/**
 	 * Multiplies n Quaternions starting with the left most given quaternion and multiplying down the list of inputs
 	 * this effectively translates to ((q1*q2)*q3)*q4)...*qn)
@@ -347,10 +420,10 @@ public class Quaternion {
 	public static Quaternion fromAxisAngle(float x, float y, float z, float angle){
 		Vec3 nAxis = new Vec3(x, y, z);
 		nAxis.normalize();
-		float sinAngle = (float)Math.sin((angle*Math.PI/180)/2.0f);
-		nAxis.scale(sinAngle);
+		float halfAngle = (float)(angle*Math.PI/180)/2.0f;
+		nAxis.scale(FastMath.sin(halfAngle));
 		
-		return new Quaternion(new Vec4(nAxis, (float)Math.cos((angle*Math.PI/180)/2.0f)));
+		return new Quaternion(new Vec4(nAxis, FastMath.cos(halfAngle)));
 	}
 	
 	/**
@@ -392,7 +465,7 @@ public class Quaternion {
 	
 	/**
 	 * Spherical interpolation between two quaternions taken from
-	 * https://en.wikipedia.org/wiki/Slerp
+	 * https://en.wikipedia.org/wiki/Slerp, this uses the global {@link FastMath} mode
 	 * 
 	 * @param start Quaternion to start from
 	 * @param end Quaternion to transform to
@@ -403,45 +476,86 @@ public class Quaternion {
 	 * by a percent amount denoted by {@code t}
 	 */
 	public static Quaternion slerp(Quaternion start, Quaternion end, float t) {
-		Vec4 startQ = VecUtil.normalize(start.data);//new Vec4(start.data);
-		Vec4 endQ = VecUtil.normalize(end.data);//new Vec4(end.data);
+		return slerp(start, end, t, FastMath.getMode());
+	}
+	
+	/**
+	 * Spherical interpolation between two quaternions taken from
+	 * https://en.wikipedia.org/wiki/Slerp
+	 * <p>
+	 * In {@link FastMath.Mode#FAST} mode quaternions that are within about 23 degrees of rotation of each other are 
+	 * interpolated with a normalized linear interpolation instead, which is off from the spherical path by at most 
+	 * 0.015 degrees of rotation, and the sine and cosine use the fast approximations.
+	 * </p>
+	 * 
+	 * @param start Quaternion to start from
+	 * @param end Quaternion to transform to
+	 * @param t Amount, from 0-1 denoting a percent, to transform the quaternion 
+	 * along the interpolation path from {@code start} to {@code end}
+	 * @param mode Precision mode to interpolate with
+	 * 
+	 * @return Quaternion representing the transformation from the start quaterion to the end quaternion
+	 * by a percent amount denoted by {@code t}
+	 */
+	public static Quaternion slerp(Quaternion start, Quaternion end, float t, FastMath.Mode mode) {
+		return slerp(start, end, t, mode, new Quaternion());
+	}
+	
+	/**
+	 * Spherical interpolation between two quaternions storing the result in {@code dest}, this behaves the same as
+	 * {@link #slerp(Quaternion, Quaternion, float, FastMath.Mode)} but does not allocate any objects
+	 * 
+	 * @param start Quaternion to start from
+	 * @param end Quaternion to transform to
+	 * @param t Amount, from 0-1 denoting a percent, to transform the quaternion 
+	 * along the interpolation path from {@code start} to {@code end}
+	 * @param mode Precision mode to interpolate with
+	 * @param dest Quaternion to store the result in, this may be either {@code start} or {@code end}
+	 * 
+	 * @return The {@code dest} quaternion
+	 */
+	public static Quaternion slerp(Quaternion start, Quaternion end, float t, FastMath.Mode mode, Quaternion dest) {
 	    // Only unit quaternions are valid rotations.
 	    // Normalize to avoid undefined behavior.
-//		startQ.normalize();
-//		endQ.normalize();
+		Vec4 s = start.data, e = end.data;
+		float startInv = FastMath.invSqrt(s.x*s.x+s.y*s.y+s.z*s.z+s.w*s.w, mode);
+		float endInv = FastMath.invSqrt(e.x*e.x+e.y*e.y+e.z*e.z+e.w*e.w, mode);
+		float sx = s.x*startInv, sy = s.y*startInv, sz = s.z*startInv, sw = s.w*startInv;
+		float ex = e.x*endInv, ey = e.y*endInv, ez = e.z*endInv, ew = e.w*endInv;
 
 	    // Compute the cosine of the angle between the two vectors.
-	    float dot = startQ.dot(endQ);
-	    if (Math.abs(dot) > DOT_THRESHOLD) {
-	        // If the inputs are too close for comfort, linearly interpolate
-	        // and normalize the result.
-
-	        //Quaternion result = v0 + t*(v1  v0);
-	        Quaternion result = new Quaternion(VecUtil.subtract(endQ, startQ).scale(t).add(startQ));
-	        result.normalize();
-	        return result;
-	    }
+	    float dot = sx*ex+sy*ey+sz*ez+sw*ew;
 
 	    // If the dot product is negative, the quaternions
 	    // have opposite handed-ness and slerp won't take
 	    // the shorter path. Fix by reversing one quaternion.
+	    // This is done before the linear case so the lerp doesn't pass through 0
 	    if (dot < 0.0f) {
-	        endQ.scale(-1);
+	    	ex = -ex; ey = -ey; ez = -ez; ew = -ew;
 	        dot = -dot;
-	    }  
+	    }
+	    
+	    if (dot > (mode == FastMath.Mode.FAST ? NLERP_THRESHOLD : DOT_THRESHOLD)) {
+	        // If the inputs are too close for comfort, linearly interpolate
+	        // and normalize the result.
+	        dest.data.set(sx+(ex-sx)*t, sy+(ey-sy)*t, sz+(ez-sz)*t, sw+(ew-sw)*t);
+	        dest.normalize();
+	        return dest;
+	    }
 
 	    //Clamp(dot, -1, 1);
-	    dot = Math.max(1, Math.min(-1,  dot));//Stay within domain of acos()
-	    double theta_0 = Math.acos(dot);  // theta_0 = angle between input vectors
-	    double theta = theta_0*t;    // theta = angle between v0 and result 
+	    dot = Math.min(1, Math.max(-1,  dot));//Stay within domain of acos()
+	    float theta_0 = (float)Math.acos(dot);  // theta_0 = angle between input vectors
+	    float theta = theta_0*t;    // theta = angle between v0 and result 
 
-	    Vec4 v2 = new Vec4(endQ.subtract(startQ.scale(dot)));
-	    //Quaternion v2 = v1  v0*dot;
-	    v2.normalize();              // { start, v2 } is now an orthonormal basis
+	    //Quaternion v2 = v1 - v0*dot;
+	    float vx = ex-sx*dot, vy = ey-sy*dot, vz = ez-sz*dot, vw = ew-sw*dot;
+	    float vInv = FastMath.invSqrt(vx*vx+vy*vy+vz*vz+vw*vw, mode);// { start, v2 } is now an orthonormal basis
 
 	    //start*cos(theta) + v2*sin(theta);
-	    Vec4 left = startQ.scale((float)Math.cos(theta));
-	    Vec4 right = v2.scale((float)Math.sin(theta));
-	    return new Quaternion(left.add(right));
+	    float cos = FastMath.cos(theta, mode);
+	    float sin = FastMath.sin(theta, mode)*vInv;
+	    dest.data.set(sx*cos+vx*sin, sy*cos+vy*sin, sz*cos+vz*sin, sw*cos+vw*sin);
+	    return dest;
 	}
 }
@@ -257,6 +257,93 @@ public abstract class VecUtil {
 		return new Vec4(vector).scale(scalar);
 	}
 	
+	/**
+	 * Adds {@code a} and {@code b} storing the result in {@code dest}, unlike {@link #add(Vec3...)} this does not
+	 * allocate any objects. {@code dest} may be the same object as either of the inputs.
+	 * 
+	 * @param a Vector to add to
+	 * @param b Vector to add
+	 * @param dest Vector to store the result in
+	 * 
+	 * @return The {@code dest} vector
+	 */
+	public static Vec3 sum(Vec3 a, Vec3 b, Vec3 dest){
+		return dest.set(a.x+b.x, a.y+b.y, a.z+b.z);
+	}
+	
+	/**
+	 * Subtracts {@code b} from {@code a} storing the result in {@code dest}, unlike {@link #subtract(Vec3...)} this does
+	 * not allocate any objects. {@code dest} may be the same object as either of the inputs.
+	 * 
+	 * @param a Vector to subtract from
+	 * @param b Vector to subtract
+	 * @param dest Vector to store the result in
+	 * 
+	 * @return The {@code dest} vector
+	 */
+	public static Vec3 sub(Vec3 a, Vec3 b, Vec3 dest){
+		return dest.set(a.x-b.x, a.y-b.y, a.z-b.z);
+	}
+	
+	/**
+	 * Computes the cross product {@code a} x {@code b} storing the result in {@code dest}, unlike {@link #cross(Vec3...)}
+	 * this does not allocate any objects. {@code dest} may be the same object as either of the inputs.
+	 * 
+	 * @param a Left hand vector of the cross product
+	 * @param b Right hand vector of the cross product
+	 * @param dest Vector to store the result in
+	 * 
+	 * @return The {@code dest} vector
+	 */
+	public static Vec3 crossProduct(Vec3 a, Vec3 b, Vec3 dest){
+		return dest.set(
+				a.y*b.z - a.z*b.y,
+				a.z*b.x - a.x*b.z,
+				a.x*b.y - a.y*b.x
+				);
+	}
+	
+	/**
+	 * Scales {@code vector} by {@code scalar} storing the result in {@code dest}. {@code dest} may be the same object as
+	 * {@code vector}.
+	 * 
+	 * @param vector Vector to scale
+	 * @param scalar Factor to scale the vector by
+	 * @param dest Vector to store the result in
+	 * 
+	 * @return The {@code dest} vector
+	 */
+	public static Vec3 scale(Vec3 vector, float scalar, Vec3 dest){
+		return dest.set(vector.x*scalar, vector.y*scalar, vector.z*scalar);
+	}
+	
+	/**
+	 * Computes {@code a}+{@code b}*{@code scalar} storing the result in {@code dest}. {@code dest} may be the same object
+	 * as either of the inputs.
+	 * 
+	 * @param a Vector to add to
+	 * @param b Vector to scale then add
+	 * @param scalar Factor to scale {@code b} by
+	 * @param dest Vector to store the result in
+	 * 
+	 * @return The {@code dest} vector
+	 */
+	public static Vec3 scaleAdd(Vec3 a, Vec3 b, float scalar, Vec3 dest){
+		return dest.set(a.x+b.x*scalar, a.y+b.y*scalar, a.z+b.z*scalar);
+	}
+	
+	/**
+	 * Normalizes {@code vector} storing the result in {@code dest}. {@code dest} may be the same object as {@code vector}.
+	 * 
+	 * @param vector Vector to normalize
+	 * @param dest Vector to store the result in
+	 * 
+	 * @return The {@code dest} vector
+	 */
+	public static Vec3 normalize(Vec3 vector, Vec3 dest){
+		return dest.set(vector).normalize();
+	}
+	
 	/**
 	 * Converts the given Vector {@code vec} to a type Vec2.
 	 * <br>
@@ -7,114 +7,120 @@ import glMath.vectors.Vector;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
+import java.util.Arrays;
 
 import org.lwjgl.BufferUtils;
 
 /**
- * 
+ * 3x3 matrix stored as a flat array of 9 floats in column major order, the same layout the GL expects for
+ * matrix uniforms. Element (col, row) of this matrix is stored at index {@code col*3+row}.
+ *
  * @author Kevin Mango
  *
  */
 public class Mat3 implements Matrix {
-	private Vec3[] matrix;
+	private final float[] data;
 	public static final int SIZE_IN_BYTES = 36;
 	public static final int SIZE_IN_FLOATS = 9;
-	
+
 	/**
 	 * Defaeult constructs this matrix to be the indentity matrix
 	 */
 	public Mat3(){
-		matrix = new Vec3[3];
+		data = new float[SIZE_IN_FLOATS];
 		this.loadIdentity();
 	}
-	
+
 	/**
 	 * Constructs this matrix using the given value as the value of the diagonal of this matrix
-	 * 
+	 *
 	 * @param diag Value to make as the diagonal of this matrix
 	 */
 	public Mat3(float diag){
-		matrix = new Vec3[3];
-		matrix[0] = new Vec3(diag,0,0);
-		matrix[1] = new Vec3(0,diag,0);
-		matrix[2] = new Vec3(0,0,diag);
+		data = new float[SIZE_IN_FLOATS];
+		data[0] = diag;
+		data[4] = diag;
+		data[8] = diag;
 	}
-	
+
 	/**
 	 * Constructs this matrix by using the three given vectors as the columns of this matrix
-	 * 
+	 *
 	 * @param col1 Vector used for the first column of this matrix
 	 * @param col2 Vector used for the second column of this matrix
 	 * @param col3 Vector used for the third column of this matrix
 	 */
 	public Mat3(Vec3 col1, Vec3 col2, Vec3 col3){
-		matrix = new Vec3[3];
-		matrix[0] = new Vec3(col1);
-		matrix[1] = new Vec3(col2);
-		matrix[2] = new Vec3(col3);
+		data = new float[SIZE_IN_FLOATS];
+		setColumn(0, col1.x, col1.y, col1.z);
+		setColumn(1, col2.x, col2.y, col2.z);
+		setColumn(2, col3.x, col3.y, col3.z);
 	}
-	
+
+	/**
+	 * Constructs this matrix from the given values in column major order, any values not given are set to 0
+	 *
+	 * @param values Values of this matrix in column major order
+	 */
 	public Mat3(float... values){
-		matrix = new Vec3[3];
-		matrix[0] = new Vec3();
-		matrix[1] = new Vec3();
-		matrix[2] = new Vec3();
-		for(int curValue = 0; curValue < values.length; curValue++){
-			setValueAt(curValue, values[curValue]);
-		}
+		data = new float[SIZE_IN_FLOATS];
+		System.arraycopy(values, 0, data, 0, Math.min(values.length, SIZE_IN_FLOATS));
 	}
-	
+
 	/**
 	 * Constructs a copy of the given matrix
-	 * 
+	 *
 	 * @param copy Matrix to copy
 	 */
 	public Mat3(Mat3 copy){
-		matrix = new Vec3[3];
-		Vec3[] copyFrom = copy.getMatrix();
-		matrix[0] = new Vec3(copyFrom[0]);
-		matrix[1] = new Vec3(copyFrom[1]);
-		matrix[2] = new Vec3(copyFrom[2]);
+		data = new float[SIZE_IN_FLOATS];
+		System.arraycopy(copy.data, 0, data, 0, SIZE_IN_FLOATS);
 	}
-	
+
 	/**
 	 * Gets the upper 2x2 matrix of this matrix
-	 * 
+	 *
 	 * @return Matrix representing the upper left 2x2 portion of this matrix
 	 */
 	public Mat2 getUpperMatrix(){
-		return new Mat2((Vec2)matrix[0].swizzle("xy"), (Vec2)matrix[1].swizzle("xy"));
+		return new Mat2(new Vec2(data[0], data[1]), new Vec2(data[3], data[4]));
 	}
-	
+
+	private void setColumn(int index, float x, float y, float z){
+		int offset = index*3;
+		data[offset] = x;
+		data[offset+1] = y;
+		data[offset+2] = z;
+	}
+
 	@Override
 	public Mat3 invert() {
-		float det = this.determinant();
+		float a00 = data[0], a01 = data[1], a02 = data[2];
+		float a10 = data[3], a11 = data[4], a12 = data[5];
+		float a20 = data[6], a21 = data[7], a22 = data[8];
+
+		//cofactors of the first column, these also give the determinant
+		float c00 = a11*a22 - a21*a12;
+		float c01 = a21*a02 - a01*a22;
+		float c02 = a01*a12 - a11*a02;
+		float det = a00*c00 + a10*c01 + a20*c02;
 		if(det != 0){
-			Vec3 col1 = new Vec3(
-					matrix[1].y*matrix[2].z-matrix[2].y*matrix[1].z,
-					matrix[2].y*matrix[0].z-matrix[0].y*matrix[2].z,
-					matrix[0].y*matrix[1].z-matrix[1].y*matrix[0].z
-					);
-			Vec3 col2 =  new Vec3(
-					matrix[2].x*matrix[1].z-matrix[1].x*matrix[2].z,
-					matrix[0].x*matrix[2].z-matrix[2].x*matrix[0].z,
-					matrix[1].x*matrix[0].z-matrix[0].x*matrix[1].z
-					);
-			Vec3 col3 = new Vec3(
-					matrix[1].x*matrix[2].y-matrix[2].x*matrix[1].y,
-					matrix[2].x*matrix[0].y-matrix[0].x*matrix[2].y,
-					matrix[0].x*matrix[1].y-matrix[1].x*matrix[0].y
-					);
-			matrix[0].set(col1);
-			matrix[1].set(col2);
-			matrix[2].set(col3);
-			this.multFactor(1.0f/det);
+			float invDet = 1.0f/det;
+			data[0] = c00*invDet;
+			data[1] = c01*invDet;
+			data[2] = c02*invDet;
+			data[3] = (a20*a12 - a10*a22)*invDet;
+			data[4] = (a00*a22 - a20*a02)*invDet;
+			data[5] = (a10*a02 - a00*a12)*invDet;
+			data[6] = (a10*a21 - a20*a11)*invDet;
+			data[7] = (a20*a01 - a00*a21)*invDet;
+			data[8] = (a00*a11 - a10*a01)*invDet;
 		}else{
 			System.err.println("This matrix is not invertible");
 		}
 		return this;
 	}
-	
+
 	@Override
 	public Mat3 inverse() {
 		return new Mat3(this).invert();
@@ -122,29 +128,27 @@ public class Mat3 implements Matrix {
 
 	@Override
 	public float determinant() {
-		return matrix[0].x*(matrix[1].y*matrix[2].z-matrix[2].y*matrix[1].z)
-				-matrix[1].x*(matrix[0].y*matrix[2].z-matrix[2].y*matrix[0].z)
-				+matrix[2].x*(matrix[0].y*matrix[1].z-matrix[1].y*matrix[0].z);
+		return data[0]*(data[4]*data[8]-data[7]*data[5])
+				-data[3]*(data[1]*data[8]-data[7]*data[2])
+				+data[6]*(data[1]*data[5]-data[4]*data[2]);
 	}
 
 	@Override
 	public Mat3 transpose() {
-		Vec3 col1 = new Vec3(matrix[0].x, matrix[1].x,  matrix[2].x);
-		Vec3 col2 = new Vec3(matrix[0].y, matrix[1].y,  matrix[2].y);
-		Vec3 col3 = new Vec3(matrix[0].z, matrix[1].z,  matrix[2].z);
-		matrix[0].set(col1);
-		matrix[1].set(col2);
-		matrix[2].set(col3);
+		float temp;
+		temp = data[1]; data[1] = data[3]; data[3] = temp;
+		temp = data[2]; data[2] = data[6]; data[6] = temp;
+		temp = data[5]; data[5] = data[7]; data[7] = temp;
 		return this;
 	}
 
 	@Override
 	public Mat3 add(Matrix rhs) {
 		if(rhs instanceof Mat3){
-			Mat3 toAdd = (Mat3)rhs;
-			matrix[0].add(toAdd.col(0));
-			matrix[1].add(toAdd.col(1));
-			matrix[2].add(toAdd.col(2));
+			float[] toAdd = ((Mat3)rhs).data;
+			for(int element = 0; element < SIZE_IN_FLOATS; element++){
+				data[element] += toAdd[element];
+			}
 		}else{
 			System.err.println("Type mismatch in matrix addition\nrhs must be of type Mat3");
 		}
@@ -154,10 +158,10 @@ public class Mat3 implements Matrix {
 	@Override
 	public Mat3 subtract(Matrix rhs) {
 		if(rhs instanceof Mat3){
-			Mat3 toAdd = (Mat3)rhs;
-			matrix[0].subtract(toAdd.col(0));
-			matrix[1].subtract(toAdd.col(1));
-			matrix[2].subtract(toAdd.col(2));
+			float[] toSubtract = ((Mat3)rhs).data;
+			for(int element = 0; element < SIZE_IN_FLOATS; element++){
+				data[element] -= toSubtract[element];
+			}
 		}else{
 			System.err.println("Type mismatch in matrix subtraction\nrhs must be of type Mat3");
 		}
@@ -166,132 +170,154 @@ public class Mat3 implements Matrix {
 
 	@Override
 	public Mat3 loadIdentity() {
-		matrix[0].set(1.0f,0.0f,0.0f);
-		matrix[1].set(0.0f,1.0f,0.0f);
-		matrix[2].set(0.0f,0.0f,1.0f);
+		Arrays.fill(data, 0.0f);
+		data[0] = 1.0f;
+		data[4] = 1.0f;
+		data[8] = 1.0f;
 		return this;
 	}
 
 	@Override
 	public Mat3 multFactor(float factor) {
-		matrix[0].scale(factor);
-		matrix[1].scale(factor);
-		matrix[2].scale(factor);
+		for(int element = 0; element < SIZE_IN_FLOATS; element++){
+			data[element] *= factor;
+		}
 		return this;
 	}
 
 	@Override
 	public Vec3 multVec(Vector vec) {
 		if(vec instanceof Vec3){
-			Vec3 mult = (Vec3)vec;
-			Vec3 row1 = new Vec3(matrix[0].x, matrix[1].x, matrix[2].x);
-			Vec3 row2 = new Vec3(matrix[0].y, matrix[1].y, matrix[2].y);
-			Vec3 row3 = new Vec3(matrix[0].z, matrix[1].z, matrix[2].z);
-			return new Vec3(row1.dot(mult), row2.dot(mult), row3.dot(mult));
+			return multVec((Vec3)vec, new Vec3());
 		}else{
 			System.err.println("Type mismatch in matrix vector multiplication\nvec must be of type Vec3");
 		}
 		return null;
 	}
 
+	/**
+	 * Multiplies the given vector by this matrix storing the result in {@code dest}
+	 *
+	 * @param vec Vector to multiply by this matrix
+	 * @param dest Vector to store the result in, this may be the same object as {@code vec}
+	 *
+	 * @return The {@code dest} vector
+	 */
+	public Vec3 multVec(Vec3 vec, Vec3 dest){
+		float x = vec.x, y = vec.y, z = vec.z;
+		return dest.set(
+				data[0]*x + data[3]*y + data[6]*z,
+				data[1]*x + data[4]*y + data[7]*z,
+				data[2]*x + data[5]*y + data[8]*z
+				);
+	}
+
 	@Override
 	public Mat3 multiply(Matrix rhs) {
 		if(rhs instanceof Mat3){
-			Mat3 multMat = (Mat3)rhs;
-			Vec3 row1 = new Vec3(matrix[0].x, matrix[1].x, matrix[2].x);
-			Vec3 row2 = new Vec3(matrix[0].y, matrix[1].y, matrix[2].y);
-			Vec3 row3 = new Vec3(matrix[0].z, matrix[1].z, matrix[2].z);
-			matrix[0].set( row1.dot(multMat.col(0)), row2.dot(multMat.col(0)), row3.dot(multMat.col(0)) );
-			matrix[1].set( row1.dot(multMat.col(1)), row2.dot(multMat.col(1)), row3.dot(multMat.col(1)) );
-			matrix[2].set( row1.dot(multMat.col(2)), row2.dot(multMat.col(2)), row3.dot(multMat.col(2)) );
+			mul(this, (Mat3)rhs, this);
 		}else{
 			System.err.println("Type mismatch in matrix multiplication\nrhs must be of type Mat3");
 		}
 		return this;
 	}
-	
+
+	/**
+	 * Multiplies {@code a} by {@code b} storing the product in {@code dest}, this does not allocate any objects
+	 *
+	 * @param a Left hand matrix of the product
+	 * @param b Right hand matrix of the product
+	 * @param dest Matrix to store the product in, this may be the same object as either of the inputs
+	 *
+	 * @return The {@code dest} matrix containing a*b
+	 */
+	public static Mat3 mul(Mat3 a, Mat3 b, Mat3 dest){
+		float[] lhs = a.data, rhs = b.data, out = dest.data;
+		float a00 = lhs[0], a01 = lhs[1], a02 = lhs[2];
+		float a10 = lhs[3], a11 = lhs[4], a12 = lhs[5];
+		float a20 = lhs[6], a21 = lhs[7], a22 = lhs[8];
+
+		//a is held in locals and each column of b is read before the same column of dest is written so dest can be
+		//either of the inputs
+		float bx = rhs[0], by = rhs[1], bz = rhs[2];
+		out[0] = a00*bx + a10*by + a20*bz;
+		out[1] = a01*bx + a11*by + a21*bz;
+		out[2] = a02*bx + a12*by + a22*bz;
+
+		bx = rhs[3]; by = rhs[4]; bz = rhs[5];
+		out[3] = a00*bx + a10*by + a20*bz;
+		out[4] = a01*bx + a11*by + a21*bz;
+		out[5] = a02*bx + a12*by + a22*bz;
+
+		bx = rhs[6]; by = rhs[7]; bz = rhs[8];
+		out[6] = a00*bx + a10*by + a20*bz;
+		out[7] = a01*bx + a11*by + a21*bz;
+		out[8] = a02*bx + a12*by + a22*bz;
+		return dest;
+	}
+
 	@Override
 	public Mat3 leftMult(Matrix lhs){
 		if(lhs instanceof Mat3){
-			Vec3[] lhsCols = ((Mat3)lhs).getMatrix();
-			Vec3 row1 = new Vec3(lhsCols[0].x, lhsCols[1].x, lhsCols[2].x);
-			Vec3 row2 = new Vec3(lhsCols[0].y, lhsCols[1].y, lhsCols[2].y);
-			Vec3 row3 = new Vec3(lhsCols[0].z, lhsCols[1].z, lhsCols[2].z);
-			matrix[0].set( row1.dot(matrix[0]), row2.dot(matrix[0]), row3.dot(matrix[0]) );
-			matrix[1].set( row1.dot(matrix[1]), row2.dot(matrix[1]), row3.dot(matrix[1]) );
-			matrix[2].set( row1.dot(matrix[2]), row2.dot(matrix[2]), row3.dot(matrix[2]) );
+			mul((Mat3)lhs, this, this);
 		}else{
 			System.err.println("Type mismatch in left matrix multiplication\nlhs must be of type Mat3");
 		}
 		return this;
 	}
 
+	/**
+	 * Gets a copy of the column of this matrix at the specified index, changes to the returned vector are not
+	 * reflected in this matrix, use {@link #setColumn(int, Vector)} to change a column
+	 *
+	 * @param index Index of the column to retrieve from the matrix
+	 * @return Copy of the column at index in this matrix, or null if the index is out of bounds
+	 */
 	@Override
 	public Vec3 col(int index) {
-		return index < matrix.length ? matrix[index] : null;
+		if(index < 0 || index > 2){
+			return null;
+		}
+		int offset = index*3;
+		return new Vec3(data[offset], data[offset+1], data[offset+2]);
 	}
-	
+
 	@Override
 	public float valueAt(int index) throws IndexOutOfBoundsException{
-		//decide what vector to read from
-		switch(index/4){
-			case 0:
-				//decide what value from that vector to get
-				switch(index%4){
-					case 0:
-						return matrix[0].x;
-					case 1:
-						return matrix[0].y;
-					case 2:
-						return matrix[0].z;
-				}
-			case 1:
-				switch(index%4){
-					case 0:
-						return matrix[1].x;
-					case 1:
-						return matrix[1].y;
-					case 2:
-						return matrix[1].z;
-				}
-			case 2:
-				switch(index%4){
-					case 0:
-						return matrix[2].x;
-					case 1:
-						return matrix[2].y;
-					case 2:
-						return matrix[2].z;
-				}
-			default:
-				throw new IndexOutOfBoundsException("Value at index: "+index+" is out of bounds for a Mat3");
+		if(index < 0 || index >= SIZE_IN_FLOATS){
+			throw new IndexOutOfBoundsException("Value at index: "+index+" is out of bounds for a Mat3");
 		}
+		return data[index];
 	}
 
 	@Override
 	public void setColumn(int index, Vector column) throws IndexOutOfBoundsException{
-		if(index < matrix.length && column instanceof Vec3){
-			matrix[index].set(column);
+		if(index > -1 && index < 3 && column instanceof Vec3){
+			Vec3 vec = (Vec3)column;
+			setColumn(index, vec.x, vec.y, vec.z);
 		}else{
 			String outOfBounds = "The column being indexed is out of the bounds of this matrix type, the bounds are 0-2";
 			String wrongType = "Type mismatch, the vector type used for inserting into this matrix is of type Vec3\n"
 					+ "the paramater given does not match this type";
-			System.err.println(index < matrix.length ? wrongType : outOfBounds);
+			System.err.println(index > -1 && index < 3 ? wrongType : outOfBounds);
 		}
 	}
 
+	/**
+	 * Gets the columns of this matrix as an array of vectors, the vectors are copies of the columns and changes
+	 * to them are not reflected in this matrix
+	 *
+	 * @return Vector array containing copies of the columns of this matrix
+	 */
 	@Override
 	public Vec3[] getMatrix() {
-		return matrix;
+		return new Vec3[]{col(0), col(1), col(2)};
 	}
 
 	@Override
 	public void setMatrix(Matrix mat) {
 		if(mat instanceof Mat3){
-			Mat3 copyFrom = (Mat3)mat;
-			matrix[0].set(copyFrom.col(0));
-			matrix[1].set(copyFrom.col(1));
-			matrix[2].set(copyFrom.col(2));
+			System.arraycopy(((Mat3)mat).data, 0, data, 0, SIZE_IN_FLOATS);
 		}else{
 			System.err.println("Type mismatch in setting matrix\nmat must be of type Mat3");
 		}
@@ -299,132 +325,172 @@ public class Mat3 implements Matrix {
 
 	@Override
 	public void setValueAt(int col, int row, float value) {
-		if(col < matrix.length && row < 3){
-			matrix[col].set(row,  value);
+		if(col > -1 && col < 3 && row > -1 && row < 3){
+			data[col*3+row] = value;
 		}else{
-			System.err.println("The requested "+(col < matrix.length ? "row" : "column")+" is out of bounds for this matrix");
+			System.err.println("The requested "+(col > -1 && col < 3 ? "row" : "column")+" is out of bounds for this matrix");
 		}
 	}
 
 	@Override
-	public void setValueAt(int index, float value){
-		//decide what vector to read from
-		switch(index/3){
-			case 0:
-				//decide what value from that vector to get
-				switch(index%3){
-					case 0:
-						matrix[0].x = value;
-					case 1:
-						matrix[0].y = value;
-					case 2:
-						matrix[0].z = value;
-				}
-			case 1:
-				switch(index%3){
-					case 0:
-						matrix[1].x = value;
-					case 1:
-						matrix[1].y = value;
-					case 2:
-						matrix[1].z = value;
-				}
-			case 2:
-				switch(index%3){
-					case 0:
-						matrix[2].x = value;
-					case 1:
-						matrix[2].y = value;
-					case 2:
-						matrix[2].z = value;
-				}
+	public void setValueAt(int index, float value) throws IndexOutOfBoundsException{
+		if(index < 0 || index >= SIZE_IN_FLOATS){
+			throw new IndexOutOfBoundsException("Value at index: "+index+" is out of bounds for a Mat3");
 		}
+		data[index] = value;
 	}
 
+	/**
+	 * Stores this matrix into a buffer in column major order using a single bulk put
+	 *
+	 * @param storage Float buffer to store into
+	 * @throws BufferOverflowException
+	 */
 	@Override
-	public void store(FloatBuffer storage) {
-		matrix[0].store(storage);
-		matrix[1].store(storage);
-		matrix[2].store(storage);
+	public void store(FloatBuffer storage) throws BufferOverflowException{
+		storage.put(data);
 	}
-	
+
+	/**
+	 * Stores this matrix into a buffer in column major order, the values are written in bulk through a float
+	 * view of the buffer using the buffers byte order
+	 *
+	 * @param storage Byte buffer to store into
+	 * @throws BufferOverflowException
+	 */
 	@Override
-	public void store(ByteBuffer storage) {
-		matrix[0].store(storage);
-		matrix[1].store(storage);
-		matrix[2].store(storage);
+	public void store(ByteBuffer storage) throws BufferOverflowException{
+		if(storage.remaining() < SIZE_IN_BYTES){
+			throw new BufferOverflowException();
+		}
+		storage.asFloatBuffer().put(data);
+		storage.position(storage.position()+SIZE_IN_BYTES);
+	}
+
+	/**
+	 * Stores this matrix into the given array in column major order
+	 *
+	 * @param storage Array to store this matrix into
+	 * @param offset Index in {@code storage} to start writing this matrix at
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void store(float[] storage, int offset) throws IndexOutOfBoundsException{
+		System.arraycopy(data, 0, storage, offset, SIZE_IN_FLOATS);
+	}
+
+	/**
+	 * Sets this matrix to the 9 column major values in the given array starting at {@code offset}
+	 *
+	 * @param values Array to read this matrix from
+	 * @param offset Index in {@code values} of the first value of the matrix
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void load(float[] values, int offset) throws IndexOutOfBoundsException{
+		System.arraycopy(values, offset, data, 0, SIZE_IN_FLOATS);
 	}
 
 	@Override
 	public boolean equals(Object compare){
 		if(compare instanceof Mat3){
-			Vec3[] mat = ((Mat3)compare).getMatrix();
-			return matrix[0].equals(mat[0]) && matrix[1].equals(mat[1]) && matrix[2].equals(mat[2]);
+			float[] mat = ((Mat3)compare).data;
+			for(int element = 0; element < SIZE_IN_FLOATS; element++){
+				if(data[element] != mat[element]){
+					return false;
+				}
+			}
+			return true;
 		}else{
 			return false;
 		}
 	}
 
+	@Override
+	public int hashCode(){
+		return Arrays.hashCode(data);
+	}
+
 	@Override
 	public FloatBuffer asFloatBuffer(){
 		FloatBuffer storage = BufferUtils.createFloatBuffer(SIZE_IN_FLOATS);
 		this.store(storage);
 		return (FloatBuffer)storage.flip();
 	}
-	
+
 	@Override
 	public ByteBuffer asByteBuffer(){
 		ByteBuffer storage = BufferUtils.createByteBuffer(SIZE_IN_BYTES);
 		this.store(storage);
 		return (ByteBuffer)storage.flip();
 	}
-	
+
 	@Override
 	public String toString(){
-		return matrix[0].x+" | "+matrix[1].x+" | "+matrix[2].x+"\n"+
-				matrix[0].y+" | "+matrix[1].y+" | "+matrix[2].y+"\n"+
-				matrix[0].z+" | "+matrix[1].z+" | "+matrix[2].z+"\n";
+		return data[0]+" | "+data[3]+" | "+data[6]+"\n"+
+				data[1]+" | "+data[4]+" | "+data[7]+"\n"+
+				data[2]+" | "+data[5]+" | "+data[8]+"\n";
 	}
-	
+
 	@Override
 	public void print(){
 		System.out.println(toString());
 	}
-	
+
 	@Override
 	public float trace(){
-		return matrix[0].x+matrix[1].y+matrix[2].z;
+		return data[0]+data[4]+data[8];
 	}
-	
+
 	@Override
 	public void trunc(){
-		matrix[0].trunc();
-		matrix[1].trunc();
-		matrix[2].trunc();
+		for(int element = 0; element < SIZE_IN_FLOATS; element++){
+			if(data[element] < Vector.ROUND_VALUE && data[element] > -Vector.ROUND_VALUE){
+				data[element] = 0.0f;
+			}
+		}
 	}
 
 	@Override
 	public void orthonormalize(){
-//		matrix[1].subtract(matrix[0].proj(matrix[1]));//v2-proj1(v2)
-//		matrix[2].subtract(matrix[0].proj(matrix[2])).subtract(matrix[1].proj(matrix[2]));//v3-proj1(v3)-proj2(v3)
-//		//normalize
-//		matrix[0].normalize();
-//		matrix[1].normalize();
-//		matrix[2].normalize();
-
+		//modified gram-schmidt, classical gram-schmidt is numerically unstable
 		for(int curVec = 0; curVec < 3; curVec++){
-			matrix[curVec].normalize();
+			int cur = curVec*3;
+			float length = (float)Math.sqrt(data[cur]*data[cur]+data[cur+1]*data[cur+1]+data[cur+2]*data[cur+2]);
+			if(length != 0){
+				data[cur] /= length;
+				data[cur+1] /= length;
+				data[cur+2] /= length;
+			}
 			for(int nextVec = curVec+1; nextVec < 3; nextVec++){
-				matrix[nextVec].subtract(matrix[nextVec].proj(matrix[curVec]));
+				int next = nextVec*3;
+				//remove the projection of the next column onto the current column
+				float dot = data[next]*data[cur]+data[next+1]*data[cur+1]+data[next+2]*data[cur+2];
+				data[next] -= dot*data[cur];
+				data[next+1] -= dot*data[cur+1];
+				data[next+2] -= dot*data[cur+2];
 			}
 		}
-		
-		if(matrix[0].isZero()){
-			matrix[0].set(matrix[1].cross(matrix[2]));
-		}else if(matrix[1].isZero()){
-			matrix[1].set(matrix[0].cross(matrix[2]));
-		}else if(matrix[2].isZero()){
-			matrix[2].set(matrix[0].cross(matrix[1]));
+
+		//a degenerate column is replaced by the cross product of the other two
+		if(isZeroColumn(0)){
+			cross(1, 2, 0);
+		}else if(isZeroColumn(1)){
+			cross(0, 2, 1);
+		}else if(isZeroColumn(2)){
+			cross(0, 1, 2);
 		}
 	}
+
+	private boolean isZeroColumn(int index){
+		int offset = index*3;
+		return data[offset] == 0 && data[offset+1] == 0 && data[offset+2] == 0;
+	}
+
+	private void cross(int lhs, int rhs, int dest){
+		int l = lhs*3, r = rhs*3;
+		setColumn(dest,
+				data[l+1]*data[r+2]-data[l+2]*data[r+1],
+				data[l+2]*data[r]-data[l]*data[r+2],
+				data[l]*data[r+1]-data[l+1]*data[r]
+				);
+	}
 }
@@ -7,244 +7,400 @@ import glMath.vectors.Vector;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
+import java.util.Arrays;
 
 import org.lwjgl.BufferUtils;
 
 /**
- * 
+ * 4x4 matrix stored as a flat array of 16 floats in column major order, the same layout the GL expects for
+ * matrix uniforms. Element (col, row) of this matrix is stored at index {@code col*4+row}.
+ * <p>
+ * Each matrix also carries a property tag describing its structure, {@link #GENERAL}, {@link #AFFINE}, {@link #RIGID}
+ * or {@link #IDENTITY}. Inversion, multiplication and vector multiplication use cheaper formulas for the more
+ * specialized tags. The tag is set by the code that builds the matrix, such as {@code Transform.getMatrix()} and
+ * {@code Quaternion.asMatrix()}, and is reset to {@link #GENERAL} whenever elements are written directly.
+ * </p>
+ *
  * @author Kevin Mango
  *
  */
 public class Mat4 implements Matrix {
-	private Vec4[] matrix;
+	private final float[] data;
+	private int properties;
 	public static final int SIZE_IN_BYTES = 64;
 	public static final int SIZE_IN_FLOATS = 16;
-	
+	/*
+	 * The property tags are ordered from least to most specialized so the tag of a product is the lesser of the tags
+	 * of its factors
+	 */
+	public static final int 
+	GENERAL = 0,//no known structure
+	AFFINE = 1,//bottom row is 0, 0, 0, 1
+	RIGID = 2,//affine with an orthonormal upper 3x3, a rotation and translation
+	IDENTITY = 3;
+
 	/**
 	 * Default constructs this matrix as the identity matrix
 	 */
 	public Mat4(){
-		matrix = new Vec4[4];
+		data = new float[SIZE_IN_FLOATS];
 		this.loadIdentity();
 	}
-	
+
 	/**
 	 * Constructs this matrix using the given value as the diagonal of the matrix
-	 * 
+	 *
 	 * @param diag Value to set the diagonal components of this matrix to
 	 */
 	public Mat4(float diag){
-		matrix = new Vec4[4];
-		matrix[0] = new Vec4(diag,0,0,0);
-		matrix[1] = new Vec4(0,diag,0,0);
-		matrix[2] = new Vec4(0,0,diag,0);
-		matrix[3] = new Vec4(0,0,0,diag);
+		data = new float[SIZE_IN_FLOATS];
+		data[0] = diag;
+		data[5] = diag;
+		data[10] = diag;
+		data[15] = diag;
+		properties = diag == 1 ? IDENTITY : GENERAL;
 	}
-	
+
 	/**
 	 * Constructs this matrix using the given vectors as the columns of this matrix
-	 * 
+	 *
 	 * @param col1 Vector used for the first column of this matrix
 	 * @param col2 Vector used for the second column of this matrix
 	 * @param col3 Vector used for the third column of this matrix
 	 * @param col4 Vector used for the fourth column of this matrix
 	 */
 	public Mat4(Vec4 col1, Vec4 col2, Vec4 col3, Vec4 col4){
-		matrix = new Vec4[4];
-		matrix[0] = new Vec4(col1);
-		matrix[1] = new Vec4(col2);
-		matrix[2] = new Vec4(col3);
-		matrix[3] = new Vec4(col4);
+		data = new float[SIZE_IN_FLOATS];
+		setColumn(0, col1.x, col1.y, col1.z, col1.w);
+		setColumn(1, col2.x, col2.y, col2.z, col2.w);
+		setColumn(2, col3.x, col3.y, col3.z, col3.w);
+		setColumn(3, col4.x, col4.y, col4.z, col4.w);
 	}
-	
+
 	/**
-	 * Constructs this matrix using the given 3x3 matrix as the upper left component of this matrix and the 
-	 * given vector as the first three components of the right most column starting from the top. All other 
+	 * Constructs this matrix using the given 3x3 matrix as the upper left component of this matrix and the
+	 * given vector as the first three components of the right most column starting from the top. All other
 	 * parts are set to 0.
-	 * 
+	 *
 	 * @param upper 3x3 matrix to set as the upper left portion of this matrix
 	 * @param rightCol Vector to set as the right most columns first three components from the top
 	 */
 	public Mat4(Mat3 upper, Vec3 rightCol){
-		matrix = new Vec4[4];
-		Vec3[] upCopy = upper.getMatrix();
-		matrix[0] = new Vec4(upCopy[0], 0);
-		matrix[1] = new Vec4(upCopy[1], 0);
-		matrix[2] = new Vec4(upCopy[2], 0);
-		matrix[3] = new Vec4(rightCol , 1);
+		data = new float[SIZE_IN_FLOATS];
+		setColumn(0, upper.valueAt(0), upper.valueAt(1), upper.valueAt(2), 0);
+		setColumn(1, upper.valueAt(3), upper.valueAt(4), upper.valueAt(5), 0);
+		setColumn(2, upper.valueAt(6), upper.valueAt(7), upper.valueAt(8), 0);
+		setColumn(3, rightCol.x, rightCol.y, rightCol.z, 1);
+		properties = AFFINE;
 	}
-	
+
+	/**
+	 * Constructs this matrix from the given values in column major order, any values not given are set to 0
+	 *
+	 * @param values Values of this matrix in column major order
+	 */
 	public Mat4(float... values){
-		matrix = new Vec4[4];
-		matrix[0] = new Vec4();
-		matrix[1] = new Vec4();
-		matrix[2] = new Vec4();
-		matrix[3] = new Vec4();
-		for(int curValue = 0; curValue < values.length; curValue++){
-			setValueAt(curValue, values[curValue]);
-		}
+		data = new float[SIZE_IN_FLOATS];
+		System.arraycopy(values, 0, data, 0, Math.min(values.length, SIZE_IN_FLOATS));
 	}
-	
+
 	/**
 	 * Constructs this matrix using the given matrix as a copy
-	 * 
+	 *
 	 * @param copy Matrix to copy from
 	 */
 	public Mat4(Mat4 copy){
-		matrix = new Vec4[4];
-		Vec4[] copyFrom = copy.getMatrix();
-		matrix[0] = new Vec4(copyFrom[0]);
-		matrix[1] = new Vec4(copyFrom[1]);
-		matrix[2] = new Vec4(copyFrom[2]);
-		matrix[3] = new Vec4(copyFrom[3]);
+		data = new float[SIZE_IN_FLOATS];
+		System.arraycopy(copy.data, 0, data, 0, SIZE_IN_FLOATS);
+		properties = copy.properties;
+	}
+	
+	/**
+	 * Gets the property tag of this matrix
+	 *
+	 * @return One of {@link #GENERAL}, {@link #AFFINE}, {@link #RIGID} or {@link #IDENTITY}
+	 */
+	public int getProperties(){
+		return properties;
 	}
 	
+	/**
+	 * Sets the property tag of this matrix, this is not checked against the values of the matrix and tagging a matrix
+	 * with a property it does not have will give incorrect results from the functions that use the tag
+	 *
+	 * @param properties One of {@link #GENERAL}, {@link #AFFINE}, {@link #RIGID} or {@link #IDENTITY}
+	 * @throws IllegalArgumentException
+	 */
+	public void setProperties(int properties) throws IllegalArgumentException{
+		if(properties < GENERAL || properties > IDENTITY){
+			throw new IllegalArgumentException("Unknown matrix property: "+properties);
+		}
+		this.properties = properties;
+	}
+	
+	/**
+	 * Gets whether the bottom row of this matrix is known to be 0, 0, 0, 1
+	 *
+	 * @return True if this matrix is tagged as affine, rigid or identity
+	 */
+	public boolean isAffine(){
+		return properties >= AFFINE;
+	}
+
 	/**
 	 * Gets the upper 3x3 portion of this matrix and returns it as a matrix
-	 * 
+	 *
 	 * @return Matrix containing the upper left 3x3 portion of this matrix
 	 */
 	public Mat3 getNormalMatrix(){
-		return new Mat3( 
-				(Vec3)matrix[0].swizzle("xyz"),
-				(Vec3)matrix[1].swizzle("xyz"),
-				(Vec3)matrix[2].swizzle("xyz") 
+		return new Mat3(
+				data[0], data[1], data[2],
+				data[4], data[5], data[6],
+				data[8], data[9], data[10]
 				);
 	}
 
+	/**
+	 * Sets the column of this matrix at {@code index} to the given values
+	 *
+	 * @param index Index of the column to set, from 0 to 3
+	 * @param x Value of the first row of the column
+	 * @param y Value of the second row of the column
+	 * @param z Value of the third row of the column
+	 * @param w Value of the fourth row of the column
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void setColumn(int index, float x, float y, float z, float w) throws IndexOutOfBoundsException{
+		if(index < 0 || index > 3){
+			throw new IndexOutOfBoundsException("Column: "+index+" is out of bounds for a Mat4");
+		}
+		int offset = index*4;
+		data[offset] = x;
+		data[offset+1] = y;
+		data[offset+2] = z;
+		data[offset+3] = w;
+		properties = GENERAL;
+	}
+
 	@Override
 	public Mat4 invert() {
-		float det = this.determinant();//get the determinant
-		//check if this matrix is invertible
-		if( det != 0){
-			Vec4 col1 = new Vec4(
-					 matrix[1].y*(matrix[2].z*matrix[3].w-matrix[3].z*matrix[2].w)
-					 -matrix[2].y*(matrix[1].z*matrix[3].w-matrix[3].z*matrix[1].w)
-					 +matrix[3].y*(matrix[1].z*matrix[2].w-matrix[2].z*matrix[1].w),
-		
-					-(matrix[0].y*(matrix[2].z*matrix[3].w-matrix[3].z*matrix[2].w)
-					 -matrix[2].y*(matrix[0].z*matrix[3].w-matrix[3].z*matrix[0].w)
-					 +matrix[3].y*(matrix[0].z*matrix[2].w-matrix[2].z*matrix[0].w)),
-				
-					  matrix[0].y*(matrix[1].z*matrix[3].w-matrix[3].z*matrix[1].w)
-					 -matrix[1].y*(matrix[0].z*matrix[3].w-matrix[3].z*matrix[0].w)
-					 +matrix[3].y*(matrix[0].z*matrix[1].w-matrix[1].z*matrix[0].w),
-				
-					-(matrix[0].y*(matrix[1].z*matrix[2].w-matrix[2].z*matrix[1].w)
-					 -matrix[1].y*(matrix[0].z*matrix[2].w-matrix[2].z*matrix[0].w)
-					 +matrix[2].y*(matrix[0].z*matrix[1].w-matrix[1].z*matrix[0].w))
-					  );
-			
-			Vec4 col2 = new Vec4(
-					 -(matrix[1].x*(matrix[2].z*matrix[3].w-matrix[3].z*matrix[2].w)
-					 -matrix[2].x*(matrix[1].z*matrix[3].w-matrix[3].z*matrix[1].w)
-					 +matrix[3].x*(matrix[1].z*matrix[2].w-matrix[2].z*matrix[1].w)),
-		
-					  matrix[0].x*(matrix[2].z*matrix[3].w-matrix[3].z*matrix[2].w)
-					 -matrix[2].x*(matrix[0].z*matrix[3].w-matrix[3].z*matrix[0].w)
-					 +matrix[3].x*(matrix[0].z*matrix[2].w-matrix[2].z*matrix[0].w),
-				
-					  matrix[0].x*(matrix[1].z*matrix[3].w-matrix[3].z*matrix[1].w)
-					 -matrix[1].x*(matrix[0].z*matrix[3].w-matrix[3].z*matrix[0].w)
-					 +matrix[3].x*(matrix[0].z*matrix[1].w-matrix[1].z*matrix[0].w),
-				
-					 -(matrix[0].x*(matrix[1].z*matrix[2].w-matrix[2].z*matrix[1].w)
-					 -matrix[1].x*(matrix[0].z*matrix[2].w-matrix[2].z*matrix[0].w)
-					 +matrix[2].x*(matrix[0].z*matrix[1].w-matrix[1].z*matrix[0].w))
-					);
-			
-			Vec4 col3 = new Vec4(
-					 matrix[1].x*(matrix[2].y*matrix[3].w-matrix[3].y*matrix[2].w)
-					 -matrix[2].x*(matrix[1].y*matrix[3].w-matrix[3].y*matrix[1].w)
-					 +matrix[3].x*(matrix[1].y*matrix[2].w-matrix[2].y*matrix[1].w),
-		
-					-(matrix[0].x*(matrix[2].y*matrix[3].w-matrix[3].y*matrix[2].w)
-					 -matrix[2].x*(matrix[0].y*matrix[3].w-matrix[3].y*matrix[0].w)
-					 +matrix[3].x*(matrix[0].y*matrix[2].w-matrix[2].y*matrix[0].w)),
-				
-					  matrix[0].x*(matrix[1].y*matrix[3].w-matrix[3].y*matrix[1].w)
-					 -matrix[1].x*(matrix[0].y*matrix[3].w-matrix[3].y*matrix[0].w)
-					 +matrix[3].x*(matrix[0].y*matrix[1].w-matrix[1].y*matrix[0].w),
-				
-					-(matrix[0].x*(matrix[1].y*matrix[2].w-matrix[2].y*matrix[1].w)
-					 -matrix[1].x*(matrix[0].y*matrix[2].w-matrix[2].y*matrix[0].w)
-					 +matrix[2].x*(matrix[0].y*matrix[1].w-matrix[1].y*matrix[0].w))
-					  );
-			
-			Vec4 col4 = new Vec4(
-					 -(matrix[1].x*(matrix[2].y*matrix[3].z-matrix[3].y*matrix[2].z)
-					 -matrix[2].x*(matrix[1].y*matrix[3].z-matrix[3].y*matrix[1].z)
-					 +matrix[3].x*(matrix[1].y*matrix[2].z-matrix[2].y*matrix[1].z)),
-		
-					  matrix[0].x*(matrix[2].y*matrix[3].z-matrix[3].y*matrix[2].z)
-					 -matrix[2].x*(matrix[0].y*matrix[3].z-matrix[3].y*matrix[0].z)
-					 +matrix[3].x*(matrix[0].y*matrix[2].z-matrix[2].y*matrix[0].z),
-				
-					 -(matrix[0].x*(matrix[1].y*matrix[3].z-matrix[3].y*matrix[1].z)
-					 -matrix[1].x*(matrix[0].y*matrix[3].z-matrix[3].y*matrix[0].z)
-					 +matrix[3].x*(matrix[0].y*matrix[1].z-matrix[1].y*matrix[0].z)),
-				
-					 matrix[0].x*(matrix[1].y*matrix[2].z-matrix[2].y*matrix[1].z)
-					 -matrix[1].x*(matrix[0].y*matrix[2].z-matrix[2].y*matrix[0].z)
-					 +matrix[2].x*(matrix[0].y*matrix[1].z-matrix[1].y*matrix[0].z)
-					);
-			
-			matrix[0].set(col1);
-			matrix[1].set(col2);
-			matrix[2].set(col3);
-			matrix[3].set(col4);
-			this.multFactor(1/det);
-		}else{
-			System.err.println("This matrix is not invertible");
-		}
-		return this;
+		return inverse(this);
 	}
-	
+
 	@Override
 	public Mat4 inverse() {
 		return new Mat4(this).invert();
 	}
 
+	/**
+	 * Computes the inverse of this matrix storing it in {@code dest} without altering this matrix. If this matrix
+	 * is not invertible {@code dest} is left unchanged.
+	 *
+	 * @param dest Matrix to store the inverse in, this may be this matrix
+	 *
+	 * @return The {@code dest} matrix
+	 */
+	public Mat4 inverse(Mat4 dest){
+		boolean inverted;
+		switch(properties){
+			case IDENTITY:
+				if(dest != this){
+					dest.loadIdentity();
+				}
+				inverted = true;
+				break;
+			case RIGID:
+				invertRigid(data, dest.data);
+				inverted = true;
+				break;
+			case AFFINE:
+				inverted = invertAffine(data, dest.data);
+				break;
+			default:
+				inverted = invert(data, dest.data);
+				break;
+		}
+		if(inverted){
+			//the inverse has the same structure as the matrix
+			dest.properties = properties;
+		}else{
+			System.err.println("This matrix is not invertible");
+		}
+		return dest;
+	}
+
+	/**
+	 * Inverts the rigid column major matrix in {@code src}, the inverse of a rotation is its transpose and the 
+	 * translation is undone by the negated translation taken through the transposed rotation
+	 *
+	 * @param src Rigid matrix to invert
+	 * @param dest Array to store the inverse in, this may be the same array as {@code src}
+	 */
+	private static void invertRigid(float[] src, float[] dest){
+		float a00 = src[0], a01 = src[1], a02 = src[2];
+		float a10 = src[4], a11 = src[5], a12 = src[6];
+		float a20 = src[8], a21 = src[9], a22 = src[10];
+		float tx = src[12], ty = src[13], tz = src[14];
+
+		dest[0] = a00; dest[1] = a10; dest[2] = a20; dest[3] = 0;
+		dest[4] = a01; dest[5] = a11; dest[6] = a21; dest[7] = 0;
+		dest[8] = a02; dest[9] = a12; dest[10] = a22; dest[11] = 0;
+		dest[12] = -(a00*tx + a01*ty + a02*tz);
+		dest[13] = -(a10*tx + a11*ty + a12*tz);
+		dest[14] = -(a20*tx + a21*ty + a22*tz);
+		dest[15] = 1;
+	}
+
+	/**
+	 * Inverts the affine column major matrix in {@code src}, only the upper 3x3 needs a full inverse and the translation
+	 * is undone by the negated translation taken through that inverse
+	 *
+	 * @param src Affine matrix to invert
+	 * @param dest Array to store the inverse in, this may be the same array as {@code src}
+	 *
+	 * @return True if the matrix was inverted, false if the matrix is singular in which case {@code dest} is
+	 * not written to
+	 */
+	private static boolean invertAffine(float[] src, float[] dest){
+		float a00 = src[0], a01 = src[1], a02 = src[2];
+		float a10 = src[4], a11 = src[5], a12 = src[6];
+		float a20 = src[8], a21 = src[9], a22 = src[10];
+		float tx = src[12], ty = src[13], tz = src[14];
+
+		//cofactors of the first column
+		float c00 = a11*a22 - a12*a21;
+		float c10 = a12*a20 - a10*a22;
+		float c20 = a10*a21 - a11*a20;
+		float det = a00*c00 + a01*c10 + a02*c20;
+		if(det == 0){
+			return false;
+		}
+		float invDet = 1.0f/det;
+
+		float i00 = c00*invDet;
+		float i01 = (a02*a21 - a01*a22)*invDet;
+		float i02 = (a01*a12 - a02*a11)*invDet;
+		float i10 = c10*invDet;
+		float i11 = (a00*a22 - a02*a20)*invDet;
+		float i12 = (a02*a10 - a00*a12)*invDet;
+		float i20 = c20*invDet;
+		float i21 = (a01*a20 - a00*a21)*invDet;
+		float i22 = (a00*a11 - a01*a10)*invDet;
+
+		dest[0] = i00; dest[1] = i01; dest[2] = i02; dest[3] = 0;
+		dest[4] = i10; dest[5] = i11; dest[6] = i12; dest[7] = 0;
+		dest[8] = i20; dest[9] = i21; dest[10] = i22; dest[11] = 0;
+		dest[12] = -(i00*tx + i10*ty + i20*tz);
+		dest[13] = -(i01*tx + i11*ty + i21*tz);
+		dest[14] = -(i02*tx + i12*ty + i22*tz);
+		dest[15] = 1;
+		return true;
+	}
+
+	/**
+	 * Inverts the column major 4x4 matrix stored in {@code src} storing the result in {@code dest}
+	 *
+	 * @param src Matrix to invert
+	 * @param dest Array to store the inverse in, this may be the same array as {@code src}
+	 *
+	 * @return True if the matrix was inverted, false if the matrix is singular in which case {@code dest} is
+	 * not written to
+	 */
+	private static boolean invert(float[] src, float[] dest){
+		float a00 = src[0], a01 = src[1], a02 = src[2], a03 = src[3];
+		float a10 = src[4], a11 = src[5], a12 = src[6], a13 = src[7];
+		float a20 = src[8], a21 = src[9], a22 = src[10], a23 = src[11];
+		float a30 = src[12], a31 = src[13], a32 = src[14], a33 = src[15];
+
+		//2x2 determinants of the first two and last two columns, every cofactor is built from these
+		float b00 = a00*a11 - a01*a10;
+		float b01 = a00*a12 - a02*a10;
+		float b02 = a00*a13 - a03*a10;
+		float b03 = a01*a12 - a02*a11;
+		float b04 = a01*a13 - a03*a11;
+		float b05 = a02*a13 - a03*a12;
+		float b06 = a20*a31 - a21*a30;
+		float b07 = a20*a32 - a22*a30;
+		float b08 = a20*a33 - a23*a30;
+		float b09 = a21*a32 - a22*a31;
+		float b10 = a21*a33 - a23*a31;
+		float b11 = a22*a33 - a23*a32;
+
+		float det = b00*b11 - b01*b10 + b02*b09 + b03*b08 - b04*b07 + b05*b06;
+		if(det == 0){
+			return false;
+		}
+		float invDet = 1.0f/det;
+
+		dest[0] = (a11*b11 - a12*b10 + a13*b09)*invDet;
+		dest[1] = (a02*b10 - a01*b11 - a03*b09)*invDet;
+		dest[2] = (a31*b05 - a32*b04 + a33*b03)*invDet;
+		dest[3] = (a22*b04 - a21*b05 - a23*b03)*invDet;
+		dest[4] = (a12*b08 - a10*b11 - a13*b07)*invDet;
+		dest[5] = (a00*b11 - a02*b08 + a03*b07)*invDet;
+		dest[6] = (a32*b02 - a30*b05 - a33*b01)*invDet;
+		dest[7] = (a20*b05 - a22*b02 + a23*b01)*invDet;
+		dest[8] = (a10*b10 - a11*b08 + a13*b06)*invDet;
+		dest[9] = (a01*b08 - a00*b10 - a03*b06)*invDet;
+		dest[10] = (a30*b04 - a31*b02 + a33*b00)*invDet;
+		dest[11] = (a21*b02 - a20*b04 - a23*b00)*invDet;
+		dest[12] = (a11*b07 - a10*b09 - a12*b06)*invDet;
+		dest[13] = (a00*b09 - a01*b07 + a02*b06)*invDet;
+		dest[14] = (a31*b01 - a30*b03 - a32*b00)*invDet;
+		dest[15] = (a20*b03 - a21*b01 + a22*b00)*invDet;
+		return true;
+	}
+
 	@Override
 	public float determinant() {
-		return matrix[0].x*(matrix[1].y*(matrix[2].z*matrix[3].w-matrix[3].z*matrix[2].w)
-							-matrix[2].y*(matrix[1].z*matrix[3].w-matrix[3].z*matrix[1].w)
-							+matrix[3].y*(matrix[1].z*matrix[2].w-matrix[2].z*matrix[1].w))
-				
-				-matrix[1].x*(matrix[0].y*(matrix[2].z*matrix[3].w-matrix[3].z*matrix[2].w)
-							  -matrix[2].y*(matrix[0].z*matrix[3].w-matrix[3].z*matrix[0].w)
-							  +matrix[3].y*(matrix[0].z*matrix[2].w-matrix[2].z*matrix[0].w))
-						
-				+matrix[2].x*(matrix[0].y*(matrix[1].z*matrix[3].w-matrix[3].z*matrix[1].w)
-							  -matrix[1].y*(matrix[0].z*matrix[3].w-matrix[3].z*matrix[0].w)
-							  +matrix[3].y*(matrix[0].z*matrix[1].w-matrix[1].z*matrix[0].w))
-						
-				-matrix[3].x*(matrix[0].y*(matrix[1].z*matrix[2].w-matrix[2].z*matrix[1].w)
-							  -matrix[1].y*(matrix[0].z*matrix[2].w-matrix[2].z*matrix[0].w)
-							  +matrix[2].y*(matrix[0].z*matrix[1].w-matrix[1].z*matrix[0].w));
+		if(properties == IDENTITY){
+			return 1;
+		}else if(properties == RIGID){
+			//rotations preserve volume, the determinant of a proper rotation is 1
+			return 1;
+		}else if(properties == AFFINE){
+			return data[0]*(data[5]*data[10] - data[6]*data[9]) 
+					- data[4]*(data[1]*data[10] - data[2]*data[9]) 
+					+ data[8]*(data[1]*data[6] - data[2]*data[5]);
+		}
+		float b00 = data[0]*data[5] - data[1]*data[4];
+		float b01 = data[0]*data[6] - data[2]*data[4];
+		float b02 = data[0]*data[7] - data[3]*data[4];
+		float b03 = data[1]*data[6] - data[2]*data[5];
+		float b04 = data[1]*data[7] - data[3]*data[5];
+		float b05 = data[2]*data[7] - data[3]*data[6];
+		float b06 = data[8]*data[13] - data[9]*data[12];
+		float b07 = data[8]*data[14] - data[10]*data[12];
+		float b08 = data[8]*data[15] - data[11]*data[12];
+		float b09 = data[9]*data[14] - data[10]*data[13];
+		float b10 = data[9]*data[15] - data[11]*data[13];
+		float b11 = data[10]*data[15] - data[11]*data[14];
+		return b00*b11 - b01*b10 + b02*b09 + b03*b08 - b04*b07 + b05*b06;
 	}
 
 	@Override
 	public Mat4 transpose() {
-		Vec4 col1 = new Vec4(matrix[0].x, matrix[1].x,  matrix[2].x, matrix[3].x);
-		Vec4 col2 = new Vec4(matrix[0].y, matrix[1].y,  matrix[2].y, matrix[3].y);
-		Vec4 col3 = new Vec4(matrix[0].z, matrix[1].z,  matrix[2].z, matrix[3].z);
-		Vec4 col4 = new Vec4(matrix[0].w, matrix[1].w,  matrix[2].w, matrix[3].w);
-		matrix[0].set(col1);
-		matrix[1].set(col2);
-		matrix[2].set(col3);
-		matrix[3].set(col4);
+		float temp;
+		temp = data[1]; data[1] = data[4]; data[4] = temp;
+		temp = data[2]; data[2] = data[8]; data[8] = temp;
+		temp = data[3]; data[3] = data[12]; data[12] = temp;
+		temp = data[6]; data[6] = data[9]; data[9] = temp;
+		temp = data[7]; data[7] = data[13]; data[13] = temp;
+		temp = data[11]; data[11] = data[14]; data[14] = temp;
+		if(properties != IDENTITY){
+			properties = GENERAL;
+		}
 		return this;
 	}
 
 	@Override
 	public Mat4 add(Matrix rhs) {
 		if(rhs instanceof Mat4){
-			Mat4 toAdd = (Mat4)rhs;
-			matrix[0].add(toAdd.col(0));
-			matrix[1].add(toAdd.col(1));
-			matrix[2].add(toAdd.col(2));
-			matrix[3].add(toAdd.col(3));
+			float[] toAdd = ((Mat4)rhs).data;
+			for(int element = 0; element < SIZE_IN_FLOATS; element++){
+				data[element] += toAdd[element];
+			}
+			properties = GENERAL;
 		}else{
 			System.err.println("Type mismatch in matrix addition\nrhs must be of type Mat4");
 		}
@@ -254,11 +410,11 @@ public class Mat4 implements Matrix {
 	@Override
 	public Mat4 subtract(Matrix rhs) {
 		if(rhs instanceof Mat4){
-			Mat4 toAdd = (Mat4)rhs;
-			matrix[0].subtract(toAdd.col(0));
-			matrix[1].subtract(toAdd.col(1));
-			matrix[2].subtract(toAdd.col(2));
-			matrix[3].subtract(toAdd.col(3));
+			float[] toSubtract = ((Mat4)rhs).data;
+			for(int element = 0; element < SIZE_IN_FLOATS; element++){
+				data[element] -= toSubtract[element];
+			}
+			properties = GENERAL;
 		}else{
 			System.err.println("Type mismatch in matrix subtraction\nrhs must be of type Mat4");
 		}
@@ -267,19 +423,21 @@ public class Mat4 implements Matrix {
 
 	@Override
 	public Mat4 loadIdentity() {
-		matrix[0].set(1.0f, 0.0f, 0.0f, 0.0f);
-		matrix[1].set(0.0f, 1.0f, 0.0f, 0.0f);
-		matrix[2].set(0.0f, 0.0f, 1.0f, 0.0f);
-		matrix[3].set(0.0f, 0.0f, 0.0f, 1.0f);
+		Arrays.fill(data, 0.0f);
+		data[0] = 1.0f;
+		data[5] = 1.0f;
+		data[10] = 1.0f;
+		data[15] = 1.0f;
+		properties = IDENTITY;
 		return this;
 	}
 
 	@Override
 	public Mat4 multFactor(float factor) {
-		matrix[0].scale(factor);
-		matrix[1].scale(factor);
-		matrix[2].scale(factor);
-		matrix[3].scale(factor);
+		for(int element = 0; element < SIZE_IN_FLOATS; element++){
+			data[element] *= factor;
+		}
+		properties = GENERAL;
 		return this;
 	}
 
@@ -287,144 +445,202 @@ public class Mat4 implements Matrix {
 	public Vec4 multVec(Vector vec) {
 		if(vec instanceof Vec4){
 			Vec4 mult = (Vec4)vec;
-			Vec4 row1 = new Vec4(matrix[0].x, matrix[1].x,  matrix[2].x, matrix[3].x);
-			Vec4 row2 = new Vec4(matrix[0].y, matrix[1].y,  matrix[2].y, matrix[3].y);
-			Vec4 row3 = new Vec4(matrix[0].z, matrix[1].z,  matrix[2].z, matrix[3].z);
-			Vec4 row4 = new Vec4(matrix[0].w, matrix[1].w,  matrix[2].w, matrix[3].w);
-			return new Vec4(row1.dot(mult), row2.dot(mult), row3.dot(mult), row4.dot(mult));
+			return multVec(mult.x, mult.y, mult.z, mult.w, new Vec4());
 		}else if(vec instanceof Vec3){
-			Vec4 mult = new Vec4((Vec3)vec, 1);
-			Vec4 row1 = new Vec4(matrix[0].x, matrix[1].x,  matrix[2].x, matrix[3].x);
-			Vec4 row2 = new Vec4(matrix[0].y, matrix[1].y,  matrix[2].y, matrix[3].y);
-			Vec4 row3 = new Vec4(matrix[0].z, matrix[1].z,  matrix[2].z, matrix[3].z);
-			Vec4 row4 = new Vec4(matrix[0].w, matrix[1].w,  matrix[2].w, matrix[3].w);
-			return new Vec4(row1.dot(mult), row2.dot(mult), row3.dot(mult), row4.dot(mult));
+			Vec3 mult = (Vec3)vec;
+			return multVec(mult.x, mult.y, mult.z, 1, new Vec4());
 		}else{
 			System.err.println("Type mismatch in matrix vector multiplication\nvec must be of type Vec4 or Vec3");
 		}
 		return null;
 	}
 
+	/**
+	 * Multiplies the given vector by this matrix storing the result in {@code dest}
+	 *
+	 * @param vec Vector to multiply by this matrix
+	 * @param dest Vector to store the result in, this may be the same object as {@code vec}
+	 *
+	 * @return The {@code dest} vector
+	 */
+	public Vec4 multVec(Vec4 vec, Vec4 dest){
+		return multVec(vec.x, vec.y, vec.z, vec.w, dest);
+	}
+
+	private Vec4 multVec(float x, float y, float z, float w, Vec4 dest){
+		if(properties == IDENTITY){
+			return dest.set(x, y, z, w);
+		}else if(properties != GENERAL){
+			//the bottom row is 0, 0, 0, 1 so w is unchanged
+			return dest.set(
+					data[0]*x + data[4]*y + data[8]*z + data[12]*w,
+					data[1]*x + data[5]*y + data[9]*z + data[13]*w,
+					data[2]*x + data[6]*y + data[10]*z + data[14]*w,
+					w
+					);
+		}
+		return dest.set(
+				data[0]*x + data[4]*y + data[8]*z + data[12]*w,
+				data[1]*x + data[5]*y + data[9]*z + data[13]*w,
+				data[2]*x + data[6]*y + data[10]*z + data[14]*w,
+				data[3]*x + data[7]*y + data[11]*z + data[15]*w
+				);
+	}
+
 	@Override
 	public Mat4 multiply(Matrix rhs) {
 		if(rhs instanceof Mat4){
-			Mat4 multMat = (Mat4)rhs;
-			Vec4 row1 = new Vec4(matrix[0].x, matrix[1].x,  matrix[2].x, matrix[3].x);
-			Vec4 row2 = new Vec4(matrix[0].y, matrix[1].y,  matrix[2].y, matrix[3].y);
-			Vec4 row3 = new Vec4(matrix[0].z, matrix[1].z,  matrix[2].z, matrix[3].z);
-			Vec4 row4 = new Vec4(matrix[0].w, matrix[1].w,  matrix[2].w, matrix[3].w);
-			matrix[0].set( row1.dot(multMat.col(0)), row2.dot(multMat.col(0)), row3.dot(multMat.col(0)), row4.dot(multMat.col(0)) );
-			matrix[1].set( row1.dot(multMat.col(1)), row2.dot(multMat.col(1)), row3.dot(multMat.col(1)), row4.dot(multMat.col(1)) );
-			matrix[2].set( row1.dot(multMat.col(2)), row2.dot(multMat.col(2)), row3.dot(multMat.col(2)), row4.dot(multMat.col(2)) );
-			matrix[3].set( row1.dot(multMat.col(3)), row2.dot(multMat.col(3)), row3.dot(multMat.col(3)), row4.dot(multMat.col(3)) );
+			mul(this, (Mat4)rhs, this);
 		}else{
 			System.err.println("Type mismatch in matrix multiplication\nrhs must be of type Mat4");
 		}
 		return this;
 	}
-	
+
+	/**
+	 * Multiplies {@code a} by {@code b} storing the product in {@code dest}, this does not allocate any objects
+	 *
+	 * @param a Left hand matrix of the product
+	 * @param b Right hand matrix of the product
+	 * @param dest Matrix to store the product in, this may be the same object as either of the inputs
+	 *
+	 * @return The {@code dest} matrix containing a*b
+	 */
+	public static Mat4 mul(Mat4 a, Mat4 b, Mat4 dest){
+		int properties = Math.min(a.properties, b.properties);
+		if(a.properties == IDENTITY){
+			System.arraycopy(b.data, 0, dest.data, 0, SIZE_IN_FLOATS);
+		}else if(b.properties == IDENTITY){
+			System.arraycopy(a.data, 0, dest.data, 0, SIZE_IN_FLOATS);
+		}else if(properties != GENERAL){
+			mulAffine(a.data, b.data, dest.data);
+		}else{
+			mul(a.data, 0, b.data, 0, dest.data, 0);
+		}
+		dest.properties = properties;
+		return dest;
+	}
+
+	/**
+	 * Multiplies two affine column major matrices, the bottom row of both is 0, 0, 0, 1 so only the upper 3x4 of the
+	 * product needs computing
+	 *
+	 * @param a Left hand matrix of the product
+	 * @param b Right hand matrix of the product
+	 * @param dest Array to store the product in, the product may overwrite either of the inputs
+	 */
+	private static void mulAffine(float[] a, float[] b, float[] dest){
+		float a00 = a[0], a01 = a[1], a02 = a[2];
+		float a10 = a[4], a11 = a[5], a12 = a[6];
+		float a20 = a[8], a21 = a[9], a22 = a[10];
+		float a30 = a[12], a31 = a[13], a32 = a[14];
+
+		for(int column = 0; column < 12; column += 4){
+			float bx = b[column], by = b[column+1], bz = b[column+2];
+			dest[column] = a00*bx + a10*by + a20*bz;
+			dest[column+1] = a01*bx + a11*by + a21*bz;
+			dest[column+2] = a02*bx + a12*by + a22*bz;
+			dest[column+3] = 0;
+		}
+		float bx = b[12], by = b[13], bz = b[14];
+		dest[12] = a00*bx + a10*by + a20*bz + a30;
+		dest[13] = a01*bx + a11*by + a21*bz + a31;
+		dest[14] = a02*bx + a12*by + a22*bz + a32;
+		dest[15] = 1;
+	}
+
+	/**
+	 * Multiplies two column major 4x4 matrices stored in float arrays, storing the product in {@code dest}. This allows
+	 * matrices packed together in a single array to be multiplied without wrapping them in Mat4 objects.
+	 *
+	 * @param a Array containing the left hand matrix of the product
+	 * @param aOffset Index in {@code a} of the first value of the left hand matrix
+	 * @param b Array containing the right hand matrix of the product
+	 * @param bOffset Index in {@code b} of the first value of the right hand matrix
+	 * @param dest Array to store the product in, the product may overwrite either of the inputs
+	 * @param destOffset Index in {@code dest} to start writing the product at
+	 * @throws IndexOutOfBoundsException
+	 */
+	public static void mul(float[] a, int aOffset, float[] b, int bOffset, float[] dest, int destOffset) throws IndexOutOfBoundsException{
+		float a00 = a[aOffset], a01 = a[aOffset+1], a02 = a[aOffset+2], a03 = a[aOffset+3];
+		float a10 = a[aOffset+4], a11 = a[aOffset+5], a12 = a[aOffset+6], a13 = a[aOffset+7];
+		float a20 = a[aOffset+8], a21 = a[aOffset+9], a22 = a[aOffset+10], a23 = a[aOffset+11];
+		float a30 = a[aOffset+12], a31 = a[aOffset+13], a32 = a[aOffset+14], a33 = a[aOffset+15];
+
+		//each column of the product is a linear combination of the columns of a, a is held in locals and each column
+		//of b is read before the same column of dest is written so dest can be either of the inputs
+		for(int column = 0; column < 16; column += 4){
+			float bx = b[bOffset+column], by = b[bOffset+column+1], bz = b[bOffset+column+2], bw = b[bOffset+column+3];
+			dest[destOffset+column] = a00*bx + a10*by + a20*bz + a30*bw;
+			dest[destOffset+column+1] = a01*bx + a11*by + a21*bz + a31*bw;
+			dest[destOffset+column+2] = a02*bx + a12*by + a22*bz + a32*bw;
+			dest[destOffset+column+3] = a03*bx + a13*by + a23*bz + a33*bw;
+		}
+	}
+
 	@Override
 	public Mat4 leftMult(Matrix lhs){
 		if(lhs instanceof Mat4){
-			Vec4[] lhsCols = ((Mat4)lhs).getMatrix();
-			Vec4 row1 = new Vec4(lhsCols[0].x, lhsCols[1].x,  lhsCols[2].x, lhsCols[3].x);
-			Vec4 row2 = new Vec4(lhsCols[0].y, lhsCols[1].y,  lhsCols[2].y, lhsCols[3].y);
-			Vec4 row3 = new Vec4(lhsCols[0].z, lhsCols[1].z,  lhsCols[2].z, lhsCols[3].z);
-			Vec4 row4 = new Vec4(lhsCols[0].w, lhsCols[1].w,  lhsCols[2].w, lhsCols[3].w);
-			matrix[0].set( row1.dot(matrix[0]), row2.dot(matrix[0]), row3.dot(matrix[0]), row4.dot(matrix[0]) );
-			matrix[1].set( row1.dot(matrix[1]), row2.dot(matrix[1]), row3.dot(matrix[1]), row4.dot(matrix[1]) );
-			matrix[2].set( row1.dot(matrix[2]), row2.dot(matrix[2]), row3.dot(matrix[2]), row4.dot(matrix[2]) );
-			matrix[3].set( row1.dot(matrix[3]), row2.dot(matrix[3]), row3.dot(matrix[3]), row4.dot(matrix[3]) );
+			mul((Mat4)lhs, this, this);
 		}else{
 			System.err.println("Type mismatch in left matrix multiplication\nlhs must be of type Mat4");
 		}
 		return this;
 	}
 
+	/**
+	 * Gets a copy of the column of this matrix at the specified index, changes to the returned vector are not
+	 * reflected in this matrix, use {@link #setColumn(int, Vector)} to change a column
+	 *
+	 * @param index Index of the column to retrieve from the matrix
+	 * @return Copy of the column at index in this matrix, or null if the index is out of bounds
+	 */
 	@Override
 	public Vec4 col(int index) {
-		return index < matrix.length ? matrix[index] : null;
+		if(index < 0 || index > 3){
+			return null;
+		}
+		int offset = index*4;
+		return new Vec4(data[offset], data[offset+1], data[offset+2], data[offset+3]);
 	}
-	
+
 	@Override
 	public float valueAt(int index) throws IndexOutOfBoundsException{
-		//decide what vector to read from
-		switch(index/4){
-			case 0:
-				//decide what value from that vector to get
-				switch(index%4){
-					case 0:
-						return matrix[0].x;
-					case 1:
-						return matrix[0].y;
-					case 2:
-						return matrix[0].z;
-					case 3:
-						return matrix[0].w;
-				}
-			case 1:
-				switch(index%4){
-					case 0:
-						return matrix[1].x;
-					case 1:
-						return matrix[1].y;
-					case 2:
-						return matrix[1].z;
-					case 3:
-						return matrix[1].w;
-				}
-			case 2:
-				switch(index%4){
-					case 0:
-						return matrix[2].x;
-					case 1:
-						return matrix[2].y;
-					case 2:
-						return matrix[2].z;
-					case 3:
-						return matrix[2].w;
-				}
-			case 3:
-				switch(index%4){
-					case 0:
-						return matrix[3].x;
-					case 1:
-						return matrix[3].y;
-					case 2:
-						return matrix[3].z;
-					case 3:
-						return matrix[3].w;
-				}
-			default:
-				throw new IndexOutOfBoundsException("Value at index: "+index+" is out of bounds for a Mat4");
+		if(index < 0 || index >= SIZE_IN_FLOATS){
+			throw new IndexOutOfBoundsException("Value at index: "+index+" is out of bounds for a Mat4");
 		}
+		return data[index];
 	}
 
 	@Override
 	public void setColumn(int index, Vector column) {
-		if(index < matrix.length && column instanceof Vec4){
-			matrix[index].set(column);
+		if(index > -1 && index < 4 && column instanceof Vec4){
+			Vec4 vec = (Vec4)column;
+			setColumn(index, vec.x, vec.y, vec.z, vec.w);
 		}else{
 			String outOfBounds = "The column being indexed is out of the bounds of this matrix type, the bounds are 0-3";
 			String wrongType = "Type mismatch, the vector type used for inserting into this matrix is of type Vec4\n"
 					+ "the paramater given does not match this type";
-			System.err.println(index < matrix.length ? wrongType : outOfBounds);
+			System.err.println(index > -1 && index < 4 ? wrongType : outOfBounds);
 		}
 	}
 
+	/**
+	 * Gets the columns of this matrix as an array of vectors, the vectors are copies of the columns and changes
+	 * to them are not reflected in this matrix
+	 *
+	 * @return Vector array containing copies of the columns of this matrix
+	 */
 	@Override
 	public Vec4[] getMatrix() {
-		return matrix;
+		return new Vec4[]{col(0), col(1), col(2), col(3)};
 	}
 
 	@Override
 	public void setMatrix(Matrix mat) {
 		if(mat instanceof Mat4){
-			Mat4 copyFrom = (Mat4)mat;
-			matrix[0].set(copyFrom.col(0));
-			matrix[1].set(copyFrom.col(1));
-			matrix[2].set(copyFrom.col(2));
-			matrix[3].set(copyFrom.col(3));
+			System.arraycopy(((Mat4)mat).data, 0, data, 0, SIZE_IN_FLOATS);
+			properties = ((Mat4)mat).properties;
 		}else{
 			System.err.println("Type mismatch in setting matrix\nmat must be of type Mat4");
 		}
@@ -432,147 +648,159 @@ public class Mat4 implements Matrix {
 
 	@Override
 	public void setValueAt(int col, int row, float value) throws IndexOutOfBoundsException{
-		if(col < matrix.length && row < 4){
-			matrix[col].set(row,  value);
+		if(col > -1 && col < 4 && row > -1 && row < 4){
+			data[col*4+row] = value;
+			properties = GENERAL;
 		}else{
 			throw new IndexOutOfBoundsException("Value at column: "+col+", row :"+row+" is out of bounds for a Mat4");
 		}
 	}
 
 	@Override
-	public void setValueAt(int index, float value){
-		//decide what vector to read from
-		switch(index/4){
-			case 0:
-				//decide what value from that vector to get
-				switch(index%4){
-					case 0:
-						matrix[0].x = value;
-					case 1:
-						matrix[0].y = value;
-					case 2:
-						matrix[0].z = value;
-					case 3:
-						matrix[0].w = value;
-				}
-			case 1:
-				switch(index%4){
-					case 0:
-						matrix[1].x = value;
-					case 1:
-						matrix[1].y = value;
-					case 2:
-						matrix[1].z = value;
-					case 3:
-						matrix[1].w = value;
-				}
-			case 2:
-				switch(index%4){
-					case 0:
-						matrix[2].x = value;
-					case 1:
-						matrix[2].y = value;
-					case 2:
-						matrix[2].z = value;
-					case 3:
-						matrix[2].w = value;
-				}
-			case 3:
-				switch(index%4){
-					case 0:
-						matrix[3].x = value;
-					case 1:
-						matrix[3].y = value;
-					case 2:
-						matrix[3].z = value;
-					case 3:
-						matrix[3].w = value;
-				}
+	public void setValueAt(int index, float value) throws IndexOutOfBoundsException{
+		if(index < 0 || index >= SIZE_IN_FLOATS){
+			throw new IndexOutOfBoundsException("Value at index: "+index+" is out of bounds for a Mat4");
 		}
+		data[index] = value;
+		properties = GENERAL;
 	}
 
+	/**
+	 * Stores this matrix into a buffer in column major order using a single bulk put
+	 *
+	 * @param storage Float buffer to store into
+	 * @throws BufferOverflowException
+	 */
 	@Override
-	public void store(FloatBuffer storage) {
-		matrix[0].store(storage);
-		matrix[1].store(storage);
-		matrix[2].store(storage);
-		matrix[3].store(storage);
+	public void store(FloatBuffer storage) throws BufferOverflowException{
+		storage.put(data);
 	}
-	
+
+	/**
+	 * Stores this matrix into a buffer in column major order, the values are written in bulk through a float
+	 * view of the buffer using the buffers byte order
+	 *
+	 * @param storage Byte buffer to store into
+	 * @throws BufferOverflowException
+	 */
 	@Override
-	public void store(ByteBuffer storage) {
-		matrix[0].store(storage);
-		matrix[1].store(storage);
-		matrix[2].store(storage);
-		matrix[3].store(storage);
+	public void store(ByteBuffer storage) throws BufferOverflowException{
+		if(storage.remaining() < SIZE_IN_BYTES){
+			throw new BufferOverflowException();
+		}
+		storage.asFloatBuffer().put(data);
+		storage.position(storage.position()+SIZE_IN_BYTES);
+	}
+
+	/**
+	 * Stores this matrix into the given array in column major order
+	 *
+	 * @param storage Array to store this matrix into
+	 * @param offset Index in {@code storage} to start writing this matrix at
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void store(float[] storage, int offset) throws IndexOutOfBoundsException{
+		System.arraycopy(data, 0, storage, offset, SIZE_IN_FLOATS);
+	}
+
+	/**
+	 * Sets this matrix to the 16 column major values in the given array starting at {@code offset}
+	 *
+	 * @param values Array to read this matrix from
+	 * @param offset Index in {@code values} of the first value of the matrix
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void load(float[] values, int offset) throws IndexOutOfBoundsException{
+		System.arraycopy(values, offset, data, 0, SIZE_IN_FLOATS);
+		properties = GENERAL;
 	}
 
 	@Override
 	public boolean equals(Object compare){
 		if(compare instanceof Mat4){
-			Vec4[] mat = ((Mat4)compare).getMatrix();
-			return matrix[0].equals(mat[0]) && matrix[1].equals(mat[1]) && matrix[2].equals(mat[2]) && matrix[3].equals(mat[3]);
+			float[] mat = ((Mat4)compare).data;
+			for(int element = 0; element < SIZE_IN_FLOATS; element++){
+				if(data[element] != mat[element]){
+					return false;
+				}
+			}
+			return true;
 		}else{
 			return false;
 		}
 	}
-	
+
+	@Override
+	public int hashCode(){
+		return Arrays.hashCode(data);
+	}
+
 	@Override
 	public FloatBuffer asFloatBuffer(){
 		FloatBuffer storage = BufferUtils.createFloatBuffer(SIZE_IN_FLOATS);
 		this.store(storage);
 		return (FloatBuffer)storage.flip();
 	}
-	
+
 	@Override
 	public ByteBuffer asByteBuffer(){
 		ByteBuffer storage = BufferUtils.createByteBuffer(SIZE_IN_BYTES);
 		this.store(storage);
 		return (ByteBuffer)storage.flip();
 	}
-	
+
 	@Override
 	public String toString(){
-		return matrix[0].x+" | "+matrix[1].x+" | "+matrix[2].x+" | "+matrix[3].x+"\n"+
-				matrix[0].y+" | "+matrix[1].y+" | "+matrix[2].y+" | "+matrix[3].y+"\n"+
-				matrix[0].z+" | "+matrix[1].z+" | "+matrix[2].z+" | "+matrix[3].z+"\n"+
-				matrix[0].w+" | "+matrix[1].w+" | "+matrix[2].w+" | "+matrix[3].w+"\n";
+		return data[0]+" | "+data[4]+" | "+data[8]+" | "+data[12]+"\n"+
+				data[1]+" | "+data[5]+" | "+data[9]+" | "+data[13]+"\n"+
+				data[2]+" | "+data[6]+" | "+data[10]+" | "+data[14]+"\n"+
+				data[3]+" | "+data[7]+" | "+data[11]+" | "+data[15]+"\n";
 	}
-	
+
 	@Override
 	public void print(){
 		System.out.println(toString());
 	}
-	
+
 	@Override
 	public float trace(){
-		return matrix[0].x+matrix[1].y+matrix[2].z+matrix[3].w;
+		return data[0]+data[5]+data[10]+data[15];
 	}
-	
+
 	@Override
 	public void trunc(){
-		matrix[0].trunc();
-		matrix[1].trunc();
-		matrix[2].trunc();
-		matrix[3].trunc();
+		for(int element = 0; element < SIZE_IN_FLOATS; element++){
+			if(data[element] < Vector.ROUND_VALUE && data[element] > -Vector.ROUND_VALUE){
+				data[element] = 0.0f;
+			}
+		}
+		//rounding can move the upper 3x3 away from a rotation but leaves the bottom row intact
+		if(properties == RIGID){
+			properties = AFFINE;
+		}
 	}
 
 	@Override
 	public void orthonormalize(){
-		//classical gram-schmidt numerically unstable
-//		matrix[1].subtract(matrix[0].proj(matrix[1]));//v2-proj1(v2)
-//		matrix[2].subtract(matrix[0].proj(matrix[2])).subtract(matrix[1].proj(matrix[2]));//v3-proj1(v3)-proj2(v3)
-//		matrix[3].subtract(matrix[0].proj(matrix[3])).subtract(matrix[1].proj(matrix[3])).subtract(matrix[2].proj(matrix[3]));//v4-proj1(v4)-proj2(v4)-proj3(v4)
-//		//normalize
-//		matrix[0].normalize();
-//		matrix[1].normalize();
-//		matrix[2].normalize();
-//		matrix[3].normalize();
-		
+		properties = GENERAL;
+		//modified gram-schmidt, classical gram-schmidt is numerically unstable
 		for(int curVec = 0; curVec < 4; curVec++){
-			matrix[curVec].normalize();
+			int cur = curVec*4;
+			float length = (float)Math.sqrt(data[cur]*data[cur]+data[cur+1]*data[cur+1]+data[cur+2]*data[cur+2]+data[cur+3]*data[cur+3]);
+			if(length != 0){
+				data[cur] /= length;
+				data[cur+1] /= length;
+				data[cur+2] /= length;
+				data[cur+3] /= length;
+			}
 			for(int nextVec = curVec+1; nextVec < 4; nextVec++){
-				matrix[nextVec].subtract(matrix[nextVec].proj(matrix[curVec]));
+				int next = nextVec*4;
+				//remove the projection of the next column onto the current column
+				float dot = data[next]*data[cur]+data[next+1]*data[cur+1]+data[next+2]*data[cur+2]+data[next+3]*data[cur+3];
+				data[next] -= dot*data[cur];
+				data[next+1] -= dot*data[cur+1];
+				data[next+2] -= dot*data[cur+2];
+				data[next+3] -= dot*data[cur+3];
 			}
 		}
 	}
@@ -0,0 +1,253 @@
+package glMath.matrices;
+
+import glMath.vectors.Vec3Batch;
+
+import java.util.Arrays;
+
+/**
+ * Collection of 4x4 matrices stored as a structure of arrays, each of the 16 elements of the matrices has its own float
+ * array indexed by matrix. Element (col, row) of matrix {@code i} is stored at {@code getComponent(col*4+row)[i]},
+ * the same column major element order used by Mat4.
+ *
+ * @author Kevin Mango
+ *
+ */
+public class Mat4Batch {
+
+	//per thread scratch for a single matrix so multiplying doesn't allocate
+	private static final ThreadLocal<float[]> scratch = new ThreadLocal<float[]>(){
+		@Override
+		protected float[] initialValue(){
+			return new float[Mat4.SIZE_IN_FLOATS];
+		}
+	};
+
+	private float[][] components;
+	private int size;
+
+	/**
+	 * Constructs an empty batch with the default capacity
+	 */
+	public Mat4Batch(){
+		this(Vec3Batch.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty batch that can hold {@code capacity} matrices before it needs to grow
+	 *
+	 * @param capacity Initial number of matrices this batch can hold
+	 */
+	public Mat4Batch(int capacity){
+		components = new float[Mat4.SIZE_IN_FLOATS][Math.max(capacity, 1)];
+		size = 0;
+	}
+
+	/**
+	 * Ensures this batch can hold at least {@code capacity} matrices without growing
+	 *
+	 * @param capacity Number of matrices this batch should be able to hold
+	 */
+	public void ensureCapacity(int capacity){
+		if(capacity > components[0].length){
+			int newCapacity = Math.max(capacity, components[0].length*2);
+			for(int element = 0; element < Mat4.SIZE_IN_FLOATS; element++){
+				components[element] = Arrays.copyOf(components[element], newCapacity);
+			}
+		}
+	}
+
+	/**
+	 * Sets the number of matrices in this batch, growing the batch if needed. New matrices added by this are identity
+	 * matrices.
+	 *
+	 * @param size Number of matrices this batch should contain
+	 */
+	public void resize(int size){
+		ensureCapacity(size);
+		if(size > this.size){
+			for(int element = 0; element < Mat4.SIZE_IN_FLOATS; element++){
+				//diagonal elements are at every 5th index
+				Arrays.fill(components[element], this.size, size, element%5 == 0 ? 1 : 0);
+			}
+		}
+		this.size = size;
+	}
+
+	/**
+	 * Adds a copy of the given matrix to the end of this batch
+	 *
+	 * @param mat Matrix to add
+	 *
+	 * @return Index of the added matrix
+	 */
+	public int add(Mat4 mat){
+		resize(size+1);
+		set(size-1, mat);
+		return size-1;
+	}
+
+	/**
+	 * Sets the matrix at the given index
+	 *
+	 * @param index Index of the matrix to set
+	 * @param mat Values to set the matrix to
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void set(int index, Mat4 mat) throws IndexOutOfBoundsException{
+		checkIndex(index);
+		for(int element = 0; element < Mat4.SIZE_IN_FLOATS; element++){
+			components[element][index] = mat.valueAt(element);
+		}
+	}
+
+	/**
+	 * Copies the matrix at the given index into {@code dest}
+	 *
+	 * @param index Index of the matrix to get
+	 * @param dest Matrix to store the result in
+	 *
+	 * @return {@code dest}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Mat4 get(int index, Mat4 dest) throws IndexOutOfBoundsException{
+		checkIndex(index);
+		for(int element = 0; element < Mat4.SIZE_IN_FLOATS; element++){
+			dest.setValueAt(element, components[element][index]);
+		}
+		return dest;
+	}
+
+	/**
+	 * Removes all the matrices from this batch, the capacity of this batch is kept
+	 */
+	public void clear(){
+		size = 0;
+	}
+
+	/**
+	 * Gets the number of matrices in this batch
+	 *
+	 * @return Number of matrices in this batch
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Gets the array holding the given element of every matrix in this batch, only the first {@link #size()} values are
+	 * valid. The array is owned by this batch, it may be modified but is replaced when the batch grows.
+	 *
+	 * @param element Column major index of the element, {@code col*4+row}
+	 *
+	 * @return Values of the element for every matrix in this batch
+	 * @throws IndexOutOfBoundsException
+	 */
+	public float[] getComponent(int element) throws IndexOutOfBoundsException{
+		return components[element];
+	}
+
+	/**
+	 * Multiplies each matrix in {@code lhs} by the matrix at the same index in {@code rhs}, {@code lhs*rhs}
+	 *
+	 * @param lhs Left hand side of each product
+	 * @param rhs Right hand side of each product, must be at least the size of {@code lhs}
+	 * @param dest Batch to store the products in, this may be either of the inputs
+	 *
+	 * @return {@code dest}
+	 */
+	public static Mat4Batch mul(Mat4Batch lhs, Mat4Batch rhs, Mat4Batch dest){
+		int count = lhs.size;
+		dest.resize(count);
+		float[][] a = lhs.components, b = rhs.components, d = dest.components;
+		float[] product = scratch.get();
+		for(int index = 0; index < count; index++){
+			//the whole product is computed before it is written so dest can be either input
+			for(int column = 0; column < 16; column += 4){
+				float x = b[column][index], y = b[column+1][index], z = b[column+2][index], w = b[column+3][index];
+				for(int row = 0; row < 4; row++){
+					product[column+row] = a[row][index]*x + a[row+4][index]*y + a[row+8][index]*z + a[row+12][index]*w;
+				}
+			}
+			for(int element = 0; element < Mat4.SIZE_IN_FLOATS; element++){
+				d[element][index] = product[element];
+			}
+		}
+		return dest;
+	}
+
+	/**
+	 * Multiplies every matrix in {@code rhs} on the left by a single matrix, {@code lhs*rhs[i]}. This is used to bring a
+	 * batch of model matrices into view space.
+	 *
+	 * @param lhs Matrix to multiply on the left of every matrix
+	 * @param rhs Batch of right hand side matrices
+	 * @param dest Batch to store the products in, this may be {@code rhs}
+	 *
+	 * @return {@code dest}
+	 */
+	public static Mat4Batch mul(Mat4 lhs, Mat4Batch rhs, Mat4Batch dest){
+		int count = rhs.size;
+		dest.resize(count);
+		float[] a = scratch.get();
+		lhs.store(a, 0);
+		float[][] b = rhs.components, d = dest.components;
+		for(int column = 0; column < 16; column += 4){
+			float[] bx = b[column], by = b[column+1], bz = b[column+2], bw = b[column+3];
+			float[] d0 = d[column], d1 = d[column+1], d2 = d[column+2], d3 = d[column+3];
+			for(int index = 0; index < count; index++){
+				float x = bx[index], y = by[index], z = bz[index], w = bw[index];
+				d0[index] = a[0]*x + a[4]*y + a[8]*z + a[12]*w;
+				d1[index] = a[1]*x + a[5]*y + a[9]*z + a[13]*w;
+				d2[index] = a[2]*x + a[6]*y + a[10]*z + a[14]*w;
+				d3[index] = a[3]*x + a[7]*y + a[11]*z + a[15]*w;
+			}
+		}
+		return dest;
+	}
+
+	/**
+	 * Transforms each point in {@code points} by the matrix at the same index in this batch, the w component of each
+	 * point is taken to be 1 and the bottom row of each matrix is ignored.
+	 *
+	 * @param points Points to transform, must be at least the size of this batch
+	 * @param dest Batch to store the transformed points in, this may be {@code points}
+	 *
+	 * @return {@code dest}
+	 */
+	public Vec3Batch transformPoints(Vec3Batch points, Vec3Batch dest){
+		float[][] m = components;
+		float[] px = points.getX(), py = points.getY(), pz = points.getZ();
+		dest.resize(size);
+		float[] dx = dest.getX(), dy = dest.getY(), dz = dest.getZ();
+		for(int index = 0; index < size; index++){
+			float x = px[index], y = py[index], z = pz[index];
+			dx[index] = m[0][index]*x + m[4][index]*y + m[8][index]*z + m[12][index];
+			dy[index] = m[1][index]*x + m[5][index]*y + m[9][index]*z + m[13][index];
+			dz[index] = m[2][index]*x + m[6][index]*y + m[10][index]*z + m[14][index];
+		}
+		return dest;
+	}
+
+	/**
+	 * Stores every matrix in this batch into the given array as consecutive column major Mat4s, the layout used for
+	 * instanced matrix attributes and uniform arrays
+	 *
+	 * @param storage Array to store the matrices in, must hold at least {@code size()*16} values after {@code offset}
+	 * @param offset Index in {@code storage} to start writing at
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void store(float[] storage, int offset) throws IndexOutOfBoundsException{
+		for(int element = 0; element < Mat4.SIZE_IN_FLOATS; element++){
+			float[] values = components[element];
+			for(int index = 0, write = offset+element; index < size; index++, write += Mat4.SIZE_IN_FLOATS){
+				storage[write] = values[index];
+			}
+		}
+	}
+
+	private void checkIndex(int index) throws IndexOutOfBoundsException{
+		if(index < 0 || index >= size){
+			throw new IndexOutOfBoundsException("Index: "+index+" is out of bounds for a Mat4Batch of size: "+size);
+		}
+	}
+}
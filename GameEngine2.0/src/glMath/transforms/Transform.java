@@ -1,8 +1,9 @@
 package glMath.transforms;
 
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
-import glMath.MatrixUtil;
 import glMath.Quaternion;
 import glMath.VecUtil;
 import glMath.matrices.Mat3;
@@ -11,10 +12,34 @@ import glMath.vectors.Vec2;
 import glMath.vectors.Vec3;
 import glMath.vectors.Vec4;
 
+/**
+ * Position, orientation and scale of an object, with cached matrices and listeners that are told about every change.
+ * <p>
+ * A Transform is not thread safe. Even reading it can rebuild its cached matrices, so a Transform must only be used by
+ * the thread that changes it. Other threads should work from copies, such as the snapshots of a
+ * {@link physics.collision.trees.SpatialOctree}.
+ * </p>
+ */
 public class Transform {
 	private Quaternion orientation;
 	private Vec3 position, scale;
 	private ArrayList<TransformListener> listeners;
+	private Mat4 matrix, inverse;
+	private Vec3 rotX, rotY, rotZ;//rotated basis axes used in building the cached matrices
+	private long version, matrixVersion, inverseVersion;
+	//values as of the last version, used to catch changes made directly to the objects returned by the getters
+	private Quaternion syncedOrientation;
+	private Vec3 syncedPosition, syncedScale;
+	private boolean deferred, pending, pendingRotation;
+	private boolean queued;//whether this transform is in pendingTransforms, guarded by pendingTransforms
+	private Quaternion netRotation;
+	//reused for the rotations handed to listeners, listeners must not keep them past the callback
+	private Quaternion rotationDelta, flushRotation;
+	private float netTransX, netTransY, netTransZ, netScaleX, netScaleY, netScaleZ;
+	private static final ArrayList<Transform> pendingTransforms = new ArrayList<Transform>();
+	//most rounds of listener triggered changes flushAll delivers before leaving the rest for the next call
+	private static final int MAX_FLUSH_PASSES = 16;
+	private static final AtomicLong callbackCount = new AtomicLong(), deferredCount = new AtomicLong();
 	public static final Vec3 
 	xAxis = new Vec3(1,0,0),
 	yAxis = new Vec3(0,1,0),
@@ -27,7 +52,18 @@ public class Transform {
 		orientation = new Quaternion();
 		position = new Vec3();
 		scale = new Vec3(1);
+		syncedOrientation = new Quaternion(orientation);
+		syncedPosition = new Vec3(position);
+		syncedScale = new Vec3(scale);
 		listeners = new ArrayList<TransformListener>();
+		matrix = new Mat4();
+		inverse = new Mat4();
+		rotX = new Vec3();
+		rotY = new Vec3();
+		rotZ = new Vec3();
+		//start the caches out of date so they are built on first use
+		matrixVersion = -1;
+		inverseVersion = -1;
 	}
 	
 	/**
@@ -39,12 +75,23 @@ public class Transform {
 		orientation = new Quaternion(copy.orientation);
 		position = new Vec3(copy.position);
 		scale = new Vec3(copy.scale);
+		syncedOrientation = new Quaternion(orientation);
+		syncedPosition = new Vec3(position);
+		syncedScale = new Vec3(scale);
 		//check if the listeners are meant to be copied
 		if(copyListeners){
 			listeners = new ArrayList<TransformListener>(copy.listeners);
 		}else{
 			listeners = new ArrayList<TransformListener>();
 		}
+		matrix = new Mat4();
+		inverse = new Mat4();
+		rotX = new Vec3();
+		rotY = new Vec3();
+		rotZ = new Vec3();
+		//start the caches out of date so they are built on first use
+		matrixVersion = -1;
+		inverseVersion = -1;
 	}
 	
 	/**
@@ -65,9 +112,169 @@ public class Transform {
 		listeners.remove(listener);
 	}
 	
+	/**
+	 * Sets whether this Transform defers notifying its listeners. While deferred, changes to this Transform are accumulated
+	 * into a single net rotation, translation and scale that is delivered to each listener once when {@link #flush()} or 
+	 * {@link #flushAll()} is called, rather than notifying the listeners on every change. Turning deferral off delivers any
+	 * changes that are still pending.
+	 * 
+	 * @param deferred True to defer listener notifications, false to notify listeners on every change
+	 */
+	public void setDeferred(boolean deferred){
+		this.deferred = deferred;
+		if(!deferred){
+			flush();
+		}
+	}
+	
+	/**
+	 * Gets whether this Transform defers notifying its listeners
+	 * 
+	 * @return True if this Transform accumulates changes until it is flushed
+	 */
+	public boolean isDeferred(){
+		return deferred;
+	}
+	
+	/**
+	 * Delivers the net change accumulated by this Transform while it was deferred to its listeners, if there are no pending
+	 * changes this does nothing
+	 */
+	public void flush(){
+		synchronized(pendingTransforms){
+			//a transform flushed on its own no longer needs flushAll to deliver it
+			if(queued){
+				queued = false;
+				pendingTransforms.remove(this);
+			}
+		}
+		if(pending){
+			pending = false;
+			Quaternion rotation = null;
+			if(pendingRotation){
+				//hand listeners a copy of the rotation so the accumulator can be reused if they change this Transform
+				if(flushRotation == null){
+					flushRotation = new Quaternion();
+				}
+				flushRotation.set(netRotation);
+				rotation = flushRotation;
+			}
+			notifyListeners(rotation, 
+					netTransX, netTransY, netTransZ, 
+					netScaleX, netScaleY, netScaleZ);
+		}
+	}
+	
+	/**
+	 * Flushes every deferred Transform that has pending changes, this should be called once a frame before anything that
+	 * depends on the listeners of those Transforms, such as collision detection, is run.
+	 * <p>
+	 * Listeners can change other deferred Transforms while being notified, those are flushed in further passes. Listeners
+	 * that keep changing each other are cut off after a fixed number of passes, the remaining changes stay pending until
+	 * the next call.
+	 * </p>
+	 */
+	public static void flushAll(){
+		ArrayList<Transform> toFlush = null;
+		for(int pass = 0; pass < MAX_FLUSH_PASSES; pass++){
+			synchronized(pendingTransforms){
+				if(pendingTransforms.isEmpty()){
+					return;
+				}
+				if(toFlush == null){
+					toFlush = new ArrayList<Transform>(pendingTransforms.size());
+				}
+				toFlush.addAll(pendingTransforms);
+				for(int curTrans = 0; curTrans < pendingTransforms.size(); curTrans++){
+					pendingTransforms.get(curTrans).queued = false;
+				}
+				pendingTransforms.clear();
+			}
+			for(int curTrans = 0; curTrans < toFlush.size(); curTrans++){
+				toFlush.get(curTrans).flush();
+			}
+			toFlush.clear();
+		}
+	}
+	
+	/**
+	 * Gets the number of listener callbacks made by all Transforms since the counters were last reset
+	 * 
+	 * @return Number of listener callbacks made
+	 */
+	public static long getCallbackCount(){
+		return callbackCount.get();
+	}
+	
+	/**
+	 * Gets the number of changes to deferred Transforms that were accumulated rather than being delivered to listeners 
+	 * immediately since the counters were last reset
+	 * 
+	 * @return Number of changes accumulated by deferred Transforms
+	 */
+	public static long getDeferredCount(){
+		return deferredCount.get();
+	}
+	
+	/**
+	 * Resets the callback and deferred change counters
+	 */
+	public static void resetCounters(){
+		callbackCount.set(0);
+		deferredCount.set(0);
+	}
+	
 	private void propogateListeners(Quaternion rotation,
 			float transX, float transY, float transZ,
 			float scaleX, float scaleY, float scaleZ){
+		//every change to this transform passes through here, so this is where the cached matrices are invalidated
+		version++;
+		sync();
+		if(listeners.isEmpty()){
+			return;
+		}
+		if(deferred){
+			if(!pending){
+				//start a new net change
+				pending = true;
+				pendingRotation = false;
+				netTransX = netTransY = netTransZ = 0;
+				netScaleX = netScaleY = netScaleZ = 1;
+				synchronized(pendingTransforms){
+					if(!queued){
+						queued = true;
+						pendingTransforms.add(this);
+					}
+				}
+			}
+			//rotations are applied on the left so later rotations are multiplied on to the left of the net rotation,
+			//translations add together and scales multiply together
+			if(rotation != null){
+				if(pendingRotation){
+					rotation.mult(netRotation, netRotation);
+				}else{
+					if(netRotation == null){
+						netRotation = new Quaternion();
+					}
+					netRotation.set(rotation);
+					pendingRotation = true;
+				}
+			}
+			netTransX += transX;
+			netTransY += transY;
+			netTransZ += transZ;
+			netScaleX *= scaleX;
+			netScaleY *= scaleY;
+			netScaleZ *= scaleZ;
+			deferredCount.incrementAndGet();
+		}else{
+			notifyListeners(rotation, transX, transY, transZ, scaleX, scaleY, scaleZ);
+		}
+	}
+	
+	private void notifyListeners(Quaternion rotation,
+			float transX, float transY, float transZ,
+			float scaleX, float scaleY, float scaleZ){
 
 		//before calling each function check the input is valid, if any of the values are 
 		//non transformation values then it doesn't need to call that listener function
@@ -75,8 +282,9 @@ public class Transform {
 		boolean translate = transX != 0 || transY != 0 || transZ != 0;
 		boolean scale = scaleX != 1 || scaleY != 1 || scaleZ != 1;
 		
-		//call each listener function for the given transformations
-		for(TransformListener listener : listeners){
+		//call each listener function for the given transformations, indexed so no iterator is created per change
+		for(int curListener = 0; curListener < listeners.size(); curListener++){
+			TransformListener listener = listeners.get(curListener);
 			//before calling each function check if the function needs to be called
 			if(rotate){
 				listener.rotated(rotation);
@@ -90,6 +298,7 @@ public class Transform {
 				listener.scaled(scaleX, scaleY, scaleZ);
 			}
 		}
+		callbackCount.addAndGet(listeners.size()*((rotate ? 1 : 0)+(translate ? 1 : 0)+(scale ? 1 : 0)));
 	}
 	
 	/**
@@ -341,7 +550,7 @@ public class Transform {
 	 * @return This Transform post operation
 	 */
 	public Transform rotate(Quaternion rotation){
-		orientation.set(Quaternion.multiply(rotation, orientation));
+		rotation.mult(orientation, orientation);
 		//propogate to listeners
 		propogateListeners(rotation, 0,0,0, 1,1,1);
 		return this;
@@ -350,9 +559,119 @@ public class Transform {
 	/**
 	 * Gets this transform's transformations as a 4x4 matrix. The matrix is constructed by first scaling, then orienting,
 	 * then lastly translating.
+	 * <p>
+	 * The matrix is cached and only rebuilt when this transform has changed since it was last built, the returned 
+	 * matrix is owned by this transform and should not be modified.
+	 * </p>
+	 * 
+	 * @return Matrix representing the transformations of this transform
 	 */
 	public Mat4 getMatrix(){
-		return MatrixUtil.multiply(getTranslateMat(position), orientation.asMatrix(), getScaleMat(scale));
+		checkModified();
+		if(matrixVersion != version){
+			//the columns of the rotation are the rotated basis axes, scaling first means each is scaled by its axis scale
+			orientation.rotate(xAxis, rotX);
+			orientation.rotate(yAxis, rotY);
+			orientation.rotate(zAxis, rotZ);
+			matrix.setColumn(0, rotX.x*scale.x, rotX.y*scale.x, rotX.z*scale.x, 0);
+			matrix.setColumn(1, rotY.x*scale.y, rotY.y*scale.y, rotY.z*scale.y, 0);
+			matrix.setColumn(2, rotZ.x*scale.z, rotZ.y*scale.z, rotZ.z*scale.z, 0);
+			matrix.setColumn(3, position.x, position.y, position.z, 1);
+			matrix.setProperties(getMatrixProperties());
+			matrixVersion = version;
+		}
+		return matrix;
+	}
+	
+	/**
+	 * Copies this transform's matrix into {@code dest}
+	 * 
+	 * @param dest Matrix to store this transform's matrix in
+	 * 
+	 * @return The {@code dest} matrix
+	 */
+	public Mat4 getMatrix(Mat4 dest){
+		dest.setMatrix(getMatrix());
+		return dest;
+	}
+	
+	/**
+	 * Gets the inverse of this transform's matrix, this takes a point from world space into the local space of this
+	 * transform. The inverse is built directly from the transformations rather than by a general matrix inverse, and 
+	 * is cached the same as {@link #getMatrix()}. The returned matrix is owned by this transform and should not be modified.
+	 * 
+	 * @return Matrix representing the inverse of the transformations of this transform
+	 */
+	public Mat4 getInverseMatrix(){
+		checkModified();
+		if(inverseVersion != version){
+			getMatrix();//the inverse is built from the rotated axes computed with the matrix
+			//the inverse of the upper 3x3 is the transposed rotation with each row divided by its axis scale
+			float invX = 1/scale.x, invY = 1/scale.y, invZ = 1/scale.z;
+			float m00 = rotX.x*invX, m01 = rotY.x*invY, m02 = rotZ.x*invZ;
+			float m10 = rotX.y*invX, m11 = rotY.y*invY, m12 = rotZ.y*invZ;
+			float m20 = rotX.z*invX, m21 = rotY.z*invY, m22 = rotZ.z*invZ;
+			inverse.setColumn(0, m00, m01, m02, 0);
+			inverse.setColumn(1, m10, m11, m12, 0);
+			inverse.setColumn(2, m20, m21, m22, 0);
+			//the translation is undone before the rest, so it is the negated position taken through the inverse 3x3
+			inverse.setColumn(3, 
+					-(m00*position.x + m10*position.y + m20*position.z), 
+					-(m01*position.x + m11*position.y + m21*position.z), 
+					-(m02*position.x + m12*position.y + m22*position.z), 
+					1);
+			inverse.setProperties(getMatrixProperties());
+			inverseVersion = version;
+		}
+		return inverse;
+	}
+	
+	/**
+	 * Gets the property tag of the matrices built by this transform, a transform without scaling is only a rotation and
+	 * translation so its matrices are rigid
+	 * 
+	 * @return {@link Mat4#RIGID} if this transform is not scaled, {@link Mat4#AFFINE} otherwise
+	 */
+	private int getMatrixProperties(){
+		return scale.x == 1 && scale.y == 1 && scale.z == 1 ? Mat4.RIGID : Mat4.AFFINE;
+	}
+	
+	/**
+	 * Stores this transform's matrix into the given buffer in column major order
+	 * 
+	 * @param storage Buffer to store the matrix in
+	 */
+	public void store(FloatBuffer storage){
+		getMatrix().store(storage);
+	}
+	
+	/**
+	 * Gets the version of this transform, the version changes every time this transform is modified through its functions
+	 * or through the objects returned by {@link #getTranslation()}, {@link #getScalars()} and {@link #getOrientation()}. 
+	 * This can be used by other objects to tell whether anything derived from this transform needs to be recomputed.
+	 * 
+	 * @return Version of this transform
+	 */
+	public long getVersion(){
+		checkModified();
+		return version;
+	}
+	
+	/**
+	 * Starts a new version if the position, scale or orientation were changed in place since the last version. Changes 
+	 * made this way are not given to the listeners, only the functions of this transform notify them.
+	 */
+	private void checkModified(){
+		if(!position.equals(syncedPosition) || !scale.equals(syncedScale) || !orientation.equals(syncedOrientation)){
+			version++;
+			sync();
+		}
+	}
+	
+	private void sync(){
+		syncedOrientation.set(orientation);
+		syncedPosition.set(position);
+		syncedScale.set(scale);
 	}
 	
 	/**
@@ -363,7 +682,7 @@ public class Transform {
 	 * @return This object after transformation
 	 */
 	public Transform transform(Transform value){
-		orientation = Quaternion.multiply(value.orientation, orientation);
+		value.orientation.mult(orientation, orientation);
 		position.add(value.position);
 		scale.set(scale.x*value.scale.x, scale.y*value.scale.y, scale.z*value.scale.z);
 		//propogate changes to all listeners
@@ -383,14 +702,25 @@ public class Transform {
 	 * @return New vector representing the {@code target} post transformation, {@code target} is unchanged
 	 */
 	public Vec3 transform(Vec3 target){
-		Vec3 result = new Vec3(target);
+		return transform(target, new Vec3());
+	}
+	
+	/**
+	 * Transforms the target vector by the transformations of this Transform storing the result in {@code dest}. The Vector
+	 * is scaled, rotated, then translated in that order.
+	 * 
+	 * @param target Vector to transform
+	 * @param dest Vector to store the result in, this may be the same object as {@code target}
+	 * 
+	 * @return The {@code dest} vector
+	 */
+	public Vec3 transform(Vec3 target, Vec3 dest){
 		//scale the vector
-		result.set(result.x*scale.x, result.y*scale.y, result.z*scale.z);
+		dest.set(target.x*scale.x, target.y*scale.y, target.z*scale.z);
 		//rotate the vector
-		result = orientation.multVec(result);
+		orientation.rotate(dest, dest);
 		//translate the vector
-		result.add(position);
-		return result;
+		return dest.add(position);
 	}
 	
 	/**
@@ -424,14 +754,25 @@ public class Transform {
 	 * @return A new vector representing the target vector post inverse transformation
 	 */
 	public Vec3 inverseTransform(Vec3 target){
-		Vec3 result = new Vec3(target);
+		return inverseTransform(target, new Vec3());
+	}
+	
+	/**
+	 * Transforms the {@code target} vector by the inverse transformation of this transform object storing the result in
+	 * {@code dest}. The resulting vector is the local space vector of this transform object.
+	 * 
+	 * @param target Vector to transform by the inverse transformation
+	 * @param dest Vector to store the result in, this may be the same object as {@code target}
+	 * 
+	 * @return The {@code dest} vector
+	 */
+	public Vec3 inverseTransform(Vec3 target, Vec3 dest){
 		//translate by the negative translation of this transform
-		result.subtract(position);
+		VecUtil.sub(target, position, dest);
 		//rotate it by the conjugate orientation
-		result = orientation.conjugate().multVec(result);
+		orientation.inverseRotate(dest, dest);
 		//then scale, each value needs to be 1/scalar
-		result.set(result.x/scale.x, result.y/scale.y, result.z/scale.z);
-		return result;
+		return dest.set(dest.x/scale.x, dest.y/scale.y, dest.z/scale.z);
 	}
 	
 	/**
@@ -440,21 +781,41 @@ public class Transform {
 	 * @param trans Transform to copy into this transform
 	 */
 	public void set(Transform trans){
-		//propogate changes to all listeners
-		propogateListeners(
-				Quaternion.slerp(trans.orientation, orientation, 1), 
-				
-				trans.position.x - position.x, 
-				trans.position.y - position.y, 
-				trans.position.z - position.z, 
-
-				trans.scale.x/scale.x, 
-				trans.scale.y/scale.y, 
-				trans.scale.z/scale.z);
+		//compute the changes from the current values before they are overwritten
+		Quaternion rotation = rotationTo(trans.orientation);
+		float transX = trans.position.x - position.x, 
+				transY = trans.position.y - position.y, 
+				transZ = trans.position.z - position.z;
+		float scaleX = trans.scale.x/scale.x, 
+				scaleY = trans.scale.y/scale.y, 
+				scaleZ = trans.scale.z/scale.z;
 		
 		orientation.set(trans.orientation);
 		position.set(trans.position);
 		scale.set(trans.scale);
+		//propogate changes to all listeners once this transform holds its new values
+		propogateListeners(rotation, transX, transY, transZ, scaleX, scaleY, scaleZ);
+	}
+	
+	/**
+	 * Computes the rotation that takes the current orientation of this Transform to the given orientation, this is the 
+	 * rotation delta given to listeners when the orientation is set
+	 * 
+	 * @param target Orientation being rotated to
+	 * 
+	 * @return Rotation that when applied to the current orientation gives {@code target}, or null if there are no 
+	 * listeners to give it to. The returned Quaternion is reused by this Transform.
+	 */
+	private Quaternion rotationTo(Quaternion target){
+		if(listeners.isEmpty()){
+			return null;
+		}
+		if(rotationDelta == null){
+			rotationDelta = new Quaternion();
+		}
+		//rotations are applied on the left, delta*current = target so delta = target*conjugate(current)
+		orientation.conjugate(rotationDelta);
+		return target.mult(rotationDelta, rotationDelta);
 	}
 	
 	/**
@@ -466,12 +827,10 @@ public class Transform {
 	 * @param z Z axis scale
 	 */
 	public void setScale(float x, float y, float z){
-		//propogate changes to all listeners
-		propogateListeners(null, 0, 0, 0, 
-				x/scale.x, 
-				y/scale.y, 
-				z/scale.z);
+		float scaleX = x/scale.x, scaleY = y/scale.y, scaleZ = z/scale.z;
 		scale.set(x, y, z);
+		//propogate changes to all listeners
+		propogateListeners(null, 0, 0, 0, scaleX, scaleY, scaleZ);
 	}
 	
 	/**
@@ -509,11 +868,12 @@ public class Transform {
 	 * @param orientation Orientation to set this transform to
 	 */
 	public void setOrientation(Quaternion orientation){
+		Quaternion rotation = rotationTo(orientation);
+		this.orientation.set(orientation);
 		//propogate changes to all listeners
-		propogateListeners(Quaternion.slerp(orientation, this.orientation, 1), 
+		propogateListeners(rotation, 
 				0, 0, 0, 
 				1, 1, 1);
-		this.orientation.set(orientation);
 	}
 	
 	/**
@@ -533,13 +893,12 @@ public class Transform {
 	 * @param z Z translation
 	 */
 	public void setTranslation(float x, float y, float z){
+		float transX = x - position.x, transY = y - position.y, transZ = z - position.z;
+		position.set(x, y, z);
 		//propogate changes to all listeners
 		propogateListeners(null, 
-				x - position.x, 
-				y - position.y, 
-				z - position.z,
+				transX, transY, transZ,
 				1, 1, 1);
-		position.set(x, y, z);
 	}
 	
 	/**
@@ -561,7 +920,8 @@ public class Transform {
 	}
 	
 	/**
-	 * Gets the scalars for this transformation
+	 * Gets the scalars for this transformation. The vector is owned by this transformation, changing it directly starts a 
+	 * new version but doesn't notify the listeners, use {@link #setScale(float, float, float)} for that.
 	 * 
 	 * @return The x, y, z scalars for this transformation
 	 */
@@ -570,7 +930,8 @@ public class Transform {
 	}
 	
 	/**
-	 * Gets the position of this transformation
+	 * Gets the position of this transformation. The vector is owned by this transformation, changing it directly starts a 
+	 * new version but doesn't notify the listeners, use {@link #setTranslation(float, float, float)} for that.
 	 * 
 	 * @return The x, y, z position of this transformation
 	 */
@@ -579,7 +940,8 @@ public class Transform {
 	}
 	
 	/**
-	 * Gets the orientation of this transformation
+	 * Gets the orientation of this transformation. The quaternion is owned by this transformation, changing it directly 
+	 * starts a new version but doesn't notify the listeners, use {@link #setOrientation(Quaternion)} for that.
 	 * 
 	 * @return The quaternion representing the orientation of this transformation
 	 */
@@ -597,12 +959,14 @@ public class Transform {
 	 * @return A 4x4 matrix of type Mat4 representing a scaling matrix using the given scaling components
 	 */
 	public static Mat4 getScaleMat(float x, float y, float z){
-		return new Mat4(
+		Mat4 result = new Mat4(
 				new Vec4(x,0,0,0),
 				new Vec4(0,y,0,0),
 				new Vec4(0,0,z,0),
 				new Vec4(0,0,0,1)
 				);
+		result.setProperties(Mat4.AFFINE);
+		return result;
 	}
 	
 	/**
@@ -612,12 +976,7 @@ public class Transform {
 	 * @return A 4x4 matrix of type Mat4 representing a scaling matrix using the given scaling components
 	 */
 	public static Mat4 getScaleMat(Vec3 scalars){
-		return new Mat4(
-				new Vec4(scalars.x,0,0,0),
-				new Vec4(0,scalars.y,0,0),
-				new Vec4(0,0,scalars.z,0),
-				new Vec4(0,0,0,1)
-				);
+		return getScaleMat(scalars.x, scalars.y, scalars.z);
 	}
 	
 	/**
@@ -658,10 +1017,12 @@ public class Transform {
 	 * @return A 4x4 matrix representing a translation by the given components 
 	 */
 	public static Mat4 getTranslateMat(float x, float y, float z){
-		return new Mat4(
+		Mat4 result = new Mat4(
 				new Mat3(1),
 				new Vec3(x, y, z)
 				);
+		result.setProperties(Mat4.RIGID);
+		return result;
 	}
 	
 	/**
@@ -671,10 +1032,7 @@ public class Transform {
 	 * @return A 4x4 matrix representing a translation by the given vector
 	 */
 	public static Mat4 getTranslateMat(Vec3 vector){
-		return new Mat4(
-				new Mat3(1),
-				vector
-				);
+		return getTranslateMat(vector.x, vector.y, vector.z);
 	}
 	
 	/**
@@ -0,0 +1,393 @@
+package glMath.transforms;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import glMath.matrices.Mat4;
+
+/**
+ * Parent/child hierarchy of Transforms. Each node in the hierarchy has a local Transform, which is relative to its parent,
+ * and a world matrix which is the product of the world matrix of its parent and its local Transform's matrix.
+ * <p>
+ * World matrices are stored together in a single float array with the nodes sorted by their depth in the hierarchy, so a
+ * call to {@link #update()} can walk the hierarchy a level at a time with every parent computed before its children. Only
+ * nodes whose local Transform changed since the last update, or whose parent was updated, are recomputed. Levels with at
+ * least {@link #PARALLEL_THRESHOLD} nodes are split across the common fork join pool since nodes in the same level
+ * don't depend on each other.
+ * </p>
+ * Nodes are referred to by the handle returned when they are added, handles remain valid until the node is removed.
+ * A Transform should only be added to a hierarchy once. The hierarchy itself is not thread safe, structural changes and
+ * updates should be made from a single thread.
+ *
+ * @author Kevin Mango
+ *
+ */
+public class TransformHierarchy {
+
+	public static final int PARALLEL_THRESHOLD = 256;
+	private static final int LEAF_SIZE = 64;
+
+	//data indexed by node handle
+	private Transform[] locals;
+	private int[] parents, slots;
+	private long[] versions;
+	private int handleCount, freeHandle;
+
+	//data indexed by the depth sorted slot of a node
+	private int[] order, parentSlots, levels;
+	private float[] world;
+	private boolean[] updated;
+	private int size, levelCount;
+	private boolean structureChanged;
+
+	/**
+	 * Constructs an empty TransformHierarchy
+	 */
+	public TransformHierarchy(){
+		this(16);
+	}
+
+	/**
+	 * Constructs an empty TransformHierarchy with room for the given number of nodes before it needs to grow
+	 *
+	 * @param capacity Initial number of nodes this hierarchy can hold
+	 */
+	public TransformHierarchy(int capacity){
+		capacity = Math.max(1, capacity);
+		locals = new Transform[capacity];
+		parents = new int[capacity];
+		slots = new int[capacity];
+		versions = new long[capacity];
+		order = new int[capacity];
+		parentSlots = new int[capacity];
+		world = new float[capacity*Mat4.SIZE_IN_FLOATS];
+		updated = new boolean[capacity];
+		levels = new int[2];
+		freeHandle = -1;
+	}
+
+	/**
+	 * Adds the given Transform to this hierarchy as a root node
+	 *
+	 * @param local Transform of the node
+	 *
+	 * @return Handle of the new node
+	 */
+	public int add(Transform local){
+		return add(local, -1);
+	}
+
+	/**
+	 * Adds the given Transform to this hierarchy as a child of {@code parent}, the Transform is taken to be relative to
+	 * the parent node
+	 *
+	 * @param local Transform of the node
+	 * @param parent Handle of the parent node, or -1 to add the node as a root
+	 *
+	 * @return Handle of the new node
+	 * @throws IndexOutOfBoundsException
+	 */
+	public int add(Transform local, int parent) throws IndexOutOfBoundsException{
+		if(parent != -1){
+			checkHandle(parent);
+		}
+		int handle;
+		//reuse handles of removed nodes before growing
+		if(freeHandle != -1){
+			handle = freeHandle;
+			freeHandle = parents[handle];
+		}else{
+			ensureCapacity(handleCount+1);
+			handle = handleCount++;
+		}
+		locals[handle] = local;
+		parents[handle] = parent;
+		size++;
+		structureChanged = true;
+		return handle;
+	}
+
+	/**
+	 * Removes the node with the given handle from this hierarchy, the children of the node are attached to the parent of
+	 * the removed node
+	 *
+	 * @param node Handle of the node to remove
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void remove(int node) throws IndexOutOfBoundsException{
+		checkHandle(node);
+		for(int handle = 0; handle < handleCount; handle++){
+			if(locals[handle] != null && parents[handle] == node){
+				parents[handle] = parents[node];
+			}
+		}
+		locals[node] = null;
+		//removed handles are chained together through the parent array
+		parents[node] = freeHandle;
+		freeHandle = node;
+		size--;
+		structureChanged = true;
+	}
+
+	/**
+	 * Sets the parent of the given node
+	 *
+	 * @param node Handle of the node whose parent to set
+	 * @param parent Handle of the new parent, or -1 to make the node a root
+	 * @throws IndexOutOfBoundsException
+	 * @throws IllegalArgumentException If {@code parent} is {@code node} or one of its descendants
+	 */
+	public void setParent(int node, int parent) throws IndexOutOfBoundsException, IllegalArgumentException{
+		checkHandle(node);
+		if(parent != -1){
+			checkHandle(parent);
+			//walk up from the new parent to make sure the node isn't being attached beneath itself
+			for(int ancestor = parent; ancestor != -1; ancestor = parents[ancestor]){
+				if(ancestor == node){
+					throw new IllegalArgumentException("Node: "+node+" can't be attached to itself or one of its descendants");
+				}
+			}
+		}
+		if(parents[node] != parent){
+			parents[node] = parent;
+			structureChanged = true;
+		}
+	}
+
+	/**
+	 * Gets the parent of the given node
+	 *
+	 * @param node Handle of the node whose parent to get
+	 *
+	 * @return Handle of the parent of the node, or -1 if the node is a root
+	 * @throws IndexOutOfBoundsException
+	 */
+	public int getParent(int node) throws IndexOutOfBoundsException{
+		checkHandle(node);
+		return parents[node];
+	}
+
+	/**
+	 * Gets the local Transform of the given node
+	 *
+	 * @param node Handle of the node whose Transform to get
+	 *
+	 * @return Local Transform of the node
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Transform getLocal(int node) throws IndexOutOfBoundsException{
+		checkHandle(node);
+		return locals[node];
+	}
+
+	/**
+	 * Gets the number of nodes in this hierarchy
+	 *
+	 * @return Number of nodes in this hierarchy
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Gets the number of levels in this hierarchy as of the last update, a hierarchy of only root nodes has a single level
+	 *
+	 * @return Number of levels in this hierarchy
+	 */
+	public int getLevelCount(){
+		return levelCount;
+	}
+
+	/**
+	 * Propagates changes to the local Transforms in this hierarchy to the world matrices of the nodes, this should be called
+	 * once a frame before the world matrices are used. Nodes whose local Transform and ancestors haven't changed since the
+	 * last update are skipped.
+	 */
+	public void update(){
+		boolean force = structureChanged;
+		if(structureChanged){
+			sort();
+		}
+		for(int level = 0; level < levelCount; level++){
+			int start = levels[level], end = levels[level+1];
+			if(end-start >= PARALLEL_THRESHOLD){
+				ForkJoinPool.commonPool().invoke(new LevelTask(start, end, force));
+			}else{
+				update(start, end, force);
+			}
+		}
+	}
+
+	private void update(int start, int end, boolean force){
+		for(int slot = start; slot < end; slot++){
+			int handle = order[slot];
+			Transform local = locals[handle];
+			int parentSlot = parentSlots[slot];
+			long version = local.getVersion();
+			if(force || versions[handle] != version || (parentSlot != -1 && updated[parentSlot])){
+				int offset = slot*Mat4.SIZE_IN_FLOATS;
+				local.getMatrix().store(world, offset);
+				if(parentSlot != -1){
+					Mat4.mul(world, parentSlot*Mat4.SIZE_IN_FLOATS, world, offset, world, offset);
+				}
+				versions[handle] = version;
+				updated[slot] = true;
+			}else{
+				updated[slot] = false;
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the world matrix of the given node changed in the last update
+	 *
+	 * @param node Handle of the node to check
+	 *
+	 * @return True if the world matrix of the node was recomputed in the last call to {@link #update()}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public boolean wasUpdated(int node) throws IndexOutOfBoundsException{
+		checkHandle(node);
+		return !structureChanged && updated[slots[node]];
+	}
+
+	/**
+	 * Copies the world matrix of the given node as of the last update into {@code dest}
+	 *
+	 * @param node Handle of the node whose world matrix to get
+	 * @param dest Matrix to store the world matrix in
+	 *
+	 * @return The {@code dest} matrix
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Mat4 getWorldMatrix(int node, Mat4 dest) throws IndexOutOfBoundsException{
+		checkCurrent(node);
+		dest.load(world, slots[node]*Mat4.SIZE_IN_FLOATS);
+		//world matrices are products of transform matrices which are all affine
+		dest.setProperties(Mat4.AFFINE);
+		return dest;
+	}
+
+	/**
+	 * Stores the world matrix of the given node as of the last update into the given buffer in column major order
+	 *
+	 * @param node Handle of the node whose world matrix to store
+	 * @param storage Buffer to store the world matrix in
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void store(int node, FloatBuffer storage) throws IndexOutOfBoundsException{
+		checkCurrent(node);
+		storage.put(world, slots[node]*Mat4.SIZE_IN_FLOATS, Mat4.SIZE_IN_FLOATS);
+	}
+
+	/**
+	 * Sorts the nodes of this hierarchy by depth, filling in the slots of the nodes and the start of each level
+	 */
+	private void sort(){
+		int[] depths = new int[handleCount];
+		Arrays.fill(depths, -1);
+		int maxDepth = -1;
+		for(int handle = 0; handle < handleCount; handle++){
+			if(locals[handle] != null){
+				maxDepth = Math.max(maxDepth, depth(handle, depths));
+			}
+		}
+
+		//counting sort on depth, levels holds the starting slot of each level followed by the total number of nodes
+		levelCount = maxDepth+1;
+		levels = new int[levelCount+1];
+		for(int handle = 0; handle < handleCount; handle++){
+			if(locals[handle] != null){
+				levels[depths[handle]+1]++;
+			}
+		}
+		for(int level = 1; level <= levelCount; level++){
+			levels[level] += levels[level-1];
+		}
+		int[] next = Arrays.copyOf(levels, levelCount);
+		for(int handle = 0; handle < handleCount; handle++){
+			if(locals[handle] != null){
+				int slot = next[depths[handle]]++;
+				order[slot] = handle;
+				slots[handle] = slot;
+			}
+		}
+		for(int slot = 0; slot < size; slot++){
+			int parent = parents[order[slot]];
+			parentSlots[slot] = parent == -1 ? -1 : slots[parent];
+		}
+		structureChanged = false;
+	}
+
+	private int depth(int handle, int[] depths){
+		//walk up to the first ancestor with a known depth counting the nodes along the way
+		int unknown = 0, current = handle;
+		while(current != -1 && depths[current] == -1){
+			current = parents[current];
+			unknown++;
+		}
+		int base = current == -1 ? -1 : depths[current];
+		//fill in the depths of the nodes that were walked over so they aren't walked again
+		current = handle;
+		for(int depth = base+unknown; depth > base; depth--){
+			depths[current] = depth;
+			current = parents[current];
+		}
+		return depths[handle];
+	}
+
+	private void ensureCapacity(int capacity){
+		if(capacity > locals.length){
+			int newCapacity = Math.max(capacity, locals.length*2);
+			locals = Arrays.copyOf(locals, newCapacity);
+			parents = Arrays.copyOf(parents, newCapacity);
+			slots = Arrays.copyOf(slots, newCapacity);
+			versions = Arrays.copyOf(versions, newCapacity);
+			order = Arrays.copyOf(order, newCapacity);
+			parentSlots = Arrays.copyOf(parentSlots, newCapacity);
+			world = Arrays.copyOf(world, newCapacity*Mat4.SIZE_IN_FLOATS);
+			updated = Arrays.copyOf(updated, newCapacity);
+		}
+	}
+
+	private void checkHandle(int node) throws IndexOutOfBoundsException{
+		if(node < 0 || node >= handleCount || locals[node] == null){
+			throw new IndexOutOfBoundsException("Node: "+node+" is not in this hierarchy");
+		}
+	}
+
+	private void checkCurrent(int node) throws IndexOutOfBoundsException{
+		checkHandle(node);
+		if(structureChanged){
+			//the slots aren't valid until the hierarchy is sorted again
+			update();
+		}
+	}
+
+	/**
+	 * Updates a range of slots within a single level, splitting the range until it is small enough to process directly
+	 */
+	private class LevelTask extends RecursiveAction{
+		private static final long serialVersionUID = 1L;
+		private int start, end;
+		private boolean force;
+
+		private LevelTask(int start, int end, boolean force){
+			this.start = start;
+			this.end = end;
+			this.force = force;
+		}
+
+		@Override
+		protected void compute(){
+			if(end-start <= LEAF_SIZE){
+				update(start, end, force);
+			}else{
+				int mid = (start+end) >>> 1;
+				invokeAll(new LevelTask(start, mid, force), new LevelTask(mid, end, force));
+			}
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package glMath.vectors;
 
+import glMath.FastMath;
+
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.BufferOverflowException;
@@ -87,15 +89,16 @@ public class Vec2 implements Vector {
 
 	@Override
 	public float length() {
-		return (float)Math.sqrt(x*x+y*y);
+		return FastMath.sqrt(x*x+y*y);
 	}
 
 	@Override
 	public Vec2 normalize() {
-		float len = (float)Math.sqrt(x*x+y*y);
-		if(len != 0){
-			x /= len;
-			y /= len;
+		float lenSq = x*x+y*y;
+		if(lenSq != 0){
+			float inv = FastMath.invSqrt(lenSq);
+			x *= inv;
+			y *= inv;
 			trunc();
 		}
 		return this;
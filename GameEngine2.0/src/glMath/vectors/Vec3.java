@@ -1,6 +1,8 @@
 package glMath.vectors;
 
 
+import glMath.FastMath;
+
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.BufferOverflowException;
@@ -127,16 +129,17 @@ public class Vec3 implements Vector {
 
 	@Override
 	public float length() {
-		return (float)Math.sqrt(x*x+y*y+z*z);
+		return FastMath.sqrt(x*x+y*y+z*z);
 	}
 
 	@Override
 	public Vec3 normalize() {
-		float len = (float)Math.sqrt(x*x+y*y+z*z);
-		if(len != 0){
-			x /= len;
-			y /= len;
-			z /= len;
+		float lenSq = x*x+y*y+z*z;
+		if(lenSq != 0){
+			float inv = FastMath.invSqrt(lenSq);
+			x *= inv;
+			y *= inv;
+			z *= inv;
 			trunc();
 		}
 		return this;
@@ -243,6 +246,23 @@ public class Vec3 implements Vector {
 		return this;
 	}
 	
+	/**
+	 * Sets the components of this vector, this avoids the array creation of {@link #set(float...)}
+	 * 
+	 * @param x New x component of this vector
+	 * @param y New y component of this vector
+	 * @param z New z component of this vector
+	 * 
+	 * @return This vector
+	 */
+	public Vec3 set(float x, float y, float z){
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		trunc();
+		return this;
+	}
+	
 	@Override
 	public Vec3 set(float... values){
 		switch(values.length){
@@ -0,0 +1,470 @@
+package glMath.vectors;
+
+import glMath.matrices.Mat4;
+
+import java.util.Arrays;
+
+/**
+ * Collection of 3 component vectors stored as a structure of arrays, the x, y and z components of every vector are held
+ * in their own float array. Operations on a batch run as simple loops over those arrays rather than through individual
+ * Vec3 objects which lets the JIT vectorize them and avoids allocating a Vec3 per element.
+ *
+ * @author Kevin Mango
+ *
+ */
+public class Vec3Batch {
+
+	private float[] x, y, z;
+	private int size;
+	public static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * Constructs an empty batch with the default capacity
+	 */
+	public Vec3Batch(){
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty batch that can hold {@code capacity} vectors before it needs to grow
+	 *
+	 * @param capacity Initial number of vectors this batch can hold
+	 */
+	public Vec3Batch(int capacity){
+		capacity = Math.max(capacity, 1);
+		x = new float[capacity];
+		y = new float[capacity];
+		z = new float[capacity];
+		size = 0;
+	}
+
+	/**
+	 * Constructs a batch containing the values of the given vectors
+	 *
+	 * @param vectors Vectors to copy into this batch
+	 */
+	public Vec3Batch(Vec3... vectors){
+		this(vectors.length);
+		for(Vec3 vec : vectors){
+			add(vec.x, vec.y, vec.z);
+		}
+	}
+
+	/**
+	 * Constructs a batch that is a copy of the given batch
+	 *
+	 * @param copy Batch to copy
+	 */
+	public Vec3Batch(Vec3Batch copy){
+		x = Arrays.copyOf(copy.x, copy.x.length);
+		y = Arrays.copyOf(copy.y, copy.y.length);
+		z = Arrays.copyOf(copy.z, copy.z.length);
+		size = copy.size;
+	}
+
+	/**
+	 * Ensures this batch can hold at least {@code capacity} vectors without growing
+	 *
+	 * @param capacity Number of vectors this batch should be able to hold
+	 */
+	public void ensureCapacity(int capacity){
+		if(capacity > x.length){
+			int newCapacity = Math.max(capacity, x.length*2);
+			x = Arrays.copyOf(x, newCapacity);
+			y = Arrays.copyOf(y, newCapacity);
+			z = Arrays.copyOf(z, newCapacity);
+		}
+	}
+
+	/**
+	 * Sets the number of vectors in this batch, growing the batch if needed. New vectors added by this are 0.
+	 *
+	 * @param size Number of vectors this batch should contain
+	 */
+	public void resize(int size){
+		ensureCapacity(size);
+		if(size > this.size){
+			Arrays.fill(x, this.size, size, 0);
+			Arrays.fill(y, this.size, size, 0);
+			Arrays.fill(z, this.size, size, 0);
+		}
+		this.size = size;
+	}
+
+	/**
+	 * Adds a vector to the end of this batch
+	 *
+	 * @param x X component of the vector
+	 * @param y Y component of the vector
+	 * @param z Z component of the vector
+	 *
+	 * @return Index of the added vector
+	 */
+	public int add(float x, float y, float z){
+		ensureCapacity(size+1);
+		this.x[size] = x;
+		this.y[size] = y;
+		this.z[size] = z;
+		return size++;
+	}
+
+	/**
+	 * Adds a vector to the end of this batch
+	 *
+	 * @param vec Vector to add
+	 *
+	 * @return Index of the added vector
+	 */
+	public int add(Vec3 vec){
+		return add(vec.x, vec.y, vec.z);
+	}
+
+	/**
+	 * Sets the vector at the given index
+	 *
+	 * @param index Index of the vector to set
+	 * @param x X component of the vector
+	 * @param y Y component of the vector
+	 * @param z Z component of the vector
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void set(int index, float x, float y, float z) throws IndexOutOfBoundsException{
+		checkIndex(index);
+		this.x[index] = x;
+		this.y[index] = y;
+		this.z[index] = z;
+	}
+
+	/**
+	 * Sets the vector at the given index
+	 *
+	 * @param index Index of the vector to set
+	 * @param vec Values to set the vector to
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void set(int index, Vec3 vec) throws IndexOutOfBoundsException{
+		set(index, vec.x, vec.y, vec.z);
+	}
+
+	/**
+	 * Copies the vector at the given index into {@code dest}
+	 *
+	 * @param index Index of the vector to get
+	 * @param dest Vector to store the result in
+	 *
+	 * @return {@code dest}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Vec3 get(int index, Vec3 dest) throws IndexOutOfBoundsException{
+		checkIndex(index);
+		dest.x = x[index];
+		dest.y = y[index];
+		dest.z = z[index];
+		return dest;
+	}
+
+	/**
+	 * Removes all the vectors from this batch, the capacity of this batch is kept
+	 */
+	public void clear(){
+		size = 0;
+	}
+
+	/**
+	 * Gets the number of vectors in this batch
+	 *
+	 * @return Number of vectors in this batch
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Gets the array of x components of this batch, only the first {@link #size()} values are valid. The array is owned
+	 * by this batch, it may be modified but is replaced when the batch grows.
+	 *
+	 * @return X components of this batch
+	 */
+	public float[] getX(){
+		return x;
+	}
+
+	/**
+	 * Gets the array of y components of this batch, only the first {@link #size()} values are valid. The array is owned
+	 * by this batch, it may be modified but is replaced when the batch grows.
+	 *
+	 * @return Y components of this batch
+	 */
+	public float[] getY(){
+		return y;
+	}
+
+	/**
+	 * Gets the array of z components of this batch, only the first {@link #size()} values are valid. The array is owned
+	 * by this batch, it may be modified but is replaced when the batch grows.
+	 *
+	 * @return Z components of this batch
+	 */
+	public float[] getZ(){
+		return z;
+	}
+
+	/**
+	 * Transforms every vector in this batch as a point by the given matrix, the w component of each point is taken to be 1
+	 * and the bottom row of the matrix is ignored.
+	 *
+	 * @param mat Affine matrix to transform the points by
+	 * @param dest Batch to store the results in, this may be the same batch
+	 *
+	 * @return {@code dest}
+	 */
+	public Vec3Batch transformPoints(Mat4 mat, Vec3Batch dest){
+		return transform(mat, 1, dest);
+	}
+
+	/**
+	 * Transforms every vector in this batch as a direction by the given matrix, the translation of the matrix is not applied.
+	 *
+	 * @param mat Matrix to transform the directions by
+	 * @param dest Batch to store the results in, this may be the same batch
+	 *
+	 * @return {@code dest}
+	 */
+	public Vec3Batch transformDirections(Mat4 mat, Vec3Batch dest){
+		return transform(mat, 0, dest);
+	}
+
+	private Vec3Batch transform(Mat4 mat, float w, Vec3Batch dest){
+		float m00 = mat.valueAt(0), m01 = mat.valueAt(1), m02 = mat.valueAt(2);
+		float m10 = mat.valueAt(4), m11 = mat.valueAt(5), m12 = mat.valueAt(6);
+		float m20 = mat.valueAt(8), m21 = mat.valueAt(9), m22 = mat.valueAt(10);
+		float tx = mat.valueAt(12)*w, ty = mat.valueAt(13)*w, tz = mat.valueAt(14)*w;
+
+		dest.resize(size);
+		float[] dx = dest.x, dy = dest.y, dz = dest.z;
+		for(int index = 0; index < size; index++){
+			float vx = x[index], vy = y[index], vz = z[index];
+			dx[index] = m00*vx + m10*vy + m20*vz + tx;
+			dy[index] = m01*vx + m11*vy + m21*vz + ty;
+			dz[index] = m02*vx + m12*vy + m22*vz + tz;
+		}
+		return dest;
+	}
+
+	/**
+	 * Adds the given translation to every vector in this batch
+	 *
+	 * @param tx X translation
+	 * @param ty Y translation
+	 * @param tz Z translation
+	 *
+	 * @return This batch
+	 */
+	public Vec3Batch translate(float tx, float ty, float tz){
+		for(int index = 0; index < size; index++){
+			x[index] += tx;
+		}
+		for(int index = 0; index < size; index++){
+			y[index] += ty;
+		}
+		for(int index = 0; index < size; index++){
+			z[index] += tz;
+		}
+		return this;
+	}
+
+	/**
+	 * Scales every vector in this batch by the given scalar
+	 *
+	 * @param scalar Value to scale each vector by
+	 *
+	 * @return This batch
+	 */
+	public Vec3Batch scale(float scalar){
+		for(int index = 0; index < size; index++){
+			x[index] *= scalar;
+			y[index] *= scalar;
+			z[index] *= scalar;
+		}
+		return this;
+	}
+
+	/**
+	 * Computes the dot product of each vector in this batch with the vector at the same index in {@code rhs}
+	 *
+	 * @param rhs Batch to dot with this batch, must be at least the size of this batch
+	 * @param dest Array to store the dot products in, must be at least the size of this batch
+	 *
+	 * @return {@code dest}
+	 */
+	public float[] dot(Vec3Batch rhs, float[] dest){
+		float[] rx = rhs.x, ry = rhs.y, rz = rhs.z;
+		for(int index = 0; index < size; index++){
+			dest[index] = x[index]*rx[index] + y[index]*ry[index] + z[index]*rz[index];
+		}
+		return dest;
+	}
+
+	/**
+	 * Computes the dot product of each vector in this batch with a single vector, this is the projection of every vector
+	 * onto a direction which is used for support point searches
+	 *
+	 * @param dx X component of the vector to dot with
+	 * @param dy Y component of the vector to dot with
+	 * @param dz Z component of the vector to dot with
+	 * @param dest Array to store the dot products in, must be at least the size of this batch
+	 *
+	 * @return {@code dest}
+	 */
+	public float[] dot(float dx, float dy, float dz, float[] dest){
+		for(int index = 0; index < size; index++){
+			dest[index] = x[index]*dx + y[index]*dy + z[index]*dz;
+		}
+		return dest;
+	}
+
+	/**
+	 * Finds the vector in this batch that is farthest along the given direction
+	 *
+	 * @param dx X component of the direction
+	 * @param dy Y component of the direction
+	 * @param dz Z component of the direction
+	 *
+	 * @return Index of the farthest vector, or -1 if this batch is empty
+	 */
+	public int support(float dx, float dy, float dz){
+		int farthest = -1;
+		float max = Float.NEGATIVE_INFINITY;
+		for(int index = 0; index < size; index++){
+			float dot = x[index]*dx + y[index]*dy + z[index]*dz;
+			if(dot > max){
+				max = dot;
+				farthest = index;
+			}
+		}
+		return farthest;
+	}
+
+	/**
+	 * Computes the cross product of each vector in this batch with the vector at the same index in {@code rhs}
+	 *
+	 * @param rhs Right hand side of each cross product, must be at least the size of this batch
+	 * @param dest Batch to store the results in, this may be either this batch or {@code rhs}
+	 *
+	 * @return {@code dest}
+	 */
+	public Vec3Batch cross(Vec3Batch rhs, Vec3Batch dest){
+		dest.resize(size);
+		float[] rx = rhs.x, ry = rhs.y, rz = rhs.z;
+		float[] dx = dest.x, dy = dest.y, dz = dest.z;
+		for(int index = 0; index < size; index++){
+			float ax = x[index], ay = y[index], az = z[index];
+			float bx = rx[index], by = ry[index], bz = rz[index];
+			dx[index] = ay*bz - az*by;
+			dy[index] = az*bx - ax*bz;
+			dz[index] = ax*by - ay*bx;
+		}
+		return dest;
+	}
+
+	/**
+	 * Normalizes every vector in this batch, vectors of length 0 are left unchanged
+	 *
+	 * @return This batch
+	 */
+	public Vec3Batch normalize(){
+		for(int index = 0; index < size; index++){
+			float length = (float)Math.sqrt(x[index]*x[index] + y[index]*y[index] + z[index]*z[index]);
+			//avoid a branch in the loop, a zero length vector is divided by 1
+			float inv = 1.0f/(length == 0 ? 1 : length);
+			x[index] *= inv;
+			y[index] *= inv;
+			z[index] *= inv;
+		}
+		return this;
+	}
+
+	/**
+	 * Computes the component wise minimum of all the vectors in this batch
+	 *
+	 * @param dest Vector to store the minimum in
+	 *
+	 * @return {@code dest}, if this batch is empty the components are positive infinity
+	 */
+	public Vec3 min(Vec3 dest){
+		dest.x = min(x, size);
+		dest.y = min(y, size);
+		dest.z = min(z, size);
+		return dest;
+	}
+
+	/**
+	 * Computes the component wise maximum of all the vectors in this batch
+	 *
+	 * @param dest Vector to store the maximum in
+	 *
+	 * @return {@code dest}, if this batch is empty the components are negative infinity
+	 */
+	public Vec3 max(Vec3 dest){
+		dest.x = max(x, size);
+		dest.y = max(y, size);
+		dest.z = max(z, size);
+		return dest;
+	}
+
+	/**
+	 * Computes the axis aligned bounds of all the vectors in this batch
+	 *
+	 * @param min Vector to store the minimum corner of the bounds in
+	 * @param max Vector to store the maximum corner of the bounds in
+	 */
+	public void bounds(Vec3 min, Vec3 max){
+		min(min);
+		max(max);
+	}
+
+	/**
+	 * Computes the axis aligned bounds of all the vectors in this batch after they have been transformed as points by the
+	 * given matrix, this does not modify this batch
+	 *
+	 * @param mat Affine matrix to transform the points by
+	 * @param min Vector to store the minimum corner of the bounds in
+	 * @param max Vector to store the maximum corner of the bounds in
+	 */
+	public void bounds(Mat4 mat, Vec3 min, Vec3 max){
+		//the transformed bounds are computed row by row so no intermediate batch is needed
+		for(int axis = 0; axis < 3; axis++){
+			float c0 = mat.valueAt(axis), c1 = mat.valueAt(4+axis), c2 = mat.valueAt(8+axis), c3 = mat.valueAt(12+axis);
+			float low = Float.POSITIVE_INFINITY, high = Float.NEGATIVE_INFINITY;
+			for(int index = 0; index < size; index++){
+				float value = c0*x[index] + c1*y[index] + c2*z[index];
+				low = Math.min(low, value);
+				high = Math.max(high, value);
+			}
+			min.set(axis, low+c3);
+			max.set(axis, high+c3);
+		}
+	}
+
+	private static float min(float[] values, int length){
+		float min = Float.POSITIVE_INFINITY;
+		for(int index = 0; index < length; index++){
+			min = Math.min(min, values[index]);
+		}
+		return min;
+	}
+
+	private static float max(float[] values, int length){
+		float max = Float.NEGATIVE_INFINITY;
+		for(int index = 0; index < length; index++){
+			max = Math.max(max, values[index]);
+		}
+		return max;
+	}
+
+	private void checkIndex(int index) throws IndexOutOfBoundsException{
+		if(index < 0 || index >= size){
+			throw new IndexOutOfBoundsException("Index: "+index+" is out of bounds for a Vec3Batch of size: "+size);
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package glMath.vectors;
 
+import glMath.FastMath;
+
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.BufferOverflowException;
@@ -157,17 +159,18 @@ public class Vec4 implements Vector {
 
 	@Override
 	public float length() {
-		return (float)Math.sqrt(x*x+y*y+z*z+w*w);
+		return FastMath.sqrt(x*x+y*y+z*z+w*w);
 	}
 
 	@Override
 	public Vec4 normalize() {
-		float len = (float)Math.sqrt(x*x+y*y+z*z+w*w);
-		if(len != 0){
-			x /= len;
-			y /= len;
-			z /= len;
-			w /= len;
+		float lenSq = x*x+y*y+z*z+w*w;
+		if(lenSq != 0){
+			float inv = FastMath.invSqrt(lenSq);
+			x *= inv;
+			y *= inv;
+			z *= inv;
+			w *= inv;
 			trunc();
 		}
 		return this;
@@ -285,6 +288,25 @@ public class Vec4 implements Vector {
 		return this;
 	}
 	
+	/**
+	 * Sets the components of this vector, this avoids the array creation of {@link #set(float...)}
+	 * 
+	 * @param x New x component of this vector
+	 * @param y New y component of this vector
+	 * @param z New z component of this vector
+	 * @param w New w component of this vector
+	 * 
+	 * @return This vector
+	 */
+	public Vec4 set(float x, float y, float z, float w){
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.w = w;
+		trunc();
+		return this;
+	}
+	
 	@Override
 	public Vec4 set(float... values){
 		switch(values.length){
@@ -21,6 +21,11 @@ public enum AttribType {
 	VEC3(3, 12, GL_FLOAT),
 	VEC4(4, 16, GL_FLOAT),
 	
+	SHORT_VEC2(2, 4, GL_SHORT),
+	SHORT_VEC4(4, 8, GL_SHORT),
+	USHORT_VEC4(4, 8, GL_UNSIGNED_SHORT),
+	HALF_VEC2(2, 4, GL_HALF_FLOAT),
+	
 	DVEC2(2, 16, GL_DOUBLE),
 	DVEC3(3, 24, GL_DOUBLE),
 	DVEC4(4, 32, GL_DOUBLE),
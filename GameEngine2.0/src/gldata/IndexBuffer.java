@@ -106,7 +106,7 @@ public class IndexBuffer{
 	/**
 	 * Adds a new value to this index buffer, if the buffer has already been flushed then this value is ignored until the buffer
 	 * is reset. Additionally if the value passed here is different from the type specified for this buffer the value is
-	 * converted to the proper type
+	 * converted to the proper type, treating it as unsigned
 	 * 
 	 * @param value Value to add
 	 */
@@ -116,10 +116,10 @@ public class IndexBuffer{
 				buffer.add(value);
 				break;
 			case SHORT:
-				buffer.add((short)value);
+				buffer.add((short)(value & 0xff));
 				break;
 			case INT:
-				buffer.add((int)value);
+				buffer.add(value & 0xff);
 				break;
 		}
 	}
@@ -127,7 +127,7 @@ public class IndexBuffer{
 	/**
 	 * Adds a new value to this index buffer, if the buffer has already been flushed then this value is ignored until the buffer
 	 * is reset. Additionally if the value passed here is different from the type specified for this buffer the value is
-	 * converted to the proper type
+	 * converted to the proper type, treating it as unsigned
 	 * 
 	 * @param value Value to add
 	 */
@@ -140,7 +140,7 @@ public class IndexBuffer{
 				buffer.add(value);
 				break;
 			case INT:
-				buffer.add((int)value);
+				buffer.add(value & 0xffff);
 				break;
 		}
 	}
@@ -180,10 +180,10 @@ public class IndexBuffer{
 				buffer.set(offset, value);
 				break;
 			case SHORT:
-				buffer.set(offset << 1, (short)value);
+				buffer.set(offset << 1, (short)(value & 0xff));
 				break;
 			case INT:
-				buffer.set(offset << 2, (int)value);
+				buffer.set(offset << 2, value & 0xff);
 				break;
 		}
 	}
@@ -205,7 +205,7 @@ public class IndexBuffer{
 				buffer.set(offset << 1, value);
 				break;
 			case INT:
-				buffer.set(offset << 2, (int)value);
+				buffer.set(offset << 2, value & 0xffff);
 				break;
 		}
 	}
@@ -234,14 +234,16 @@ public class IndexBuffer{
 	
 	
 	public enum IndexType {
-		BYTE(GL_UNSIGNED_BYTE), 
-		SHORT(GL_UNSIGNED_SHORT), 
-		INT(GL_UNSIGNED_INT);
+		BYTE(GL_UNSIGNED_BYTE, 1), 
+		SHORT(GL_UNSIGNED_SHORT, 2), 
+		INT(GL_UNSIGNED_INT, 4);
 		
 		public final int enumType;
+		public final int size;//bytes per index
 		
-		private IndexType(int type){
+		private IndexType(int type, int size){
 			enumType = type;
+			this.size = size;
 		}
 		
 		@Override
@@ -210,6 +210,11 @@ public class VertexArray implements Resource{
 	
 	/**
 	 * Adds an attribute definition for this vertex array
+	 * <p>
+	 * Integer types that are normalized are read by the shader as floats, unsigned types in the range [0, 1] and signed
+	 * types in [-1, 1], which is how quantized attributes such as {@link AttribType#SHORT_VEC2} are stored. Integer types
+	 * that aren't normalized are read as integers.
+	 * </p>
 	 * 
 	 * @param type The glsl attribute type that will define how the attribute will behave
 	 * @param normalize Indicates whether the data being sent to the attribute should be normalized
@@ -225,7 +230,7 @@ public class VertexArray implements Resource{
 			//decide what function to call based on the data type
 			if(curType.isDouble()){
 				glVertexArrayAttribLFormat(vaoId, curIndex, curType.size, curType.type, stride);
-			}else if(curType.isFloat()){
+			}else if(curType.isFloat() || normalize){
 				glVertexArrayAttribFormat(vaoId, curIndex, curType.size, curType.type, normalize, stride);
 			}else{
 				glVertexArrayAttribIFormat(vaoId, curIndex, curType.size, curType.type, stride);
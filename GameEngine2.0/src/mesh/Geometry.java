@@ -1,26 +1,43 @@
 package mesh;
-import glMath.VecUtil;
+import glMath.FastMath;
 import glMath.vectors.Vec2;
 import glMath.vectors.Vec3;
+import glMath.vectors.Vec3Batch;
 import gldata.BufferObject;
 import gldata.IndexBuffer;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-import mesh.primitives.Edge;
-import mesh.primitives.HalfEdge;
 import mesh.primitives.Triangle;
 import mesh.primitives.Vertex;
-import physics.collision.AABB;
 import renderers.RenderMode;
 
+/**
+ * Triangle mesh stored as packed primitive arrays. Vertex attributes are kept in one float array per attribute, positions,
+ * normals, tangents and bitangents as 3 floats per vertex and texture coordinates as 2 floats per vertex. Faces are kept
+ * as 3 vertex indices per face in a single int array, their adjacency is built into a {@link HalfEdgeMesh} when it is
+ * first needed.
+ * <p>
+ * The Vertex and Triangle accessors are kept for compatibility but are views built from the packed data when they are
+ * called, changing a Vertex returned by {@link #getVertex(int)} does not change this geometry, {@link #setVertex(int, Vertex)}
+ * must be used to write it back. Code that walks many vertices should use the index based accessors such as 
+ * {@link #getPos(int, Vec3)} which don't allocate.
+ * </p>
+ * 
+ * @author Kevin Mango
+ *
+ */
 public class Geometry {
-	private ArrayList<Vertex> vertices;
-	private HashMap<Vertex, Integer> hashVerts;
-	private ArrayList<Triangle> faces;
-	private HashMap<Edge, HalfEdge> edgeMap;
+	private float[] positions, normals, uvs, tangents, bitangents;//tangents and bitangents are null until a vertex has one
+	private int[] indices;
+	private int vertexCount, faceCount;
+	private VertexWelder welder;//exact vertex lookup, built when first needed by getIndex
+	private HalfEdgeMesh halfEdges;//adjacency of the faces, built when first needed
+	private int[] vertexFaceStart, vertexFaces;//faces using each vertex, built when first needed
+	private Meshlets meshlets;//clusters of the faces for culling, built when first needed
+	private boolean cacheOptimized;//faces and vertices have been reordered for the vertex cache since the last face was added
 	private int[] minMax;//cache for points that are farthest along each axis
 	private Vec3 geometricCenter;//center point of all the vertices
 	/*
@@ -38,40 +55,85 @@ public class Geometry {
 	MAX_Y = 3,
 	MIN_Z = 4,
 	MAX_Z = 5;
+	private static final int DEFAULT_CAPACITY = 16;
+	public static final int PARALLEL_THRESHOLD = 8192;//faces
+	private static final int LEAF_SIZE = 2048;
+	private static final int FACE_NORMALS = 0, VERTEX_NORMALS = 1, FACE_TANGENTS = 2, VERTEX_TANGENTS = 3;
 	
 	/**
 	 * Constructs an empty mesh for storing vertices and triangular faces
 	 */
 	public Geometry(){
-		vertices = new ArrayList<Vertex>();
-		hashVerts = new HashMap<Vertex, Integer>();
-		faces = new ArrayList<Triangle>();
-		edgeMap = new HashMap<Edge, HalfEdge>();
+		positions = new float[DEFAULT_CAPACITY*3];
+		normals = new float[DEFAULT_CAPACITY*3];
+		uvs = new float[DEFAULT_CAPACITY*2];
+		tangents = null;
+		bitangents = null;
+		indices = new int[DEFAULT_CAPACITY*3];
+		vertexCount = 0;
+		faceCount = 0;
+		welder = null;
+		halfEdges = null;
+		vertexFaceStart = null;
+		vertexFaces = null;
+		meshlets = null;
+		cacheOptimized = false;
 		minMax = new int[6];
 		geometricCenter = new Vec3();
 	}
 	
+	/**
+	 * Constructs a geometry that is a copy of the given geometry, including its adjacency information
+	 * 
+	 * @param copy Geometry to copy
+	 */
 	public Geometry(Geometry copy){
-		vertices = new ArrayList<Vertex>(copy.vertices.size());
-		hashVerts = new HashMap<Vertex, Integer>(copy.vertices.size());
-		faces = new ArrayList<Triangle>(copy.faces.size());
-		edgeMap = new HashMap<Edge, HalfEdge>();
+		positions = Arrays.copyOf(copy.positions, copy.vertexCount*3);
+		normals = Arrays.copyOf(copy.normals, copy.vertexCount*3);
+		uvs = Arrays.copyOf(copy.uvs, copy.vertexCount*2);
+		tangents = copy.tangents == null ? null : Arrays.copyOf(copy.tangents, copy.vertexCount*3);
+		bitangents = copy.bitangents == null ? null : Arrays.copyOf(copy.bitangents, copy.vertexCount*3);
+		indices = Arrays.copyOf(copy.indices, copy.faceCount*3);
+		vertexCount = copy.vertexCount;
+		faceCount = copy.faceCount;
+		welder = null;
+		//the adjacency is never modified so it can be shared until a face is added
+		halfEdges = copy.halfEdges;
+		vertexFaceStart = copy.vertexFaceStart;
+		vertexFaces = copy.vertexFaces;
+		meshlets = copy.meshlets;
+		cacheOptimized = copy.cacheOptimized;
 		geometricCenter = new Vec3(copy.geometricCenter);
-		
-		//copy each vertex into this geometry object
-		for(Vertex vert : copy.vertices){
-			vertices.add(new Vertex(vert));
-			hashVerts.put(vertices.get(vertices.size()-1), vertices.size()-1);
-		}
-		
-		//copy the faces
-		for(Triangle triangle : copy.faces){
-			add(triangle);
-		}
 		//copy the minMax indices
 		minMax = Arrays.copyOf(copy.minMax, 6);
 	}
 	
+	/**
+	 * Ensures this geometry can hold the given number of vertices and faces without growing its arrays, loaders that 
+	 * know the size of a mesh up front should call this before adding to it
+	 * 
+	 * @param vertices Number of vertices this geometry should be able to hold
+	 * @param faces Number of faces this geometry should be able to hold
+	 */
+	public void ensureCapacity(int vertices, int faces){
+		if(vertices*3 > positions.length){
+			int newCapacity = Math.max(vertices, positions.length/3*2);
+			positions = Arrays.copyOf(positions, newCapacity*3);
+			normals = Arrays.copyOf(normals, newCapacity*3);
+			uvs = Arrays.copyOf(uvs, newCapacity*2);
+			if(tangents != null){
+				tangents = Arrays.copyOf(tangents, newCapacity*3);
+			}
+			if(bitangents != null){
+				bitangents = Arrays.copyOf(bitangents, newCapacity*3);
+			}
+		}
+		if(faces*3 > indices.length){
+			int newCapacity = Math.max(faces, indices.length/3*2);
+			indices = Arrays.copyOf(indices, newCapacity*3);
+		}
+	}
+	
 	/**
 	 * Gets the number of indices of the given value there are in the minMax array. This is to help
 	 * determine if a new index should be assigned a min max value based on the quantity of that index
@@ -111,70 +173,121 @@ public class Geometry {
 	 * @param vert Vertex to add to this mesh
 	 */
 	public void add(Vertex vert){
-		vertices.add(new Vertex(vert));
-		hashVerts.put(vertices.get(vertices.size()-1), vertices.size()-1);
+		Vec3 pos = vert.getPos(), normal = vert.getNormal();
+		Vec2 uv = vert.getUV();
+		add(pos.x, pos.y, pos.z, normal.x, normal.y, normal.z, uv.x, uv.y);
+		int index = vertexCount-1;
+		if(vert.getTangent() != null){
+			setTangent(index, vert.getTangent());
+		}
+		if(vert.getBitangent() != null){
+			setBitangent(index, vert.getBitangent());
+		}
+	}
+	
+	/**
+	 * Adds a vertex to this mesh from the given values, the normal is stored as given
+	 * 
+	 * @param x X component of the vertex's position
+	 * @param y Y component of the vertex's position
+	 * @param z Z component of the vertex's position
+	 * @param nx X component of the vertex's normal
+	 * @param ny Y component of the vertex's normal
+	 * @param nz Z component of the vertex's normal
+	 * @param u X component of the vertex's texture coordinate
+	 * @param v Y component of the vertex's texture coordinate
+	 * 
+	 * @return Index of the added vertex
+	 */
+	public int add(float x, float y, float z, float nx, float ny, float nz, float u, float v){
+		ensureCapacity(vertexCount+1, faceCount);
+		int index = vertexCount++;
+		positions[index*3] = x;
+		positions[index*3+1] = y;
+		positions[index*3+2] = z;
+		normals[index*3] = nx;
+		normals[index*3+1] = ny;
+		normals[index*3+2] = nz;
+		uvs[index*2] = u;
+		uvs[index*2+1] = v;
+		if(welder != null){
+			welder.add(x, y, z, nx, ny, nz, u, v, index);
+		}
+		//the adjacency is sized by the vertex count
+		halfEdges = null;
+		vertexFaces = null;
 		//compute the new geomtric center
-		geometricCenter.scale((vertices.size()-1)/(float)vertices.size());//scale the current center by (n-1)/n
+		geometricCenter.scale((vertexCount-1)/(float)vertexCount);//scale the current center by (n-1)/n
 		//this brings the previous vertices into the appropriate average range
 		//the center is defined as the average of the sums of the vertices, but since we don't know when 
 		//the max number of vertices has been added we only have the n-1 average stored in the geometric center
 		//to adjust those previous values to bring them into the n average with the scalar (n-1)/n
-		geometricCenter.add(VecUtil.scale(vert.getPos(), 1.0f/vertices.size()));
+		float weight = 1.0f/vertexCount;
+		geometricCenter.add(x*weight, y*weight, z*weight);
 		
 		//check if this vertex is a minimum or maximum along any axis
-		//X min
-		if(vert.getPos().x < vertices.get(minMax[0]).getPos().x){
-			minMax[0] = vertices.size()-1;
-		}else if(vert.getPos().x == vertices.get(minMax[0]).getPos().x && getCount(minMax[0]) > 1){
-			//if the value we checked would also qualify for the min value and the value already in the list
-			//has multiple assignments, then we can replace this with the new vertex
-			minMax[0] = vertices.size()-1;
-		}
-
-		//X max
-		if(vert.getPos().x > vertices.get(minMax[1]).getPos().x){
-			minMax[1] = vertices.size()-1;
-		}else if(vert.getPos().x == vertices.get(minMax[1]).getPos().x && getCount(minMax[1]) > 1){
+		updateMinMax(index, 0, MIN_X, MAX_X);
+		updateMinMax(index, 1, MIN_Y, MAX_Y);
+		updateMinMax(index, 2, MIN_Z, MAX_Z);
+		return index;
+	}
+	
+	/**
+	 * Checks if the vertex at {@code index} is a new minimum or maximum along the given axis
+	 * 
+	 * @param index Index of the new vertex
+	 * @param axis Component of the position to compare, 0 for x, 1 for y and 2 for z
+	 * @param min minMax entry of the minimum along the axis
+	 * @param max minMax entry of the maximum along the axis
+	 */
+	private void updateMinMax(int index, int axis, int min, int max){
+		float value = positions[index*3+axis];
+		float minValue = positions[minMax[min]*3+axis];
+		if(value < minValue){
+			minMax[min] = index;
+		}else if(value == minValue && getCount(minMax[min]) > 1){
 			//if the value we checked would also qualify for the min value and the value already in the list
 			//has multiple assignments, then we can replace this with the new vertex
-			minMax[1] = vertices.size()-1;
+			minMax[min] = index;
 		}
 		
-		//Y min
-		if(vert.getPos().y < vertices.get(minMax[2]).getPos().y){
-			minMax[2] = vertices.size()-1;
-		}else if(vert.getPos().y == vertices.get(minMax[2]).getPos().y && getCount(minMax[2]) > 1){
-			//if the value we checked would also qualify for the min value and the value already in the list
-			//has multiple assignments, then we can replace this with the new vertex
-			minMax[2] = vertices.size()-1;
-		}
-
-		//Y max
-		if(vert.getPos().y > vertices.get(minMax[3]).getPos().y){
-			minMax[3] = vertices.size()-1;
-		}else if(vert.getPos().y == vertices.get(minMax[3]).getPos().y && getCount(minMax[3]) > 1){
-			//if the value we checked would also qualify for the min value and the value already in the list
+		float maxValue = positions[minMax[max]*3+axis];
+		if(value > maxValue){
+			minMax[max] = index;
+		}else if(value == maxValue && getCount(minMax[max]) > 1){
+			//if the value we checked would also qualify for the max value and the value already in the list
 			//has multiple assignments, then we can replace this with the new vertex
-			minMax[3] = vertices.size()-1;
+			minMax[max] = index;
 		}
-		
-		//Z min
-		if(vert.getPos().z < vertices.get(minMax[4]).getPos().z){
-			minMax[4] = vertices.size()-1;
-		}else if(vert.getPos().z == vertices.get(minMax[4]).getPos().z && getCount(minMax[4]) > 1){
-			//if the value we checked would also qualify for the min value and the value already in the list
-			//has multiple assignments, then we can replace this with the new vertex
-			minMax[4] = vertices.size()-1;
+	}
+	
+	/**
+	 * Keeps the minimum and maximum along the given axis correct after the vertex at {@code index} was moved. If the vertex
+	 * was the minimum or maximum it may no longer be, so the axis is searched again, otherwise the vertex is only checked
+	 * as a new minimum or maximum.
+	 * 
+	 * @param index Index of the moved vertex
+	 * @param axis Component of the position to compare, 0 for x, 1 for y and 2 for z
+	 * @param min minMax entry of the minimum along the axis
+	 * @param max minMax entry of the maximum along the axis
+	 */
+	private void moveMinMax(int index, int axis, int min, int max){
+		if(minMax[min] != index && minMax[max] != index){
+			updateMinMax(index, axis, min, max);
+			return;
 		}
-
-		//Z max
-		if(vert.getPos().z > vertices.get(minMax[5]).getPos().z){
-			minMax[5] = vertices.size()-1;
-		}else if(vert.getPos().z == vertices.get(minMax[5]).getPos().z && getCount(minMax[5]) > 1){
-			//if the value we checked would also qualify for the min value and the value already in the list
-			//has multiple assignments, then we can replace this with the new vertex
-			minMax[5] = vertices.size()-1;
+		int minIndex = 0, maxIndex = 0;
+		for(int curVert = 1; curVert < vertexCount; curVert++){
+			float value = positions[curVert*3+axis];
+			if(value < positions[minIndex*3+axis]){
+				minIndex = curVert;
+			}
+			if(value > positions[maxIndex*3+axis]){
+				maxIndex = curVert;
+			}
 		}
+		minMax[min] = minIndex;
+		minMax[max] = maxIndex;
 	}
 	
 	/**
@@ -193,15 +306,15 @@ public class Geometry {
 	public void moveToGeoCenter(){
 		//only perform the move operation if the center is anything but the origin
 		if(!geometricCenter.isZero()){
-			//iterate over the vertices and translate their position vector by the geometric center
-			for(int curVert = 0; curVert < vertices.size(); curVert++){
-				//remove the old hashmap value for the current vertex, since it will need to be updated after the translation
-				hashVerts.remove(vertices.get(curVert));
-				//adjust the vertex position
-				vertices.get(curVert).setPos(VecUtil.subtract(vertices.get(curVert).getPos(), geometricCenter));
-				//add the adjusted vertex back into the hash map
-				hashVerts.put(vertices.get(curVert), curVert);
+			//iterate over the vertices and translate their position by the geometric center
+			for(int curVert = 0; curVert < vertexCount; curVert++){
+				positions[curVert*3] -= geometricCenter.x;
+				positions[curVert*3+1] -= geometricCenter.y;
+				positions[curVert*3+2] -= geometricCenter.z;
 			}
+			//the vertex lookup and meshlet bounds use the old positions, they are rebuilt the next time they're needed
+			welder = null;
+			meshlets = null;
 			//adjust the geometric center variable
 			geometricCenter.set(0,0,0);
 		}
@@ -231,55 +344,44 @@ public class Geometry {
 	 * @param triangle Face to add to this mesh
 	 */
 	public void add(Triangle triangle){
-		faces.add(new Triangle(triangle));
-		
-		//create edge that the half edge is associated with but in reverse order, this is due to the edge that marked the half edge
-		//potentially in the map has an opposite ordering
-		Edge mapEdge1 = new Edge(triangle.e1.end, triangle.e1.start);
-		//check if the edge map has that edge which should return the corresponding HalfEdge
-		HalfEdge mapHE1 = edgeMap.get(mapEdge1);
-		//check if we found the half edge
-		if(mapHE1 != null){
-			//if we did set their opposites to be each other
-			triangle.he1.opposite = mapHE1;
-			mapHE1.opposite = triangle.he1;
-		}else{//if not add it to the map
-			edgeMap.put(triangle.e1, triangle.he1);
-		}
-		
-		Edge mapEdge2 = new Edge(triangle.e2.end, triangle.e2.start);
-		//check if the edge map has that edge which should return the corresponding HalfEdge
-		HalfEdge mapHE2 = edgeMap.get(mapEdge2);
-		//check if we found the half edge
-		if(mapHE2 != null){
-			//if we did set their opposites to be each other
-			triangle.he2.opposite = mapHE2;
-			mapHE2.opposite = triangle.he2;
-		}else{//if not add it to the map
-			edgeMap.put(triangle.e2, triangle.he2);
-		}
-		
-		Edge mapEdge3 = new Edge(triangle.e3.end, triangle.e3.start);
-		//check if the edge map has that edge which should return the corresponding HalfEdge
-		HalfEdge mapHE3 = edgeMap.get(mapEdge3);
-		//check if we found the half edge
-		if(mapHE3 != null){
-			//if we did set their opposites to be each other
-			triangle.he3.opposite = mapHE3;
-			mapHE3.opposite = triangle.he3;
-		}else{//if not add it to the map
-			edgeMap.put(triangle.e3, triangle.he3);
-		}
+		add(triangle.he1.sourceVert, triangle.he2.sourceVert, triangle.he3.sourceVert);
+	}
+	
+	/**
+	 * Adds a face made of the given vertex indices to this mesh, the face is wound in the order the indices are given
+	 * 
+	 * @param v0 Index of the first vertex of the face
+	 * @param v1 Index of the second vertex of the face
+	 * @param v2 Index of the third vertex of the face
+	 * 
+	 * @return Index of the added face
+	 */
+	public int add(int v0, int v1, int v2){
+		ensureCapacity(vertexCount, faceCount+1);
+		int face = faceCount++;
+		indices[face*3] = v0;
+		indices[face*3+1] = v1;
+		indices[face*3+2] = v2;
+		halfEdges = null;
+		vertexFaces = null;
+		meshlets = null;
+		cacheOptimized = false;
+		return face;
 	}
 	
 	/**
 	 * Empties all the data of this mesh and resets it to when it was initialized
 	 */
 	public void empty(){
-		vertices.clear();
-		hashVerts.clear();
-		faces.clear();
-		edgeMap.clear();
+		vertexCount = 0;
+		faceCount = 0;
+		tangents = null;
+		bitangents = null;
+		welder = null;
+		halfEdges = null;
+		vertexFaces = null;
+		meshlets = null;
+		cacheOptimized = false;
 		minMax[0] = 0;
 		minMax[1] = 0;
 		minMax[2] = 0;
@@ -293,9 +395,23 @@ public class Geometry {
 	 * 
 	 * @param index Index of the vertex to modify
 	 * @param vert Vertex to set the vertex at {@code index} to
+	 * @throws IndexOutOfBoundsException If there is no vertex at {@code index}
 	 */
-	public void setVertex(int index, Vertex vert){
-		vertices.get(index).set(vert);
+	public void setVertex(int index, Vertex vert) throws IndexOutOfBoundsException{
+		checkVertex(index);
+		setPos(index, vert.getPos());
+		setNormal(index, vert.getNormal());
+		uvs[index*2] = vert.getUV().x;
+		uvs[index*2+1] = vert.getUV().y;
+		if(vert.getTangent() != null){
+			setTangent(index, vert.getTangent());
+		}
+		if(vert.getBitangent() != null){
+			setBitangent(index, vert.getBitangent());
+		}
+		//the vertex lookup is keyed on the old values, it is rebuilt the next time it's needed
+		welder = null;
+		meshlets = null;
 	}
 	
 	/**
@@ -304,7 +420,7 @@ public class Geometry {
 	 * @return Number of vertices in this mesh
 	 */
 	public int numVertices(){
-		return vertices.size();
+		return vertexCount;
 	}
 	
 	/**
@@ -314,107 +430,767 @@ public class Geometry {
 	 * @return Number of faces in this mesh
 	 */
 	public int numFaces(){
-		return faces.size();
+		return faceCount;
 	}
 	
 	/**
-	 * Gets the Vertex at the specified index of this mesh
+	 * Gets whether the vertices of this mesh have texture space tangents
+	 * 
+	 * @return True if tangents have been added or generated for this mesh
+	 */
+	public boolean hasTangents(){
+		return tangents != null;
+	}
+	
+	/**
+	 * Gets whether the vertices of this mesh have texture space bitangents
+	 * 
+	 * @return True if bitangents have been added or generated for this mesh
+	 */
+	public boolean hasBitangents(){
+		return bitangents != null;
+	}
+	
+	private void checkVertex(int index) throws IndexOutOfBoundsException{
+		if(index > vertexCount-1 || index < 0){
+			throw new IndexOutOfBoundsException("Index out of bounds for retrieval of Vertex from mesh, Index: "+index+" Size: "+vertexCount);
+		}
+	}
+	
+	/**
+	 * Gets a copy of the Vertex at the specified index of this mesh, changes made to the returned Vertex are not stored
+	 * in this mesh unless it is passed to {@link #setVertex(int, Vertex)}
 	 * 
 	 * @param index Index of the Vertex to retrieve
 	 * @return Vertex at the specified index in this mesh
 	 * @throws IndexOutOfBoundsException
 	 */
 	public Vertex getVertex(int index) throws IndexOutOfBoundsException{
-		if(index > vertices.size()-1 || index < 0){
-			throw new IndexOutOfBoundsException("Index out of bounds for retrieval of Vertex from mesh, Index: "+index+" Size: "+vertices.size());
-		}else{
-			return vertices.get(index);
+		return getVertex(index, new Vertex(0,0,0, 0,0,0, 0,0));
+	}
+	
+	/**
+	 * Copies the Vertex at the specified index of this mesh into {@code dest}
+	 * 
+	 * @param index Index of the Vertex to retrieve
+	 * @param dest Vertex to store the values in
+	 * @return {@code dest}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Vertex getVertex(int index, Vertex dest) throws IndexOutOfBoundsException{
+		checkVertex(index);
+		getPos(index, dest.getPos());
+		getNormal(index, dest.getNormal());
+		dest.getUV().set(uvs[index*2], uvs[index*2+1]);
+		//the values are written to the vertex's vectors directly since they are already normalized
+		if(tangents != null){
+			if(dest.getTangent() == null){
+				dest.setTangent(1, 0, 0);
+			}
+			dest.getTangent().set(tangents[index*3], tangents[index*3+1], tangents[index*3+2]);
+		}
+		if(bitangents != null){
+			if(dest.getBitangent() == null){
+				dest.setBitangent(1, 0, 0);
+			}
+			dest.getBitangent().set(bitangents[index*3], bitangents[index*3+1], bitangents[index*3+2]);
+		}
+		return dest;
+	}
+	
+	/**
+	 * Gets a copy of the position of the vertex at {@code index}
+	 * 
+	 * @param index Index of the vertex
+	 * @return New vector containing the position of the vertex
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Vec3 getPos(int index) throws IndexOutOfBoundsException{
+		return getPos(index, new Vec3());
+	}
+	
+	/**
+	 * Copies the position of the vertex at {@code index} into {@code dest}
+	 * 
+	 * @param index Index of the vertex
+	 * @param dest Vector to store the position in
+	 * @return {@code dest}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Vec3 getPos(int index, Vec3 dest) throws IndexOutOfBoundsException{
+		checkVertex(index);
+		return dest.set(positions[index*3], positions[index*3+1], positions[index*3+2]);
+	}
+	
+	/**
+	 * Computes the dot product of the position of the vertex at {@code index} with the given vector, this is the
+	 * distance along {@code direction} used by support functions and doesn't allocate
+	 * 
+	 * @param index Index of the vertex
+	 * @param direction Vector to dot the position with
+	 * @return Dot product of the vertex position and {@code direction}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public float dotPos(int index, Vec3 direction) throws IndexOutOfBoundsException{
+		checkVertex(index);
+		return positions[index*3]*direction.x+positions[index*3+1]*direction.y+positions[index*3+2]*direction.z;
+	}
+	
+	/**
+	 * Sets the position of the vertex at {@code index}
+	 * 
+	 * @param index Index of the vertex
+	 * @param pos New position of the vertex
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void setPos(int index, Vec3 pos) throws IndexOutOfBoundsException{
+		checkVertex(index);
+		//move the center by the change of this vertex's share of the average
+		float weight = 1.0f/vertexCount;
+		geometricCenter.add((pos.x-positions[index*3])*weight, (pos.y-positions[index*3+1])*weight, 
+				(pos.z-positions[index*3+2])*weight);
+		positions[index*3] = pos.x;
+		positions[index*3+1] = pos.y;
+		positions[index*3+2] = pos.z;
+		moveMinMax(index, 0, MIN_X, MAX_X);
+		moveMinMax(index, 1, MIN_Y, MAX_Y);
+		moveMinMax(index, 2, MIN_Z, MAX_Z);
+		welder = null;
+		meshlets = null;
+	}
+	
+	/**
+	 * Copies the normal of the vertex at {@code index} into {@code dest}
+	 * 
+	 * @param index Index of the vertex
+	 * @param dest Vector to store the normal in
+	 * @return {@code dest}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Vec3 getNormal(int index, Vec3 dest) throws IndexOutOfBoundsException{
+		checkVertex(index);
+		return dest.set(normals[index*3], normals[index*3+1], normals[index*3+2]);
+	}
+	
+	/**
+	 * Sets the normal of the vertex at {@code index}, the normal is stored as given
+	 * 
+	 * @param index Index of the vertex
+	 * @param normal New normal of the vertex
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void setNormal(int index, Vec3 normal) throws IndexOutOfBoundsException{
+		checkVertex(index);
+		normals[index*3] = normal.x;
+		normals[index*3+1] = normal.y;
+		normals[index*3+2] = normal.z;
+		welder = null;
+	}
+	
+	/**
+	 * Copies the texture coordinate of the vertex at {@code index} into {@code dest}
+	 * 
+	 * @param index Index of the vertex
+	 * @param dest Vector to store the texture coordinate in
+	 * @return {@code dest}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Vec2 getUV(int index, Vec2 dest) throws IndexOutOfBoundsException{
+		checkVertex(index);
+		return dest.set(uvs[index*2], uvs[index*2+1]);
+	}
+	
+	/**
+	 * Copies the tangent of the vertex at {@code index} into {@code dest}, if this mesh has no tangents {@code dest} is 
+	 * set to 0
+	 * 
+	 * @param index Index of the vertex
+	 * @param dest Vector to store the tangent in
+	 * @return {@code dest}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Vec3 getTangent(int index, Vec3 dest) throws IndexOutOfBoundsException{
+		checkVertex(index);
+		if(tangents == null){
+			return dest.set(0, 0, 0);
+		}
+		return dest.set(tangents[index*3], tangents[index*3+1], tangents[index*3+2]);
+	}
+	
+	/**
+	 * Sets the tangent of the vertex at {@code index}, this gives every vertex of this mesh a tangent if it didn't have
+	 * them already
+	 * 
+	 * @param index Index of the vertex
+	 * @param tangent New tangent of the vertex
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void setTangent(int index, Vec3 tangent) throws IndexOutOfBoundsException{
+		checkVertex(index);
+		if(tangents == null){
+			tangents = new float[positions.length];
+		}
+		tangents[index*3] = tangent.x;
+		tangents[index*3+1] = tangent.y;
+		tangents[index*3+2] = tangent.z;
+	}
+	
+	/**
+	 * Copies the bitangent of the vertex at {@code index} into {@code dest}, if this mesh has no bitangents {@code dest}
+	 * is set to 0
+	 * 
+	 * @param index Index of the vertex
+	 * @param dest Vector to store the bitangent in
+	 * @return {@code dest}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Vec3 getBitangent(int index, Vec3 dest) throws IndexOutOfBoundsException{
+		checkVertex(index);
+		if(bitangents == null){
+			return dest.set(0, 0, 0);
+		}
+		return dest.set(bitangents[index*3], bitangents[index*3+1], bitangents[index*3+2]);
+	}
+	
+	/**
+	 * Sets the bitangent of the vertex at {@code index}, this gives every vertex of this mesh a bitangent if it didn't 
+	 * have them already
+	 * 
+	 * @param index Index of the vertex
+	 * @param bitangent New bitangent of the vertex
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void setBitangent(int index, Vec3 bitangent) throws IndexOutOfBoundsException{
+		checkVertex(index);
+		if(bitangents == null){
+			bitangents = new float[positions.length];
+		}
+		bitangents[index*3] = bitangent.x;
+		bitangents[index*3+1] = bitangent.y;
+		bitangents[index*3+2] = bitangent.z;
+	}
+	
+	/**
+	 * Gets the array the vertex positions of this mesh are stored in, 3 floats per vertex. The array is used directly
+	 * by this mesh, it may be longer than needed and is replaced when the mesh grows, so it should only be held onto 
+	 * while no vertices are being added.
+	 * 
+	 * @return Packed vertex positions of this mesh
+	 */
+	public float[] getPositionData(){
+		return positions;
+	}
+	
+	/**
+	 * Gets the array the face indices of this mesh are stored in, 3 vertex indices per face. The array is used directly
+	 * by this mesh, it may be longer than needed and is replaced when the mesh grows, so it should only be held onto 
+	 * while no faces are being added.
+	 * 
+	 * @return Packed face indices of this mesh
+	 */
+	public int[] getIndexData(){
+		return indices;
+	}
+	
+	/**
+	 * Copies the positions of every vertex in this mesh into the given batch, replacing its contents. The batch can then
+	 * be transformed or bounded in bulk without going through each Vertex.
+	 * 
+	 * @param dest Batch to store the positions in
+	 * 
+	 * @return {@code dest}
+	 */
+	public Vec3Batch getPositions(Vec3Batch dest){
+		dest.clear();
+		dest.ensureCapacity(vertexCount);
+		for(int vert = 0; vert < vertexCount; vert++){
+			dest.add(positions[vert*3], positions[vert*3+1], positions[vert*3+2]);
 		}
+		return dest;
 	}
 	
+	/**
+	 * Gets the index of the vertex in this mesh with the same position, normal and texture coordinate as the given vertex.
+	 * Loaders that add many vertices should weld them with their own {@link VertexWelder} instead of creating a Vertex
+	 * for each lookup.
+	 * 
+	 * @param vert Vertex to look for
+	 * @return Index of the vertex or -1 if this mesh doesn't contain it
+	 */
 	public int getIndex(Vertex vert){
-		if(hashVerts.get(vert) != null){
-			return hashVerts.get(vert);
-		}else{
-			return -1;
+		if(welder == null){
+			welder = new VertexWelder(0, vertexCount);
+			for(int curVert = 0; curVert < vertexCount; curVert++){
+				welder.add(positions[curVert*3], positions[curVert*3+1], positions[curVert*3+2], 
+						normals[curVert*3], normals[curVert*3+1], normals[curVert*3+2], uvs[curVert*2], uvs[curVert*2+1], curVert);
+			}
 		}
+		Vec3 pos = vert.getPos(), normal = vert.getNormal();
+		Vec2 uv = vert.getUV();
+		return welder.find(pos.x, pos.y, pos.z, normal.x, normal.y, normal.z, uv.x, uv.y);
 	}
 	
+	/**
+	 * Generates the normal of every vertex used by a face as the normalized sum of the normals of the faces around it,
+	 * replacing the vertex's current normal. Vertices not used by any face keep their normal.
+	 * <p>
+	 * Meshes with at least {@link #PARALLEL_THRESHOLD} faces are processed on the common fork join pool. Face normals are
+	 * computed in parallel over ranges of faces, then each vertex sums the normals of its faces in face order, so the
+	 * result is the same no matter how the work is split.
+	 * </p>
+	 */
 	public void genNormals(){
-		for(Triangle curFace : faces){
-			Vertex v0 = vertices.get(curFace.he1.sourceVert);
-			Vertex v1 = vertices.get(curFace.he2.sourceVert);
-			Vertex v2 = vertices.get(curFace.he3.sourceVert);
-			
-			//get the current face normal
-			Vec3 faceNormal = curFace.getNormal(this);
-			
-			//sum the current vertex normal and the face normal to get a normal that is the average of the faces sharing that normal
-			v0.setNormal(VecUtil.add(v0.getNormal(), faceNormal));
-			v1.setNormal(VecUtil.add(v1.getNormal(), faceNormal));
-			v2.setNormal(VecUtil.add(v2.getNormal(), faceNormal));
-		}
+		float[] faceNormals = new float[faceCount*3];
+		generate(FACE_NORMALS, faceCount, faceNormals, null);
+		generate(VERTEX_NORMALS, vertexCount, faceNormals, null);
 	}
 	
+	/**
+	 * Generates the texture space tangent and bitangent of every vertex used by a face from the positions and texture
+	 * coordinates of the faces around it. The tangent is made orthogonal to the vertex normal so the normals should be
+	 * set before this is called. Faces with degenerate texture coordinates don't contribute.
+	 * <p>
+	 * Like {@link #genNormals()} this runs in parallel for large meshes and gives the same result for any split.
+	 * </p>
+	 */
 	public void genTangentBitangent(){
-		for(Triangle curFace : faces){
-			Vertex v0 = vertices.get(curFace.he1.sourceVert);
-			Vertex v1 = vertices.get(curFace.he2.sourceVert);
-			Vertex v2 = vertices.get(curFace.he3.sourceVert);
-			
-			//construct vectors with the first vertex as their origin
-			//v1-v0
-			Vec3 e1 = VecUtil.subtract(v1.getPos(), v0.getPos());
-			
-			//v2-v0
-			Vec3 e2 = VecUtil.subtract(v2.getPos(), v0.getPos());
-			
-			//compute the changes in the UVs
-			Vec2 uv1 = VecUtil.subtract(v1.getUV(), v0.getUV());
-			Vec2 uv2 = VecUtil.subtract(v2.getUV(), v0.getUV());
-			
-			//compute determinant of the texture space basis matrix
-			float textDet = 1.0f/(uv1.x * uv2.y - uv1.y * uv2.x);
-			
-			Vec3 tangent = (VecUtil.scale(e1, uv2.y).subtract(VecUtil.scale(e2, uv1.y))).scale(textDet);
-			Vec3 bitangent = (VecUtil.scale(e2, uv1.x).subtract(VecUtil.scale(e1, uv2.x))).scale(textDet);
-			//add the tangent and bitangent to the vertices
-			v0.addToTangent(tangent);
-			v0.addToBitangent(bitangent);
-			
-			v1.addToTangent(tangent);
-			v1.addToBitangent(bitangent);
-			
-			v2.addToTangent(tangent);
-			v2.addToBitangent(bitangent);
+		if(tangents == null){
+			tangents = new float[positions.length];
+		}
+		if(bitangents == null){
+			bitangents = new float[positions.length];
+		}
+		float[] faceTangents = new float[faceCount*3], faceBitangents = new float[faceCount*3];
+		generate(FACE_TANGENTS, faceCount, faceTangents, faceBitangents);
+		generate(VERTEX_TANGENTS, vertexCount, faceTangents, faceBitangents);
+	}
+	
+	/**
+	 * Runs one pass of the normal or tangent generation over {@code count} faces or vertices, splitting it across the
+	 * common fork join pool if the mesh is large enough
+	 */
+	private void generate(int pass, int count, float[] faceData, float[] faceData2){
+		if(pass == VERTEX_NORMALS || pass == VERTEX_TANGENTS){
+			buildVertexFaces();
+		}
+		if(faceCount >= PARALLEL_THRESHOLD){
+			ForkJoinPool.commonPool().invoke(new AttributeTask(pass, 0, count, faceData, faceData2));
+		}else{
+			runPass(pass, 0, count, faceData, faceData2);
+		}
+	}
+	
+	private void runPass(int pass, int start, int end, float[] faceData, float[] faceData2){
+		switch(pass){
+			case FACE_NORMALS:
+				for(int face = start; face < end; face++){
+					computeFaceNormal(face, faceData);
+				}
+				break;
+			case VERTEX_NORMALS:
+				for(int vert = start; vert < end; vert++){
+					if(sumFaces(vert, faceData, normals)){
+						normalize(normals, vert*3);
+					}
+				}
+				break;
+			case FACE_TANGENTS:
+				for(int face = start; face < end; face++){
+					computeFaceTangent(face, faceData, faceData2);
+				}
+				break;
+			case VERTEX_TANGENTS:
+				for(int vert = start; vert < end; vert++){
+					if(sumFaces(vert, faceData, tangents)){
+						//adjust invariance in the tangent to make it truly orthogonal
+						//t - n * glm::dot(n, t)
+						int offset = vert*3;
+						float normalDot = normals[offset]*tangents[offset]+normals[offset+1]*tangents[offset+1]+
+								normals[offset+2]*tangents[offset+2];
+						tangents[offset] -= normals[offset]*normalDot;
+						tangents[offset+1] -= normals[offset+1]*normalDot;
+						tangents[offset+2] -= normals[offset+2]*normalDot;
+						normalize(tangents, offset);
+						
+						sumFaces(vert, faceData2, bitangents);
+						normalize(bitangents, offset);
+					}
+				}
+				break;
+		}
+	}
+	
+	/**
+	 * Builds the list of faces using each vertex, stored as the faces of vertex {@code v} being 
+	 * {@code vertexFaces[vertexFaceStart[v]]} up to {@code vertexFaces[vertexFaceStart[v+1]]} in increasing order
+	 */
+	private void buildVertexFaces(){
+		if(vertexFaces != null){
+			return;
+		}
+		int[] start = new int[vertexCount+1];
+		for(int corner = 0; corner < faceCount*3; corner++){
+			start[indices[corner]+1]++;
+		}
+		for(int vert = 0; vert < vertexCount; vert++){
+			start[vert+1] += start[vert];
+		}
+		int[] faces = new int[faceCount*3];
+		int[] fill = Arrays.copyOf(start, vertexCount);
+		for(int corner = 0; corner < faceCount*3; corner++){
+			faces[fill[indices[corner]]++] = corner/3;
+		}
+		vertexFaceStart = start;
+		vertexFaces = faces;
+	}
+	
+	/**
+	 * Sums the 3 component values of the faces using the given vertex into {@code dest} at the vertex
+	 * 
+	 * @return True if the vertex is used by any face, otherwise {@code dest} is left unchanged
+	 */
+	private boolean sumFaces(int vert, float[] faceData, float[] dest){
+		int first = vertexFaceStart[vert], last = vertexFaceStart[vert+1];
+		if(first == last){
+			return false;
+		}
+		float x = 0, y = 0, z = 0;
+		for(int curFace = first; curFace < last; curFace++){
+			int face = vertexFaces[curFace]*3;
+			x += faceData[face];
+			y += faceData[face+1];
+			z += faceData[face+2];
+		}
+		dest[vert*3] = x;
+		dest[vert*3+1] = y;
+		dest[vert*3+2] = z;
+		return true;
+	}
+	
+	private void computeFaceNormal(int face, float[] dest){
+		int v0 = indices[face*3]*3, v1 = indices[face*3+1]*3, v2 = indices[face*3+2]*3;
+		float e1x = positions[v1]-positions[v0], e1y = positions[v1+1]-positions[v0+1], e1z = positions[v1+2]-positions[v0+2];
+		float e2x = positions[v2]-positions[v0], e2y = positions[v2+1]-positions[v0+1], e2z = positions[v2+2]-positions[v0+2];
+		dest[face*3] = e1y*e2z-e1z*e2y;
+		dest[face*3+1] = e1z*e2x-e1x*e2z;
+		dest[face*3+2] = e1x*e2y-e1y*e2x;
+		normalize(dest, face*3);
+	}
+	
+	private void computeFaceTangent(int face, float[] tangentDest, float[] bitangentDest){
+		int v0 = indices[face*3], v1 = indices[face*3+1], v2 = indices[face*3+2];
+		
+		//construct vectors with the first vertex as their origin
+		//v1-v0
+		float e1x = positions[v1*3]-positions[v0*3];
+		float e1y = positions[v1*3+1]-positions[v0*3+1];
+		float e1z = positions[v1*3+2]-positions[v0*3+2];
+		
+		//v2-v0
+		float e2x = positions[v2*3]-positions[v0*3];
+		float e2y = positions[v2*3+1]-positions[v0*3+1];
+		float e2z = positions[v2*3+2]-positions[v0*3+2];
+		
+		//compute the changes in the UVs
+		float uv1x = uvs[v1*2]-uvs[v0*2], uv1y = uvs[v1*2+1]-uvs[v0*2+1];
+		float uv2x = uvs[v2*2]-uvs[v0*2], uv2y = uvs[v2*2+1]-uvs[v0*2+1];
+		
+		//compute determinant of the texture space basis matrix
+		float det = uv1x * uv2y - uv1y * uv2x;
+		float textDet = det != 0 ? 1.0f/det : 0;
+		
+		tangentDest[face*3] = (e1x*uv2y-e2x*uv1y)*textDet;
+		tangentDest[face*3+1] = (e1y*uv2y-e2y*uv1y)*textDet;
+		tangentDest[face*3+2] = (e1z*uv2y-e2z*uv1y)*textDet;
+		bitangentDest[face*3] = (e2x*uv1x-e1x*uv2x)*textDet;
+		bitangentDest[face*3+1] = (e2y*uv1x-e1y*uv2x)*textDet;
+		bitangentDest[face*3+2] = (e2z*uv1x-e1z*uv2x)*textDet;
+	}
+	
+	private static void normalize(float[] data, int offset){
+		float lenSq = data[offset]*data[offset]+data[offset+1]*data[offset+1]+data[offset+2]*data[offset+2];
+		if(lenSq != 0){
+			float inv = FastMath.invSqrt(lenSq);
+			data[offset] *= inv;
+			data[offset+1] *= inv;
+			data[offset+2] *= inv;
+		}
+	}
+	
+	/**
+	 * Reorders the faces and vertices of this mesh for a vertex cache of {@code VertexCache.DEFAULT_SIZE} vertices
+	 * 
+	 * @see #optimizeVertexCache(int)
+	 */
+	public void optimizeVertexCache(){
+		optimizeVertexCache(VertexCache.DEFAULT_SIZE);
+	}
+	
+	/**
+	 * Reorders the faces of this mesh so the GPU reuses transformed vertices from its post transform cache, then groups
+	 * the faces so the outside of the mesh tends to be drawn first and renumbers the vertices in the order the faces use
+	 * them. The mesh looks the same but face and vertex indices change, vertices no face uses are moved to the end.
+	 * <p>
+	 * The reordering is kept with the mesh, and copies of it, until a face is added, calling this again before then does
+	 * nothing. Loaders should call this once the mesh is complete.
+	 * </p>
+	 * 
+	 * @param cacheSize Number of vertices the targeted cache holds
+	 * @see VertexCacheOptimizer
+	 */
+	public void optimizeVertexCache(int cacheSize){
+		if(cacheOptimized){
+			return;
+		}
+		int[] ordered = new int[faceCount*3];
+		VertexCacheOptimizer.optimizeCache(indices, faceCount, vertexCount, cacheSize, ordered);
+		VertexCacheOptimizer.optimizeOverdraw(ordered, faceCount, positions, cacheSize, 
+				VertexCacheOptimizer.DEFAULT_OVERDRAW_THRESHOLD, indices);
+		int[] remap = new int[vertexCount];
+		VertexCacheOptimizer.optimizeVertexFetch(indices, faceCount, vertexCount, remap);
+		
+		positions = permute(positions, 3, remap);
+		normals = permute(normals, 3, remap);
+		uvs = permute(uvs, 2, remap);
+		if(tangents != null){
+			tangents = permute(tangents, 3, remap);
+		}
+		if(bitangents != null){
+			bitangents = permute(bitangents, 3, remap);
+		}
+		if(vertexCount > 0){
+			for(int curIndex = 0; curIndex < minMax.length; curIndex++){
+				minMax[curIndex] = remap[minMax[curIndex]];
+			}
+		}
+		welder = null;
+		halfEdges = null;
+		vertexFaces = null;
+		meshlets = null;
+		cacheOptimized = true;
+	}
+	
+	/**
+	 * Gets whether the faces and vertices of this mesh are in vertex cache order
+	 * 
+	 * @return True if {@link #optimizeVertexCache(int)} has been called since the last face was added
+	 */
+	public boolean isCacheOptimized(){
+		return cacheOptimized;
+	}
+	
+	private float[] permute(float[] data, int width, int[] remap){
+		float[] result = new float[data.length];
+		for(int vert = 0; vert < vertexCount; vert++){
+			System.arraycopy(data, vert*width, result, remap[vert]*width, width);
+		}
+		return result;
+	}
+	
+	/**
+	 * Computes the normal of the face at the given index
+	 * 
+	 * @param face Index of the face
+	 * @param dest Vector to store the normal in
+	 * @return {@code dest}
+	 * @throws IndexOutOfBoundsException If there is no face at {@code face}
+	 */
+	public Vec3 getFaceNormal(int face, Vec3 dest) throws IndexOutOfBoundsException{
+		checkFace(face);
+		int v0 = indices[face*3]*3, v1 = indices[face*3+1]*3, v2 = indices[face*3+2]*3;
+		float e1x = positions[v1]-positions[v0], e1y = positions[v1+1]-positions[v0+1], e1z = positions[v1+2]-positions[v0+2];
+		float e2x = positions[v2]-positions[v0], e2y = positions[v2+1]-positions[v0+1], e2z = positions[v2+2]-positions[v0+2];
+		return dest.set(e1y*e2z-e1z*e2y, e1z*e2x-e1x*e2z, e1x*e2y-e1y*e2x).normalize();
+	}
+	
+	private void checkFace(int index) throws IndexOutOfBoundsException{
+		if(index > faceCount-1 || index < 0){
+			throw new IndexOutOfBoundsException("Index out of bounds for retrieval of Face from mesh, Index: "+index+" Size: "+faceCount);
 		}
 	}
 
 	/**
-	 * Gets the Face at the specified index of this mesh
+	 * Gets the Face at the specified index of this mesh. The returned Triangle is a new copy holding the face's vertex
+	 * indices, its half edges are not linked to the half edges of other faces, {@link #getOpposite(int)} gives the
+	 * adjacency of this mesh.
 	 * 
 	 * @param index Index of the Face to retrieve
 	 * @return Face at the specified index in this mesh
 	 * @throws IndexOutOfBoundsException
 	 */
 	public Triangle getFace(int index) throws IndexOutOfBoundsException{
-		if(index > faces.size()-1 || index < 0){
-			throw new IndexOutOfBoundsException("Index out of bounds for retrieval of Face from mesh");
-		}else{
-			return faces.get(index);
+		checkFace(index);
+		return new Triangle(indices[index*3], indices[index*3+1], indices[index*3+2]);
+	}
+	
+	/**
+	 * Gets the index of the vertex at the given corner of a face
+	 * 
+	 * @param face Index of the face
+	 * @param corner Corner of the face, 0, 1 or 2
+	 * @return Index of the vertex at that corner
+	 * @throws IndexOutOfBoundsException If there is no face at {@code face}
+	 */
+	public int getFaceIndex(int face, int corner) throws IndexOutOfBoundsException{
+		checkFace(face);
+		return indices[face*3+corner];
+	}
+	
+	/**
+	 * Gets the faces of this mesh split into meshlets for culling, built the first time this is called after the faces
+	 * change. The meshlets follow the current face order so {@link #optimizeVertexCache()} should be called first.
+	 * 
+	 * @return Meshlets of this mesh
+	 */
+	public Meshlets getMeshlets(){
+		if(meshlets == null){
+			meshlets = new Meshlets(this);
+		}
+		return meshlets;
+	}
+	
+	/**
+	 * Gets the half edge connectivity of this mesh's faces. The half edges of face {@code f} are {@code 3f}, {@code 3f+1}
+	 * and {@code 3f+2} with half edge {@code 3f+c} starting at the vertex of corner {@code c}. The structure is built the
+	 * first time this is called after faces are added and reused until faces are added again.
+	 * 
+	 * @return Half edge structure of this mesh
+	 */
+	public HalfEdgeMesh getHalfEdges(){
+		if(halfEdges == null){
+			halfEdges = new HalfEdgeMesh(indices, faceCount, vertexCount);
 		}
+		return halfEdges;
+	}
+	
+	/**
+	 * Gets the half edge opposite to the given half edge, see {@link #getHalfEdges()}
+	 * 
+	 * @param halfEdge Index of the half edge
+	 * @return Index of the opposite half edge or -1 if the half edge is on a border
+	 * @throws IndexOutOfBoundsException If there is no half edge at {@code halfEdge}
+	 */
+	public int getOpposite(int halfEdge) throws IndexOutOfBoundsException{
+		checkFace(halfEdge/3);
+		return getHalfEdges().getOpposite(halfEdge);
 	}
 	
 	/**
-	 * Inserts this meshes vertices into the given BufferObject
+	 * Inserts this meshes vertices into the given BufferObject. Each vertex is written as its position, normal and texture
+	 * coordinate followed by its tangent and bitangent if this mesh has them.
 	 * 
-	 * @param vao BufferObject to add the vertices to
+	 * @param buffer BufferObject to add the vertices to
 	 */
 	public void insertVertices(BufferObject buffer){
-		for(Vertex vert : vertices){
-			vert.addTo(buffer);
+		for(int vert = 0; vert < vertexCount; vert++){
+			buffer.add(positions[vert*3]);
+			buffer.add(positions[vert*3+1]);
+			buffer.add(positions[vert*3+2]);
+			buffer.add(normals[vert*3]);
+			buffer.add(normals[vert*3+1]);
+			buffer.add(normals[vert*3+2]);
+			buffer.add(uvs[vert*2]);
+			buffer.add(uvs[vert*2+1]);
+			if(tangents != null){
+				buffer.add(tangents[vert*3]);
+				buffer.add(tangents[vert*3+1]);
+				buffer.add(tangents[vert*3+2]);
+			}
+			if(bitangents != null){
+				buffer.add(bitangents[vert*3]);
+				buffer.add(bitangents[vert*3+1]);
+				buffer.add(bitangents[vert*3+2]);
+			}
+		}
+	}
+
+	/**
+	 * Inserts this meshes vertices into the given BufferObject in the given layout. The compact layout quantizes each
+	 * position against the bounds of this geometry, see {@link #getBoundsMin(Vec3)} and {@link #getBoundsSize(Vec3)}, and
+	 * only writes the tangent frame if this mesh has both tangents and bitangents.
+	 * 
+	 * @param buffer BufferObject to add the vertices to
+	 * @param layout Format to write the vertices in
+	 */
+	public void insertVertices(BufferObject buffer, VertexLayout layout){
+		insertVertices(buffer, layout, getBoundsMin(new Vec3()), getBoundsSize(new Vec3()));
+	}
+	
+	/**
+	 * Inserts this meshes vertices into the given BufferObject in the given layout, quantizing compact positions against
+	 * the given bounds instead of the bounds of this geometry. This lets the parts of a split mesh share the position
+	 * decode of the whole mesh.
+	 * 
+	 * @param buffer BufferObject to add the vertices to
+	 * @param layout Format to write the vertices in
+	 * @param min Minimum corner of the bounds, must contain every vertex
+	 * @param size Size of the bounds along each axis, each greater than 0
+	 */
+	public void insertVertices(BufferObject buffer, VertexLayout layout, Vec3 min, Vec3 size){
+		if(layout == VertexLayout.FULL){
+			insertVertices(buffer);
+			return;
+		}
+		float[] oct = new float[4];
+		boolean frame = tangents != null && bitangents != null;
+		for(int vert = 0; vert < vertexCount; vert++){
+			buffer.add(VertexLayout.packUnorm16((positions[vert*3]-min.x)/size.x));
+			buffer.add(VertexLayout.packUnorm16((positions[vert*3+1]-min.y)/size.y));
+			buffer.add(VertexLayout.packUnorm16((positions[vert*3+2]-min.z)/size.z));
+			buffer.add((short)0);
+			VertexLayout.encodeOctahedral(normals[vert*3], normals[vert*3+1], normals[vert*3+2], oct, 0);
+			buffer.add(VertexLayout.packSnorm16(oct[0]));
+			buffer.add(VertexLayout.packSnorm16(oct[1]));
+			buffer.add(VertexLayout.packHalf(uvs[vert*2]));
+			buffer.add(VertexLayout.packHalf(uvs[vert*2+1]));
+			if(frame){
+				float tx = tangents[vert*3], ty = tangents[vert*3+1], tz = tangents[vert*3+2];
+				float nx = normals[vert*3], ny = normals[vert*3+1], nz = normals[vert*3+2];
+				//the bitangent is only stored as which side of the normal and tangent plane it is on
+				float handedness = (ny*tz-nz*ty)*bitangents[vert*3]+(nz*tx-nx*tz)*bitangents[vert*3+1]+
+						(nx*ty-ny*tx)*bitangents[vert*3+2];
+				VertexLayout.encodeOctahedral(tx, ty, tz, oct, 2);
+				buffer.add(VertexLayout.packSnorm16(oct[2]));
+				buffer.add(VertexLayout.packSnorm16(oct[3]));
+				buffer.add(VertexLayout.packSnorm16(handedness < 0 ? -1 : 1));
+				buffer.add((short)0);
+			}
 		}
 	}
+	
+	/**
+	 * Gets the smallest coordinate of this geometry along each axis
+	 * 
+	 * @param dest Vec3 to store the result in
+	 * @return {@code dest} set to the minimum corner of the bounding box of this geometry
+	 */
+	public Vec3 getBoundsMin(Vec3 dest){
+		if(vertexCount == 0){
+			dest.set(0, 0, 0);
+			return dest;
+		}
+		dest.set(positions[minMax[MIN_X]*3], positions[minMax[MIN_Y]*3+1], positions[minMax[MIN_Z]*3+2]);
+		return dest;
+	}
+	
+	/**
+	 * Gets the size of the bounding box of this geometry along each axis. Axes the geometry is flat along have a size of 1
+	 * so positions can always be divided by the size.
+	 * 
+	 * @param dest Vec3 to store the result in
+	 * @return {@code dest} set to the extent of the bounding box of this geometry
+	 */
+	public Vec3 getBoundsSize(Vec3 dest){
+		if(vertexCount == 0){
+			dest.set(1, 1, 1);
+			return dest;
+		}
+		float x = positions[minMax[MAX_X]*3]-positions[minMax[MIN_X]*3];
+		float y = positions[minMax[MAX_Y]*3+1]-positions[minMax[MIN_Y]*3+1];
+		float z = positions[minMax[MAX_Z]*3+2]-positions[minMax[MIN_Z]*3+2];
+		dest.set(x > 0 ? x : 1, y > 0 ? y : 1, z > 0 ? z : 1);
+		return dest;
+	}
 
 	/**
 	 * Adds this meshes indices to the given index buffer with the specified RenderMode.
@@ -433,7 +1209,7 @@ public class Geometry {
 	public void insertIndices(IndexBuffer buffer, RenderMode type){
 		switch(type){
 			case POINTS:
-				for(int index = 0; index < vertices.size(); index++){
+				for(int index = 0; index < vertexCount; index++){
 					buffer.add(index);
 				}
 				break;
@@ -450,13 +1226,17 @@ public class Geometry {
 				break;
 				
 			case TRIANGLES:
-				for(Triangle curFace : faces){
-					curFace.insertPrim(buffer);
+				for(int index = 0; index < faceCount*3; index++){
+					buffer.add(indices[index]);
 				}
 				break;
 			case TRIANGLES_ADJ:
-				for(Triangle curFace : faces){
-					curFace.insertPrimAdj(buffer);
+				HalfEdgeMesh adjacency = getHalfEdges();
+				for(int halfEdge = 0; halfEdge < faceCount*3; halfEdge++){
+					buffer.add(indices[halfEdge]);
+					//the vertex opposite this edge is the one the opposite half edge's previous half edge starts at
+					int opposite = adjacency.getOpposite(halfEdge);
+					buffer.add(opposite != -1 ? adjacency.getVertex(adjacency.getPrev(opposite)) : -1);
 				}
 				break;
 			case TRIANGLE_FAN:
@@ -478,31 +1258,42 @@ public class Geometry {
 	 * @param buffer BufferObject to insert indices into
 	 */
 	private void insertLines(IndexBuffer buffer){
-		HashMap<Edge, Boolean> visited = new HashMap<Edge, Boolean>();
-		for(Triangle curFace : faces){
-			//create edge that is ordered opposite since the edge in the map will have an opposite ordering when it was added
-			Edge edge1 = new Edge(curFace.e1.end, curFace.e1.start);
-			//check if the line being processed from this face was already added as part of another face iteration
-			if(visited.get(edge1) == null){//if we didn't find it, it means it wasn't added yet
-				buffer.add(curFace.e1.start);
-				buffer.add(curFace.e1.end);
-				visited.put(curFace.e1, true);
+		HalfEdgeMesh adjacency = getHalfEdges();
+		for(int halfEdge = 0; halfEdge < faceCount*3; halfEdge++){
+			//a line shared by two faces is added by whichever of its half edges comes first
+			int opposite = adjacency.getOpposite(halfEdge);
+			if(opposite == -1 || opposite > halfEdge){
+				buffer.add(adjacency.getVertex(halfEdge));
+				buffer.add(adjacency.getVertex(adjacency.getNext(halfEdge)));
 			}
+		}
+	}
 
-			Edge edge2 = new Edge(curFace.e2.end, curFace.e2.start);
-			//check if the line being processed from this face was already added as part of another face iteration
-			if(visited.get(edge2) == null){//if we didn't find it, it means it wasn't added yet
-				buffer.add(curFace.e2.start);
-				buffer.add(curFace.e2.end);
-				visited.put(curFace.e2, true);
-			}
-			
-			Edge edge3 = new Edge(curFace.e3.end, curFace.e3.start);
-			//check if the line being processed from this face was already added as part of another face iteration
-			if(visited.get(edge3) == null){//if we didn't find it, it means it wasn't added yet
-				buffer.add(curFace.e3.start);
-				buffer.add(curFace.e3.end);
-				visited.put(curFace.e3, true);
+	/**
+	 * Task that runs a pass of the normal or tangent generation over a range of faces or vertices, splitting the range in
+	 * half until it is small enough
+	 */
+	private class AttributeTask extends RecursiveAction{
+		private static final long serialVersionUID = 1L;
+		private int pass, start, end;
+		private float[] faceData, faceData2;
+		
+		private AttributeTask(int pass, int start, int end, float[] faceData, float[] faceData2){
+			this.pass = pass;
+			this.start = start;
+			this.end = end;
+			this.faceData = faceData;
+			this.faceData2 = faceData2;
+		}
+		
+		@Override
+		protected void compute(){
+			if(end-start <= LEAF_SIZE){
+				runPass(pass, start, end, faceData, faceData2);
+			}else{
+				int mid = (start+end) >>> 1;
+				invokeAll(new AttributeTask(pass, start, mid, faceData, faceData2), 
+						new AttributeTask(pass, mid, end, faceData, faceData2));
 			}
 		}
 	}
@@ -0,0 +1,179 @@
+package mesh;
+
+import glMath.vectors.Vec2;
+import glMath.vectors.Vec3;
+
+import java.util.Arrays;
+
+/**
+ * Splits geometry with too many vertices for 16 bit indices into spatially coherent parts that each fit. The faces are
+ * split recursively at the median of their centers along the longest axis of their bounds until every part uses at most
+ * the given number of vertices, so each part covers a compact region of the mesh and has tight bounds of its own.
+ * <p>
+ * Faces keep their relative order inside a part, so an order made for the vertex cache is mostly kept. Vertices on the
+ * border between parts are duplicated into every part using them.
+ * </p>
+ *
+ * @author Kevin Mango
+ *
+ */
+public class GeometrySplitter {
+
+	/**
+	 * Most vertices a part can have and still be drawn with unsigned short indices
+	 */
+	public static final int MAX_SHORT_VERTICES = 0xffff+1;
+
+	/**
+	 * Splits the given geometry into parts of at most {@code maxVertices} vertices. Geometry that already fits is returned
+	 * as a single copy.
+	 *
+	 * @param geometry Geometry to split
+	 * @param maxVertices Most vertices a part may use
+	 * @return Parts covering every face of the geometry
+	 * @throws IllegalArgumentException If {@code maxVertices} is less than 3
+	 */
+	public static Geometry[] split(Geometry geometry, int maxVertices) throws IllegalArgumentException{
+		if(maxVertices < 3){
+			throw new IllegalArgumentException("Parts must be able to hold a face, found a limit of "+maxVertices+" vertices");
+		}
+		int faceCount = geometry.numFaces();
+		if(geometry.numVertices() <= maxVertices || faceCount == 0){
+			return new Geometry[]{new Geometry(geometry)};
+		}
+		int[] indices = geometry.getIndexData();
+		float[] positions = geometry.getPositionData();
+		float[] centers = new float[faceCount*3];
+		for(int face = 0; face < faceCount; face++){
+			for(int axis = 0; axis < 3; axis++){
+				centers[face*3+axis] = (positions[indices[face*3]*3+axis]+positions[indices[face*3+1]*3+axis]+
+						positions[indices[face*3+2]*3+axis])/3;
+			}
+		}
+
+		long[] order = new long[faceCount];
+		for(int face = 0; face < faceCount; face++){
+			order[face] = face;
+		}
+		//stamp of the range that last counted each vertex
+		int[] stamps = new int[geometry.numVertices()];
+		int stamp = 0;
+		//ranges of order still to be split, processed depth first
+		int[] stack = new int[64];
+		int stackSize = 0;
+		stack[stackSize++] = 0;
+		stack[stackSize++] = faceCount;
+		int[] partStart = new int[16];
+		int parts = 0;
+		while(stackSize > 0){
+			int end = stack[--stackSize], start = stack[--stackSize];
+			stamp++;
+			int used = 0;
+			for(int curFace = start; curFace < end && used <= maxVertices; curFace++){
+				int face = (int)order[curFace];
+				for(int corner = face*3; corner < face*3+3; corner++){
+					if(stamps[indices[corner]] != stamp){
+						stamps[indices[corner]] = stamp;
+						used++;
+					}
+				}
+			}
+			if(used <= maxVertices){
+				if(parts+2 > partStart.length){
+					partStart = Arrays.copyOf(partStart, partStart.length*2);
+				}
+				partStart[parts++] = start;
+				partStart[parts] = end;
+				continue;
+			}
+
+			//split at the median along the longest axis of the face centers
+			int axis = longestAxis(centers, order, start, end);
+			for(int curFace = start; curFace < end; curFace++){
+				int face = (int)order[curFace];
+				order[curFace] = ((long)sortKey(centers[face*3+axis]) << 32) | face;
+			}
+			Arrays.sort(order, start, end);
+			for(int curFace = start; curFace < end; curFace++){
+				order[curFace] &= 0xffffffffL;
+			}
+			int mid = (start+end) >>> 1;
+			if(stackSize+4 > stack.length){
+				stack = Arrays.copyOf(stack, stack.length*2);
+			}
+			//the second half is pushed first so parts come out in order along the axis
+			stack[stackSize++] = mid;
+			stack[stackSize++] = end;
+			stack[stackSize++] = start;
+			stack[stackSize++] = mid;
+		}
+
+		Geometry[] result = new Geometry[parts];
+		int[] remap = new int[geometry.numVertices()];
+		Arrays.fill(remap, -1);
+		Vec3 normal = new Vec3(), tangent = new Vec3();
+		Vec2 uv = new Vec2();
+		int[] corners = new int[3];
+		for(int part = 0; part < parts; part++){
+			int start = partStart[part], end = partStart[part+1];
+			//restore the original order of the faces in the part
+			Arrays.sort(order, start, end);
+			Geometry cur = new Geometry();
+			for(int curFace = start; curFace < end; curFace++){
+				int face = (int)order[curFace];
+				for(int corner = 0; corner < 3; corner++){
+					int vert = indices[face*3+corner];
+					if(remap[vert] == -1){
+						geometry.getNormal(vert, normal);
+						geometry.getUV(vert, uv);
+						remap[vert] = cur.add(positions[vert*3], positions[vert*3+1], positions[vert*3+2],
+								normal.x, normal.y, normal.z, uv.x, uv.y);
+						if(geometry.hasTangents()){
+							cur.setTangent(remap[vert], geometry.getTangent(vert, tangent));
+						}
+						if(geometry.hasBitangents()){
+							cur.setBitangent(remap[vert], geometry.getBitangent(vert, tangent));
+						}
+					}
+					corners[corner] = remap[vert];
+				}
+				cur.add(corners[0], corners[1], corners[2]);
+			}
+			//clear the remap for the next part
+			for(int curFace = start; curFace < end; curFace++){
+				int face = (int)order[curFace];
+				remap[indices[face*3]] = -1;
+				remap[indices[face*3+1]] = -1;
+				remap[indices[face*3+2]] = -1;
+			}
+			result[part] = cur;
+		}
+		return result;
+	}
+
+	private static int longestAxis(float[] centers, long[] order, int start, int end){
+		float[] bounds = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+		for(int curFace = start; curFace < end; curFace++){
+			int face = (int)order[curFace];
+			for(int axis = 0; axis < 3; axis++){
+				bounds[axis] = Math.min(bounds[axis], centers[face*3+axis]);
+				bounds[axis+3] = Math.max(bounds[axis+3], centers[face*3+axis]);
+			}
+		}
+		int longest = 0;
+		for(int axis = 1; axis < 3; axis++){
+			if(bounds[axis+3]-bounds[axis] > bounds[longest+3]-bounds[longest]){
+				longest = axis;
+			}
+		}
+		return longest;
+	}
+
+	/**
+	 * Maps a float to an int that sorts the same way when compared as a signed int
+	 */
+	private static int sortKey(float value){
+		int bits = Float.floatToIntBits(value+0.0f);
+		return bits ^ ((bits >> 31) & 0x7fffffff);
+	}
+}
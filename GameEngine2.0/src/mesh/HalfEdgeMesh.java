@@ -0,0 +1,266 @@
+package mesh;
+
+import java.util.Arrays;
+
+/**
+ * Half edge connectivity of a triangle mesh stored as flat int arrays indexed by half edge id. Half edge {@code h} starts
+ * at vertex {@code getVertex(h)}, {@code getNext(h)} is the following half edge around its face and {@code getOpposite(h)}
+ * is the half edge running the other way along the same edge in the neighbouring face, or -1 on a border. The half
+ * edges of face {@code f} are {@code 3f}, {@code 3f+1} and {@code 3f+2}.
+ * <p>
+ * Opposites are matched in a single pass through an open addressing table keyed on the pair of vertex indices, so
+ * building the structure doesn't allocate per edge. A half edge mesh is immutable once built and can be read by any
+ * number of threads.
+ * </p>
+ * <p>
+ * The one ring of a vertex is walked with {@link #getOutgoing(int)} and {@link #getNextOutgoing(int)}:
+ * <pre>
+ * int start = halfEdges.getOutgoing(vertex), edge = start;
+ * while(edge != -1){
+ *     int neighbour = halfEdges.getVertex(halfEdges.getNext(edge));
+ *     ...
+ *     edge = halfEdges.getNextOutgoing(edge);
+ *     if(edge == start){
+ *         break;
+ *     }
+ * }
+ * </pre>
+ * or copied out with {@link #getOneRing(int, int[])}.
+ * </p>
+ *
+ * @author Kevin Mango
+ *
+ */
+public class HalfEdgeMesh {
+
+	private static final int EMPTY = -1;
+	private static final int[] NO_RING = new int[0];
+
+	private final int[] vertex, next, opposite;
+	private final int[] outgoing;//one outgoing half edge per vertex, a border one if the vertex is on a border
+	private final int faceCount;
+
+	/**
+	 * Builds the half edge structure of the given triangles
+	 *
+	 * @param indices Vertex indices of the triangles, 3 per face
+	 * @param faceCount Number of faces to read from {@code indices}
+	 * @param vertexCount Number of vertices the indices refer to
+	 * @throws IndexOutOfBoundsException If an index is outside of {@code [0, vertexCount)}
+	 */
+	public HalfEdgeMesh(int[] indices, int faceCount, int vertexCount) throws IndexOutOfBoundsException{
+		this.faceCount = faceCount;
+		int halfEdgeCount = faceCount*3;
+		vertex = Arrays.copyOf(indices, halfEdgeCount);
+		next = new int[halfEdgeCount];
+		opposite = new int[halfEdgeCount];
+		outgoing = new int[vertexCount];
+		Arrays.fill(outgoing, EMPTY);
+
+		for(int halfEdge = 0; halfEdge < halfEdgeCount; halfEdge++){
+			if(vertex[halfEdge] < 0 || vertex[halfEdge] >= vertexCount){
+				throw new IndexOutOfBoundsException("Face "+halfEdge/3+" refers to vertex "+vertex[halfEdge]+
+						", the mesh has "+vertexCount+" vertices");
+			}
+			next[halfEdge] = halfEdge%3 == 2 ? halfEdge-2 : halfEdge+1;
+		}
+		matchOpposites();
+
+		for(int halfEdge = 0; halfEdge < halfEdgeCount; halfEdge++){
+			int source = vertex[halfEdge];
+			//prefer border half edges so walking the one ring from them reaches every neighbour
+			if(outgoing[source] == EMPTY || opposite[halfEdge] == EMPTY){
+				outgoing[source] = halfEdge;
+			}
+		}
+	}
+
+	/**
+	 * Pairs every half edge with an unpaired half edge that runs the other way between the same vertices. The table
+	 * holds half edge ids, keys are recomputed from the vertex arrays so nothing but the table is allocated.
+	 */
+	private void matchOpposites(){
+		int halfEdgeCount = vertex.length;
+		int[] table = new int[Integer.highestOneBit(Math.max(halfEdgeCount*2-1, 1))*2];
+		Arrays.fill(table, EMPTY);
+		int mask = table.length-1;
+		for(int halfEdge = 0; halfEdge < halfEdgeCount; halfEdge++){
+			int start = vertex[halfEdge], end = vertex[next[halfEdge]];
+			opposite[halfEdge] = EMPTY;
+			//look for an unpaired half edge going from end to start
+			int slot = hash(end, start) & mask;
+			while(table[slot] != EMPTY){
+				int candidate = table[slot];
+				if(opposite[candidate] == EMPTY && vertex[candidate] == end && vertex[next[candidate]] == start){
+					opposite[candidate] = halfEdge;
+					opposite[halfEdge] = candidate;
+					break;
+				}
+				slot = (slot+1) & mask;
+			}
+			if(opposite[halfEdge] == EMPTY){
+				slot = hash(start, end) & mask;
+				while(table[slot] != EMPTY){
+					slot = (slot+1) & mask;
+				}
+				table[slot] = halfEdge;
+			}
+		}
+	}
+
+	private static int hash(int start, int end){
+		long key = ((long)start << 32) | (end & 0xffffffffL);
+		key *= 0x9E3779B97F4A7C15L;
+		return (int)(key ^ (key >>> 32));
+	}
+
+	/**
+	 * Gets the number of half edges in this mesh
+	 *
+	 * @return 3 times the number of faces
+	 */
+	public int numHalfEdges(){
+		return vertex.length;
+	}
+
+	/**
+	 * Gets the number of faces in this mesh
+	 *
+	 * @return Number of faces
+	 */
+	public int numFaces(){
+		return faceCount;
+	}
+
+	/**
+	 * Gets the number of vertices in this mesh, including vertices no face refers to
+	 *
+	 * @return Number of vertices
+	 */
+	public int numVertices(){
+		return outgoing.length;
+	}
+
+	/**
+	 * Gets the vertex the given half edge starts at
+	 *
+	 * @param halfEdge Index of the half edge
+	 * @return Index of the source vertex
+	 */
+	public int getVertex(int halfEdge){
+		return vertex[halfEdge];
+	}
+
+	/**
+	 * Gets the half edge following the given half edge around its face
+	 *
+	 * @param halfEdge Index of the half edge
+	 * @return Index of the next half edge
+	 */
+	public int getNext(int halfEdge){
+		return next[halfEdge];
+	}
+
+	/**
+	 * Gets the half edge before the given half edge around its face
+	 *
+	 * @param halfEdge Index of the half edge
+	 * @return Index of the previous half edge
+	 */
+	public int getPrev(int halfEdge){
+		return next[next[halfEdge]];
+	}
+
+	/**
+	 * Gets the half edge running the other way along the same edge
+	 *
+	 * @param halfEdge Index of the half edge
+	 * @return Index of the opposite half edge, or -1 if the half edge is on a border
+	 */
+	public int getOpposite(int halfEdge){
+		return opposite[halfEdge];
+	}
+
+	/**
+	 * Gets the face the given half edge belongs to
+	 *
+	 * @param halfEdge Index of the half edge
+	 * @return Index of the face
+	 */
+	public int getFace(int halfEdge){
+		return halfEdge/3;
+	}
+
+	/**
+	 * Gets whether the given half edge has no opposite
+	 *
+	 * @param halfEdge Index of the half edge
+	 * @return True if the half edge is on a border of the mesh
+	 */
+	public boolean isBorder(int halfEdge){
+		return opposite[halfEdge] == EMPTY;
+	}
+
+	/**
+	 * Gets a half edge starting at the given vertex, if the vertex is on a border this is the border half edge so
+	 * walking with {@link #getNextOutgoing(int)} from it visits every face around the vertex
+	 *
+	 * @param vertex Index of the vertex
+	 * @return Index of an outgoing half edge, or -1 if no face uses the vertex
+	 */
+	public int getOutgoing(int vertex){
+		return outgoing[vertex];
+	}
+
+	/**
+	 * Gets the next half edge starting at the same vertex as the given half edge, rotating around the vertex
+	 *
+	 * @param halfEdge Index of a half edge leaving a vertex
+	 * @return Index of the next half edge leaving that vertex, or -1 if the walk reached a border
+	 */
+	public int getNextOutgoing(int halfEdge){
+		return opposite[next[next[halfEdge]]];
+	}
+
+	/**
+	 * Stores the vertices adjacent to the given vertex in {@code dest}, in order around the vertex. Only the fan of faces
+	 * reachable from {@link #getOutgoing(int)} is visited, so a vertex where separate fans touch reports one of them.
+	 *
+	 * @param vertex Index of the vertex
+	 * @param dest Array to store the neighbouring vertex indices in
+	 * @return Number of neighbours of the vertex, if this is more than the length of {@code dest} only the first 
+	 * {@code dest.length} are stored
+	 */
+	public int getOneRing(int vertex, int[] dest){
+		int count = 0;
+		int start = outgoing[vertex], edge = start;
+		while(edge != EMPTY){
+			if(count < dest.length){
+				dest[count] = this.vertex[next[edge]];
+			}
+			count++;
+			int incoming = next[next[edge]];
+			edge = opposite[incoming];
+			if(edge == EMPTY){
+				//on a border the last neighbour is the source of the half edge coming into the vertex
+				if(count < dest.length){
+					dest[count] = this.vertex[incoming];
+				}
+				count++;
+			}else if(edge == start){
+				break;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the number of vertices adjacent to the given vertex
+	 *
+	 * @param vertex Index of the vertex
+	 * @return Number of neighbours of the vertex
+	 */
+	public int getValence(int vertex){
+		return getOneRing(vertex, NO_RING);
+	}
+}
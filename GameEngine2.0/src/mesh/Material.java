@@ -219,6 +219,16 @@ public class Material implements Resource{
 		}
 	}
 	
+	/**
+	 * Determines whether meshes drawn with this material need a tangent frame. Normal and bump maps are sampled in
+	 * texture space, so only materials with one of them use the tangents and bitangents of a mesh.
+	 * 
+	 * @return True if this material has a normal or bump map, false otherwise
+	 */
+	public boolean needsTangents(){
+		return normal != null || bump != null;
+	}
+	
 	/**
 	 * Binds this material to the given shader program. If this material has data assigned to a field it will use that material.
 	 * When binding the different textures to the context the material will bind the textures to the texture units as follows:
@@ -1,7 +1,9 @@
 package mesh;
 
 import static org.lwjgl.opengl.GL11.glDrawElements;
+import glMath.MathArena;
 import glMath.matrices.Mat4;
+import glMath.vectors.Vec3;
 import gldata.BufferObject;
 import gldata.IndexBuffer;
 import gldata.VertexArray;
@@ -15,6 +17,7 @@ import core.managers.SceneManager;
 public abstract class Mesh implements Resource{
 	protected Geometry geometry;
 	protected VertexArray vao;
+	protected VertexLayout layout = VertexLayout.FULL;
 	public static final String SOLID_MODE = "solid", EDGE_MODE = "edges";
 	protected static final String DEFAULT_VBO = "default";
 	
@@ -40,6 +43,7 @@ public abstract class Mesh implements Resource{
 	public Mesh(Mesh copy){
 		vao = copy.vao;
 		geometry = copy.geometry;//new Geometry(copy.geometry);
+		layout = copy.layout;
 //		material = new String(copy.material);
 	}
 	
@@ -70,6 +74,49 @@ public abstract class Mesh implements Resource{
 		return geometry.numFaces();
 	}
 	
+	/**
+	 * Gets the format this Mesh's vertices are stored in on the GPU
+	 * 
+	 * @return VertexLayout of this Mesh's vertex buffer
+	 */
+	public VertexLayout getLayout(){
+		return layout;
+	}
+	
+	/**
+	 * Gets the matrix that maps the positions stored in this Mesh's vertex buffer back to model space. Compact positions
+	 * are stored in [0, 1] relative to the bounds of the geometry, so the matrix scales by the size of the bounds and
+	 * translates to their minimum. For the full layout this is the identity. This does not allocate so it can be called
+	 * for every draw.
+	 * 
+	 * @param dest Mat4 to store the result in
+	 * @return {@code dest} set to the position decode matrix
+	 */
+	public Mat4 getPositionDecode(Mat4 dest){
+		dest.loadIdentity();
+		if(layout == VertexLayout.COMPACT){
+			MathArena arena = MathArena.get();
+			int mark = arena.mark();
+			Vec3 min = geometry.getBoundsMin(arena.vec3()), size = geometry.getBoundsSize(arena.vec3());
+			dest.setValueAt(0, size.x);
+			dest.setValueAt(5, size.y);
+			dest.setValueAt(10, size.z);
+			dest.setColumn(3, min.x, min.y, min.z, 1);
+			arena.release(mark);
+			dest.setProperties(Mat4.AFFINE);
+		}
+		return dest;
+	}
+	
+	/**
+	 * Makes sure this Mesh has the vertex attributes the given Material needs before it is rendered with it. Meshes that
+	 * always upload every attribute have nothing to do.
+	 * 
+	 * @param material Material this Mesh is about to be rendered with
+	 */
+	public void updateAttributes(Material material){
+	}
+	
 	@Override
 	public void delete(){
 		vao.delete();
@@ -77,16 +124,17 @@ public abstract class Mesh implements Resource{
 	
 	/**
 	 * Gets the IndexBuffer IndexType based on the given {@code size}, the value returned is to be passed to 
-	 * an IndexBuffer to decide the IndexType of the buffer.
+	 * an IndexBuffer to decide the IndexType of the buffer. Indices are unsigned so bytes hold indices up to 255 and
+	 * shorts up to 65535.
 	 * 
 	 * @param size Max index being passed to an index buffer
 	 * @return IndexType for the given size
 	 */
 	protected IndexBuffer.IndexType getIndexType(int size){
 		//determine what data type the index buffer should be
-		if(size < Byte.MAX_VALUE){
+		if(size <= 0xff){
 			return IndexBuffer.IndexType.BYTE;
-		}else if(size < Short.MAX_VALUE){
+		}else if(size <= 0xffff){
 			return IndexBuffer.IndexType.SHORT;
 		}else if(size < Integer.MAX_VALUE){
 			return IndexBuffer.IndexType.INT;
@@ -104,6 +152,24 @@ public abstract class Mesh implements Resource{
 		vao.unbind();
 	}
 	
+	/**
+	 * Renders parts of the mesh given as ranges of its current index buffer, such as the visible meshlets found by a
+	 * {@link MeshletCuller}
+	 * 
+	 * @param firstIndices Offset of each range in the index buffer, in indices
+	 * @param counts Number of indices in each range
+	 * @param ranges Number of ranges to draw
+	 */
+	public void render(int[] firstIndices, int[] counts, int ranges){
+		vao.bind();
+		int mode = vao.getRenderMode().mode;
+		IndexBuffer.IndexType type = vao.getIndexType();
+		for(int range = 0; range < ranges; range++){
+			glDrawElements(mode, counts[range], type.enumType, (long)firstIndices[range]*type.size);
+		}
+		vao.unbind();
+	}
+	
 	/**
 	 * Sets the mode with which this Mesh will render. Only modes that the mesh supports may be passed to this function.
 	 * Modes that are guaranteed to be supported by this function are {@code SOLID_MODE} and {@code EDGE_MODE} as defined
@@ -0,0 +1,251 @@
+package mesh;
+
+import glMath.matrices.Mat4;
+import glMath.transforms.Transform;
+import glMath.vectors.Vec3;
+
+import java.util.Arrays;
+
+import core.Camera;
+import core.Entity;
+
+/**
+ * Culls the meshlets of a mesh against a Camera and collects the index ranges of the visible meshlets so only those are
+ * drawn. Meshlets are tested in model space, the frustum planes are taken from the model view projection matrix and the
+ * camera position is moved into model space, so nothing is transformed per meshlet. A meshlet is culled if its bounding
+ * sphere is outside the view frustum or if its normal cone faces away from the camera.
+ * <p>
+ * Ranges of neighbouring visible meshlets are merged, so a mostly visible mesh is still drawn with few draw calls. The
+ * culler keeps counts of what it tested and culled until {@link #resetStats()} is called. A culler reuses its arrays
+ * between calls and is not thread safe.
+ * </p>
+ *
+ * @author Kevin Mango
+ *
+ */
+public class MeshletCuller {
+
+	private static final int PLANES = 6;
+
+	private int[] firstIndices, indexCounts;
+	private int ranges;
+	private final float[] planes;
+	private final Mat4 view, mvp;
+	private final Vec3 eye;
+	private long tested, frustumCulled, backfaceCulled, visibleFaces, totalFaces;
+
+	/**
+	 * Constructs a culler with no ranges
+	 */
+	public MeshletCuller(){
+		firstIndices = new int[16];
+		indexCounts = new int[16];
+		ranges = 0;
+		planes = new float[PLANES*4];
+		view = new Mat4();
+		mvp = new Mat4();
+		eye = new Vec3();
+		resetStats();
+	}
+
+	/**
+	 * Culls the meshlets of the given Entity's mesh as seen from the given Camera
+	 *
+	 * @param entity Entity to cull
+	 * @param camera Camera the Entity is viewed from
+	 *
+	 * @return Number of index ranges to draw
+	 */
+	public int cull(Entity entity, Camera camera){
+		return cull(entity.getMesh().getGeometry().getMeshlets(), entity.getTransform(), camera);
+	}
+
+	/**
+	 * Culls the given meshlets placed with the given model transform as seen from the given Camera
+	 *
+	 * @param meshlets Meshlets of the geometry being drawn
+	 * @param model Transform from model space to world space
+	 * @param camera Camera the meshlets are viewed from
+	 *
+	 * @return Number of index ranges to draw
+	 */
+	public int cull(Meshlets meshlets, Transform model, Camera camera){
+		camera.getLookAt(view);
+		Mat4.mul(camera.getProjection(), view, mvp);
+		Mat4.mul(mvp, model.getMatrix(), mvp);
+		extractPlanes();
+		model.inverseTransform(camera.getPos(), eye);
+		//a mirrored transform flips the winding of every face, only cull by the frustum then
+		Vec3 scale = model.getScalars();
+		boolean cones = scale.x*scale.y*scale.z > 0;
+
+		ranges = 0;
+		int lastEnd = -1;
+		for(int meshlet = 0; meshlet < meshlets.numMeshlets(); meshlet++){
+			tested++;
+			if(meshlets.isOutside(meshlet, planes, PLANES)){
+				frustumCulled++;
+				continue;
+			}
+			if(cones && meshlets.isBackfacing(meshlet, eye.x, eye.y, eye.z)){
+				backfaceCulled++;
+				continue;
+			}
+			int first = meshlets.getFirstFace(meshlet)*3, count = meshlets.getFaceCount(meshlet)*3;
+			visibleFaces += meshlets.getFaceCount(meshlet);
+			if(first == lastEnd){
+				//continues the previous range
+				indexCounts[ranges-1] += count;
+			}else{
+				if(ranges == firstIndices.length){
+					firstIndices = Arrays.copyOf(firstIndices, ranges*2);
+					indexCounts = Arrays.copyOf(indexCounts, ranges*2);
+				}
+				firstIndices[ranges] = first;
+				indexCounts[ranges] = count;
+				ranges++;
+			}
+			lastEnd = first+count;
+		}
+		totalFaces += meshlets.numFaces();
+		return ranges;
+	}
+
+	/**
+	 * Extracts the planes of the view frustum in model space from the rows of the model view projection matrix, each
+	 * normalized so the distance of a point to it is in model units
+	 */
+	private void extractPlanes(){
+		for(int plane = 0; plane < PLANES; plane++){
+			int row = plane/2;
+			//left, bottom and near add the row to the w row, right, top and far subtract it
+			float sign = plane%2 == 0 ? 1 : -1;
+			float a = mvp.valueAt(3)+sign*mvp.valueAt(row);
+			float b = mvp.valueAt(7)+sign*mvp.valueAt(4+row);
+			float c = mvp.valueAt(11)+sign*mvp.valueAt(8+row);
+			float d = mvp.valueAt(15)+sign*mvp.valueAt(12+row);
+			float length = (float)Math.sqrt(a*a+b*b+c*c);
+			if(length > 0){
+				a /= length;
+				b /= length;
+				c /= length;
+				d /= length;
+			}
+			planes[plane*4] = a;
+			planes[plane*4+1] = b;
+			planes[plane*4+2] = c;
+			planes[plane*4+3] = d;
+		}
+	}
+
+	/**
+	 * Draws the ranges found by the last call to cull with the given mesh, which must be the mesh the meshlets were
+	 * built from
+	 *
+	 * @param mesh Mesh to draw
+	 */
+	public void render(Mesh mesh){
+		mesh.render(firstIndices, indexCounts, ranges);
+	}
+
+	/**
+	 * Gets the number of index ranges found by the last call to cull
+	 *
+	 * @return Number of ranges
+	 */
+	public int numRanges(){
+		return ranges;
+	}
+
+	/**
+	 * Gets the first index of the given range
+	 *
+	 * @param range Index of the range
+	 * @return Offset of the range in the index buffer, in indices
+	 * @throws IndexOutOfBoundsException
+	 */
+	public int getFirstIndex(int range) throws IndexOutOfBoundsException{
+		checkRange(range);
+		return firstIndices[range];
+	}
+
+	/**
+	 * Gets the number of indices in the given range
+	 *
+	 * @param range Index of the range
+	 * @return Number of indices to draw
+	 * @throws IndexOutOfBoundsException
+	 */
+	public int getIndexCount(int range) throws IndexOutOfBoundsException{
+		checkRange(range);
+		return indexCounts[range];
+	}
+
+	/**
+	 * Gets the number of meshlets tested since the last reset
+	 *
+	 * @return Meshlets tested
+	 */
+	public long getTested(){
+		return tested;
+	}
+
+	/**
+	 * Gets the number of meshlets outside the view frustum since the last reset
+	 *
+	 * @return Meshlets culled by the frustum
+	 */
+	public long getFrustumCulled(){
+		return frustumCulled;
+	}
+
+	/**
+	 * Gets the number of meshlets facing away from the camera since the last reset
+	 *
+	 * @return Meshlets culled by their normal cone
+	 */
+	public long getBackfaceCulled(){
+		return backfaceCulled;
+	}
+
+	/**
+	 * Gets the number of meshlets drawn since the last reset
+	 *
+	 * @return Meshlets that passed culling
+	 */
+	public long getVisible(){
+		return tested-frustumCulled-backfaceCulled;
+	}
+
+	/**
+	 * Gets the fraction of faces drawn since the last reset
+	 *
+	 * @return Faces in visible meshlets over faces in all tested meshlets
+	 */
+	public float getVisibleFaceRatio(){
+		return totalFaces == 0 ? 0 : visibleFaces/(float)totalFaces;
+	}
+
+	/**
+	 * Clears the counts of tested and culled meshlets
+	 */
+	public void resetStats(){
+		tested = 0;
+		frustumCulled = 0;
+		backfaceCulled = 0;
+		visibleFaces = 0;
+		totalFaces = 0;
+	}
+
+	@Override
+	public String toString(){
+		return tested+" meshlets tested, "+frustumCulled+" outside the frustum, "+backfaceCulled+" backfacing, "+
+				getVisible()+" drawn with "+(getVisibleFaceRatio()*100)+"% of faces";
+	}
+
+	private void checkRange(int range) throws IndexOutOfBoundsException{
+		if(range < 0 || range >= ranges){
+			throw new IndexOutOfBoundsException("Range "+range+" requested, there are "+ranges+" ranges");
+		}
+	}
+}
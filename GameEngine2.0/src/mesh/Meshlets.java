@@ -0,0 +1,369 @@
+package mesh;
+
+import glMath.vectors.Vec3;
+
+import java.util.Arrays;
+
+/**
+ * Partition of the faces of a Geometry into small clusters, or meshlets, of at most {@code MAX_VERTICES} vertices and
+ * {@code MAX_FACES} faces that can be culled separately. Each meshlet is a contiguous range of the geometry's faces, so
+ * a visible meshlet is drawn with a range of the TRIANGLES index buffer the geometry was uploaded to.
+ * <p>
+ * Faces are taken in the order they are stored, so the geometry should be put in vertex cache order with
+ * {@link Geometry#optimizeVertexCache()} first, which keeps neighbouring faces together and the meshlets compact.
+ * </p>
+ * <p>
+ * Every meshlet has a bounding sphere for frustum culling and a normal cone for backface culling. The cone holds the
+ * normals of all the meshlet's faces, if the camera is behind every face the meshlet can be skipped, tested with
+ * {@code dot(center-eye, axis) >= cutoff*length(center-eye)+radius}. Meshlets whose normals spread over more than a
+ * hemisphere have a cutoff of 1 and are never backface culled.
+ * </p>
+ *
+ * @author Kevin Mango
+ *
+ */
+public class Meshlets {
+
+	public static final int MAX_VERTICES = 64, MAX_FACES = 124;
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int[] firstFace, faceCount, vertexCount;
+	private float[] spheres;//center and radius of each meshlet
+	private float[] cones;//axis and cutoff of each meshlet
+	private int meshletCount, totalFaces;
+
+	/**
+	 * Splits the faces of the given geometry into meshlets
+	 *
+	 * @param geometry Geometry to split, ideally in vertex cache order
+	 */
+	public Meshlets(Geometry geometry){
+		int capacity = Math.max(geometry.numFaces()/(MAX_FACES/2), DEFAULT_CAPACITY);
+		firstFace = new int[capacity];
+		faceCount = new int[capacity];
+		vertexCount = new int[capacity];
+		meshletCount = 0;
+		totalFaces = geometry.numFaces();
+
+		int[] indices = geometry.getIndexData();
+		//meshlet each vertex was last added to, offset by 1 so 0 means none
+		int[] owner = new int[geometry.numVertices()];
+		int faces = 0, verts = 0;
+		for(int face = 0; face < totalFaces; face++){
+			int newVerts = countNew(indices, face, owner, meshletCount+1);
+			if(faces > 0 && (faces == MAX_FACES || verts+newVerts > MAX_VERTICES)){
+				finish(face-faces, faces, verts);
+				faces = 0;
+				verts = 0;
+				newVerts = countNew(indices, face, owner, meshletCount+1);
+			}
+			for(int corner = face*3; corner < face*3+3; corner++){
+				owner[indices[corner]] = meshletCount+1;
+			}
+			faces++;
+			verts += newVerts;
+		}
+		if(faces > 0){
+			finish(totalFaces-faces, faces, verts);
+		}
+		spheres = new float[meshletCount*4];
+		cones = new float[meshletCount*4];
+		computeBounds(geometry);
+	}
+
+	/**
+	 * Counts the distinct vertices of a face that aren't in the meshlet yet
+	 */
+	private static int countNew(int[] indices, int face, int[] owner, int meshlet){
+		int v0 = indices[face*3], v1 = indices[face*3+1], v2 = indices[face*3+2];
+		int result = 0;
+		if(owner[v0] != meshlet){
+			result++;
+		}
+		if(v1 != v0 && owner[v1] != meshlet){
+			result++;
+		}
+		if(v2 != v0 && v2 != v1 && owner[v2] != meshlet){
+			result++;
+		}
+		return result;
+	}
+
+	private void finish(int first, int faces, int verts){
+		if(meshletCount == firstFace.length){
+			firstFace = Arrays.copyOf(firstFace, meshletCount*2);
+			faceCount = Arrays.copyOf(faceCount, meshletCount*2);
+			vertexCount = Arrays.copyOf(vertexCount, meshletCount*2);
+		}
+		firstFace[meshletCount] = first;
+		faceCount[meshletCount] = faces;
+		vertexCount[meshletCount] = verts;
+		meshletCount++;
+	}
+
+	/**
+	 * Computes the bounding sphere and normal cone of every meshlet
+	 */
+	private void computeBounds(Geometry geometry){
+		float[] positions = geometry.getPositionData();
+		int[] indices = geometry.getIndexData();
+		float[] faceNormals = new float[MAX_FACES*3];
+		for(int meshlet = 0; meshlet < meshletCount; meshlet++){
+			int start = firstFace[meshlet]*3, end = start+faceCount[meshlet]*3;
+
+			//sphere around the center of the bounding box of the meshlet
+			float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+			float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+			for(int corner = start; corner < end; corner++){
+				int vert = indices[corner]*3;
+				minX = Math.min(minX, positions[vert]);
+				minY = Math.min(minY, positions[vert+1]);
+				minZ = Math.min(minZ, positions[vert+2]);
+				maxX = Math.max(maxX, positions[vert]);
+				maxY = Math.max(maxY, positions[vert+1]);
+				maxZ = Math.max(maxZ, positions[vert+2]);
+			}
+			float centerX = (minX+maxX)*0.5f, centerY = (minY+maxY)*0.5f, centerZ = (minZ+maxZ)*0.5f;
+			float radiusSq = 0;
+			for(int corner = start; corner < end; corner++){
+				int vert = indices[corner]*3;
+				float x = positions[vert]-centerX, y = positions[vert+1]-centerY, z = positions[vert+2]-centerZ;
+				radiusSq = Math.max(radiusSq, x*x+y*y+z*z);
+			}
+			spheres[meshlet*4] = centerX;
+			spheres[meshlet*4+1] = centerY;
+			spheres[meshlet*4+2] = centerZ;
+			spheres[meshlet*4+3] = (float)Math.sqrt(radiusSq);
+
+			//cone axis is the average of the unit face normals
+			float axisX = 0, axisY = 0, axisZ = 0;
+			int normalCount = 0;
+			for(int corner = start; corner < end; corner += 3){
+				int v0 = indices[corner]*3, v1 = indices[corner+1]*3, v2 = indices[corner+2]*3;
+				float e1x = positions[v1]-positions[v0], e1y = positions[v1+1]-positions[v0+1], e1z = positions[v1+2]-positions[v0+2];
+				float e2x = positions[v2]-positions[v0], e2y = positions[v2+1]-positions[v0+1], e2z = positions[v2+2]-positions[v0+2];
+				float nx = e1y*e2z-e1z*e2y, ny = e1z*e2x-e1x*e2z, nz = e1x*e2y-e1y*e2x;
+				float length = (float)Math.sqrt(nx*nx+ny*ny+nz*nz);
+				//degenerate faces can't be seen from any side
+				if(length == 0){
+					continue;
+				}
+				faceNormals[normalCount*3] = nx/length;
+				faceNormals[normalCount*3+1] = ny/length;
+				faceNormals[normalCount*3+2] = nz/length;
+				axisX += faceNormals[normalCount*3];
+				axisY += faceNormals[normalCount*3+1];
+				axisZ += faceNormals[normalCount*3+2];
+				normalCount++;
+			}
+			float axisLength = (float)Math.sqrt(axisX*axisX+axisY*axisY+axisZ*axisZ);
+			float minDot = -1;
+			if(axisLength > 0){
+				axisX /= axisLength;
+				axisY /= axisLength;
+				axisZ /= axisLength;
+				minDot = 1;
+				for(int normal = 0; normal < normalCount; normal++){
+					minDot = Math.min(minDot, axisX*faceNormals[normal*3]+axisY*faceNormals[normal*3+1]+axisZ*faceNormals[normal*3+2]);
+				}
+			}
+			cones[meshlet*4] = axisX;
+			cones[meshlet*4+1] = axisY;
+			cones[meshlet*4+2] = axisZ;
+			//the cutoff is the sine of the cone's half angle, a cone wider than a hemisphere can't be culled
+			cones[meshlet*4+3] = minDot <= 0 ? 1 : (float)Math.sqrt(1-minDot*minDot);
+		}
+	}
+
+	/**
+	 * Gets the number of meshlets
+	 *
+	 * @return Number of meshlets the geometry was split into
+	 */
+	public int numMeshlets(){
+		return meshletCount;
+	}
+
+	/**
+	 * Gets the number of faces in all the meshlets
+	 *
+	 * @return Number of faces of the geometry the meshlets were built from
+	 */
+	public int numFaces(){
+		return totalFaces;
+	}
+
+	/**
+	 * Gets the first face of the given meshlet
+	 *
+	 * @param meshlet Index of the meshlet
+	 * @return Index of the meshlet's first face in the geometry, its first index is 3 times this
+	 * @throws IndexOutOfBoundsException
+	 */
+	public int getFirstFace(int meshlet) throws IndexOutOfBoundsException{
+		checkMeshlet(meshlet);
+		return firstFace[meshlet];
+	}
+
+	/**
+	 * Gets the number of faces in the given meshlet
+	 *
+	 * @param meshlet Index of the meshlet
+	 * @return Number of faces, at most {@code MAX_FACES}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public int getFaceCount(int meshlet) throws IndexOutOfBoundsException{
+		checkMeshlet(meshlet);
+		return faceCount[meshlet];
+	}
+
+	/**
+	 * Gets the number of distinct vertices used by the given meshlet
+	 *
+	 * @param meshlet Index of the meshlet
+	 * @return Number of vertices, at most {@code MAX_VERTICES}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public int getVertexCount(int meshlet) throws IndexOutOfBoundsException{
+		checkMeshlet(meshlet);
+		return vertexCount[meshlet];
+	}
+
+	/**
+	 * Copies the center of the given meshlet's bounding sphere into {@code dest}
+	 *
+	 * @param meshlet Index of the meshlet
+	 * @param dest Vector to store the center in
+	 * @return {@code dest}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Vec3 getCenter(int meshlet, Vec3 dest) throws IndexOutOfBoundsException{
+		checkMeshlet(meshlet);
+		return dest.set(spheres[meshlet*4], spheres[meshlet*4+1], spheres[meshlet*4+2]);
+	}
+
+	/**
+	 * Gets the radius of the given meshlet's bounding sphere
+	 *
+	 * @param meshlet Index of the meshlet
+	 * @return Radius of the bounding sphere in model units
+	 * @throws IndexOutOfBoundsException
+	 */
+	public float getRadius(int meshlet) throws IndexOutOfBoundsException{
+		checkMeshlet(meshlet);
+		return spheres[meshlet*4+3];
+	}
+
+	/**
+	 * Copies the axis of the given meshlet's normal cone into {@code dest}
+	 *
+	 * @param meshlet Index of the meshlet
+	 * @param dest Vector to store the axis in
+	 * @return {@code dest}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Vec3 getConeAxis(int meshlet, Vec3 dest) throws IndexOutOfBoundsException{
+		checkMeshlet(meshlet);
+		return dest.set(cones[meshlet*4], cones[meshlet*4+1], cones[meshlet*4+2]);
+	}
+
+	/**
+	 * Gets the cutoff of the given meshlet's normal cone
+	 *
+	 * @param meshlet Index of the meshlet
+	 * @return Sine of the half angle of the cone, 1 if the meshlet can't be backface culled
+	 * @throws IndexOutOfBoundsException
+	 */
+	public float getConeCutoff(int meshlet) throws IndexOutOfBoundsException{
+		checkMeshlet(meshlet);
+		return cones[meshlet*4+3];
+	}
+
+	/**
+	 * Tests if the given bounding sphere, in model space, is outside any of the given planes
+	 *
+	 * @param meshlet Index of the meshlet
+	 * @param planes Normalized planes as a, b, c, d with the inside being where {@code ax+by+cz+d >= 0}
+	 * @param planeCount Number of planes to test
+	 * @return True if the meshlet's sphere is entirely outside a plane
+	 */
+	boolean isOutside(int meshlet, float[] planes, int planeCount){
+		float x = spheres[meshlet*4], y = spheres[meshlet*4+1], z = spheres[meshlet*4+2], radius = spheres[meshlet*4+3];
+		for(int plane = 0; plane < planeCount; plane++){
+			int offset = plane*4;
+			if(planes[offset]*x+planes[offset+1]*y+planes[offset+2]*z+planes[offset+3] < -radius){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Tests if every face of the given meshlet faces away from the given eye position
+	 *
+	 * @param meshlet Index of the meshlet
+	 * @param eyeX X component of the eye in model space
+	 * @param eyeY Y component of the eye in model space
+	 * @param eyeZ Z component of the eye in model space
+	 * @return True if no face of the meshlet can be seen from the eye
+	 * @throws IndexOutOfBoundsException
+	 */
+	public boolean isBackfacing(int meshlet, float eyeX, float eyeY, float eyeZ) throws IndexOutOfBoundsException{
+		checkMeshlet(meshlet);
+		float x = spheres[meshlet*4]-eyeX, y = spheres[meshlet*4+1]-eyeY, z = spheres[meshlet*4+2]-eyeZ;
+		float dot = x*cones[meshlet*4]+y*cones[meshlet*4+1]+z*cones[meshlet*4+2];
+		return dot >= cones[meshlet*4+3]*(float)Math.sqrt(x*x+y*y+z*z)+spheres[meshlet*4+3];
+	}
+
+	/**
+	 * Gets the average number of faces per meshlet
+	 *
+	 * @return Average face count
+	 */
+	public float getAverageFaces(){
+		return meshletCount == 0 ? 0 : totalFaces/(float)meshletCount;
+	}
+
+	/**
+	 * Gets the average number of vertices per meshlet
+	 *
+	 * @return Average vertex count
+	 */
+	public float getAverageVertices(){
+		if(meshletCount == 0){
+			return 0;
+		}
+		long total = 0;
+		for(int meshlet = 0; meshlet < meshletCount; meshlet++){
+			total += vertexCount[meshlet];
+		}
+		return total/(float)meshletCount;
+	}
+
+	/**
+	 * Gets the number of meshlets that can be backface culled from some direction
+	 *
+	 * @return Number of meshlets whose normal cone is narrower than a hemisphere
+	 */
+	public int numCullableCones(){
+		int result = 0;
+		for(int meshlet = 0; meshlet < meshletCount; meshlet++){
+			if(cones[meshlet*4+3] < 1){
+				result++;
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public String toString(){
+		return meshletCount+" meshlets, "+getAverageFaces()+" faces and "+getAverageVertices()+" vertices on average ("+
+				MAX_FACES+"/"+MAX_VERTICES+" max), "+numCullableCones()+" with cullable normal cones";
+	}
+
+	private void checkMeshlet(int meshlet) throws IndexOutOfBoundsException{
+		if(meshlet < 0 || meshlet >= meshletCount){
+			throw new IndexOutOfBoundsException("Meshlet "+meshlet+" requested, there are "+meshletCount+" meshlets");
+		}
+	}
+}
@@ -1,53 +1,203 @@
 package mesh;
 
-import gldata.AttribType;
+import static org.lwjgl.opengl.GL11.glDrawElements;
+import glMath.vectors.Vec3;
 import gldata.BufferObject;
 import gldata.BufferType;
 import gldata.BufferUsage;
 import gldata.IndexBuffer;
+import gldata.VertexArray;
 
 import renderers.RenderMode;
 
 public class OBJ extends Mesh {
 	
+	private boolean tangents;
+	private Geometry[] submeshes;
+	private VertexArray[] submeshArrays;
+	
+	/**
+	 * Constructs a mesh from the given geometry with every vertex attribute stored as floats
+	 * 
+	 * @param mesh Geometry to upload, copied and moved to its geometric center
+	 * @param material Name of the material the mesh is drawn with
+	 */
 	public OBJ(Geometry mesh, String material){
+		this(mesh, material, VertexLayout.FULL);
+	}
+	
+	/**
+	 * Constructs a mesh from the given geometry with its vertices stored in the given layout
+	 * 
+	 * @param mesh Geometry to upload, copied and moved to its geometric center
+	 * @param material Name of the material the mesh is drawn with
+	 * @param layout Format to store the vertices in
+	 */
+	public OBJ(Geometry mesh, String material, VertexLayout layout){
+		this(mesh, material, layout, false);
+	}
+	
+	/**
+	 * Constructs a mesh from the given geometry with its vertices stored in the given layout. If {@code split} is true and
+	 * the geometry has too many vertices for 16 bit indices, it is uploaded as spatially coherent submeshes that each use
+	 * unsigned short indices, see {@link GeometrySplitter}. {@link #render()} draws every submesh, so callers don't need
+	 * to know the mesh was split.
+	 * 
+	 * @param mesh Geometry to upload, copied and moved to its geometric center
+	 * @param material Name of the material the mesh is drawn with
+	 * @param layout Format to store the vertices in
+	 * @param split Whether to split the geometry instead of using 32 bit indices
+	 */
+	public OBJ(Geometry mesh, String material, VertexLayout layout, boolean split){
 		super();
 		
 		geometry = new Geometry(mesh);
 		geometry.moveToGeoCenter();
-		//establish attributes
-		vao.addAttrib(AttribType.VEC3, false, 0);//position
-		vao.addAttrib(AttribType.VEC3, false, 0);//normal
-		vao.addAttrib(AttribType.VEC2, false, 0);//uv
-		vao.addAttrib(AttribType.VEC3, false, 0);//tangent
-		vao.addAttrib(AttribType.VEC3, false, 0);//bitangent
+		this.layout = layout;
+		//the tangent frame is only uploaded if the geometry was generated with one for its material
+		tangents = geometry.hasTangents() && geometry.hasBitangents();
 		
+		if(split && geometry.numVertices() > GeometrySplitter.MAX_SHORT_VERTICES){
+			submeshes = GeometrySplitter.split(geometry, GeometrySplitter.MAX_SHORT_VERTICES);
+			submeshArrays = new VertexArray[submeshes.length];
+			submeshArrays[0] = vao;
+			for(int submesh = 1; submesh < submeshes.length; submesh++){
+				submeshArrays[submesh] = new VertexArray();
+			}
+			for(int submesh = 0; submesh < submeshes.length; submesh++){
+				setup(submeshArrays[submesh], submeshes[submesh]);
+			}
+		}else{
+			setup(vao, geometry);
+		}
+		
+//		this.material = material;
+	}
+	
+	private void setup(VertexArray vao, Geometry part){
 		//create vertex buffer
 		vao.genVBO(SOLID_MODE);
 		//create index buffer
-		vao.genIBO(SOLID_MODE, RenderMode.TRIANGLES, getIndexType(geometry.numVertices()-1));
+		vao.genIBO(SOLID_MODE, RenderMode.TRIANGLES, getIndexType(part.numVertices()-1));
 		
 		//add indices and vertices to the buffers
-		geometry.insertVertices(vao.getVBO(SOLID_MODE));
-		geometry.insertIndices(vao.getIBO(SOLID_MODE), RenderMode.TRIANGLES);
+		insertVertices(vao.getVBO(SOLID_MODE), part);
+		part.insertIndices(vao.getIBO(SOLID_MODE), RenderMode.TRIANGLES);
 
 		vao.getVBO(SOLID_MODE).flush(BufferUsage.STATIC_DRAW);
 		vao.getIBO(SOLID_MODE).flush(BufferUsage.STATIC_DRAW);
 		
 		vao.setIndexBuffer(SOLID_MODE);
 
-		vao.setAttribVBO(0, SOLID_MODE);
-		vao.setAttribVBO(1, SOLID_MODE);
-		vao.setAttribVBO(2, SOLID_MODE);
-		vao.setAttribVBO(3, SOLID_MODE);
-		vao.setAttribVBO(4, SOLID_MODE);
-
-		vao.enableAttribute(0);
-		vao.enableAttribute(1);
-		vao.enableAttribute(2);
-		vao.enableAttribute(3);
-		vao.enableAttribute(4);
-		
-//		this.material = material;
+		//establish attributes
+		layout.setup(vao, SOLID_MODE, tangents);
+	}
+	
+	private void insertVertices(BufferObject vbo, Geometry part){
+		//submeshes are quantized against the bounds of the whole mesh so they share its position decode
+		part.insertVertices(vbo, layout, geometry.getBoundsMin(new Vec3()), geometry.getBoundsSize(new Vec3()));
+	}
+	
+	/**
+	 * Gets the number of submeshes this mesh is drawn as
+	 * 
+	 * @return Number of submeshes, 1 if the mesh wasn't split
+	 */
+	public int numSubmeshes(){
+		return submeshes == null ? 1 : submeshes.length;
+	}
+	
+	/**
+	 * Gets the geometry of the given submesh, each submesh has bounds of its own that can be used to cull it
+	 * 
+	 * @param submesh Index of the submesh
+	 * @return Geometry of the submesh, the whole geometry if the mesh wasn't split
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Geometry getSubmesh(int submesh) throws IndexOutOfBoundsException{
+		if(submesh < 0 || submesh >= numSubmeshes()){
+			throw new IndexOutOfBoundsException("Submesh "+submesh+" requested, there are "+numSubmeshes()+" submeshes");
+		}
+		return submeshes == null ? geometry : submeshes[submesh];
+	}
+	
+	/**
+	 * Generates and uploads the tangent frame of this mesh the first time it is rendered with a material that needs it,
+	 * such as after a normal map was added to a material that had none
+	 * 
+	 * @param material Material this mesh is about to be rendered with
+	 */
+	@Override
+	public void updateAttributes(Material material){
+		if(tangents || material == null || !material.needsTangents()){
+			return;
+		}
+		geometry.genTangentBitangent();
+		tangents = true;
+		if(submeshes == null){
+			reupload(vao, geometry);
+		}else{
+			//split again so the submeshes get the tangents of the whole mesh, the split only depends on the positions
+			submeshes = GeometrySplitter.split(geometry, GeometrySplitter.MAX_SHORT_VERTICES);
+			for(int submesh = 0; submesh < submeshes.length; submesh++){
+				reupload(submeshArrays[submesh], submeshes[submesh]);
+			}
+		}
+	}
+	
+	private void reupload(VertexArray vao, Geometry part){
+		BufferObject vbo = vao.getVBO(SOLID_MODE);
+		vbo.reset();
+		insertVertices(vbo, part);
+		vbo.flush(BufferUsage.STATIC_DRAW);
+		layout.addTangents(vao, SOLID_MODE);
+	}
+	
+	@Override
+	public void render(){
+		if(submeshes == null){
+			super.render();
+			return;
+		}
+		for(VertexArray submesh : submeshArrays){
+			submesh.bind();
+			glDrawElements(submesh.getRenderMode().mode, submesh.getNumIndices(), submesh.getIndexType().enumType, 0);
+			submesh.unbind();
+		}
+	}
+	
+	/**
+	 * Renders the given index ranges of the whole geometry. The ranges can't be mapped onto the index buffers of a split
+	 * mesh, so a split mesh is drawn completely instead.
+	 */
+	@Override
+	public void render(int[] firstIndices, int[] counts, int ranges){
+		if(submeshes == null){
+			super.render(firstIndices, counts, ranges);
+		}else{
+			render();
+		}
+	}
+	
+	@Override
+	public void setRenderMode(String mode){
+		if(submeshes == null){
+			super.setRenderMode(mode);
+			return;
+		}
+		for(VertexArray submesh : submeshArrays){
+			submesh.setIndexBuffer(mode);
+		}
+	}
+	
+	@Override
+	public void delete(){
+		if(submeshes == null){
+			super.delete();
+			return;
+		}
+		for(VertexArray submesh : submeshArrays){
+			submesh.delete();
+		}
 	}
 }
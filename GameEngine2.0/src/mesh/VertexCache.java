@@ -0,0 +1,196 @@
+package mesh;
+
+/**
+ * Simulation of the post transform vertex cache of a GPU, used to measure how well the order of a mesh's faces reuses
+ * vertices that were already shaded. Each index drawn is looked up in a small cache of recently transformed vertices, a
+ * miss means the vertex shader runs again for that vertex.
+ * <p>
+ * The quality of an index order is usually given as its ACMR, the average cache miss ratio or number of misses per
+ * face, which ranges from 3 for no reuse down to about 0.5 for a large regular grid. The ATVR, misses per vertex used,
+ * is 1 for an ideal order regardless of the mesh.
+ * </p>
+ *
+ * @author Kevin Mango
+ *
+ */
+public class VertexCache {
+
+	/**
+	 * How a vertex cache decides which vertex to replace on a miss
+	 */
+	public enum Policy{
+		/**
+		 * The oldest vertex added is replaced, hits don't change the order. This matches most fixed function hardware.
+		 */
+		FIFO,
+		/**
+		 * The least recently used vertex is replaced, hits move a vertex back to the front
+		 */
+		LRU;
+	}
+
+	public static final int DEFAULT_SIZE = 16;
+	private static final int EMPTY = -1;
+
+	private final int[] entries;//LRU keeps the most recent vertex first, FIFO is a ring starting at head
+	private final Policy policy;
+	private int head, hits, misses;
+
+	/**
+	 * Constructs a FIFO cache holding {@code DEFAULT_SIZE} vertices
+	 */
+	public VertexCache(){
+		this(DEFAULT_SIZE, Policy.FIFO);
+	}
+
+	/**
+	 * Constructs an empty cache
+	 *
+	 * @param size Number of vertices the cache holds
+	 * @param policy How vertices are replaced
+	 * @throws IllegalArgumentException If {@code size} isn't positive
+	 */
+	public VertexCache(int size, Policy policy) throws IllegalArgumentException{
+		if(size < 1){
+			throw new IllegalArgumentException("Vertex cache size must be positive, found "+size);
+		}
+		entries = new int[size];
+		this.policy = policy;
+		reset();
+	}
+
+	/**
+	 * Empties the cache and clears its hit and miss counts
+	 */
+	public void reset(){
+		for(int entry = 0; entry < entries.length; entry++){
+			entries[entry] = EMPTY;
+		}
+		head = 0;
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * Looks up a vertex in the cache, adding it if it isn't there
+	 *
+	 * @param vertex Index of the vertex being drawn
+	 * @return True if the vertex was in the cache
+	 */
+	public boolean access(int vertex){
+		int found = EMPTY;
+		for(int entry = 0; entry < entries.length; entry++){
+			if(entries[entry] == vertex){
+				found = entry;
+				break;
+			}
+		}
+		if(policy == Policy.LRU){
+			//move the vertex to the front, dropping the last entry on a miss
+			int last = found == EMPTY ? entries.length-1 : found;
+			System.arraycopy(entries, 0, entries, 1, last);
+			entries[0] = vertex;
+		}else if(found == EMPTY){
+			entries[head] = vertex;
+			head = (head+1)%entries.length;
+		}
+		if(found == EMPTY){
+			misses++;
+			return false;
+		}
+		hits++;
+		return true;
+	}
+
+	/**
+	 * Runs the given faces through the cache
+	 *
+	 * @param indices Vertex indices of the faces, 3 per face
+	 * @param faceCount Number of faces to draw
+	 * @return Number of misses the faces caused
+	 */
+	public int simulate(int[] indices, int faceCount){
+		int start = misses;
+		for(int corner = 0; corner < faceCount*3; corner++){
+			access(indices[corner]);
+		}
+		return misses-start;
+	}
+
+	/**
+	 * Gets the number of vertices the cache holds
+	 *
+	 * @return Size of the cache
+	 */
+	public int size(){
+		return entries.length;
+	}
+
+	/**
+	 * Gets how vertices are replaced
+	 *
+	 * @return Replacement policy of the cache
+	 */
+	public Policy getPolicy(){
+		return policy;
+	}
+
+	/**
+	 * Gets the number of lookups that found their vertex since the last reset
+	 *
+	 * @return Number of hits
+	 */
+	public int getHits(){
+		return hits;
+	}
+
+	/**
+	 * Gets the number of lookups that had to add their vertex since the last reset
+	 *
+	 * @return Number of misses
+	 */
+	public int getMisses(){
+		return misses;
+	}
+
+	/**
+	 * Computes the average cache miss ratio of drawing the faces of the given geometry in order
+	 *
+	 * @param geometry Geometry to draw
+	 * @param size Number of vertices the simulated cache holds
+	 * @param policy How the simulated cache replaces vertices
+	 * @return Average number of cache misses per face
+	 */
+	public static float getACMR(Geometry geometry, int size, Policy policy){
+		if(geometry.numFaces() == 0){
+			return 0;
+		}
+		VertexCache cache = new VertexCache(size, policy);
+		return cache.simulate(geometry.getIndexData(), geometry.numFaces())/(float)geometry.numFaces();
+	}
+
+	/**
+	 * Computes the average transform to vertex ratio of drawing the faces of the given geometry in order
+	 *
+	 * @param geometry Geometry to draw
+	 * @param size Number of vertices the simulated cache holds
+	 * @param policy How the simulated cache replaces vertices
+	 * @return Average number of cache misses per vertex used by a face
+	 */
+	public static float getATVR(Geometry geometry, int size, Policy policy){
+		int[] indices = geometry.getIndexData();
+		boolean[] used = new boolean[geometry.numVertices()];
+		int usedCount = 0;
+		for(int corner = 0; corner < geometry.numFaces()*3; corner++){
+			if(!used[indices[corner]]){
+				used[indices[corner]] = true;
+				usedCount++;
+			}
+		}
+		if(usedCount == 0){
+			return 0;
+		}
+		VertexCache cache = new VertexCache(size, policy);
+		return cache.simulate(indices, geometry.numFaces())/(float)usedCount;
+	}
+}
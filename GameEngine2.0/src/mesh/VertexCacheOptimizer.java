@@ -0,0 +1,287 @@
+package mesh;
+
+import java.util.Arrays;
+
+/**
+ * Reorders the faces and vertices of a triangle mesh so the GPU transforms fewer vertices and fetches them from memory in
+ * order. The passes are meant to be run once when a mesh is imported:
+ * <ol>
+ * <li>{@link #optimizeCache(int[], int, int, int, int[])} orders faces to reuse the post transform vertex cache using
+ * Tipsify (Sander, Nehab and Barczak 2007), which runs in linear time.</li>
+ * <li>{@link #optimizeOverdraw(int[], int, float[], int, float, int[])} splits that order into clusters at points where
+ * the cache is cold anyway and sorts the clusters so faces on the outside of the mesh are drawn first, reducing overdraw
+ * from any direction while keeping the cache efficiency within a threshold.</li>
+ * <li>{@link #optimizeVertexFetch(int[], int, int, int[])} numbers the vertices in the order the faces first use them.</li>
+ * </ol>
+ * {@link VertexCache} can be used to measure the result.
+ *
+ * @author Kevin Mango
+ *
+ */
+public class VertexCacheOptimizer {
+
+	public static final float DEFAULT_OVERDRAW_THRESHOLD = 1.05f;
+
+	/**
+	 * Orders faces to make the best use of a vertex cache of the given size
+	 *
+	 * @param indices Vertex indices of the faces, 3 per face
+	 * @param faceCount Number of faces
+	 * @param vertexCount Number of vertices the indices refer to
+	 * @param cacheSize Number of vertices the targeted cache holds
+	 * @param dest Array to store the reordered indices in, must hold {@code faceCount*3} indices and may not be
+	 * {@code indices}
+	 */
+	public static void optimizeCache(int[] indices, int faceCount, int vertexCount, int cacheSize, int[] dest){
+		//faces around each vertex
+		int[] start = new int[vertexCount+1];
+		for(int corner = 0; corner < faceCount*3; corner++){
+			start[indices[corner]+1]++;
+		}
+		for(int vert = 0; vert < vertexCount; vert++){
+			start[vert+1] += start[vert];
+		}
+		int[] faces = new int[faceCount*3];
+		int[] live = Arrays.copyOf(start, vertexCount);//used as the fill position first
+		for(int corner = 0; corner < faceCount*3; corner++){
+			faces[live[indices[corner]]++] = corner/3;
+		}
+		//number of faces not yet emitted around each vertex
+		for(int vert = 0; vert < vertexCount; vert++){
+			live[vert] = start[vert+1]-start[vert];
+		}
+
+		int[] cacheTime = new int[vertexCount];
+		boolean[] emitted = new boolean[faceCount];
+		//vertices of emitted faces, used to find somewhere to continue when the current fan is finished
+		int[] deadEnd = new int[faceCount*3];
+		int deadEndSize = 0, time = cacheSize+1, cursor = 0, written = 0;
+
+		int vert = nextLive(live, 0);
+		while(vert != -1){
+			int candidates = deadEndSize;
+			//emit every remaining face around the vertex
+			for(int curFace = start[vert]; curFace < start[vert+1]; curFace++){
+				int face = faces[curFace];
+				if(emitted[face]){
+					continue;
+				}
+				emitted[face] = true;
+				for(int corner = face*3; corner < face*3+3; corner++){
+					int faceVert = indices[corner];
+					dest[written++] = faceVert;
+					deadEnd[deadEndSize++] = faceVert;
+					live[faceVert]--;
+					//vertices no longer in the cache are transformed again
+					if(time-cacheTime[faceVert] > cacheSize){
+						cacheTime[faceVert] = time++;
+					}
+				}
+			}
+
+			//continue from the neighbour that will still be in the cache after its remaining faces are emitted, preferring
+			//the one that entered the cache first
+			int best = -1, bestPriority = -1;
+			for(int candidate = candidates; candidate < deadEndSize; candidate++){
+				int next = deadEnd[candidate];
+				if(live[next] > 0){
+					int priority = 0;
+					if(time-cacheTime[next]+2*live[next] <= cacheSize){
+						priority = time-cacheTime[next];
+					}
+					if(priority > bestPriority){
+						bestPriority = priority;
+						best = next;
+					}
+				}
+			}
+			if(best == -1){
+				//dead end, go back to the most recent vertex that still has faces
+				while(deadEndSize > 0 && best == -1){
+					int next = deadEnd[--deadEndSize];
+					if(live[next] > 0){
+						best = next;
+					}
+				}
+				if(best == -1){
+					cursor = nextLive(live, cursor);
+					best = cursor;
+				}
+			}
+			vert = best;
+		}
+	}
+
+	private static int nextLive(int[] live, int cursor){
+		while(cursor < live.length && live[cursor] == 0){
+			cursor++;
+		}
+		return cursor < live.length ? cursor : -1;
+	}
+
+	/**
+	 * Reorders clusters of faces from a cache optimized order so faces facing away from the center of the mesh are drawn
+	 * first. The order is split wherever the vertex cache misses on every corner of a face, then each of those clusters is
+	 * split further as long as its parts stay within {@code threshold} times the cache miss ratio of the cluster.
+	 *
+	 * @param indices Vertex indices of the faces in cache optimized order, 3 per face
+	 * @param faceCount Number of faces
+	 * @param positions Vertex positions, 3 per vertex
+	 * @param cacheSize Number of vertices the targeted cache holds
+	 * @param threshold Largest increase of the cache miss ratio allowed, 1 keeps the cache efficiency and 1.05 allows
+	 * 5% more misses
+	 * @param dest Array to store the reordered indices in, must hold {@code faceCount*3} indices and may not be
+	 * {@code indices}
+	 */
+	public static void optimizeOverdraw(int[] indices, int faceCount, float[] positions, int cacheSize, float threshold, int[] dest){
+		VertexCache cache = new VertexCache(cacheSize, VertexCache.Policy.FIFO);
+		int[] clusterStart = new int[faceCount+1];
+		int clusters = 0;
+
+		//hard boundaries where the cache is cold
+		boolean[] hard = new boolean[faceCount+1];
+		for(int face = 0; face < faceCount; face++){
+			if(missCount(cache, indices, face) == 3){
+				hard[face] = true;
+			}
+		}
+		hard[faceCount] = true;
+
+		//soft boundaries inside each hard cluster
+		int hardStart = 0;
+		for(int face = 1; face <= faceCount; face++){
+			if(!hard[face]){
+				continue;
+			}
+			cache.reset();
+			int misses = 0;
+			for(int curFace = hardStart; curFace < face; curFace++){
+				misses += missCount(cache, indices, curFace);
+			}
+			float limit = threshold*misses/(face-hardStart);
+
+			cache.reset();
+			clusterStart[clusters++] = hardStart;
+			misses = 0;
+			int softStart = hardStart;
+			for(int curFace = hardStart; curFace < face; curFace++){
+				misses += missCount(cache, indices, curFace);
+				if(curFace+1 < face && misses <= limit*(curFace+1-softStart)){
+					//the part so far reuses the cache well enough to stand on its own
+					clusterStart[clusters++] = curFace+1;
+					softStart = curFace+1;
+					misses = 0;
+					cache.reset();
+				}
+			}
+			hardStart = face;
+		}
+		clusterStart[clusters] = faceCount;
+
+		//centroid of the whole mesh weighted by face area
+		float[] centroids = new float[clusters*3], normals = new float[clusters*3];
+		double meshX = 0, meshY = 0, meshZ = 0, meshArea = 0;
+		for(int cluster = 0; cluster < clusters; cluster++){
+			double area = 0;
+			for(int face = clusterStart[cluster]; face < clusterStart[cluster+1]; face++){
+				int v0 = indices[face*3]*3, v1 = indices[face*3+1]*3, v2 = indices[face*3+2]*3;
+				float e1x = positions[v1]-positions[v0], e1y = positions[v1+1]-positions[v0+1], e1z = positions[v1+2]-positions[v0+2];
+				float e2x = positions[v2]-positions[v0], e2y = positions[v2+1]-positions[v0+1], e2z = positions[v2+2]-positions[v0+2];
+				float nx = e1y*e2z-e1z*e2y, ny = e1z*e2x-e1x*e2z, nz = e1x*e2y-e1y*e2x;
+				float faceArea = (float)Math.sqrt(nx*nx+ny*ny+nz*nz);
+				//the unnormalized normal is already weighted by area
+				normals[cluster*3] += nx;
+				normals[cluster*3+1] += ny;
+				normals[cluster*3+2] += nz;
+				centroids[cluster*3] += (positions[v0]+positions[v1]+positions[v2])/3*faceArea;
+				centroids[cluster*3+1] += (positions[v0+1]+positions[v1+1]+positions[v2+1])/3*faceArea;
+				centroids[cluster*3+2] += (positions[v0+2]+positions[v1+2]+positions[v2+2])/3*faceArea;
+				area += faceArea;
+			}
+			meshX += centroids[cluster*3];
+			meshY += centroids[cluster*3+1];
+			meshZ += centroids[cluster*3+2];
+			meshArea += area;
+			if(area > 0){
+				centroids[cluster*3] /= area;
+				centroids[cluster*3+1] /= area;
+				centroids[cluster*3+2] /= area;
+			}
+		}
+		if(meshArea > 0){
+			meshX /= meshArea;
+			meshY /= meshArea;
+			meshZ /= meshArea;
+		}
+
+		//sort clusters by how far they face away from the center, largest first
+		long[] order = new long[clusters];
+		for(int cluster = 0; cluster < clusters; cluster++){
+			float nx = normals[cluster*3], ny = normals[cluster*3+1], nz = normals[cluster*3+2];
+			float length = (float)Math.sqrt(nx*nx+ny*ny+nz*nz);
+			float facing = 0;
+			if(length > 0){
+				facing = (float)(((centroids[cluster*3]-meshX)*nx+(centroids[cluster*3+1]-meshY)*ny+
+						(centroids[cluster*3+2]-meshZ)*nz)/length);
+			}
+			order[cluster] = ((long)sortKey(-facing) << 32) | cluster;
+		}
+		Arrays.sort(order);
+
+		int written = 0;
+		for(int curCluster = 0; curCluster < clusters; curCluster++){
+			int cluster = (int)order[curCluster];
+			int length = (clusterStart[cluster+1]-clusterStart[cluster])*3;
+			System.arraycopy(indices, clusterStart[cluster]*3, dest, written, length);
+			written += length;
+		}
+	}
+
+	private static int missCount(VertexCache cache, int[] indices, int face){
+		int misses = 0;
+		for(int corner = face*3; corner < face*3+3; corner++){
+			if(!cache.access(indices[corner])){
+				misses++;
+			}
+		}
+		return misses;
+	}
+
+	/**
+	 * Maps a float to an int that sorts the same way when compared as a signed int
+	 */
+	private static int sortKey(float value){
+		int bits = Float.floatToIntBits(value+0.0f);
+		return bits ^ ((bits >> 31) & 0x7fffffff);
+	}
+
+	/**
+	 * Numbers the vertices in the order the faces first use them, rewriting the indices in place. Vertices not used by any
+	 * face are numbered after the used vertices, keeping their order.
+	 *
+	 * @param indices Vertex indices of the faces, 3 per face, rewritten to the new vertex numbers
+	 * @param faceCount Number of faces
+	 * @param vertexCount Number of vertices the indices refer to
+	 * @param remap Array of at least {@code vertexCount} ints to store the new number of each vertex in
+	 *
+	 * @return Number of vertices used by the faces
+	 */
+	public static int optimizeVertexFetch(int[] indices, int faceCount, int vertexCount, int[] remap){
+		Arrays.fill(remap, 0, vertexCount, -1);
+		int next = 0;
+		for(int corner = 0; corner < faceCount*3; corner++){
+			int vert = indices[corner];
+			if(remap[vert] == -1){
+				remap[vert] = next++;
+			}
+			indices[corner] = remap[vert];
+		}
+		int used = next;
+		for(int vert = 0; vert < vertexCount; vert++){
+			if(remap[vert] == -1){
+				remap[vert] = next++;
+			}
+		}
+		return used;
+	}
+}
@@ -0,0 +1,279 @@
+package mesh;
+
+import gldata.AttribType;
+import gldata.VertexArray;
+
+/**
+ * Formats a mesh's vertices can be stored in on the GPU. Both layouts use the same attribute indices, 0 for the
+ * position, 1 for the normal and 2 for the texture coordinate, followed by the tangent frame if the geometry has one.
+ *
+ * @author Kevin Mango
+ *
+ */
+public enum VertexLayout {
+	/**
+	 * Every attribute is stored as 32 bit floats: position, normal, uv, tangent and bitangent, 56 bytes per vertex with
+	 * tangents and 32 without
+	 */
+	FULL(new AttribType[]{AttribType.VEC3, AttribType.VEC3, AttribType.VEC2, AttribType.VEC3, AttribType.VEC3}),
+	/**
+	 * Attributes are quantized, 24 bytes per vertex with tangents and 16 without:
+	 * <ul>
+	 * <li>Position as 16 bit unsigned normalized values relative to the bounds of the geometry, the fourth component is
+	 * padding. The renderer uploads {@link Mesh#getPositionDecode(glMath.matrices.Mat4)} as the {@code positionDecode}
+	 * uniform to map them back to model space.</li>
+	 * <li>Normal as 16 bit signed normalized octahedral coordinates.</li>
+	 * <li>UV as half floats.</li>
+	 * <li>Tangent as 16 bit signed normalized octahedral coordinates followed by the sign of the bitangent, the bitangent
+	 * is rebuilt in the shader as {@code sign*cross(normal, tangent)}.</li>
+	 * </ul>
+	 * The attributes are read as normalized floats, so the vertex shader only has to undo the position scaling and the
+	 * octahedral mapping, the same as {@link #decodeOctahedral(float, float, float[], int)}:
+	 * <pre>
+	 * uniform mat4 positionDecode;
+	 * 
+	 * vec3 decodeOctahedral(vec2 oct){
+	 * 	vec3 v = vec3(oct, 1.0-abs(oct.x)-abs(oct.y));
+	 * 	if(v.z &lt; 0.0){
+	 * 		v.xy = (1.0-abs(v.yx))*vec2(v.x &gt;= 0.0 ? 1.0 : -1.0, v.y &gt;= 0.0 ? 1.0 : -1.0);
+	 * 	}
+	 * 	return normalize(v);
+	 * }
+	 * 
+	 * vec4 modelPos = positionDecode*vec4(position.xyz, 1.0);
+	 * vec3 normal = decodeOctahedral(octNormal);
+	 * vec3 tangent = decodeOctahedral(octTangent.xy);
+	 * vec3 bitangent = octTangent.z*cross(normal, tangent);
+	 * </pre>
+	 * Since {@code positionDecode} is the identity for the full layout the same position code works for both layouts.
+	 */
+	COMPACT(new AttribType[]{AttribType.USHORT_VEC4, AttribType.SHORT_VEC2, AttribType.HALF_VEC2, AttribType.SHORT_VEC4});
+
+	private final AttribType[] attributes;
+
+	private VertexLayout(AttribType[] attributes){
+		this.attributes = attributes;
+	}
+
+	/**
+	 * Adds the attributes of this layout to the given VertexArray, sources them from the given vertex buffer and enables
+	 * them. The vertex buffer is registered again so its stride covers the new attributes.
+	 *
+	 * @param vao VertexArray to add the attributes to
+	 * @param vbo Name of the vertex buffer in {@code vao} the vertices are stored in
+	 * @param tangents Whether the vertices have a tangent frame
+	 */
+	public void setup(VertexArray vao, String vbo, boolean tangents){
+		addAttributes(vao, vbo, 0, numAttributes(tangents));
+	}
+
+	/**
+	 * Adds the tangent frame attributes of this layout to a VertexArray that was set up without them, after the vertex
+	 * buffer has been refilled with vertices that have a tangent frame
+	 *
+	 * @param vao VertexArray set up by {@link #setup(VertexArray, String, boolean)} without tangents
+	 * @param vbo Name of the vertex buffer in {@code vao} the vertices are stored in
+	 */
+	public void addTangents(VertexArray vao, String vbo){
+		addAttributes(vao, vbo, numAttributes(false), numAttributes(true));
+	}
+
+	private void addAttributes(VertexArray vao, String vbo, int first, int end){
+		for(int attrib = first; attrib < end; attrib++){
+			//integer formats of the compact layout are read as normalized floats
+			vao.addAttrib(attributes[attrib], this == COMPACT, 0);
+		}
+		vao.registerVBO(vbo);
+		for(int attrib = first; attrib < end; attrib++){
+			vao.setAttribVBO(attrib, vbo);
+			vao.enableAttribute(attrib);
+		}
+	}
+
+	/**
+	 * Gets the number of attributes a vertex has in this layout
+	 *
+	 * @param tangents Whether the vertices have a tangent frame
+	 * @return Number of attributes
+	 */
+	public int numAttributes(boolean tangents){
+		if(tangents){
+			return attributes.length;
+		}
+		return 3;
+	}
+
+	/**
+	 * Gets the size of a vertex in this layout
+	 *
+	 * @param tangents Whether the vertices have a tangent frame
+	 * @return Bytes per vertex
+	 */
+	public int getVertexSize(boolean tangents){
+		int bytes = 0;
+		for(int attrib = 0; attrib < numAttributes(tangents); attrib++){
+			bytes += attributes[attrib].bytes;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Gets the memory the vertices of the given geometry take in this layout
+	 *
+	 * @param geometry Geometry to measure
+	 * @return Bytes used by the vertex buffer
+	 */
+	public long getVertexBytes(Geometry geometry){
+		return (long)geometry.numVertices()*getVertexSize(geometry.hasTangents());
+	}
+
+	/**
+	 * Builds a report of the vertex buffer memory the given geometry uses in each layout
+	 *
+	 * @param geometry Geometry to measure
+	 * @return Size of the geometry's vertices in each layout and how much the compact layout saves
+	 */
+	public static String report(Geometry geometry){
+		StringBuilder report = new StringBuilder();
+		report.append(geometry.numVertices()).append(" vertices");
+		for(VertexLayout layout : values()){
+			report.append(", ").append(layout).append(' ').append(layout.getVertexBytes(geometry)).append(" bytes (").
+			append(layout.getVertexSize(geometry.hasTangents())).append(" per vertex)");
+		}
+		long full = FULL.getVertexBytes(geometry);
+		if(full > 0){
+			report.append(", compact saves ").append(100*(full-COMPACT.getVertexBytes(geometry))/full).append('%');
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Quantizes a value in the range [0, 1] to a 16 bit unsigned normalized value
+	 *
+	 * @param value Value to quantize, clamped to [0, 1]
+	 * @return Value as the bits of an unsigned short
+	 */
+	public static short packUnorm16(float value){
+		value = Math.max(0, Math.min(1, value));
+		return (short)Math.round(value*65535);
+	}
+
+	/**
+	 * Quantizes a value in the range [-1, 1] to a 16 bit signed normalized value
+	 *
+	 * @param value Value to quantize, clamped to [-1, 1]
+	 * @return Quantized value
+	 */
+	public static short packSnorm16(float value){
+		value = Math.max(-1, Math.min(1, value));
+		return (short)Math.round(value*32767);
+	}
+
+	/**
+	 * Converts a float to a 16 bit half float, rounding to the nearest half. Values too large for a half become infinity
+	 * and values too small become 0.
+	 *
+	 * @param value Float to convert
+	 * @return Bits of the half float
+	 */
+	public static short packHalf(float value){
+		int bits = Float.floatToIntBits(value);
+		int sign = (bits >>> 16) & 0x8000;
+		int exponent = ((bits >>> 23) & 0xff)-127+15;
+		int mantissa = bits & 0x7fffff;
+		if(((bits >>> 23) & 0xff) == 0xff){
+			//infinity stays infinity and NaN stays NaN
+			return (short)(sign | 0x7c00 | (mantissa != 0 ? 0x200 : 0));
+		}
+		if(exponent >= 0x1f){
+			return (short)(sign | 0x7c00);
+		}
+		if(exponent <= 0){
+			if(exponent < -10){
+				return (short)sign;
+			}
+			//subnormal half, the implicit leading bit becomes part of the mantissa
+			mantissa |= 0x800000;
+			int shift = 14-exponent;
+			int half = mantissa >> shift;
+			if(((mantissa >> (shift-1)) & 1) != 0){
+				half++;
+			}
+			return (short)(sign | half);
+		}
+		int half = (exponent << 10) | (mantissa >> 13);
+		//a carry out of the mantissa correctly moves up the exponent
+		if((mantissa & 0x1000) != 0){
+			half++;
+		}
+		return (short)(sign | half);
+	}
+
+	/**
+	 * Converts the bits of a 16 bit half float to a float
+	 *
+	 * @param half Bits of the half float
+	 * @return Value of the half float
+	 */
+	public static float unpackHalf(short half){
+		int sign = (half & 0x8000) << 16;
+		int exponent = (half >>> 10) & 0x1f;
+		int mantissa = half & 0x3ff;
+		if(exponent == 0x1f){
+			return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+		}
+		if(exponent == 0){
+			float value = mantissa/(float)(1 << 24);
+			return sign != 0 ? -value : value;
+		}
+		return Float.intBitsToFloat(sign | ((exponent-15+127) << 23) | (mantissa << 13));
+	}
+
+	/**
+	 * Encodes a unit vector with the octahedral mapping, which projects the vector onto an octahedron and unfolds the lower
+	 * half over the corners of the upper half, spreading the precision of 2 values evenly over the sphere
+	 *
+	 * @param x X component of the vector
+	 * @param y Y component of the vector
+	 * @param z Z component of the vector
+	 * @param dest Array to store the 2 encoded components in, each in [-1, 1]
+	 * @param offset Index of {@code dest} to store the first component at
+	 */
+	public static void encodeOctahedral(float x, float y, float z, float[] dest, int offset){
+		float length = Math.abs(x)+Math.abs(y)+Math.abs(z);
+		if(length == 0){
+			dest[offset] = 0;
+			dest[offset+1] = 0;
+			return;
+		}
+		float octX = x/length, octY = y/length;
+		if(z < 0){
+			float foldX = (1-Math.abs(octY))*(octX >= 0 ? 1 : -1);
+			octY = (1-Math.abs(octX))*(octY >= 0 ? 1 : -1);
+			octX = foldX;
+		}
+		dest[offset] = octX;
+		dest[offset+1] = octY;
+	}
+
+	/**
+	 * Decodes a unit vector from its octahedral coordinates
+	 *
+	 * @param octX First encoded component
+	 * @param octY Second encoded component
+	 * @param dest Array to store the normalized vector in
+	 * @param offset Index of {@code dest} to store the x component at
+	 */
+	public static void decodeOctahedral(float octX, float octY, float[] dest, int offset){
+		float z = 1-Math.abs(octX)-Math.abs(octY);
+		float x = octX, y = octY;
+		if(z < 0){
+			x = (1-Math.abs(octY))*(octX >= 0 ? 1 : -1);
+			y = (1-Math.abs(octX))*(octY >= 0 ? 1 : -1);
+		}
+		float length = (float)Math.sqrt(x*x+y*y+z*z);
+		dest[offset] = x/length;
+		dest[offset+1] = y/length;
+		dest[offset+2] = z/length;
+	}
+}
@@ -0,0 +1,259 @@
+package mesh;
+
+import java.util.Arrays;
+
+/**
+ * Index for finding vertices that have already been added to a Geometry, used to weld the corners of faces that share
+ * the same position, normal and texture coordinate into a single vertex. Each vertex is reduced to a key of 8 ints by
+ * quantizing its attributes to a grid with a cell size of {@code epsilon}, the keys are stored in a flat int array and
+ * looked up through an open addressing hash table with linear probing. Nothing is allocated per lookup.
+ * <p>
+ * With an epsilon of 0 vertices are only welded when their attributes are exactly equal. With a positive epsilon
+ * vertices that fall in the same grid cell are welded, two values closer than epsilon that straddle a cell boundary
+ * are not.
+ * </p>
+ * A welder is not thread safe.
+ *
+ * @author Kevin Mango
+ *
+ */
+public class VertexWelder {
+
+	public static final int KEY_SIZE = 8;//position, normal and texture coordinate
+	private static final int EMPTY = -1;
+	private static final int DEFAULT_CAPACITY = 64;
+
+	private final float epsilon, invEpsilon;
+	private int[] keys;//KEY_SIZE ints per entry
+	private int[] indices;//vertex index each entry maps to
+	private int[] table;//entry stored in each slot or EMPTY
+	private int size, mask;
+	private final int[] scratch;
+
+	/**
+	 * Constructs a welder that only welds vertices with exactly equal attributes
+	 */
+	public VertexWelder(){
+		this(0);
+	}
+
+	/**
+	 * Constructs a welder that welds vertices whose attributes fall in the same grid cell of size {@code epsilon}
+	 *
+	 * @param epsilon Size of the grid attributes are quantized to, 0 for exact matching
+	 * @throws IllegalArgumentException If epsilon is negative
+	 */
+	public VertexWelder(float epsilon) throws IllegalArgumentException{
+		this(epsilon, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a welder that welds vertices whose attributes fall in the same grid cell of size {@code epsilon}, sized
+	 * to hold {@code capacity} vertices before growing
+	 *
+	 * @param epsilon Size of the grid attributes are quantized to, 0 for exact matching
+	 * @param capacity Number of vertices the welder can hold before growing
+	 * @throws IllegalArgumentException If epsilon is negative
+	 */
+	public VertexWelder(float epsilon, int capacity) throws IllegalArgumentException{
+		if(epsilon < 0 || Float.isNaN(epsilon)){
+			throw new IllegalArgumentException("Weld epsilon must be 0 or positive, found "+epsilon);
+		}
+		this.epsilon = epsilon;
+		invEpsilon = epsilon > 0 ? 1.0f/epsilon : 0;
+		capacity = Math.max(capacity, 1);
+		keys = new int[capacity*KEY_SIZE];
+		indices = new int[capacity];
+		//keep the table at most half full
+		table = new int[tableSize(capacity)];
+		Arrays.fill(table, EMPTY);
+		mask = table.length-1;
+		size = 0;
+		scratch = new int[KEY_SIZE];
+	}
+
+	private static int tableSize(int capacity){
+		return Integer.highestOneBit(Math.max(capacity*2-1, 1))*2;
+	}
+
+	/**
+	 * Gets the grid size used to quantize attributes
+	 *
+	 * @return Epsilon of this welder
+	 */
+	public float getEpsilon(){
+		return epsilon;
+	}
+
+	/**
+	 * Gets the number of vertices in this welder
+	 *
+	 * @return Number of vertices that have been added
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Removes every vertex from this welder, keeping its storage
+	 */
+	public void clear(){
+		Arrays.fill(table, EMPTY);
+		size = 0;
+	}
+
+	/**
+	 * Finds the index of the vertex with the given attributes
+	 *
+	 * @param x X component of the position
+	 * @param y Y component of the position
+	 * @param z Z component of the position
+	 * @param nx X component of the normal
+	 * @param ny Y component of the normal
+	 * @param nz Z component of the normal
+	 * @param u X component of the texture coordinate
+	 * @param v Y component of the texture coordinate
+	 *
+	 * @return Index of the matching vertex, or -1 if no vertex matches
+	 */
+	public int find(float x, float y, float z, float nx, float ny, float nz, float u, float v){
+		int entry = table[probe(quantize(x, y, z, nx, ny, nz, u, v))];
+		return entry == EMPTY ? -1 : indices[entry];
+	}
+
+	/**
+	 * Adds a vertex with the given attributes, if a matching vertex was already added it is kept and its index returned
+	 *
+	 * @param x X component of the position
+	 * @param y Y component of the position
+	 * @param z Z component of the position
+	 * @param nx X component of the normal
+	 * @param ny Y component of the normal
+	 * @param nz Z component of the normal
+	 * @param u X component of the texture coordinate
+	 * @param v Y component of the texture coordinate
+	 * @param index Index of the vertex in its Geometry
+	 *
+	 * @return {@code index} if the vertex was added, otherwise the index of the matching vertex
+	 */
+	public int add(float x, float y, float z, float nx, float ny, float nz, float u, float v, int index){
+		int slot = probe(quantize(x, y, z, nx, ny, nz, u, v));
+		if(table[slot] != EMPTY){
+			return indices[table[slot]];
+		}
+		insert(slot, index);
+		return index;
+	}
+
+	/**
+	 * Finds the vertex with the given attributes in {@code geometry}, adding it to the geometry if there isn't one.
+	 * The welder must have been filled from the vertices of the same geometry.
+	 *
+	 * @param geometry Geometry the vertex belongs to
+	 * @param x X component of the position
+	 * @param y Y component of the position
+	 * @param z Z component of the position
+	 * @param nx X component of the normal
+	 * @param ny Y component of the normal
+	 * @param nz Z component of the normal
+	 * @param u X component of the texture coordinate
+	 * @param v Y component of the texture coordinate
+	 *
+	 * @return Index of the vertex in {@code geometry}
+	 */
+	public int weld(Geometry geometry, float x, float y, float z, float nx, float ny, float nz, float u, float v){
+		int slot = probe(quantize(x, y, z, nx, ny, nz, u, v));
+		if(table[slot] != EMPTY){
+			return indices[table[slot]];
+		}
+		int index = geometry.add(x, y, z, nx, ny, nz, u, v);
+		//adding to the geometry doesn't touch the scratch key or the table so the slot is still valid
+		insert(slot, index);
+		return index;
+	}
+
+	/**
+	 * Gets the number of bytes used by the arrays of this welder
+	 *
+	 * @return Approximate memory used by this welder in bytes
+	 */
+	public long getMemoryUsage(){
+		return 4L*(keys.length+indices.length+table.length);
+	}
+
+	/**
+	 * Quantizes the given attributes into the scratch key
+	 */
+	private int[] quantize(float x, float y, float z, float nx, float ny, float nz, float u, float v){
+		scratch[0] = quantize(x);
+		scratch[1] = quantize(y);
+		scratch[2] = quantize(z);
+		scratch[3] = quantize(nx);
+		scratch[4] = quantize(ny);
+		scratch[5] = quantize(nz);
+		scratch[6] = quantize(u);
+		scratch[7] = quantize(v);
+		return scratch;
+	}
+
+	private int quantize(float value){
+		if(epsilon == 0){
+			//adding 0 turns -0 into 0 so they compare equal like they do with ==
+			return Float.floatToIntBits(value+0.0f);
+		}else{
+			return Math.round(value*invEpsilon);
+		}
+	}
+
+	/**
+	 * Finds the slot holding the entry with the given key, or the empty slot the key should be inserted into
+	 */
+	private int probe(int[] key){
+		int hash = 0;
+		for(int component = 0; component < KEY_SIZE; component++){
+			hash = (hash+key[component])*0x9E3779B1;
+		}
+		hash ^= hash >>> 16;
+		int slot = hash & mask;
+		while(table[slot] != EMPTY && !matches(table[slot], key)){
+			slot = (slot+1) & mask;
+		}
+		return slot;
+	}
+
+	private boolean matches(int entry, int[] key){
+		int offset = entry*KEY_SIZE;
+		for(int component = 0; component < KEY_SIZE; component++){
+			if(keys[offset+component] != key[component]){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Stores the scratch key as a new entry in the given empty slot
+	 */
+	private void insert(int slot, int index){
+		if(size == indices.length){
+			keys = Arrays.copyOf(keys, keys.length*2);
+			indices = Arrays.copyOf(indices, indices.length*2);
+		}
+		System.arraycopy(scratch, 0, keys, size*KEY_SIZE, KEY_SIZE);
+		indices[size] = index;
+		table[slot] = size++;
+		if(size*2 > table.length){
+			rehash();
+		}
+	}
+
+	private void rehash(){
+		table = new int[table.length*2];
+		Arrays.fill(table, EMPTY);
+		mask = table.length-1;
+		for(int entry = 0; entry < size; entry++){
+			System.arraycopy(keys, entry*KEY_SIZE, scratch, 0, KEY_SIZE);
+			table[probe(scratch)] = entry;
+		}
+	}
+}
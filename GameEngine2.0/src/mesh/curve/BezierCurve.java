@@ -2,6 +2,7 @@ package mesh.curve;
 import java.util.ArrayList;
 import java.util.Collections;
 
+import glMath.MathArena;
 import glMath.VecUtil;
 import glMath.vectors.Vec3;
 /**
@@ -155,10 +156,57 @@ public class BezierCurve {
 			return points.get(0);
 		}else{
 			//if t is between 1 and 0 then call the compute method
-			return getPoint(t, points);
+			return getBezierPoint(t, new Vec3());
 		}
 	}
 	
+	/**
+	 * Gets a point on this curve at the given point t along the curve storing it in {@code dest}, the point is computed 
+	 * with temporaries from the thread's MathArena so this doesn't allocate.
+	 * If the value of t is greater than 1 then the end point of the curve will be returned.
+	 * If the value of t is less than 0 then the start point will be returned.
+	 * 
+	 * @param t Value between 0 and 1 that defines a point along the curve
+	 * @param dest Vector to store the point in
+	 * @return The {@code dest} vector
+	 */
+	public Vec3 getBezierPoint(float t, Vec3 dest){
+		if(points.isEmpty()){
+			//fail safe for empty curves, though this should never happen
+			return dest.set(0, 0, 0);
+		}else if(t >= 1){
+			return dest.set(points.get(points.size()-1));
+		}else if(t <= 0){
+			return dest.set(points.get(0));
+		}
+		//From http://pomax.github.io/bezierinfo/
+//		1.Treat t as a ratio (which it is). t=0 is 0% along a line, t=1 is 100% along a line.
+//		2.Take all lines between the curve's defining points. For an order n curve, that's n lines.
+//		3.Place markers along each of these line, at distance t. So if t is 0.2, place the mark at 20% from the start, 80% from the end.
+//		4.Now form lines between those points. This gives n-1 lines.
+//		5.Place markers along each of these line at distance t.
+//		6.Form lines between those points. This'll be n-2 lines.
+//		7.Place markers, form lines, place markers, etc.
+//		8.Repeat this until you have only one line left. The point t on that line coincides with the original curve point at t.
+		MathArena arena = MathArena.get();
+		int mark = arena.mark();
+		//each set of markers overwrites the front of the work vectors, the point on the curve ends up in the first
+		int work = arena.vec3Block(points.size());
+		for(int curPoint = 0; curPoint < points.size(); curPoint++){
+			arena.vec3At(work+curPoint).set(points.get(curPoint));
+		}
+		for(int lines = points.size()-1; lines > 0; lines--){
+			for(int curPoint = 0; curPoint < lines; curPoint++){
+				Vec3 start = arena.vec3At(work+curPoint), end = arena.vec3At(work+curPoint+1);
+				//get the new point as the point (100-x)% from the start and x% from the end
+				start.set(start.x*(1-t)+end.x*t, start.y*(1-t)+end.y*t, start.z*(1-t)+end.z*t);
+			}
+		}
+		dest.set(arena.vec3At(work));
+		arena.release(mark);
+		return dest;
+	}
+	
 	/**
 	 * Gets the unnormalized tangent line at the given point along the Bezier path
 	 * 
@@ -292,55 +340,17 @@ public class BezierCurve {
 			length = VecUtil.subtract(points.get(0), points.get(1)).length();
 		}else{
 			length = 0f;
-			Vec3 basePoint = new Vec3(getBezierPoint(0));
+			MathArena arena = MathArena.get();
+			int mark = arena.mark();
+			Vec3 basePoint = getBezierPoint(0, arena.vec3());
+			Vec3 nextPoint = arena.vec3();
+			Vec3 segment = arena.vec3();
 			for(float t = T_STEP; t < 1.0f; t += T_STEP){
-				Vec3 nextPoint = getBezierPoint(t);
-				length += VecUtil.subtract(nextPoint, basePoint).length();
+				getBezierPoint(t, nextPoint);
+				length += VecUtil.sub(nextPoint, basePoint, segment).length();
 				basePoint.set(nextPoint);
 			}
-		}
-	}
-	
-	/**
-	 * Uses 1 to calculate a point on the curve at t using a subdividing recursion
-	 * 
-	 * @param t Point along the curve to find
-	 * @param subPoints Previously computed points used in De Casteljau's algorithm
-	 * @return Final computed point
-	 */
-	private Vec3 getPoint(float t, ArrayList<Vec3> subPoints){
-		//From http://pomax.github.io/bezierinfo/
-//		1.Treat t as a ratio (which it is). t=0 is 0% along a line, t=1 is 100% along a line.
-//		2.Take all lines between the curve's defining points. For an order n curve, that's n lines.
-//		3.Place markers along each of these line, at distance t. So if t is 0.2, place the mark at 20% from the start, 80% from the end.
-//		4.Now form lines between those points. This gives n-1 lines.
-//		5.Place markers along each of these line at distance t.
-//		6.Form lines between those points. This'll be n-2 lines.
-//		7.Place markers, form lines, place markers, etc.
-//		8.Repeat this until you have only one line left. The point t on that line coincides with the original curve point at t.
-		
-		//if the list is empty, this is mainly a fail safe for empty lists, though this should never happen
-		if(subPoints.isEmpty()){
-			return new Vec3();//return an empty vector
-		}else if(subPoints.size() == 1){//indicates we have calculated the point on the curve at t
-			return subPoints.get(0);
-		}else{
-			//else continue following de Casteljau's algorithm and subdivide
-			//this will be 1 smaller than the previous list
-			ArrayList<Vec3> newPoints = new ArrayList<Vec3>(subPoints.size()-1);//create a list to hold the new set of points
-			
-			//create the new list of points
-			for(int curPoint = 0; curPoint < subPoints.size()-1; curPoint++){
-				//get the new point as the point (100-x)% from the start and x% from the end where 
-				newPoints.add(
-						VecUtil.scale(subPoints.get(curPoint), 1-t).
-						add( 
-							VecUtil.scale(subPoints.get(curPoint+1), t)
-							)
-						);
-			}
-			//recurse with the smaller point set
-			return getPoint(t, newPoints);
+			arena.release(mark);
 		}
 	}
 	
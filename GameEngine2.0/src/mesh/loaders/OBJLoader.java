@@ -13,8 +13,8 @@ import mesh.Geometry;
 import mesh.Material;
 import mesh.MaterialType;
 import mesh.OBJ;
-import mesh.primitives.Triangle;
-import mesh.primitives.Vertex;
+import mesh.VertexLayout;
+import mesh.VertexWelder;
 import textures.Texture;
 import textures.enums.InternalFormat;
 import textures.enums.TexParam;
@@ -29,12 +29,30 @@ public class OBJLoader implements MeshLoader {
 	private Scanner obj;
 	private String curGroup, curMat, filename;
 	private Geometry curMesh;
+	private VertexWelder welder;
+	private Vec3 normal;
+	private boolean split;
 
 	public OBJLoader(String file){
 		this(new File(file));
 	}
 	
 	public OBJLoader(File file){
+		this(file, 0);
+	}
+	
+	/**
+	 * Constructs a loader for the given file that welds face corners whose position, normal and texture coordinate 
+	 * are within {@code weldEpsilon} of each other into a single vertex
+	 * 
+	 * @param file OBJ file to load
+	 * @param weldEpsilon Size of the grid vertex attributes are quantized to when welding, 0 to only weld exact matches
+	 * @throws IllegalArgumentException If weldEpsilon is negative
+	 */
+	public OBJLoader(File file, float weldEpsilon) throws IllegalArgumentException{
+		welder = new VertexWelder(weldEpsilon);
+		normal = new Vec3();
+		split = false;
 		try{
 			obj = new Scanner(file);
 			//will retain the different values for each field of data, position, normal, and text coords
@@ -49,6 +67,16 @@ public class OBJLoader implements MeshLoader {
 		}
 	}
 	
+	/**
+	 * Sets whether meshes with too many vertices for 16 bit indices are split into submeshes that each use unsigned short
+	 * indices, instead of being drawn with 32 bit indices
+	 * 
+	 * @param split True to split large meshes, meshes aren't split by default
+	 */
+	public void setSplitLargeMeshes(boolean split){
+		this.split = split;
+	}
+	
 	@Override
 	public void load(){
 		while(obj.hasNextLine()){
@@ -57,15 +85,28 @@ public class OBJLoader implements MeshLoader {
 			
 		}
 		//add the last mesh that was processed after we reached the end of the file
+		addMesh();
+		obj.close();
+	}
+	
+	/**
+	 * Finishes the current mesh and adds it to the scene. Only the attributes its material uses are generated, the tangent
+	 * frame is skipped for materials without a normal or bump map and made later by the OBJ if one is added.
+	 */
+	private void addMesh(){
+		//if no normals were collected in the mesh generation compute them now
 		if(normals.isEmpty()){
-			//compute the normals for the loaded mesh
 			curMesh.genNormals();
 		}
-		//compute the tangents and bitangents
-		curMesh.genTangentBitangent();
+		Material material = SceneManager.materials.get(curMat);
+		if(material == null || material.needsTangents()){
+			//compute the tangents and bitangents
+			curMesh.genTangentBitangent();
+		}
+		//reorder for the vertex cache, the order is kept by the OBJ's copy of the mesh
+		curMesh.optimizeVertexCache();
 		
-		SceneManager.meshes.put(curGroup+"_"+curMat, new OBJ(curMesh, curMat));
-		obj.close();
+		SceneManager.meshes.put(curGroup+"_"+curMat, new OBJ(curMesh, curMat, VertexLayout.FULL, split));
 	}
 	
 	private void parseLine(String line){
@@ -104,17 +145,11 @@ public class OBJLoader implements MeshLoader {
 			case "usemtl":
 				if(curMat != null){
 					//add the finished model to the scene
-					//if no normals were collected in the mesh generation compute them now
-					if(normals.isEmpty()){
-						curMesh.genNormals();
-					}
-					//compute the tangents and bitangents
-					curMesh.genTangentBitangent();
-					
-					SceneManager.meshes.put(curGroup+"_"+curMat, new OBJ(curMesh, curMat));
+					addMesh();
 				}
 				curMat = data[1];
 				curMesh.empty();
+				welder.clear();
 				break;
 			case "mtllib":
 				for(int curFile = 1; curFile < data.length; curFile++){
@@ -130,11 +165,13 @@ public class OBJLoader implements MeshLoader {
 	}
 	
 	private void parseFace(String[] points){
-		ArrayList<Integer> indices = new ArrayList<Integer>();//stores indices found for current face
+		int[] indices = new int[points.length-1];//stores indices found for current face
 		//iterate through all the points defining the current face
 		//since the data being passed was from the function above the first value is merely the letter f for marking the line
 		for(int curVert = 1; curVert < points.length; curVert++){
-			Vertex newVert = new Vertex(0,0,0, 0,0,0, 0,0);
+			Vec3 pos = null;
+			Vec2 uv = null;
+			normal.set(0, 0, 0);
 			String[] indexValues = points[curVert].split("/");
 			for(int curIndex = 0; curIndex < indexValues.length; curIndex++){
 				//check if the value is empty, meaning that the value wasn't defined
@@ -144,47 +181,44 @@ public class OBJLoader implements MeshLoader {
 						case 0://vertex
 							//determine if the index is relative or absolute
 							if(index < 0){
-								newVert.setPos(verts.get(verts.size()+index));
+								pos = verts.get(verts.size()+index);
 							}else{
-								newVert.setPos(verts.get(index-1));//-1 because the first index is 1 not 0
+								pos = verts.get(index-1);//-1 because the first index is 1 not 0
 							}
 							break;
 						case 1://uvs
 							//determine if the index is relative or absolute
 							if(index < 0){
-								newVert.setUV(uvs.get(uvs.size()+index));
+								uv = uvs.get(uvs.size()+index);
 							}else{
-								newVert.setUV(uvs.get(index-1));//-1 because the first index is 1 not 0
+								uv = uvs.get(index-1);//-1 because the first index is 1 not 0
 							}
 							break;
 						case 2://normals
 							//determine if the index is relative or absolute
 							if(index < 0){
-								newVert.setNormal(normals.get(normals.size()+index));
+								normal.set(normals.get(normals.size()+index));
 							}else{
-								newVert.setNormal(normals.get(index-1));//-1 because the first index is 1 not 0
+								normal.set(normals.get(index-1));//-1 because the first index is 1 not 0
 							}
+							normal.normalize();
 							break;
 					}
 				}
 			}
 			
 			//see if the "new" vertex is actually new and add it if it is
-			if(curMesh.getIndex(newVert) == -1){
-				//add the value
-				curMesh.add(newVert);
-			}
-			indices.add(curMesh.getIndex(newVert));
+			indices[curVert-1] = welder.weld(curMesh, 
+					pos == null ? 0 : pos.x, pos == null ? 0 : pos.y, pos == null ? 0 : pos.z,
+					normal.x, normal.y, normal.z,
+					uv == null ? 0 : uv.x, uv == null ? 0 : uv.y
+					);
 		}
 		
 		//now generate faces for the indices found
 		//since more than 3 vertices can define a face in OBJ triangulation may be necessary
-		for(int curFace = 1; curFace < indices.size()-1; curFace++){
-			curMesh.add(new Triangle(
-					indices.get(0),
-					indices.get(curFace),
-					indices.get(curFace+1)
-					));
+		for(int curFace = 1; curFace < indices.length-1; curFace++){
+			curMesh.add(indices[0], indices[curFace], indices[curFace+1]);
 		}
 	}
 	
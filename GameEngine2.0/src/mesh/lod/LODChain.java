@@ -0,0 +1,176 @@
+package mesh.lod;
+
+import glMath.vectors.Vec3;
+
+import java.util.ArrayList;
+
+import mesh.Geometry;
+
+/**
+ * Levels of detail of a Geometry, from the full geometry at level 0 to the coarsest level. Each level is produced by a
+ * {@link QuadricSimplifier} continuing from the previous level and records its error, the largest root mean square
+ * distance in model units of any collapse made to reach it. This is an average over the surface a collapse covers rather
+ * than a bound, see {@link QuadricSimplifier}. The chain also holds a bounding sphere of the full geometry so the size of
+ * the mesh on screen can be estimated.
+ *
+ * @author Kevin Mango
+ *
+ */
+public class LODChain {
+
+	public static final int DEFAULT_LEVELS = 4;
+	public static final float DEFAULT_REDUCTION = 0.5f;
+	private static final int MIN_FACES = 4;
+
+	private Geometry[] levels;
+	private float[] errors;
+	private Vec3 center;
+	private float radius;
+
+	/**
+	 * Constructs a chain of {@code DEFAULT_LEVELS} levels, each with about half the faces of the previous one
+	 *
+	 * @param source Full detail geometry, used as level 0
+	 */
+	public LODChain(Geometry source){
+		this(source, DEFAULT_LEVELS, DEFAULT_REDUCTION, Float.MAX_VALUE);
+	}
+
+	/**
+	 * Constructs a chain of at most {@code numLevels} levels where each level aims for {@code reduction} times the faces of
+	 * the previous level. The chain ends early if the mesh can't be reduced any further, either because the remaining
+	 * edges are on seams and borders that must be kept or because every collapse would exceed {@code maxError}.
+	 *
+	 * @param source Full detail geometry, used as level 0
+	 * @param numLevels Largest number of levels including level 0
+	 * @param reduction Fraction of faces each level keeps from the previous level
+	 * @param maxError Largest root mean square error a level may have, in model units
+	 * @throws IllegalArgumentException If {@code numLevels} is less than 1 or {@code reduction} isn't between 0 and 1
+	 */
+	public LODChain(Geometry source, int numLevels, float reduction, float maxError) throws IllegalArgumentException{
+		if(numLevels < 1){
+			throw new IllegalArgumentException("A level of detail chain needs at least 1 level, found "+numLevels);
+		}
+		if(!(reduction > 0 && reduction < 1)){
+			throw new IllegalArgumentException("Level reduction must be between 0 and 1, found "+reduction);
+		}
+		ArrayList<Geometry> geometry = new ArrayList<Geometry>(numLevels);
+		ArrayList<Float> error = new ArrayList<Float>(numLevels);
+		geometry.add(source);
+		error.add(0f);
+
+		if(numLevels > 1 && source.numFaces() > MIN_FACES){
+			QuadricSimplifier simplifier = new QuadricSimplifier(source);
+			int faces = source.numFaces();
+			while(geometry.size() < numLevels){
+				int target = Math.max((int)(faces*reduction), MIN_FACES);
+				int reduced = simplifier.simplify(target, maxError);
+				//stop once a level no longer removes a meaningful number of faces
+				if(reduced >= faces-(faces-target)/4){
+					break;
+				}
+				geometry.add(simplifier.toGeometry());
+				error.add(simplifier.getError());
+				faces = reduced;
+				if(faces <= MIN_FACES){
+					break;
+				}
+			}
+		}
+
+		levels = geometry.toArray(new Geometry[geometry.size()]);
+		errors = new float[error.size()];
+		for(int level = 0; level < errors.length; level++){
+			errors[level] = error.get(level);
+		}
+
+		//bound the full geometry with a sphere around its geometric center
+		center = new Vec3(source.getGeometricCenter());
+		float[] positions = source.getPositionData();
+		float radiusSq = 0;
+		for(int vert = 0; vert < source.numVertices(); vert++){
+			float x = positions[vert*3]-center.x, y = positions[vert*3+1]-center.y, z = positions[vert*3+2]-center.z;
+			radiusSq = Math.max(radiusSq, x*x+y*y+z*z);
+		}
+		radius = (float)Math.sqrt(radiusSq);
+	}
+
+	/**
+	 * Gets the number of levels in this chain
+	 *
+	 * @return Number of levels including the full geometry
+	 */
+	public int numLevels(){
+		return levels.length;
+	}
+
+	/**
+	 * Gets the geometry of the given level
+	 *
+	 * @param level Level of detail, 0 being the full geometry
+	 * @return Geometry of the level
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Geometry getGeometry(int level) throws IndexOutOfBoundsException{
+		checkLevel(level);
+		return levels[level];
+	}
+
+	/**
+	 * Gets the error of the given level
+	 *
+	 * @param level Level of detail, 0 being the full geometry
+	 * @return Largest root mean square distance in model units of the collapses that made the level, 0 for level 0
+	 * @throws IndexOutOfBoundsException
+	 */
+	public float getError(int level) throws IndexOutOfBoundsException{
+		checkLevel(level);
+		return errors[level];
+	}
+
+	/**
+	 * Gets the number of faces of the given level
+	 *
+	 * @param level Level of detail, 0 being the full geometry
+	 * @return Number of faces in the level
+	 * @throws IndexOutOfBoundsException
+	 */
+	public int numFaces(int level) throws IndexOutOfBoundsException{
+		checkLevel(level);
+		return levels[level].numFaces();
+	}
+
+	/**
+	 * Gets the center of the bounding sphere of the full geometry
+	 *
+	 * @return Center of the bounding sphere in model space
+	 */
+	public Vec3 getCenter(){
+		return center;
+	}
+
+	/**
+	 * Gets the radius of the bounding sphere of the full geometry
+	 *
+	 * @return Radius of the bounding sphere in model units
+	 */
+	public float getRadius(){
+		return radius;
+	}
+
+	@Override
+	public String toString(){
+		StringBuilder result = new StringBuilder();
+		for(int level = 0; level < levels.length; level++){
+			result.append("LOD ").append(level).append(": ").append(levels[level].numFaces()).append(" faces, ")
+				.append(levels[level].numVertices()).append(" vertices, error ").append(errors[level]).append('\n');
+		}
+		return result.toString();
+	}
+
+	private void checkLevel(int level) throws IndexOutOfBoundsException{
+		if(level < 0 || level >= levels.length){
+			throw new IndexOutOfBoundsException("Level "+level+" requested, the chain has "+levels.length+" levels");
+		}
+	}
+}
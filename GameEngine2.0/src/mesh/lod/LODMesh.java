@@ -0,0 +1,159 @@
+package mesh.lod;
+
+import gldata.AttribType;
+import gldata.BufferUsage;
+import gldata.VertexArray;
+import mesh.Geometry;
+import mesh.Mesh;
+import renderers.RenderMode;
+
+/**
+ * Mesh that holds a vertex array for every level of a {@link LODChain} and renders whichever level is currently selected.
+ * The level is usually chosen each frame by a {@link LODSelector}, callers of {@link #render()} don't need to know which
+ * level is drawn. {@link #getGeometry()} always returns the full detail geometry.
+ *
+ * @author Kevin Mango
+ *
+ */
+public class LODMesh extends Mesh {
+
+	private LODChain chain;
+	private VertexArray[] levels;
+	private int level;
+
+	/**
+	 * Constructs a level of detail mesh from the given geometry using the default number of levels and reduction
+	 *
+	 * @param mesh Full detail geometry, it is copied and centered like an OBJ mesh
+	 */
+	public LODMesh(Geometry mesh){
+		this(mesh, LODChain.DEFAULT_LEVELS, LODChain.DEFAULT_REDUCTION);
+	}
+
+	/**
+	 * Constructs a level of detail mesh from the given geometry
+	 *
+	 * @param mesh Full detail geometry, it is copied and centered like an OBJ mesh
+	 * @param numLevels Largest number of levels including the full geometry
+	 * @param reduction Fraction of faces each level keeps from the previous level
+	 * @throws IllegalArgumentException If {@code numLevels} is less than 1 or {@code reduction} isn't between 0 and 1
+	 */
+	public LODMesh(Geometry mesh, int numLevels, float reduction) throws IllegalArgumentException{
+		super();
+		geometry = new Geometry(mesh);
+		geometry.moveToGeoCenter();
+		chain = new LODChain(geometry, numLevels, reduction, Float.MAX_VALUE);
+
+		levels = new VertexArray[chain.numLevels()];
+		levels[0] = vao;
+		setup(vao, geometry);
+		for(int curLevel = 1; curLevel < levels.length; curLevel++){
+			levels[curLevel] = new VertexArray();
+			setup(levels[curLevel], chain.getGeometry(curLevel));
+		}
+		level = 0;
+	}
+
+	/**
+	 * Creates a copy of the given LODMesh, the copy shares the vertex arrays of the given mesh but selects its level
+	 * separately
+	 *
+	 * @param copy LODMesh to copy from
+	 */
+	public LODMesh(LODMesh copy){
+		super(copy);
+		chain = copy.chain;
+		levels = copy.levels;
+		level = copy.level;
+	}
+
+	private void setup(VertexArray vao, Geometry geometry){
+		//establish attributes
+		vao.addAttrib(AttribType.VEC3, false, 0);//position
+		vao.addAttrib(AttribType.VEC3, false, 0);//normal
+		vao.addAttrib(AttribType.VEC2, false, 0);//uv
+		int numAttribs = 3;
+		if(geometry.hasTangents()){
+			vao.addAttrib(AttribType.VEC3, false, 0);//tangent
+			numAttribs++;
+		}
+		if(geometry.hasBitangents()){
+			vao.addAttrib(AttribType.VEC3, false, 0);//bitangent
+			numAttribs++;
+		}
+
+		//create vertex buffer
+		vao.genVBO(SOLID_MODE);
+		//create index buffer
+		vao.genIBO(SOLID_MODE, RenderMode.TRIANGLES, getIndexType(geometry.numVertices()-1));
+
+		//add indices and vertices to the buffers
+		geometry.insertVertices(vao.getVBO(SOLID_MODE));
+		geometry.insertIndices(vao.getIBO(SOLID_MODE), RenderMode.TRIANGLES);
+
+		vao.getVBO(SOLID_MODE).flush(BufferUsage.STATIC_DRAW);
+		vao.getIBO(SOLID_MODE).flush(BufferUsage.STATIC_DRAW);
+
+		vao.setIndexBuffer(SOLID_MODE);
+
+		for(int attrib = 0; attrib < numAttribs; attrib++){
+			vao.setAttribVBO(attrib, SOLID_MODE);
+			vao.enableAttribute(attrib);
+		}
+	}
+
+	/**
+	 * Gets the levels of detail this mesh renders
+	 *
+	 * @return Chain of levels of this mesh
+	 */
+	public LODChain getChain(){
+		return chain;
+	}
+
+	/**
+	 * Gets the number of levels this mesh can render
+	 *
+	 * @return Number of levels including the full geometry
+	 */
+	public int numLevels(){
+		return levels.length;
+	}
+
+	/**
+	 * Gets the level currently rendered
+	 *
+	 * @return Level of detail, 0 being the full geometry
+	 */
+	public int getLevel(){
+		return level;
+	}
+
+	/**
+	 * Sets the level to render, levels past the coarsest level render the coarsest level
+	 *
+	 * @param level Level of detail, 0 being the full geometry
+	 * @throws IndexOutOfBoundsException If {@code level} is negative
+	 */
+	public void setLevel(int level) throws IndexOutOfBoundsException{
+		if(level < 0){
+			throw new IndexOutOfBoundsException("Level of detail must be 0 or greater, found "+level);
+		}
+		this.level = Math.min(level, levels.length-1);
+		vao = levels[this.level];
+	}
+
+	@Override
+	public void setRenderMode(String mode){
+		for(VertexArray curLevel : levels){
+			curLevel.setIndexBuffer(mode);
+		}
+	}
+
+	@Override
+	public void delete(){
+		for(VertexArray curLevel : levels){
+			curLevel.delete();
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package mesh.lod;
+
+import glMath.MathArena;
+import glMath.VecUtil;
+import glMath.transforms.Transform;
+import glMath.vectors.Vec3;
+import core.Camera;
+import core.Entity;
+
+/**
+ * Chooses the level of detail each Entity with a {@link LODMesh} is rendered at based on how large the mesh appears on
+ * screen. The bounding sphere of the mesh is projected with the Camera's field of view and viewport height to get the
+ * number of pixels a unit of the mesh covers at its distance from the camera. The coarsest level whose error covers no
+ * more than {@code tolerance} pixels is selected, so switching levels isn't noticeable.
+ * <p>
+ * Level errors are root mean square distances, which understate how far the worst parts of a collapse moved the
+ * surface. They are multiplied by an error scale before being compared against the tolerance to estimate the peak
+ * distance, {@code DEFAULT_ERROR_SCALE} by default. Raise it to switch to coarser levels later.
+ * </p>
+ *
+ * @author Kevin Mango
+ *
+ */
+public class LODSelector {
+
+	public static final float DEFAULT_TOLERANCE = 1;//pixels
+	public static final float DEFAULT_ERROR_SCALE = 2;//root mean square to peak distance
+
+	private float tolerance;
+	private float errorScale = DEFAULT_ERROR_SCALE;
+
+	/**
+	 * Constructs a selector that allows each level to be off by at most 1 pixel
+	 */
+	public LODSelector(){
+		this(DEFAULT_TOLERANCE);
+	}
+
+	/**
+	 * Constructs a selector that allows each level to be off by at most {@code tolerance} pixels
+	 *
+	 * @param tolerance Largest screen space error in pixels
+	 * @throws IllegalArgumentException If {@code tolerance} is negative
+	 */
+	public LODSelector(float tolerance) throws IllegalArgumentException{
+		setTolerance(tolerance);
+	}
+
+	/**
+	 * Sets the largest screen space error a selected level may have
+	 *
+	 * @param tolerance Largest screen space error in pixels
+	 * @throws IllegalArgumentException If {@code tolerance} is negative
+	 */
+	public void setTolerance(float tolerance) throws IllegalArgumentException{
+		if(!(tolerance >= 0)){
+			throw new IllegalArgumentException("Level of detail tolerance must be 0 or positive, found "+tolerance);
+		}
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Gets the largest screen space error a selected level may have
+	 *
+	 * @return Tolerance in pixels
+	 */
+	public float getTolerance(){
+		return tolerance;
+	}
+
+	/**
+	 * Sets the factor level errors are multiplied by to estimate the peak distance of a level from the full geometry
+	 *
+	 * @param errorScale Factor from root mean square error to peak distance
+	 * @throws IllegalArgumentException If {@code errorScale} is less than 1
+	 */
+	public void setErrorScale(float errorScale) throws IllegalArgumentException{
+		if(!(errorScale >= 1)){
+			throw new IllegalArgumentException("Level of detail error scale must be at least 1, found "+errorScale);
+		}
+		this.errorScale = errorScale;
+	}
+
+	/**
+	 * Gets the factor level errors are multiplied by to estimate the peak distance of a level from the full geometry
+	 *
+	 * @return Factor from root mean square error to peak distance
+	 */
+	public float getErrorScale(){
+		return errorScale;
+	}
+
+	/**
+	 * Selects and sets the level of detail of the given Entity's mesh for rendering from the given Camera. Entities whose
+	 * mesh isn't a LODMesh are left unchanged.
+	 *
+	 * @param entity Entity about to be rendered
+	 * @param camera Camera the Entity is rendered from
+	 *
+	 * @return Level selected, 0 if the Entity has no levels of detail
+	 */
+	public int select(Entity entity, Camera camera){
+		if(!(entity.getMesh() instanceof LODMesh)){
+			return 0;
+		}
+		LODMesh mesh = (LODMesh)entity.getMesh();
+		LODChain chain = mesh.getChain();
+		float pixels = errorScale*getPixelsPerUnit(entity, camera);
+		int level = 0;
+		//errors only grow with the level so the first level over the tolerance ends the search
+		while(level+1 < chain.numLevels() && chain.getError(level+1)*pixels <= tolerance){
+			level++;
+		}
+		mesh.setLevel(level);
+		return level;
+	}
+
+	/**
+	 * Computes the diameter of the given Entity's bounding sphere on screen
+	 *
+	 * @param entity Entity with a LODMesh
+	 * @param camera Camera the Entity is viewed from
+	 *
+	 * @return Diameter of the Entity in pixels, or infinity if the camera is inside its bounding sphere
+	 * @throws IllegalArgumentException If the Entity's mesh isn't a LODMesh
+	 */
+	public float getScreenSize(Entity entity, Camera camera) throws IllegalArgumentException{
+		return 2*getChain(entity).getRadius()*getPixelsPerUnit(entity, camera);
+	}
+
+	/**
+	 * Computes the number of pixels covered by one model space unit of the given Entity, measured at the nearest point of
+	 * its bounding sphere to the camera
+	 *
+	 * @param entity Entity with a LODMesh
+	 * @param camera Camera the Entity is viewed from
+	 *
+	 * @return Pixels per model unit, or infinity if the camera is inside the Entity's bounding sphere
+	 * @throws IllegalArgumentException If the Entity's mesh isn't a LODMesh
+	 */
+	public float getPixelsPerUnit(Entity entity, Camera camera) throws IllegalArgumentException{
+		LODChain chain = getChain(entity);
+		Transform transform = entity.getTransform();
+		Vec3 scale = transform.getScalars();
+		float maxScale = Math.max(Math.abs(scale.x), Math.max(Math.abs(scale.y), Math.abs(scale.z)));
+
+		MathArena arena = MathArena.get();
+		int mark = arena.mark();
+		Vec3 center = transform.transform(chain.getCenter(), arena.vec3());
+		float distance = VecUtil.sub(center, camera.getPos(), center).length()-chain.getRadius()*maxScale;
+		arena.release(mark);
+
+		if(distance <= Math.abs(camera.getZNear())){
+			return Float.POSITIVE_INFINITY;
+		}
+		//height of the view frustum at the given distance is 2*distance*tan(fovy/2)
+		float halfFov = camera.getFov()*(float)Math.PI/360.0f;
+		return maxScale*camera.getHeight()/(2*distance*(float)Math.tan(halfFov));
+	}
+
+	private LODChain getChain(Entity entity) throws IllegalArgumentException{
+		if(!(entity.getMesh() instanceof LODMesh)){
+			throw new IllegalArgumentException("Entity mesh has no levels of detail");
+		}
+		return ((LODMesh)entity.getMesh()).getChain();
+	}
+}
@@ -0,0 +1,560 @@
+package mesh.lod;
+
+import glMath.vectors.Vec2;
+import glMath.vectors.Vec3;
+
+import java.util.Arrays;
+
+import mesh.Geometry;
+import mesh.HalfEdgeMesh;
+import mesh.VertexWelder;
+
+/**
+ * Reduces the number of faces of a Geometry by repeatedly collapsing edges, picking the collapses that move the surface the
+ * least as measured by quadric error metrics. Each collapse moves one vertex onto a neighbouring vertex, so no new
+ * vertices are created and the normals and texture coordinates of the remaining vertices are kept exactly.
+ * <p>
+ * Vertices that share a position are treated as one point of the surface. Edges where those vertices split, such as UV
+ * seams and hard edges, and edges on the border of the mesh are preserved: a vertex on a seam or a border may only slide
+ * along it, and vertices where seams or borders meet are never moved.
+ * </p>
+ * <p>
+ * Simplification is incremental, {@link #simplify(int, float)} can be called with smaller and smaller targets to produce
+ * a chain of levels of detail, each one continuing from the last. The error of a collapse is the root mean square
+ * distance, weighted by area, from the moved vertex to the planes of the original faces it has absorbed. It is given in
+ * the units of the mesh but is an average, parts of the surface can be further than it from the original. The error of
+ * the mesh is the largest error of any collapse performed so far.
+ * </p>
+ *
+ * @author Kevin Mango
+ *
+ */
+public class QuadricSimplifier {
+
+	private static final int QUADRIC_SIZE = 11;//10 terms of the symmetric 4x4 matrix followed by the total weight
+	private static final double BORDER_WEIGHT = 10;
+	private static final double MAX_TURN_COS = 0.7071;//borders and seams turning more than 45 degrees are kept in place
+	private static final byte MANIFOLD = 0, BORDER = 1, SEAM = 2, LOCKED = 3;
+	private static final int INTERIOR_EDGE = 0, BORDER_EDGE = 1, SEAM_EDGE = 2;
+
+	private final Geometry source;
+	private final float[] positions;
+	private final int vertexCount;
+	private final int[] group;//first vertex with the same position as each vertex
+	private final int[] memberStart, members;//vertices used by faces in each group
+	private final byte[] kind;//how each group may move
+	private final double[] quadrics;//one quadric per group
+	private int[] indices;
+	private int faceCount;
+	private float error;
+
+	//scratch arrays reused between passes
+	private final int[] groupIndices, faceStart, faceList, bestTarget, touched, marks;
+	private final double[] bestCost;
+	private final int[] targets;
+	private int pass, mark;
+
+	/**
+	 * Constructs a simplifier for the given geometry, the geometry isn't modified
+	 *
+	 * @param source Geometry to simplify
+	 */
+	public QuadricSimplifier(Geometry source){
+		this.source = source;
+		vertexCount = source.numVertices();
+		faceCount = source.numFaces();
+		positions = Arrays.copyOf(source.getPositionData(), vertexCount*3);
+		indices = Arrays.copyOf(source.getIndexData(), faceCount*3);
+		error = 0;
+
+		group = new int[vertexCount];
+		VertexWelder welder = new VertexWelder(0, vertexCount);
+		for(int vert = 0; vert < vertexCount; vert++){
+			group[vert] = welder.add(positions[vert*3], positions[vert*3+1], positions[vert*3+2], 0, 0, 0, 0, 0, vert);
+		}
+
+		groupIndices = new int[faceCount*3];
+		faceStart = new int[vertexCount+1];
+		faceList = new int[faceCount*3];
+		bestTarget = new int[vertexCount];
+		bestCost = new double[vertexCount];
+		touched = new int[vertexCount];
+		marks = new int[vertexCount];
+		targets = new int[2];
+		pass = 0;
+		mark = 0;
+
+		//list the vertices actually used by faces in each group
+		boolean[] used = new boolean[vertexCount];
+		for(int corner = 0; corner < faceCount*3; corner++){
+			used[indices[corner]] = true;
+		}
+		memberStart = new int[vertexCount+1];
+		for(int vert = 0; vert < vertexCount; vert++){
+			if(used[vert]){
+				memberStart[group[vert]+1]++;
+			}
+		}
+		for(int vert = 0; vert < vertexCount; vert++){
+			memberStart[vert+1] += memberStart[vert];
+		}
+		members = new int[memberStart[vertexCount]];
+		int[] fill = Arrays.copyOf(memberStart, vertexCount);
+		for(int vert = 0; vert < vertexCount; vert++){
+			if(used[vert]){
+				members[fill[group[vert]]++] = vert;
+			}
+		}
+
+		quadrics = new double[vertexCount*QUADRIC_SIZE];
+		kind = new byte[vertexCount];
+		classify();
+	}
+
+	/**
+	 * Gets the number of faces of the simplified mesh
+	 *
+	 * @return Number of faces remaining
+	 */
+	public int numFaces(){
+		return faceCount;
+	}
+
+	/**
+	 * Gets the error of the simplified mesh
+	 *
+	 * @return Largest root mean square distance, in the units of the mesh, of any collapse so far
+	 */
+	public float getError(){
+		return error;
+	}
+
+	/**
+	 * Collapses edges until the mesh has at most {@code targetFaces} faces, no collapse would have an error above
+	 * {@code maxError}, or no more edges can be collapsed without breaking a seam, a border or the orientation of a face
+	 *
+	 * @param targetFaces Number of faces to reduce the mesh to
+	 * @param maxError Largest root mean square distance a collapse may have, in the units of the mesh
+	 *
+	 * @return Number of faces after simplifying
+	 */
+	public int simplify(int targetFaces, float maxError){
+		double maxErrorSq = (double)maxError*maxError;
+		while(faceCount > targetFaces){
+			if(collapsePass(targetFaces, maxErrorSq) == 0){
+				break;
+			}
+		}
+		return faceCount;
+	}
+
+	/**
+	 * Creates a Geometry from the current state of the simplified mesh, only the vertices still used by a face are kept.
+	 * Tangents and bitangents are copied if the source geometry has them.
+	 *
+	 * @return New Geometry holding the simplified mesh
+	 */
+	public Geometry toGeometry(){
+		int[] newIndex = new int[vertexCount];
+		Arrays.fill(newIndex, -1);
+		int used = 0;
+		for(int corner = 0; corner < faceCount*3; corner++){
+			if(newIndex[indices[corner]] == -1){
+				newIndex[indices[corner]] = used++;
+			}
+		}
+		Geometry result = new Geometry();
+		result.ensureCapacity(used, faceCount);
+		int[] order = new int[used];
+		for(int vert = 0; vert < vertexCount; vert++){
+			if(newIndex[vert] != -1){
+				order[newIndex[vert]] = vert;
+			}
+		}
+		Vec3 normal = new Vec3(), tangent = new Vec3();
+		Vec2 uv = new Vec2();
+		for(int vert = 0; vert < used; vert++){
+			int oldVert = order[vert];
+			source.getNormal(oldVert, normal);
+			source.getUV(oldVert, uv);
+			result.add(positions[oldVert*3], positions[oldVert*3+1], positions[oldVert*3+2],
+					normal.x, normal.y, normal.z, uv.x, uv.y);
+			if(source.hasTangents()){
+				result.setTangent(vert, source.getTangent(oldVert, tangent));
+			}
+			if(source.hasBitangents()){
+				result.setBitangent(vert, source.getBitangent(oldVert, tangent));
+			}
+		}
+		for(int face = 0; face < faceCount; face++){
+			result.add(newIndex[indices[face*3]], newIndex[indices[face*3+1]], newIndex[indices[face*3+2]]);
+		}
+		return result;
+	}
+
+	/**
+	 * Builds the quadric of every group and decides which groups may move
+	 */
+	private void classify(){
+		HalfEdgeMesh welded = buildAdjacency();
+		HalfEdgeMesh split = new HalfEdgeMesh(indices, faceCount, vertexCount);
+		int[] borderEdges = new int[vertexCount], seamEdges = new int[vertexCount];
+		//the two other ends of the border or seam edges through each vertex
+		int[] ends = new int[vertexCount*2];
+		Arrays.fill(ends, -1);
+
+		for(int face = 0; face < faceCount; face++){
+			int v0 = groupIndices[face*3], v1 = groupIndices[face*3+1], v2 = groupIndices[face*3+2];
+			//plane of the face weighted by its area
+			double e1x = positions[v1*3]-positions[v0*3], e1y = positions[v1*3+1]-positions[v0*3+1], e1z = positions[v1*3+2]-positions[v0*3+2];
+			double e2x = positions[v2*3]-positions[v0*3], e2y = positions[v2*3+1]-positions[v0*3+1], e2z = positions[v2*3+2]-positions[v0*3+2];
+			double nx = e1y*e2z-e1z*e2y, ny = e1z*e2x-e1x*e2z, nz = e1x*e2y-e1y*e2x;
+			double length = Math.sqrt(nx*nx+ny*ny+nz*nz);
+			if(length == 0){
+				continue;
+			}
+			nx /= length;
+			ny /= length;
+			nz /= length;
+			double d = -(nx*positions[v0*3]+ny*positions[v0*3+1]+nz*positions[v0*3+2]);
+			double weight = length*0.5;
+			addPlane(v0, nx, ny, nz, d, weight);
+			addPlane(v1, nx, ny, nz, d, weight);
+			addPlane(v2, nx, ny, nz, d, weight);
+
+			for(int edge = face*3; edge < face*3+3; edge++){
+				boolean border = welded.isBorder(edge);
+				if(!border && !split.isBorder(edge)){
+					continue;
+				}
+				int start = groupIndices[edge], end = groupIndices[welded.getNext(edge)];
+				if(border){
+					borderEdges[start]++;
+					borderEdges[end]++;
+				}else{
+					seamEdges[start]++;
+					seamEdges[end]++;
+				}
+				addEnd(ends, start, end);
+				addEnd(ends, end, start);
+				//plane through the edge perpendicular to the face keeps the vertices from leaving the border or seam
+				double ex = positions[end*3]-positions[start*3], ey = positions[end*3+1]-positions[start*3+1], ez = positions[end*3+2]-positions[start*3+2];
+				double px = ey*nz-ez*ny, py = ez*nx-ex*nz, pz = ex*ny-ey*nx;
+				double edgeLength = Math.sqrt(px*px+py*py+pz*pz);
+				if(edgeLength == 0){
+					continue;
+				}
+				px /= edgeLength;
+				py /= edgeLength;
+				pz /= edgeLength;
+				double pd = -(px*positions[start*3]+py*positions[start*3+1]+pz*positions[start*3+2]);
+				double edgeWeight = (ex*ex+ey*ey+ez*ez)*BORDER_WEIGHT;
+				addPlane(start, px, py, pz, pd, edgeWeight);
+				addPlane(end, px, py, pz, pd, edgeWeight);
+			}
+		}
+
+		for(int vert = 0; vert < vertexCount; vert++){
+			if(group[vert] != vert){
+				continue;
+			}
+			int wedges = memberStart[vert+1]-memberStart[vert];
+			if(borderEdges[vert] == 0 && seamEdges[vert] == 0 && wedges == 1){
+				kind[vert] = MANIFOLD;
+			}else if(borderEdges[vert] == 2 && seamEdges[vert] == 0 && wedges == 1 && isStraight(vert, ends)){
+				//one border edge leaves the vertex and one comes in
+				kind[vert] = BORDER;
+			}else if(borderEdges[vert] == 0 && seamEdges[vert] == 4 && wedges == 2 && isStraight(vert, ends)){
+				//both half edges of the two seam edges through the vertex
+				kind[vert] = SEAM;
+			}else{
+				kind[vert] = LOCKED;
+			}
+		}
+	}
+
+	private static void addEnd(int[] ends, int vert, int end){
+		if(ends[vert*2] == -1){
+			ends[vert*2] = end;
+		}else if(ends[vert*2] != end && ends[vert*2+1] == -1){
+			ends[vert*2+1] = end;
+		}
+	}
+	
+	/**
+	 * Tests if the border or seam through the given vertex continues without turning a corner at the vertex
+	 */
+	private boolean isStraight(int vert, int[] ends){
+		int prev = ends[vert*2], next = ends[vert*2+1];
+		if(prev == -1 || next == -1){
+			return false;
+		}
+		double ax = positions[vert*3]-positions[prev*3], ay = positions[vert*3+1]-positions[prev*3+1], az = positions[vert*3+2]-positions[prev*3+2];
+		double bx = positions[next*3]-positions[vert*3], by = positions[next*3+1]-positions[vert*3+1], bz = positions[next*3+2]-positions[vert*3+2];
+		double lengths = Math.sqrt((ax*ax+ay*ay+az*az)*(bx*bx+by*by+bz*bz));
+		return lengths > 0 && ax*bx+ay*by+az*bz >= MAX_TURN_COS*lengths;
+	}
+	
+	private void addPlane(int vert, double a, double b, double c, double d, double weight){
+		int offset = vert*QUADRIC_SIZE;
+		quadrics[offset] += a*a*weight;
+		quadrics[offset+1] += a*b*weight;
+		quadrics[offset+2] += a*c*weight;
+		quadrics[offset+3] += a*d*weight;
+		quadrics[offset+4] += b*b*weight;
+		quadrics[offset+5] += b*c*weight;
+		quadrics[offset+6] += b*d*weight;
+		quadrics[offset+7] += c*c*weight;
+		quadrics[offset+8] += c*d*weight;
+		quadrics[offset+9] += d*d*weight;
+		quadrics[offset+10] += weight;
+	}
+
+	/**
+	 * Evaluates the sum of the quadrics of the two groups at the position of {@code target}, normalized by their weight
+	 */
+	private double evaluate(int vert, int target){
+		double x = positions[target*3], y = positions[target*3+1], z = positions[target*3+2];
+		double result = evaluate(vert*QUADRIC_SIZE, x, y, z)+evaluate(target*QUADRIC_SIZE, x, y, z);
+		double weight = quadrics[vert*QUADRIC_SIZE+10]+quadrics[target*QUADRIC_SIZE+10];
+		return weight > 0 ? Math.max(result/weight, 0) : 0;
+	}
+	
+	private double evaluate(int offset, double x, double y, double z){
+		return quadrics[offset]*x*x+2*quadrics[offset+1]*x*y+2*quadrics[offset+2]*x*z+2*quadrics[offset+3]*x+
+				quadrics[offset+4]*y*y+2*quadrics[offset+5]*y*z+2*quadrics[offset+6]*y+
+				quadrics[offset+7]*z*z+2*quadrics[offset+8]*z+
+				quadrics[offset+9];
+	}
+
+	/**
+	 * Builds the half edge structure of the faces with vertices replaced by their groups and the list of faces around
+	 * each group
+	 */
+	private HalfEdgeMesh buildAdjacency(){
+		Arrays.fill(faceStart, 0);
+		for(int corner = 0; corner < faceCount*3; corner++){
+			groupIndices[corner] = group[indices[corner]];
+			faceStart[groupIndices[corner]+1]++;
+		}
+		for(int vert = 0; vert < vertexCount; vert++){
+			faceStart[vert+1] += faceStart[vert];
+		}
+		//reuse bestTarget as the fill position of each list, it's reset before the candidates are chosen
+		System.arraycopy(faceStart, 0, bestTarget, 0, vertexCount);
+		for(int corner = 0; corner < faceCount*3; corner++){
+			faceList[bestTarget[groupIndices[corner]]++] = corner/3;
+		}
+		return new HalfEdgeMesh(groupIndices, faceCount, vertexCount);
+	}
+
+	/**
+	 * Performs one round of collapses, cheapest first. Vertices around each collapse are not touched again in the same
+	 * round so the adjacency built at the start of the round stays valid.
+	 *
+	 * @return Number of collapses performed
+	 */
+	private int collapsePass(int targetFaces, double maxErrorSq){
+		HalfEdgeMesh edges = buildAdjacency();
+		pass++;
+
+		//find the cheapest allowed collapse of each group
+		Arrays.fill(bestTarget, -1);
+		Arrays.fill(bestCost, Double.MAX_VALUE);
+		for(int edge = 0; edge < faceCount*3; edge++){
+			int start = groupIndices[edge], end = groupIndices[edges.getNext(edge)];
+			int opposite = edges.getOpposite(edge);
+			int type;
+			if(opposite == -1){
+				type = BORDER_EDGE;
+			}else if(indices[edge] != indices[edges.getNext(opposite)] || indices[edges.getNext(edge)] != indices[opposite]){
+				type = SEAM_EDGE;
+			}else{
+				type = INTERIOR_EDGE;
+			}
+			consider(start, end, type);
+			//interior edges are seen from both sides, border edges only once
+			if(opposite == -1){
+				consider(end, start, type);
+			}
+		}
+
+		int candidates = 0;
+		long[] order = new long[vertexCount];
+		for(int vert = 0; vert < vertexCount; vert++){
+			if(bestTarget[vert] != -1 && bestCost[vert] <= maxErrorSq){
+				//positive floats sort the same as their bits
+				order[candidates++] = ((long)Float.floatToIntBits((float)bestCost[vert]) << 32) | vert;
+			}
+		}
+		Arrays.sort(order, 0, candidates);
+
+		int collapses = 0, removed = 0;
+		for(int candidate = 0; candidate < candidates && faceCount-removed > targetFaces; candidate++){
+			int vert = (int)order[candidate];
+			int target = bestTarget[vert];
+			if(touched[vert] == pass || touched[target] == pass){
+				continue;
+			}
+			int faces = tryCollapse(vert, target);
+			if(faces == 0){
+				continue;
+			}
+			removed += faces;
+			collapses++;
+			error = Math.max(error, (float)Math.sqrt(bestCost[vert]));
+			//the target now covers the surface of both groups
+			int q0 = vert*QUADRIC_SIZE, q1 = target*QUADRIC_SIZE;
+			for(int term = 0; term < QUADRIC_SIZE; term++){
+				quadrics[q1+term] += quadrics[q0+term];
+			}
+		}
+		if(collapses > 0){
+			removeDegenerates();
+		}
+		return collapses;
+	}
+
+	private void consider(int vert, int target, int type){
+		switch(kind[vert]){
+			case MANIFOLD:
+				break;
+			case BORDER:
+				if(type != BORDER_EDGE){
+					return;
+				}
+				break;
+			case SEAM:
+				if(type != SEAM_EDGE){
+					return;
+				}
+				break;
+			default:
+				return;
+		}
+		double cost = evaluate(vert, target);
+		if(cost < bestCost[vert]){
+			bestCost[vert] = cost;
+			bestTarget[vert] = target;
+		}
+	}
+
+	/**
+	 * Moves every vertex of group {@code vert} onto the matching vertex of group {@code target} if doing so keeps the
+	 * mesh manifold and doesn't flip any face
+	 *
+	 * @return Number of faces removed by the collapse, 0 if it wasn't performed
+	 */
+	private int tryCollapse(int vert, int target){
+		int firstMember = memberStart[vert], wedges = memberStart[vert+1]-firstMember;
+		targets[0] = -1;
+		targets[1] = -1;
+		int sharedToken = ++mark, neighbourToken = ++mark;
+		int removed = 0;
+
+		for(int curFace = faceStart[vert]; curFace < faceStart[vert+1]; curFace++){
+			int face = faceList[curFace]*3;
+			int vertCorner = -1, targetCorner = -1;
+			for(int corner = face; corner < face+3; corner++){
+				if(groupIndices[corner] == vert){
+					vertCorner = corner;
+				}else if(groupIndices[corner] == target){
+					targetCorner = corner;
+				}
+			}
+			if(targetCorner != -1){
+				//the face disappears, the vertex on this side of the seam becomes the target's vertex on the same side
+				int wedge = indices[vertCorner] == members[firstMember] ? 0 : 1;
+				if(targets[wedge] != -1 && targets[wedge] != indices[targetCorner]){
+					return 0;
+				}
+				targets[wedge] = indices[targetCorner];
+				marks[groupIndices[face+3-(vertCorner-face)-(targetCorner-face)]] = sharedToken;
+				removed++;
+			}else{
+				if(flips(face, vertCorner, target)){
+					return 0;
+				}
+				for(int corner = face; corner < face+3; corner++){
+					if(corner != vertCorner && marks[groupIndices[corner]] != sharedToken){
+						marks[groupIndices[corner]] = neighbourToken;
+					}
+				}
+			}
+		}
+		if(targets[0] == -1 || (wedges == 2 && targets[1] == -1)){
+			return 0;
+		}
+
+		//any other neighbour shared with the target would join two separate sheets of the surface
+		for(int curFace = faceStart[target]; curFace < faceStart[target+1]; curFace++){
+			int face = faceList[curFace]*3;
+			for(int corner = face; corner < face+3; corner++){
+				if(marks[groupIndices[corner]] == neighbourToken){
+					return 0;
+				}
+			}
+		}
+
+		for(int wedge = 0; wedge < wedges; wedge++){
+			int member = members[firstMember+wedge];
+			for(int curFace = faceStart[vert]; curFace < faceStart[vert+1]; curFace++){
+				int face = faceList[curFace]*3;
+				for(int corner = face; corner < face+3; corner++){
+					if(indices[corner] == member){
+						indices[corner] = targets[wedge];
+					}
+				}
+			}
+			group[member] = target;
+		}
+
+		//the faces around the collapse changed, leave them alone until the next pass
+		for(int curFace = faceStart[vert]; curFace < faceStart[vert+1]; curFace++){
+			int face = faceList[curFace]*3;
+			touched[groupIndices[face]] = pass;
+			touched[groupIndices[face+1]] = pass;
+			touched[groupIndices[face+2]] = pass;
+		}
+		return removed;
+	}
+
+	/**
+	 * Tests if moving the given corner of a face to the position of {@code target} turns the face over
+	 */
+	private boolean flips(int face, int movedCorner, int target){
+		int c1 = face+(movedCorner-face+1)%3, c2 = face+(movedCorner-face+2)%3;
+		int p0 = groupIndices[movedCorner]*3, p1 = groupIndices[c1]*3, p2 = groupIndices[c2]*3, pt = target*3;
+		double ax = positions[p1]-positions[p0], ay = positions[p1+1]-positions[p0+1], az = positions[p1+2]-positions[p0+2];
+		double bx = positions[p2]-positions[p0], by = positions[p2+1]-positions[p0+1], bz = positions[p2+2]-positions[p0+2];
+		double nx = ay*bz-az*by, ny = az*bx-ax*bz, nz = ax*by-ay*bx;
+		ax = positions[p1]-positions[pt];
+		ay = positions[p1+1]-positions[pt+1];
+		az = positions[p1+2]-positions[pt+2];
+		bx = positions[p2]-positions[pt];
+		by = positions[p2+1]-positions[pt+1];
+		bz = positions[p2+2]-positions[pt+2];
+		double mx = ay*bz-az*by, my = az*bx-ax*bz, mz = ax*by-ay*bx;
+		//reject faces that turn more than about 75 degrees or collapse to nothing
+		double dot = nx*mx+ny*my+nz*mz;
+		return dot <= 0.25*Math.sqrt((nx*nx+ny*ny+nz*nz)*(mx*mx+my*my+mz*mz));
+	}
+
+	/**
+	 * Removes faces that had two corners collapsed together
+	 */
+	private void removeDegenerates(){
+		int kept = 0;
+		for(int face = 0; face < faceCount; face++){
+			int v0 = indices[face*3], v1 = indices[face*3+1], v2 = indices[face*3+2];
+			int g0 = group[v0], g1 = group[v1], g2 = group[v2];
+			if(g0 != g1 && g1 != g2 && g0 != g2){
+				indices[kept*3] = v0;
+				indices[kept*3+1] = v1;
+				indices[kept*3+2] = v2;
+				kept++;
+			}
+		}
+		faceCount = kept;
+	}
+}
@@ -102,10 +102,10 @@ public class Triangle {
 	 * @return Normalized Vec3 that represents the normal of the Triangle in model space
 	 */
 	public Vec3 getNormal(Geometry mesh){
-		Vec3 edge1 = VecUtil.subtract(mesh.getVertex(he2.sourceVert).getPos(), 
-				mesh.getVertex(he1.sourceVert).getPos());
-		Vec3 edge2 = VecUtil.subtract(mesh.getVertex(he3.sourceVert).getPos(), 
-				mesh.getVertex(he1.sourceVert).getPos());
+		Vec3 edge1 = VecUtil.subtract(mesh.getPos(he2.sourceVert), 
+				mesh.getPos(he1.sourceVert));
+		Vec3 edge2 = VecUtil.subtract(mesh.getPos(he3.sourceVert), 
+				mesh.getPos(he1.sourceVert));
 		return edge1.cross(edge2).normalize();
 	}
 	
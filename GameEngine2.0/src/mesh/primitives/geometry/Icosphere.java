@@ -294,8 +294,8 @@ public final class Icosphere extends Mesh {
 	 */
 	private Vec3 genVert(int start, int end){
 		//compute the new vertex based on the radius and the edge vertices
-		Vec3 startVec = geometry.getVertex(start).getPos();
-		Vec3 endVec = geometry.getVertex(end).getPos();
+		Vec3 startVec = geometry.getPos(start);
+		Vec3 endVec = geometry.getPos(end);
 		Vec3 halfPoint = VecUtil.add(startVec, endVec);
 		//scale the position to match the radius
 		return halfPoint.scale(radius/halfPoint.length());
@@ -12,7 +12,7 @@ import mesh.Mesh;
  */
 public class AABB extends CollisionMesh{
 	
-	private Vec3 halfDimensions;
+	private Vec3 halfDimensions, worldHalfDimensions;
 	
 	/**
 	 * Constructs an AABB with 1 as the dimension of the AABB
@@ -46,10 +46,11 @@ public class AABB extends CollisionMesh{
 	
 	public AABB(Geometry mesh){
 		super();
+		worldHalfDimensions = new Vec3();
 		halfDimensions = new Vec3(
-				(mesh.getVertex(mesh.getMinMaxIndex(Geometry.MAX_X)).getPos().x-mesh.getVertex(mesh.getMinMaxIndex(Geometry.MIN_X)).getPos().x)/2.0f, 
-				(mesh.getVertex(mesh.getMinMaxIndex(Geometry.MAX_Y)).getPos().y-mesh.getVertex(mesh.getMinMaxIndex(Geometry.MIN_Y)).getPos().y)/2.0f, 
-				(mesh.getVertex(mesh.getMinMaxIndex(Geometry.MAX_Z)).getPos().z-mesh.getVertex(mesh.getMinMaxIndex(Geometry.MIN_Z)).getPos().z)/2.0f);
+				(mesh.getPos(mesh.getMinMaxIndex(Geometry.MAX_X)).x-mesh.getPos(mesh.getMinMaxIndex(Geometry.MIN_X)).x)/2.0f, 
+				(mesh.getPos(mesh.getMinMaxIndex(Geometry.MAX_Y)).y-mesh.getPos(mesh.getMinMaxIndex(Geometry.MIN_Y)).y)/2.0f, 
+				(mesh.getPos(mesh.getMinMaxIndex(Geometry.MAX_Z)).z-mesh.getPos(mesh.getMinMaxIndex(Geometry.MIN_Z)).z)/2.0f);
 		//translate the AABB to the geometric center of the mesh, this way it is aligned to the vertex data
 		transforms.translate(mesh.getGeometricCenter());
 	}
@@ -63,6 +64,7 @@ public class AABB extends CollisionMesh{
 	 */
 	public AABB(float width, float height, float depth){
 		super();
+		worldHalfDimensions = new Vec3();
 		halfDimensions = new Vec3(Math.abs(width)/2.0f, Math.abs(height)/2.0f, Math.abs(depth)/2.0f);
 	}
 	
@@ -73,6 +75,7 @@ public class AABB extends CollisionMesh{
 	 */
 	public AABB(AABB copy) {
 		super(copy);
+		worldHalfDimensions = new Vec3();
 		halfDimensions = new Vec3(copy.halfDimensions);
 	}
 	
@@ -80,11 +83,23 @@ public class AABB extends CollisionMesh{
 	 * Gets the current half dimensions of the bounding box
 	 * 
 	 * @return A Vec3 containing the half dimensions of the bounding box, each vector component 
-	 * corresponds to the dimension along that axis
+	 * corresponds to the dimension along that axis, the vector is owned by this AABB and should not be modified
 	 */
 	public Vec3 getHalfDimensions(){
+		updateBounds();
+		return worldHalfDimensions;
+	}
+	
+	@Override
+	protected void computeBounds(Vec3 min, Vec3 max){
 		Vec3 scalars = transforms.getScalars();
-		return new Vec3(halfDimensions.x*scalars.x, halfDimensions.y*scalars.y, halfDimensions.z*scalars.z);
+		Vec3 pos = transforms.getTranslation();
+		worldHalfDimensions.set(
+				Math.abs(halfDimensions.x*scalars.x), 
+				Math.abs(halfDimensions.y*scalars.y), 
+				Math.abs(halfDimensions.z*scalars.z));
+		min.set(pos.x-worldHalfDimensions.x, pos.y-worldHalfDimensions.y, pos.z-worldHalfDimensions.z);
+		max.set(pos.x+worldHalfDimensions.x, pos.y+worldHalfDimensions.y, pos.z+worldHalfDimensions.z);
 	}
 	
 	@Override
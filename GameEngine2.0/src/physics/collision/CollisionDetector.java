@@ -12,9 +12,29 @@ import mesh.primitives.Triangle;
 import physics.collision.data.CollisionData;
 import physics.collision.data.RayIntersection;
 
+/**
+ * Intersection tests between collision meshes, rays and points.
+ * <p>
+ * The tests keep their temporary objects per thread, so they can run on several threads at once, including on the same
+ * meshes. This only holds while no thread moves or otherwise changes the meshes or their Transforms during the tests.
+ * </p>
+ */
 public abstract class CollisionDetector {
 	
 	protected static final float MAX_THRESHOLD = .001f;
+	//terrain cell range and triangle of the calling thread, reused by every mesh against heightfield test
+	private static final ThreadLocal<int[]> terrainCells = new ThreadLocal<int[]>(){
+		@Override
+		protected int[] initialValue(){
+			return new int[4];
+		}
+	};
+	private static final ThreadLocal<CollisionTriangle> terrainTriangles = new ThreadLocal<CollisionTriangle>(){
+		@Override
+		protected CollisionTriangle initialValue(){
+			return new CollisionTriangle();
+		}
+	};
 
 	/**
 	 * Determines whether the collision mesh {@code objA} and the collision mesh {@code objB}
@@ -26,29 +46,81 @@ public abstract class CollisionDetector {
 	 * @return True if the two objects are colliding, false otherwise
 	 */
 	public static CollisionData intersects(CollisionMesh objA, CollisionMesh objB){
+		//meshes whose bounds don't overlap can't be colliding, this avoids the more expensive tests below
+		if(!objA.boundsOverlap(objB)){
+			return new CollisionData(objA, objB, false);
+		}
+		//heightfields are concave so they need to be tested one triangle at a time
+		if(objB instanceof Heightfield){
+			return intersects(objA, (Heightfield)objB);
+		}else if(objA instanceof Heightfield){
+			CollisionData result = intersects(objB, (Heightfield)objA);
+			return new CollisionData(objA, objB, result.areColliding());
+		}
+		return gjk(objA, objB);
+	}
+	
+	/**
+	 * Tests a convex collision mesh against the triangles of a heightfield that lie under its bounds
+	 * 
+	 * @param mesh Convex collision mesh to test
+	 * @param terrain Heightfield to test the mesh against
+	 * 
+	 * @return Collision data for the mesh and heightfield
+	 */
+	private static CollisionData intersects(CollisionMesh mesh, Heightfield terrain){
+		//the bounds of the mesh determine which cells of the terrain it could be touching
+		int[] range = terrainCells.get();
+		if(terrain.getCells(mesh.getBoundsMin(), mesh.getBoundsMax(), range)){
+			CollisionTriangle triangle = terrainTriangles.get();//reused for each triangle of the terrain
+			for(int row = range[1]; row <= range[3]; row++){
+				for(int column = range[0]; column <= range[2]; column++){
+					if(gjk(mesh, terrain.getTriangle(column, row, true, triangle)).areColliding() ||
+							gjk(mesh, terrain.getTriangle(column, row, false, triangle)).areColliding()){
+						return new CollisionData(mesh, terrain, true);
+					}
+				}
+			}
+		}
+		return new CollisionData(mesh, terrain, false);
+	}
+	
+	private static CollisionData gjk(CollisionMesh objA, CollisionMesh objB){
 		Vec3 direction = new Vec3(1,1,1);//create a simple starting search direction
+		Vec3 inverse = new Vec3(-1,-1,-1);//reused for the opposite of the search direction
+		Vec3 supportA = new Vec3();//reused for the support points of objA, only the differences are kept
 		//construct a base simplex that is a line
 		Simplex simplex = new Simplex(
-				objB.support(direction.inverse()).subtract(objA.support(direction)), 
-				objB.support(direction).subtract(objA.support(direction.inverse()))
+				objB.support(inverse).subtract(objA.support(direction, supportA)), 
+				objB.support(direction).subtract(objA.support(inverse, supportA))
 				);
+		int iterations = 0;
 		//keep searching until the simplex function terminates with an answer
 		while(!simplex.getDirection(direction)){
-			Vec3 newPoint = objB.support(direction).subtract(objA.support(direction.inverse()));
+			iterations++;
+			inverse.set(-direction.x, -direction.y, -direction.z);
+			Vec3 newPoint = objB.support(direction).subtract(objA.support(inverse, supportA));
 			//this means that the new direction we would search in is in the opposite direction of where we
 			//just searched meaning the origin cannot be encapsulated
 			if(newPoint.dot(direction) < 0){
+				CollisionMetrics.recordGJK(iterations);
 				return new CollisionData(objA, objB, false);
 			}
 			//add the new point to the simplex
 			simplex.add(newPoint);
 		}
+		CollisionMetrics.recordGJK(iterations);
 		return new CollisionData(objA, objB, true);
 	}
 
 	public static RayIntersection intersects(Ray ray, CollisionMesh mesh){
-		if(ray.getPos().equals(ray.getPoint(1))){//test if the ray is actually a point
-			return new RayIntersection(ray, mesh, intersects(ray.getPos(), mesh), 0,0);
+		Vec3 start = ray.getPos();
+		Vec3 end = ray.getPoint(1);
+		if(start.equals(end)){//test if the ray is actually a point
+			return new RayIntersection(ray, mesh, intersects(start, mesh), 0,0);
+		}else if(!intersectsBounds(start, end, mesh)){
+			//the ray can't hit the mesh if it misses the bounds of the mesh
+			return new RayIntersection(ray, mesh, false, 0,0);
 		}else if(mesh instanceof ConvexHull2D){
 			return intersects(ray, (ConvexHull2D)mesh);
 		}else if(mesh instanceof ConvexHull3D){
@@ -57,6 +129,8 @@ public abstract class CollisionDetector {
 			return intersects(ray, (CollisionPlane)mesh);
 		}else if(mesh instanceof AABB){
 			return intersects(ray, (AABB)mesh);
+		}else if(mesh instanceof Heightfield){
+			return intersects(ray, (Heightfield)mesh);
 		}/*else if(mesh instanceof OBB){
 			return intersects(ray, (OBB)mesh);
 		}else if(mesh instanceof CollisionSphere){
@@ -79,6 +153,8 @@ public abstract class CollisionDetector {
 			return intersects(point, (ConvexHull2D)mesh);
 		}else if(mesh instanceof ConvexHull3D){
 			return intersects(point, (ConvexHull3D)mesh);
+		}else if(mesh instanceof Heightfield){
+			return ((Heightfield)mesh).contains(point);
 		}/*else if(mesh instanceof CollisionPlane){
 			return intersects(point, (CollisionPlane)mesh);
 		}else if(mesh instanceof AABB){
@@ -180,7 +256,8 @@ public abstract class CollisionDetector {
 				
 				Transform hullTrans = hull.getTransform();
 				Vec3 p0 = hullTrans.inverseTransform(ray.getPos());
-				Vec3 p1 = hullTrans.inverseTransform(ray.getPoint(1));
+				Vec3 p1 = ray.getPoint(1, new Vec3());
+				hullTrans.inverseTransform(p1, p1);
 				//get new ray direction
 				Vec3 rayDir = VecUtil.subtract(p1,p0);
 				
@@ -188,8 +265,8 @@ public abstract class CollisionDetector {
 				float rayExit = 1.0f;//minimum value the ray can leave the hull from
 				HalfEdge curEdge = hull.baseEdge;//tracks the current edge
 				do{
-					Vec3 vi = hull.mesh.getVertex(curEdge.sourceVert).getPos();
-					Vec3 viPlus1 = hull.mesh.getVertex(curEdge.next.sourceVert).getPos();
+					Vec3 vi = hull.mesh.getPos(curEdge.sourceVert);
+					Vec3 viPlus1 = hull.mesh.getPos(curEdge.next.sourceVert);
 					Vec3 hullEdge = VecUtil.subtract(viPlus1, vi);
 					Vec3 edgeNormal = hullEdge.cross(hull.planeNormal).normalize();//calculate the outward normal of the edge
 			        float n = VecUtil.subtract(vi, p0).dot(edgeNormal);//(Vi-P0)ni
@@ -264,14 +341,15 @@ public abstract class CollisionDetector {
 		
 		Transform hullTrans = hull.getTransform();
 		Vec3 p0 = hullTrans.inverseTransform(ray.getPos());
-		Vec3 p1 = hullTrans.inverseTransform(ray.getPoint(1));
+		Vec3 p1 = ray.getPoint(1, new Vec3());
+		hullTrans.inverseTransform(p1, p1);
 		//get new ray direction
 		Vec3 rayDir = VecUtil.subtract(p1,p0);
 		
 		float rayEntry = 0.0f;//maximum t for entering the hull from the ray pos
 		float rayExit = 1.0f;//minimum value the ray can leave the hull from
 		for(Triangle curFace : faces){
-			Vec3 vi = hull.mesh.getVertex(curFace.he1.sourceVert).getPos();
+			Vec3 vi = hull.mesh.getPos(curFace.he1.sourceVert);
 			Vec3 faceNormal = hull.normals.get(curFace);//get the face normal
 	        float n = VecUtil.subtract(vi, p0).dot(faceNormal);//(Vi-P0)ni
 	        float d = rayDir.dot(faceNormal);//(P1-P0)ni
@@ -330,12 +408,12 @@ public abstract class CollisionDetector {
 			if(ray.getLength() >= 0 && d > ray.getLength()){
 				return new RayIntersection(ray, plane, false, 0,0);
 			}
-			Quaternion inverseOrient = plane.getTransform().getOrientation().conjugate();
 			//get the point on the plane by getting the point along the line in the direction of the ray using d
 			//translating that point by the ray position to get the point on the plane in world space
 			//translate that point so that it is relative to the plane origin
 			//orient that final point to make it relative to the plane before it is oriented
-			Vec3 planePoint = inverseOrient.multVec(VecUtil.scale(ray.getDirection(), d).add(ray.getPos()).subtract(plane.getPos()));
+			Vec3 planePoint = VecUtil.scaleAdd(ray.getPos(), ray.getDirection(), d, new Vec3()).subtract(plane.getPos());
+			plane.getTransform().getOrientation().inverseRotate(planePoint, planePoint);
 //			Vec3 planePoint = inverseOrient.multVec(ray.getPoint(d).subtract(plane.getPos()));
 			if(Math.abs(planePoint.x) <= planeHalfDim.x && Math.abs(planePoint.z) <= planeHalfDim.y){
 				return new RayIntersection(ray, plane, true, d, d);
@@ -406,6 +484,61 @@ public abstract class CollisionDetector {
 		}
 	}
 	
+	/**
+	 * Determines whether the line segment from {@code start} to {@code end} passes through the bounding sphere and box of
+	 * the given {@code mesh}, the bounds are expanded slightly so that meshes with no thickness, such as planes, are not
+	 * rejected due to floating point error
+	 * 
+	 * @param start Start point of the segment
+	 * @param end End point of the segment
+	 * @param mesh Mesh whose bounds to test against
+	 * 
+	 * @return True if the segment intersects the bounds of the mesh, false otherwise
+	 */
+	private static boolean intersectsBounds(Vec3 start, Vec3 end, CollisionMesh mesh){
+		Vec3 center = mesh.getBoundsCenter();
+		float radius = mesh.getBoundsRadius()+MAX_THRESHOLD;
+		float dx = end.x-start.x, dy = end.y-start.y, dz = end.z-start.z;
+		//find the point on the segment closest to the sphere center
+		float t = ((center.x-start.x)*dx+(center.y-start.y)*dy+(center.z-start.z)*dz)/(dx*dx+dy*dy+dz*dz);
+		t = Math.max(0, Math.min(1, t));
+		float cx = start.x+dx*t-center.x, cy = start.y+dy*t-center.y, cz = start.z+dz*t-center.z;
+		if(cx*cx+cy*cy+cz*cz > radius*radius){
+			return false;
+		}
+		//slab test against the box
+		Vec3 min = mesh.getBoundsMin();
+		Vec3 max = mesh.getBoundsMax();
+		float enter = 0, exit = 1;
+		for(int axis = 0; axis < 3; axis++){
+			float origin = start.valueAt(axis);
+			float delta = end.valueAt(axis)-origin;
+			float low = min.valueAt(axis)-MAX_THRESHOLD, high = max.valueAt(axis)+MAX_THRESHOLD;
+			if(delta == 0){
+				//the segment is parallel to this slab so it has to start within it
+				if(origin < low || origin > high){
+					return false;
+				}
+			}else{
+				float t1 = (low-origin)/delta, t2 = (high-origin)/delta;
+				enter = Math.max(enter, Math.min(t1, t2));
+				exit = Math.min(exit, Math.max(t1, t2));
+				if(enter > exit){
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	private static RayIntersection intersects(Ray ray, Heightfield terrain){
+		float depth = terrain.raycast(ray.getPos(), ray.getPoint(1));
+		if(Float.isNaN(depth)){
+			return new RayIntersection(ray, terrain, false, 0, 0);
+		}
+		return new RayIntersection(ray, terrain, true, depth, depth);
+	}
+	
 	/**
 	 * Gets the depth that the {@code ray} intersects the plane represented by the {@code planeNormal, and planePoint}
 	 * 
@@ -2,16 +2,37 @@ package physics.collision;
 
 import core.SpatialAsset;
 import glMath.Quaternion;
+import glMath.transforms.Transform;
 import glMath.transforms.TransformListener;
 import glMath.vectors.Vec3;
 
 public abstract class CollisionMesh extends SpatialAsset implements Cloneable, TransformListener{
 	
+	private Vec3 boundsMin, boundsMax, boundsCenter;
+	private float boundsRadius;
+	private boolean boundsDirty;
+	//version of the Transform the world bounds were computed at, checked on every access so changes to a deferred 
+	//Transform are seen before its listeners are notified
+	private Transform boundsTransform;
+	private long boundsVersion;
+	//support points sampled when computing the bounds, one per thread
+	private static final ThreadLocal<Vec3> boundsSupports = new ThreadLocal<Vec3>(){
+		@Override
+		protected Vec3 initialValue(){
+			return new Vec3();
+		}
+	};
+	private static final Vec3
+	POS_X = new Vec3(1,0,0), NEG_X = new Vec3(-1,0,0),
+	POS_Y = new Vec3(0,1,0), NEG_Y = new Vec3(0,-1,0),
+	POS_Z = new Vec3(0,0,1), NEG_Z = new Vec3(0,0,-1);
+	
 	/**
 	 * Constructs a CollisionMesh
 	 */
 	public CollisionMesh(){
 		super();
+		initBounds();
 	}
 	
 	/**
@@ -21,6 +42,121 @@ public abstract class CollisionMesh extends SpatialAsset implements Cloneable, T
 	 */
 	public CollisionMesh(CollisionMesh copy){
 		super(copy, false);
+		initBounds();
+	}
+	
+	private void initBounds(){
+		boundsMin = new Vec3();
+		boundsMax = new Vec3();
+		boundsCenter = new Vec3();
+		boundsRadius = 0;
+		boundsDirty = true;
+		boundsTransform = null;
+	}
+	
+	/**
+	 * Marks the cached world bounds of this mesh as out of date, subclasses should call this when the shape of the mesh
+	 * changes in a way that isn't done through its Transform
+	 */
+	protected void invalidateBounds(){
+		boundsDirty = true;
+	}
+	
+	/**
+	 * Recomputes the cached world bounds of this mesh if they are out of date, either because they were invalidated or
+	 * because the Transform of this mesh changed since they were computed. This is synchronized so threads testing the
+	 * same mesh don't rewrite the cached bounds while another is computing them.
+	 */
+	protected synchronized void updateBounds(){
+		if(boundsDirty || boundsTransform != transforms || boundsVersion != transforms.getVersion()){
+			computeBounds(boundsMin, boundsMax);
+			boundsCenter.set((boundsMin.x+boundsMax.x)/2.0f, (boundsMin.y+boundsMax.y)/2.0f, (boundsMin.z+boundsMax.z)/2.0f);
+			//the sphere around the box is used so the sphere test never rejects something the box test would accept
+			float halfX = (boundsMax.x-boundsMin.x)/2.0f, halfY = (boundsMax.y-boundsMin.y)/2.0f, halfZ = (boundsMax.z-boundsMin.z)/2.0f;
+			boundsRadius = (float)Math.sqrt(halfX*halfX+halfY*halfY+halfZ*halfZ);
+			boundsDirty = false;
+			boundsTransform = transforms;
+			boundsVersion = transforms.getVersion();
+		}
+	}
+	
+	/**
+	 * Computes the world space axis aligned bounds of this mesh. By default the bounds are found using the support function
+	 * along each axis, subclasses can override this with a cheaper computation.
+	 * 
+	 * @param min Vector to store the minimum corner of the bounds in
+	 * @param max Vector to store the maximum corner of the bounds in
+	 */
+	protected void computeBounds(Vec3 min, Vec3 max){
+		Vec3 point = boundsSupports.get();
+		min.set(support(NEG_X, point).x, support(NEG_Y, point).y, support(NEG_Z, point).z);
+		max.set(support(POS_X, point).x, support(POS_Y, point).y, support(POS_Z, point).z);
+	}
+	
+	/**
+	 * Gets the minimum corner of the world space axis aligned box that encloses this mesh, the returned vector is owned
+	 * by this mesh and should not be modified
+	 * 
+	 * @return Minimum corner of the bounds of this mesh
+	 */
+	public Vec3 getBoundsMin(){
+		updateBounds();
+		return boundsMin;
+	}
+	
+	/**
+	 * Gets the maximum corner of the world space axis aligned box that encloses this mesh, the returned vector is owned
+	 * by this mesh and should not be modified
+	 * 
+	 * @return Maximum corner of the bounds of this mesh
+	 */
+	public Vec3 getBoundsMax(){
+		updateBounds();
+		return boundsMax;
+	}
+	
+	/**
+	 * Gets the center of the world space bounding sphere of this mesh, the returned vector is owned by this mesh and 
+	 * should not be modified
+	 * 
+	 * @return Center of the bounding sphere of this mesh
+	 */
+	public Vec3 getBoundsCenter(){
+		updateBounds();
+		return boundsCenter;
+	}
+	
+	/**
+	 * Gets the radius of the world space bounding sphere of this mesh
+	 * 
+	 * @return Radius of the bounding sphere of this mesh
+	 */
+	public float getBoundsRadius(){
+		updateBounds();
+		return boundsRadius;
+	}
+	
+	/**
+	 * Determines whether the bounds of this mesh overlap the bounds of the given {@code mesh}. This is a cheap test that
+	 * can be used to reject pairs of meshes before performing a full collision test.
+	 * 
+	 * @param mesh Mesh whose bounds to test against
+	 * 
+	 * @return True if the bounding spheres and boxes of the meshes overlap, false otherwise
+	 */
+	public boolean boundsOverlap(CollisionMesh mesh){
+		updateBounds();
+		mesh.updateBounds();
+		float dx = boundsCenter.x-mesh.boundsCenter.x;
+		float dy = boundsCenter.y-mesh.boundsCenter.y;
+		float dz = boundsCenter.z-mesh.boundsCenter.z;
+		float radii = boundsRadius+mesh.boundsRadius;
+		if(dx*dx+dy*dy+dz*dz > radii*radii){
+			return false;
+		}
+		return boundsMin.x <= mesh.boundsMax.x && boundsMax.x >= mesh.boundsMin.x &&
+				boundsMin.y <= mesh.boundsMax.y && boundsMax.y >= mesh.boundsMin.y &&
+				boundsMin.z <= mesh.boundsMax.z && boundsMax.z >= mesh.boundsMin.z;
 	}
 	
 	@Override
@@ -42,6 +178,19 @@ public abstract class CollisionMesh extends SpatialAsset implements Cloneable, T
 	 */
 	public abstract Vec3 support(Vec3 direction);
 	
+	/**
+	 * Gets the farthest point on the mesh in the given direction storing it in {@code dest}. By default this copies the
+	 * result of {@link #support(Vec3)}, subclasses can override this to find the point without allocating.
+	 * 
+	 * @param direction Direction to sample a point from on the mesh
+	 * @param dest Vector to store the point in
+	 * 
+	 * @return The {@code dest} vector
+	 */
+	public Vec3 support(Vec3 direction, Vec3 dest){
+		return dest.set(support(direction));
+	}
+	
 	@Override 
 	public void scaled(float x, float y, float z){
 		this.transforms.scale(x, y, z);
@@ -0,0 +1,442 @@
+package physics.collision;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Collects timings and counts from the collision pipeline so the cost of each phase of a physics step can be inspected.
+ * Metrics are disabled by default, while disabled every recording method returns after a single check of a static flag.
+ * <p>
+ * A step is made up of three phases, broadphase where candidate pairs are found from the bounds of the colliders,
+ * narrowphase where the candidate pairs are tested for actual collisions, and resolution where the collisions are
+ * resolved. Times for the most recent step are kept along with totals across all steps since the last reset.
+ * </p>
+ * <p>
+ * The metrics are meant to be recorded from the thread running the physics step, reads from other threads may see values
+ * from a step that is in progress.
+ * </p>
+ */
+public abstract class CollisionMetrics {
+
+	/**
+	 * Phases of a physics step that are timed
+	 */
+	public enum Phase{
+		BROADPHASE, NARROWPHASE, RESOLUTION;
+	}
+
+	/**
+	 * Number of buckets in the iteration histograms, the last bucket counts every iteration count at or above it
+	 */
+	public static final int HISTOGRAM_SIZE = 32;
+
+	private static volatile boolean enabled = false;
+	private static final int PHASES = Phase.values().length;
+	private static final long[] lastTime = new long[PHASES], totalTime = new long[PHASES], maxTime = new long[PHASES];
+	private static long steps;
+	private static int lastCandidatePairs, lastCollidingPairs;
+	private static long totalCandidatePairs, totalCollidingPairs;
+	private static final long[] gjkHistogram = new long[HISTOGRAM_SIZE], epaHistogram = new long[HISTOGRAM_SIZE];
+	private static int treeDepth, treeSize;
+
+	/**
+	 * Enables or disables the recording of metrics, disabling the metrics does not clear the values already recorded
+	 *
+	 * @param enable Whether metrics should be recorded
+	 */
+	public static void setEnabled(boolean enable){
+		enabled = enable;
+	}
+
+	/**
+	 * Determines whether metrics are currently being recorded
+	 *
+	 * @return True if metrics are being recorded, false otherwise
+	 */
+	public static boolean isEnabled(){
+		return enabled;
+	}
+
+	/**
+	 * Clears all the recorded metrics
+	 */
+	public static synchronized void reset(){
+		for(int curPhase = 0; curPhase < PHASES; curPhase++){
+			lastTime[curPhase] = 0;
+			totalTime[curPhase] = 0;
+			maxTime[curPhase] = 0;
+		}
+		for(int curBucket = 0; curBucket < HISTOGRAM_SIZE; curBucket++){
+			gjkHistogram[curBucket] = 0;
+			epaHistogram[curBucket] = 0;
+		}
+		steps = 0;
+		lastCandidatePairs = 0;
+		lastCollidingPairs = 0;
+		totalCandidatePairs = 0;
+		totalCollidingPairs = 0;
+		treeDepth = 0;
+		treeSize = 0;
+	}
+
+	/**
+	 * Marks the start of a new physics step, this should be called before the broadphase of each step
+	 */
+	public static void beginStep(){
+		if(enabled){
+			steps++;
+			for(int curPhase = 0; curPhase < PHASES; curPhase++){
+				lastTime[curPhase] = 0;
+			}
+			lastCandidatePairs = 0;
+			lastCollidingPairs = 0;
+		}
+	}
+
+	/**
+	 * Marks the start of a phase, the returned value should be passed to {@link #end(Phase, long)} when the phase finishes
+	 *
+	 * @return Start time of the phase, or 0 if metrics are disabled
+	 */
+	public static long begin(){
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Marks the end of the given {@code phase}, if the same phase is ended multiple times in a step the times are added
+	 *
+	 * @param phase Phase that finished
+	 * @param start Value returned by {@link #begin()} when the phase started
+	 */
+	public static void end(Phase phase, long start){
+		if(enabled && start != 0){
+			long elapsed = System.nanoTime()-start;
+			int index = phase.ordinal();
+			lastTime[index] += elapsed;
+			totalTime[index] += elapsed;
+			maxTime[index] = Math.max(maxTime[index], lastTime[index]);
+		}
+	}
+
+	/**
+	 * Records the number of candidate pairs produced by the broadphase and the number of those that were colliding
+	 *
+	 * @param candidates Number of pairs found by the broadphase
+	 * @param colliding Number of pairs found to be colliding by the narrowphase
+	 */
+	public static void recordPairs(int candidates, int colliding){
+		if(enabled){
+			lastCandidatePairs += candidates;
+			lastCollidingPairs += colliding;
+			totalCandidatePairs += candidates;
+			totalCollidingPairs += colliding;
+		}
+	}
+
+	/**
+	 * Records the number of iterations a single GJK test took
+	 *
+	 * @param iterations Number of iterations
+	 */
+	public static void recordGJK(int iterations){
+		if(enabled){
+			gjkHistogram[Math.min(iterations, HISTOGRAM_SIZE-1)]++;
+		}
+	}
+
+	/**
+	 * Records the number of iterations a single EPA penetration query took
+	 *
+	 * @param iterations Number of iterations
+	 */
+	public static void recordEPA(int iterations){
+		if(enabled){
+			epaHistogram[Math.min(iterations, HISTOGRAM_SIZE-1)]++;
+		}
+	}
+
+	/**
+	 * Records the shape of the spatial tree used by the broadphase
+	 *
+	 * @param depth Depth of the tree
+	 * @param size Number of entities in the tree
+	 */
+	public static void recordTree(int depth, int size){
+		if(enabled){
+			treeDepth = depth;
+			treeSize = size;
+		}
+	}
+
+	/**
+	 * Gets the time spent in the given {@code phase} during the most recent step
+	 *
+	 * @param phase Phase to get the time of
+	 *
+	 * @return Time in nanoseconds
+	 */
+	public static long getLastTime(Phase phase){
+		return lastTime[phase.ordinal()];
+	}
+
+	/**
+	 * Gets the total time spent in the given {@code phase} across all steps since the last reset
+	 *
+	 * @param phase Phase to get the time of
+	 *
+	 * @return Time in nanoseconds
+	 */
+	public static long getTotalTime(Phase phase){
+		return totalTime[phase.ordinal()];
+	}
+
+	/**
+	 * Gets the longest time spent in the given {@code phase} in a single step since the last reset
+	 *
+	 * @param phase Phase to get the time of
+	 *
+	 * @return Time in nanoseconds
+	 */
+	public static long getMaxTime(Phase phase){
+		return maxTime[phase.ordinal()];
+	}
+
+	/**
+	 * Gets the average time spent in the given {@code phase} per step since the last reset
+	 *
+	 * @param phase Phase to get the time of
+	 *
+	 * @return Time in nanoseconds
+	 */
+	public static double getAverageTime(Phase phase){
+		return steps == 0 ? 0 : totalTime[phase.ordinal()]/(double)steps;
+	}
+
+	/**
+	 * Gets the number of steps recorded since the last reset
+	 *
+	 * @return Number of steps
+	 */
+	public static long getSteps(){
+		return steps;
+	}
+
+	public static int getLastCandidatePairs(){
+		return lastCandidatePairs;
+	}
+
+	public static int getLastCollidingPairs(){
+		return lastCollidingPairs;
+	}
+
+	public static long getTotalCandidatePairs(){
+		return totalCandidatePairs;
+	}
+
+	public static long getTotalCollidingPairs(){
+		return totalCollidingPairs;
+	}
+
+	/**
+	 * Gets a copy of the histogram of GJK iteration counts, where each element is the number of tests that took that many
+	 * iterations
+	 *
+	 * @return Histogram of GJK iteration counts
+	 */
+	public static long[] getGJKHistogram(){
+		return gjkHistogram.clone();
+	}
+
+	/**
+	 * Gets a copy of the histogram of EPA iteration counts, where each element is the number of queries that took that
+	 * many iterations
+	 *
+	 * @return Histogram of EPA iteration counts
+	 */
+	public static long[] getEPAHistogram(){
+		return epaHistogram.clone();
+	}
+
+	public static int getTreeDepth(){
+		return treeDepth;
+	}
+
+	public static int getTreeSize(){
+		return treeSize;
+	}
+
+	/**
+	 * Gets the fraction of the nodes of a full tree of the recorded depth that hold an entity, a well balanced tree will
+	 * have an occupancy of at least 0.5
+	 *
+	 * @return Occupancy of the spatial tree
+	 */
+	public static float getTreeOccupancy(){
+		if(treeDepth == 0){
+			return 0;
+		}
+		return treeSize/(float)((1L << treeDepth)-1);
+	}
+
+	/**
+	 * Exports the recorded metrics as a JSON string
+	 *
+	 * @return JSON representation of the metrics
+	 */
+	public static String toJson(){
+		JsonObject root = new JsonObject();
+		root.addProperty("enabled", enabled);
+		root.addProperty("steps", steps);
+
+		JsonObject phases = new JsonObject();
+		for(Phase phase : Phase.values()){
+			JsonObject timing = new JsonObject();
+			timing.addProperty("lastNanos", getLastTime(phase));
+			timing.addProperty("totalNanos", getTotalTime(phase));
+			timing.addProperty("maxNanos", getMaxTime(phase));
+			timing.addProperty("averageNanos", getAverageTime(phase));
+			phases.add(phase.name().toLowerCase(), timing);
+		}
+		root.add("phases", phases);
+
+		JsonObject pairs = new JsonObject();
+		pairs.addProperty("lastCandidates", lastCandidatePairs);
+		pairs.addProperty("lastColliding", lastCollidingPairs);
+		pairs.addProperty("totalCandidates", totalCandidatePairs);
+		pairs.addProperty("totalColliding", totalCollidingPairs);
+		root.add("pairs", pairs);
+
+		root.add("gjkIterations", toJson(gjkHistogram));
+		root.add("epaIterations", toJson(epaHistogram));
+
+		JsonObject tree = new JsonObject();
+		tree.addProperty("depth", treeDepth);
+		tree.addProperty("size", treeSize);
+		tree.addProperty("occupancy", getTreeOccupancy());
+		root.add("tree", tree);
+
+		return new Gson().toJson(root);
+	}
+
+	private static JsonArray toJson(long[] histogram){
+		JsonArray array = new JsonArray();
+		for(int curBucket = 0; curBucket < histogram.length; curBucket++){
+			array.add(new JsonPrimitive(histogram[curBucket]));
+		}
+		return array;
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server under the name
+	 * {@code physics.collision:type=CollisionMetrics} so they can be read by JMX clients
+	 *
+	 * @return True if the metrics were registered, false if they could not be or were already registered
+	 */
+	public static boolean registerMBean(){
+		try{
+			ObjectName name = new ObjectName("physics.collision:type=CollisionMetrics");
+			if(ManagementFactory.getPlatformMBeanServer().isRegistered(name)){
+				return false;
+			}
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(), name);
+			return true;
+		}catch(JMException e){
+			System.err.println("Failed to register collision metrics: "+e.getMessage());
+			return false;
+		}
+	}
+
+	private static class MetricsBean implements CollisionMetricsMXBean{
+		@Override
+		public boolean isEnabled(){
+			return CollisionMetrics.isEnabled();
+		}
+
+		@Override
+		public void setEnabled(boolean enabled){
+			CollisionMetrics.setEnabled(enabled);
+		}
+
+		@Override
+		public long getSteps(){
+			return CollisionMetrics.getSteps();
+		}
+
+		@Override
+		public long getLastBroadphaseNanos(){
+			return getLastTime(Phase.BROADPHASE);
+		}
+
+		@Override
+		public long getLastNarrowphaseNanos(){
+			return getLastTime(Phase.NARROWPHASE);
+		}
+
+		@Override
+		public long getLastResolutionNanos(){
+			return getLastTime(Phase.RESOLUTION);
+		}
+
+		@Override
+		public double getAverageBroadphaseNanos(){
+			return getAverageTime(Phase.BROADPHASE);
+		}
+
+		@Override
+		public double getAverageNarrowphaseNanos(){
+			return getAverageTime(Phase.NARROWPHASE);
+		}
+
+		@Override
+		public double getAverageResolutionNanos(){
+			return getAverageTime(Phase.RESOLUTION);
+		}
+
+		@Override
+		public int getLastCandidatePairs(){
+			return CollisionMetrics.getLastCandidatePairs();
+		}
+
+		@Override
+		public int getLastCollidingPairs(){
+			return CollisionMetrics.getLastCollidingPairs();
+		}
+
+		@Override
+		public long[] getGJKHistogram(){
+			return CollisionMetrics.getGJKHistogram();
+		}
+
+		@Override
+		public long[] getEPAHistogram(){
+			return CollisionMetrics.getEPAHistogram();
+		}
+
+		@Override
+		public int getTreeDepth(){
+			return CollisionMetrics.getTreeDepth();
+		}
+
+		@Override
+		public float getTreeOccupancy(){
+			return CollisionMetrics.getTreeOccupancy();
+		}
+
+		@Override
+		public String getJson(){
+			return CollisionMetrics.toJson();
+		}
+
+		@Override
+		public void reset(){
+			CollisionMetrics.reset();
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package physics.collision;
+
+/**
+ * JMX view of the CollisionMetrics, registered through {@link CollisionMetrics#registerMBean()}
+ */
+public interface CollisionMetricsMXBean {
+
+	public boolean isEnabled();
+
+	public void setEnabled(boolean enabled);
+
+	public long getSteps();
+
+	public long getLastBroadphaseNanos();
+
+	public long getLastNarrowphaseNanos();
+
+	public long getLastResolutionNanos();
+
+	public double getAverageBroadphaseNanos();
+
+	public double getAverageNarrowphaseNanos();
+
+	public double getAverageResolutionNanos();
+
+	public int getLastCandidatePairs();
+
+	public int getLastCollidingPairs();
+
+	public long[] getGJKHistogram();
+
+	public long[] getEPAHistogram();
+
+	public int getTreeDepth();
+
+	public float getTreeOccupancy();
+
+	public String getJson();
+
+	public void reset();
+}
@@ -32,7 +32,7 @@ public class CollisionPlane extends CollisionMesh{
 	}
 	
 	public Vec3 getNormal(){
-		return transforms.getOrientation().multVec(normal);
+		return transforms.getOrientation().rotate(normal, new Vec3());
 	}
 	
 	public Vec2 getHalfDimensions(){
@@ -47,10 +47,15 @@ public class CollisionPlane extends CollisionMesh{
 
 	@Override
 	public Vec3 support(Vec3 direction){
+		return support(direction, new Vec3());
+	}
+	
+	@Override
+	public Vec3 support(Vec3 direction, Vec3 dest){
 		//adjust the orientation of the direction vector to bring it in relative space to the plane to simplify calculations 
-		Vec3 orientedDir = transforms.getOrientation().conjugate().multVec(direction);
+		Vec3 orientedDir = transforms.getOrientation().inverseRotate(direction, dest);
+		dest.set(Math.copySign(halfDimensions.x, orientedDir.x), 0, Math.copySign(halfDimensions.y, orientedDir.z));
 		//transforms the point on the plane back into it's world space coordinate
-		return transforms.transform(new Vec3(Math.copySign(halfDimensions.x, orientedDir.x), 0, Math.copySign(halfDimensions.y, orientedDir.z)));
-		
+		return transforms.transform(dest, dest);
 	}
 }
@@ -0,0 +1,118 @@
+package physics.collision;
+
+import glMath.vectors.Vec3;
+
+/**
+ * Single triangle used as a collision shape, the points of the triangle are given in world space. CollisionTriangles are
+ * mainly used to test convex shapes against pieces of concave shapes, such as the triangles of a Heightfield, and are meant
+ * to be reused by setting new points rather than constructing a new triangle for each test.
+ *
+ * @author Kevin Mango
+ *
+ */
+public class CollisionTriangle extends CollisionMesh{
+
+	private Vec3 a, b, c;
+
+	/**
+	 * Constructs a CollisionTriangle with all of its points at the origin
+	 */
+	public CollisionTriangle(){
+		super();
+		a = new Vec3();
+		b = new Vec3();
+		c = new Vec3();
+	}
+
+	/**
+	 * Constructs a CollisionTriangle with the given points
+	 *
+	 * @param a First point of the triangle
+	 * @param b Second point of the triangle
+	 * @param c Third point of the triangle
+	 */
+	public CollisionTriangle(Vec3 a, Vec3 b, Vec3 c){
+		super();
+		this.a = new Vec3(a);
+		this.b = new Vec3(b);
+		this.c = new Vec3(c);
+	}
+
+	/**
+	 * Constructs a CollisionTriangle with the given CollisionTriangle as a source to copy from
+	 *
+	 * @param copy CollisionTriangle to copy data from in the construction of this CollisionTriangle
+	 */
+	public CollisionTriangle(CollisionTriangle copy){
+		super(copy);
+		a = new Vec3(copy.a);
+		b = new Vec3(copy.b);
+		c = new Vec3(copy.c);
+	}
+
+	/**
+	 * Sets the points of this triangle
+	 *
+	 * @param ax X component of the first point
+	 * @param ay Y component of the first point
+	 * @param az Z component of the first point
+	 * @param bx X component of the second point
+	 * @param by Y component of the second point
+	 * @param bz Z component of the second point
+	 * @param cx X component of the third point
+	 * @param cy Y component of the third point
+	 * @param cz Z component of the third point
+	 */
+	public void set(float ax, float ay, float az, float bx, float by, float bz, float cx, float cy, float cz){
+		a.x = ax;
+		a.y = ay;
+		a.z = az;
+		b.x = bx;
+		b.y = by;
+		b.z = bz;
+		c.x = cx;
+		c.y = cy;
+		c.z = cz;
+		invalidateBounds();
+	}
+
+	/**
+	 * Gets the point of this triangle at the given {@code index}
+	 *
+	 * @param index Index of the point to get, from 0 to 2
+	 *
+	 * @return Point of this triangle at the given index
+	 * @throws IndexOutOfBoundsException
+	 */
+	public Vec3 getPoint(int index) throws IndexOutOfBoundsException{
+		switch(index){
+			case 0:
+				return a;
+			case 1:
+				return b;
+			case 2:
+				return c;
+			default:
+				throw new IndexOutOfBoundsException("Index: "+index+" is out of bounds for a triangle");
+		}
+	}
+
+	@Override
+	public CollisionMesh clone(){
+		return new CollisionTriangle(this);
+	}
+
+	@Override
+	public Vec3 support(Vec3 direction){
+		float dotA = a.dot(direction);
+		float dotB = b.dot(direction);
+		float dotC = c.dot(direction);
+		if(dotA >= dotB && dotA >= dotC){
+			return new Vec3(a);
+		}else if(dotB >= dotC){
+			return new Vec3(b);
+		}else{
+			return new Vec3(c);
+		}
+	}
+}
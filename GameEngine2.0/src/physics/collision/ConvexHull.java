@@ -12,6 +12,13 @@ import mesh.primitives.Triangle;
 
 public abstract class ConvexHull extends CollisionMesh {
 	protected Geometry mesh;
+	//model space search direction of the support function for the calling thread, so hulls can be tested concurrently
+	protected static final ThreadLocal<Vec3> supportDirs = new ThreadLocal<Vec3>(){
+		@Override
+		protected Vec3 initialValue(){
+			return new Vec3();
+		}
+	};
 	
 	protected ConvexHull(Geometry mesh) {
 		this.mesh = mesh;
@@ -49,7 +56,7 @@ public abstract class ConvexHull extends CollisionMesh {
 		Iterator<Integer> pointsList = points.iterator();
 		while(pointsList.hasNext()){
 			Integer curIndex = pointsList.next();
-			Vec3 curPoint = VecUtil.subtract(mesh.getVertex(curIndex).getPos(), relaPoint);
+			Vec3 curPoint = VecUtil.subtract(mesh.getPos(curIndex), relaPoint);
 			//determine if the point is in front of the face based on whether the dot product is positive
 			//additionally 0 is considered behind the face
 			if(normal.dot(curPoint) > 0){
@@ -74,8 +81,8 @@ public abstract class ConvexHull extends CollisionMesh {
 			for(int nextVal = curVal+1; nextVal < 6; nextVal++){
 				//compute the length
 				float curLength = VecUtil.subtract(
-						mesh.getVertex(mesh.getMinMaxIndex(curVal)).getPos(),//current vertex
-						mesh.getVertex(mesh.getMinMaxIndex(nextVal)).getPos()//next vertex
+						mesh.getPos(mesh.getMinMaxIndex(curVal)),//current vertex
+						mesh.getPos(mesh.getMinMaxIndex(nextVal))//next vertex
 						).length();
 				//check if the computed length is longer than the previous one
 				if(curLength > farthestDist){
@@ -90,12 +97,12 @@ public abstract class ConvexHull extends CollisionMesh {
 		//find the vertex that is farthest from this edge
 		int vertIndex = -1;//variable to hold the farthest vertex index
 		farthestDist = 0;//variable to hold the current farthest vertex distance
-		Vec3 edge = VecUtil.subtract(mesh.getVertex(endVert).getPos(), mesh.getVertex(startVert).getPos());//edge vector relative to the start vertex
+		Vec3 edge = VecUtil.subtract(mesh.getPos(endVert), mesh.getPos(startVert));//edge vector relative to the start vertex
 		Vec3 normal = null;//triangle normal, this is computed to determine the normal of the edge relative to the vertex vector
 		//iterate over the 6 extreme points and find the one farthest from the edge to create the triangle of the tetrahedra
 		for(int curVertex = 0; curVertex < 6; curVertex++){
 			//get the edge vector from the start vertex to the current vertex
-			Vec3 relaPoint = VecUtil.subtract(mesh.getVertex(mesh.getMinMaxIndex(curVertex)).getPos(), mesh.getVertex(startVert).getPos());
+			Vec3 relaPoint = VecUtil.subtract(mesh.getPos(mesh.getMinMaxIndex(curVertex)), mesh.getPos(startVert));
 			
 			//compute the normal vector of the edge being tested relative to the current vertex vector, then get the scalar of the projection of the
 			//vertex vector with the normal to get the distance of the vertex from the edge
@@ -135,7 +142,7 @@ public abstract class ConvexHull extends CollisionMesh {
 		//iterate over all the vertices and test which is the farthest
 		for(int curPoint = 0; curPoint < mesh.numVertices(); curPoint++){
 			//get the current point relative to the start point on the triangle
-			Vec3 relaPoint = VecUtil.subtract(mesh.getVertex(curPoint).getPos(), mesh.getVertex(startVert).getPos());
+			Vec3 relaPoint = VecUtil.subtract(mesh.getPos(curPoint), mesh.getPos(startVert));
 			float distance = relaPoint.dot(normal);//since normal is normalized the magnitude of the projection of
 			//the current point onto the normal is simply the dot product between them
 			
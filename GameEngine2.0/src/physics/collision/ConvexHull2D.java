@@ -53,13 +53,13 @@ public class ConvexHull2D extends ConvexHull {
 		}
 		//partition the points
 		conflictLists.put(baseEdge, 
-				partitionPoints(mesh, partitionList, edge1, mesh.getVertex(baseTri.he1.sourceVert).getPos()));
+				partitionPoints(mesh, partitionList, edge1, mesh.getPos(baseTri.he1.sourceVert)));
 
 		conflictLists.put(baseEdge.next, 
-				partitionPoints(mesh, partitionList, edge2, mesh.getVertex(baseTri.he2.sourceVert).getPos()));
+				partitionPoints(mesh, partitionList, edge2, mesh.getPos(baseTri.he2.sourceVert)));
 
 		conflictLists.put(baseEdge.prev, 
-				partitionPoints(mesh, partitionList, edge3, mesh.getVertex(baseTri.he3.sourceVert).getPos()));
+				partitionPoints(mesh, partitionList, edge3, mesh.getPos(baseTri.he3.sourceVert)));
 		expand(conflictLists);
 		
 	}
@@ -97,7 +97,7 @@ public class ConvexHull2D extends ConvexHull {
 					float prevDist = 0;
 					int farIndex = -1;
 					for(Integer curIndex : curConflict){
-						float distance = edgeNormal.dot(VecUtil.subtract(mesh.getVertex(curIndex).getPos(), mesh.getVertex(curEdge.sourceVert).getPos()));
+						float distance = edgeNormal.dot(VecUtil.subtract(mesh.getPos(curIndex), mesh.getPos(curEdge.sourceVert)));
 						//check if the distance is greater than the previous distance
 						if(distance > prevDist){
 							//update the variables
@@ -127,7 +127,7 @@ public class ConvexHull2D extends ConvexHull {
 		do{
 			//get the current edge normal
 			Vec3 edgeNormal = getEdgeNormal(curEdge.sourceVert, curEdge.next.sourceVert);
-			Vec3 newPointLine = VecUtil.subtract(mesh.getVertex(newPoint).getPos(), mesh.getVertex(curEdge.sourceVert).getPos());//line from the new point to the 
+			Vec3 newPointLine = VecUtil.subtract(mesh.getPos(newPoint), mesh.getPos(curEdge.sourceVert));//line from the new point to the 
 			//current vertex that may qualify as a horizon point
 			dot = newPointLine.dot(edgeNormal);//get the dot product between the new point line and the edge normal
 			//if the edge is visible to the new point remove it from the conflict lists
@@ -149,7 +149,7 @@ public class ConvexHull2D extends ConvexHull {
 		do{
 			//get the current edge normal
 			Vec3 edgeNormal = getEdgeNormal(curEdge.sourceVert, curEdge.next.sourceVert);
-			Vec3 newPointLine = VecUtil.subtract(mesh.getVertex(newPoint).getPos(), mesh.getVertex(curEdge.sourceVert).getPos());//line from the new point to the 
+			Vec3 newPointLine = VecUtil.subtract(mesh.getPos(newPoint), mesh.getPos(curEdge.sourceVert));//line from the new point to the 
 			//current vertex that may qualify as a horizon point
 			dot = newPointLine.dot(edgeNormal);//get the dot product between the new point line and the edge normal
 			//if the edge is visible to the new point remove it from the conflict lists
@@ -192,9 +192,9 @@ public class ConvexHull2D extends ConvexHull {
 		
 		//partition the conflicting points from removed edges to the newly created edges
 		conflictLists.put(newEdge, 
-				partitionPoints(mesh, partition, getEdgeNormal(newPoint, forward.sourceVert), mesh.getVertex(newPoint).getPos()));
+				partitionPoints(mesh, partition, getEdgeNormal(newPoint, forward.sourceVert), mesh.getPos(newPoint)));
 		conflictLists.put(backward, 
-				partitionPoints(mesh, partition, getEdgeNormal(backward.sourceVert, newPoint), mesh.getVertex(backward.sourceVert).getPos()));
+				partitionPoints(mesh, partition, getEdgeNormal(backward.sourceVert, newPoint), mesh.getPos(backward.sourceVert)));
 		
 		//then we add the new edge to the linked list for further parsing
 		edges.add(newEdge);
@@ -212,7 +212,7 @@ public class ConvexHull2D extends ConvexHull {
 	 */
 	private Vec3 getEdgeNormal(int baseIndex, int nextIndex){
 		return VecUtil.cross(
-				VecUtil.subtract(mesh.getVertex(nextIndex).getPos(), mesh.getVertex(baseIndex).getPos()),
+				VecUtil.subtract(mesh.getPos(nextIndex), mesh.getPos(baseIndex)),
 				planeNormal).normalize();
 	}
 
@@ -221,20 +221,20 @@ public class ConvexHull2D extends ConvexHull {
 		//change the direction vector based on the orientation of the hull to bring it into model space
 		//this way the vertices don't need to be transformed to world space to test against
 		//the direction vector
-		Vec3 orientedDir = transforms.getOrientation().conjugate().multVec(direction).normalize();
+		Vec3 orientedDir = transforms.getOrientation().inverseRotate(direction, supportDirs.get()).normalize();
 		
 		//first check if the direction vector we are searching in is perpendicular to the plane the convex hull lies on
 		if(orientedDir.dot(planeNormal) == 1 || orientedDir.dot(planeNormal) == -1){
 			//in this case we will simply return the base edge vertex
-			return transforms.transform(mesh.getVertex(baseEdge.sourceVert).getPos());
+			return transforms.transform(mesh.getPos(baseEdge.sourceVert));
 		}else{
 			//otherwise we need to find the vertex in the direction of the model space direction vector
 			//first we need to see how the base vertex relates to the neighboring vertices
 			//this will also determine which direction we want to iterate from to possibly find the most aligned vertex the fastest
 			
-			float curDotProd = orientedDir.dot(mesh.getVertex(baseEdge.sourceVert).getPos());
-			float forwardDotProd = orientedDir.dot(mesh.getVertex(baseEdge.next.sourceVert).getPos());
-			float backwardDotProd = orientedDir.dot(mesh.getVertex(baseEdge.prev.sourceVert).getPos());
+			float curDotProd = mesh.dotPos(baseEdge.sourceVert, orientedDir);
+			float forwardDotProd = mesh.dotPos(baseEdge.next.sourceVert, orientedDir);
+			float backwardDotProd = mesh.dotPos(baseEdge.prev.sourceVert, orientedDir);
 			float max = Math.max(curDotProd, Math.max(forwardDotProd, backwardDotProd));
 			HalfEdge foundEdge = baseEdge;
 			//check which dot product was the largest
@@ -242,13 +242,13 @@ public class ConvexHull2D extends ConvexHull {
 				foundEdge = baseEdge.next;//move the found edge forward from the base edge
 				curDotProd = forwardDotProd;//set the current dot product value to test to the forward edge
 				while(!foundEdge.equals(baseEdge)){
-					forwardDotProd = orientedDir.dot(mesh.getVertex(foundEdge.next.sourceVert).getPos());
+					forwardDotProd = mesh.dotPos(foundEdge.next.sourceVert, orientedDir);
 					//if the new dot product is greater than the previous one we update the test value for the current dot product
 					if(forwardDotProd > curDotProd){
 						curDotProd = forwardDotProd;
 					}else{
 						//if it is not then we found the vertex we are looking for and can return it
-						return transforms.transform(mesh.getVertex(foundEdge.sourceVert).getPos());
+						return transforms.transform(mesh.getPos(foundEdge.sourceVert));
 					}
 					foundEdge = foundEdge.next;
 				}
@@ -256,18 +256,18 @@ public class ConvexHull2D extends ConvexHull {
 				foundEdge = baseEdge.prev;//move the found edge backward from the base edge
 				curDotProd = backwardDotProd;//set the current dot product value to test to the backward edge
 				while(!foundEdge.equals(baseEdge)){
-					backwardDotProd = orientedDir.dot(mesh.getVertex(foundEdge.prev.sourceVert).getPos());
+					backwardDotProd = mesh.dotPos(foundEdge.prev.sourceVert, orientedDir);
 					//if the new dot product is greater than the previous one we update the test value for the current dot product
 					if(backwardDotProd > curDotProd){
 						curDotProd = backwardDotProd;
 					}else{
 						//if it is not then we found the vertex we are looking for and can return it
-						return transforms.transform(mesh.getVertex(foundEdge.sourceVert).getPos());
+						return transforms.transform(mesh.getPos(foundEdge.sourceVert));
 					}
 					foundEdge = foundEdge.prev;
 				}
 			}
-			return transforms.transform(mesh.getVertex(baseEdge.sourceVert).getPos());
+			return transforms.transform(mesh.getPos(baseEdge.sourceVert));
 		}
 	}
 	
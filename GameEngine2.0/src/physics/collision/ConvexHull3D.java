@@ -10,12 +10,14 @@ import java.util.Iterator;
 import java.util.LinkedList;
 
 import mesh.Geometry;
+import mesh.HalfEdgeMesh;
 import mesh.primitives.HalfEdge;
 import mesh.primitives.Triangle;
 
 public class ConvexHull3D extends ConvexHull {
 	protected Triangle baseTri;
 	protected HashMap<Triangle, Vec3> normals;
+	protected HalfEdgeMesh hullEdges;//compact copy of the finished hull's faces used by the support function
 	
 	protected ConvexHull3D(Triangle baseTri, int vertIndex, boolean inFront, Geometry mesh, ArrayList<Integer> posList, ArrayList<Integer> negList){
 		super(mesh);
@@ -74,15 +76,27 @@ public class ConvexHull3D extends ConvexHull {
 		
 		//partition points between the faces and add them to the mapping
 		conflictLists.put(face1, 
-				partitionPoints(mesh, partitionList, face1.getNormal(mesh), mesh.getVertex(face1.he1.sourceVert).getPos()));
+				partitionPoints(mesh, partitionList, face1.getNormal(mesh), mesh.getPos(face1.he1.sourceVert)));
 		conflictLists.put(face2, 
-				partitionPoints(mesh, partitionList, face2.getNormal(mesh), mesh.getVertex(face2.he1.sourceVert).getPos()));
+				partitionPoints(mesh, partitionList, face2.getNormal(mesh), mesh.getPos(face2.he1.sourceVert)));
 		conflictLists.put(face3, 
-				partitionPoints(mesh, partitionList, face3.getNormal(mesh), mesh.getVertex(face3.he1.sourceVert).getPos()));
+				partitionPoints(mesh, partitionList, face3.getNormal(mesh), mesh.getPos(face3.he1.sourceVert)));
 
 		//expand the initial tetrahedra to comprise the convex hull of the mesh
 		expandTetrahedra(conflictLists);
 		insertNormals(this.baseTri);
+		
+		//the linked triangles are only needed while faces are being added and removed, once the hull is finished its 
+		//faces are packed into a flat half edge structure for walking it in the support function
+		int[] hullIndices = new int[normals.size()*3];
+		int curFace = 0;
+		for(Triangle face : normals.keySet()){
+			hullIndices[curFace*3] = face.he1.sourceVert;
+			hullIndices[curFace*3+1] = face.he2.sourceVert;
+			hullIndices[curFace*3+2] = face.he3.sourceVert;
+			curFace++;
+		}
+		hullEdges = new HalfEdgeMesh(hullIndices, normals.size(), mesh.numVertices());
 	}
 	
 	private void insertNormals(Triangle curFace){
@@ -100,6 +114,7 @@ public class ConvexHull3D extends ConvexHull {
 		super(copy);
 		baseTri = copy.baseTri;
 		normals = copy.normals;
+		hullEdges = copy.hullEdges;
 	}
 	
 	@Override
@@ -128,11 +143,11 @@ public class ConvexHull3D extends ConvexHull {
 					//find the point farthest from the face
 					//calculate the face normal
 					Vec3 normal = curFace.getNormal(mesh);
-					Vec3 vert1 = mesh.getVertex(curFace.he1.sourceVert).getPos();
+					Vec3 vert1 = mesh.getPos(curFace.he1.sourceVert);
 					float prevDist = 0;
 					int farIndex = -1;
 					for(Integer curIndex : curConflict){
-						float distance = normal.dot(VecUtil.subtract(mesh.getVertex(curIndex).getPos(), vert1));
+						float distance = normal.dot(VecUtil.subtract(mesh.getPos(curIndex), vert1));
 						//check if the distance is greater than the previous distance
 						if(distance > prevDist){
 							//update the variables
@@ -154,9 +169,9 @@ public class ConvexHull3D extends ConvexHull {
 		//create another list that will store the horizon edges
 		ArrayList<HalfEdge> horizon = new ArrayList<HalfEdge>();
 		//compute the edge horizon on the hull for the given point
-		findHorizon(mesh.getVertex(newPoint).getPos(), base.he1.opposite, partition, horizon, conflictLists);
-		findHorizon(mesh.getVertex(newPoint).getPos(), base.he2.opposite, partition, horizon, conflictLists);
-		findHorizon(mesh.getVertex(newPoint).getPos(), base.he3.opposite, partition, horizon, conflictLists);
+		findHorizon(mesh.getPos(newPoint), base.he1.opposite, partition, horizon, conflictLists);
+		findHorizon(mesh.getPos(newPoint), base.he2.opposite, partition, horizon, conflictLists);
+		findHorizon(mesh.getPos(newPoint), base.he3.opposite, partition, horizon, conflictLists);
 		
 		Iterator<HalfEdge> edges = horizon.iterator();
 		Triangle initial = null;
@@ -188,7 +203,7 @@ public class ConvexHull3D extends ConvexHull {
 			
 			//partition the removed faces conflict lists to the new face
 			conflictLists.put(curTri, 
-					partitionPoints(mesh, partition, curTri.getNormal(mesh), mesh.getVertex(curTri.he1.sourceVert).getPos()));
+					partitionPoints(mesh, partition, curTri.getNormal(mesh), mesh.getPos(curTri.he1.sourceVert)));
 			
 			//add the new face to the faces list for later iteration
 			faces.add(curTri);
@@ -227,7 +242,7 @@ public class ConvexHull3D extends ConvexHull {
 			//get the normal of the current face
 			Vec3 normal = current.parent.getNormal(mesh);
 			//get the vector from a point on the triangle to the new point
-			Vec3 newEdge = VecUtil.subtract(newPoint, mesh.getVertex(current.sourceVert).getPos());
+			Vec3 newEdge = VecUtil.subtract(newPoint, mesh.getPos(current.sourceVert));
 			//if it can, continue searching through the edges of the current face
 			if(normal.dot(newEdge) >= 0){
 				//mark the current half edges parent face as being visited
@@ -243,46 +258,52 @@ public class ConvexHull3D extends ConvexHull {
 
 	@Override
 	public Vec3 support(Vec3 direction) {
+		return support(direction, new Vec3());
+	}
+	
+	@Override
+	public Vec3 support(Vec3 direction, Vec3 dest) {
 		//change the direction vector based on the orientation of the hull to bring it into model space
 		//this way the vertices don't need to be transformed to world space to test against
 		//the direction vector
-		Vec3 orientedDir = transforms.getOrientation().conjugate().multVec(direction).normalize();
+		Vec3 orientedDir = transforms.getOrientation().inverseRotate(direction, supportDirs.get()).normalize();
 		
 		//transform the final vertex back into world space
-		return transforms.transform(findSupport(orientedDir, baseTri.he1));
+		mesh.getPos(findSupport(orientedDir, baseTri.he1.sourceVert), dest);
+		return transforms.transform(dest, dest);
 	}
 	
-	private Vec3 findSupport(Vec3 direction, HalfEdge startEdge){
-		
+	private int findSupport(Vec3 direction, int startVert){
+		int foundVert = startVert;
 		//compute the dot product with the computed direction
-		float foundDotDir = direction.dot(mesh.getVertex(startEdge.sourceVert).getPos());
-
-		//iterate over all the adjacent vertices to the given vertex and find the vertex
-		//most in the direction of the given vector
-		HalfEdge curEdge = startEdge.opposite, foundEdge = startEdge;
+		float foundDotDir = mesh.dotPos(startVert, direction);
+		int prevVert;
 		do{
-			//get the adjacent vertex and get it's dot product with the direction to compute its distance in the given direction
-			float curDotDir = direction.dot(mesh.getVertex(curEdge.sourceVert).getPos());
-			
-			//compare the dot product of the current adjacent vertex with the previous found vertex dot product
-			if(curDotDir > foundDotDir){
-				//since the current vertex dot product is greater than the previous one we know it is farther in the
-				//direction of the direction vector than the previously found vertex
-				foundDotDir = curDotDir;
-				foundEdge = curEdge;
+			prevVert = foundVert;
+			//iterate over all the adjacent vertices to the current vertex and find the vertex
+			//most in the direction of the given vector
+			int startEdge = hullEdges.getOutgoing(prevVert), curEdge = startEdge;
+			while(curEdge != -1){
+				//get the adjacent vertex and get it's dot product with the direction to compute its distance in the given direction
+				int adjacent = hullEdges.getVertex(hullEdges.getNext(curEdge));
+				float curDotDir = mesh.dotPos(adjacent, direction);
+				
+				//compare the dot product of the current adjacent vertex with the previous found vertex dot product
+				if(curDotDir > foundDotDir){
+					//since the current vertex dot product is greater than the previous one we know it is farther in the
+					//direction of the direction vector than the previously found vertex
+					foundDotDir = curDotDir;
+					foundVert = adjacent;
+				}
+				//rotate to the next edge leaving the current vertex, a hull that isn't closed ends the walk at its border
+				curEdge = hullEdges.getNextOutgoing(curEdge);
+				if(curEdge == startEdge){
+					break;
+				}
 			}
-			//update the current edge to be the next edge that has the next adjacent vertex to the starting vertex
-			curEdge = curEdge.next.opposite;
-		}
-		while(!curEdge.opposite.equals(startEdge));//if the next edge we are comparing with is the same as the start end the loop
-		
-		//if no vertex was found then the current vertex is the vertex on the mesh farthest in the direction
-		//of the given vector
-		if(foundEdge.equals(startEdge)){
-			return mesh.getVertex(foundEdge.sourceVert).getPos();
-		}else{
-			//recurse using the found vertex as a starting point
-			return findSupport(direction, foundEdge);
-		}
+			//if no adjacent vertex was farther then the current vertex is the vertex on the mesh farthest in the direction
+			//of the given vector, otherwise continue from the found vertex
+		}while(foundVert != prevVert);
+		return foundVert;
 	}
 }
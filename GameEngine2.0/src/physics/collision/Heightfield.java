@@ -0,0 +1,503 @@
+package physics.collision;
+
+import java.util.ArrayList;
+
+import glMath.transforms.Transform;
+import glMath.vectors.Vec3;
+
+/**
+ * Heightfield is a collision shape for terrain, represented as a regular grid of height samples on the xz plane. Heights
+ * are quantized to 16 bits each so large terrains can be stored compactly, and the regular layout allows the height under
+ * any point to be found in constant time.
+ * <p>
+ * The grid is centered on the position of the Heightfield, with columns running along the x axis and rows running along
+ * the z axis. Each cell of the grid is split into two triangles along the diagonal from its minimum corner to its maximum
+ * corner. Like the AABB, a Heightfield can only be translated and scaled, rotations are ignored.
+ * </p>
+ *
+ * @author Kevin Mango
+ *
+ */
+public class Heightfield extends CollisionMesh{
+
+	//cell ranges of the calling thread, reused by every query so they don't allocate
+	private static final ThreadLocal<int[]> cellRanges = new ThreadLocal<int[]>(){
+		@Override
+		protected int[] initialValue(){
+			return new int[4];
+		}
+	};
+	//parametric range a raycast is clipped to, one per thread
+	private static final ThreadLocal<float[]> clipRanges = new ThreadLocal<float[]>(){
+		@Override
+		protected float[] initialValue(){
+			return new float[2];
+		}
+	};
+
+	private short[] heights;
+	private int columns, rows;
+	private float spacing, heightScale, heightOffset;
+	private float minHeight, maxHeight;
+
+	/**
+	 * Constructs a Heightfield from the given {@code heights}, the heights are quantized to fit the range between the
+	 * lowest and highest value given.
+	 *
+	 * @param columns Number of samples along the x axis, must be at least 2
+	 * @param rows Number of samples along the z axis, must be at least 2
+	 * @param spacing Distance between adjacent samples
+	 * @param heights Height samples in row major order, there must be {@code columns*rows} samples
+	 * @throws IllegalArgumentException If there are fewer than 2 columns or rows, or the number of samples is wrong
+	 */
+	public Heightfield(int columns, int rows, float spacing, float[] heights) throws IllegalArgumentException{
+		super();
+		init(columns, rows, spacing, heights.length);
+		//find the range of the heights to quantize them into
+		float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
+		for(int curSample = 0; curSample < columns*rows; curSample++){
+			min = Math.min(min, heights[curSample]);
+			max = Math.max(max, heights[curSample]);
+		}
+		heightScale = max > min ? (max-min)/65535.0f : 1.0f;
+		//offset the heights so the lowest height maps to the lowest value of a short
+		heightOffset = min+32768*heightScale;
+		this.heights = new short[columns*rows];
+		for(int curSample = 0; curSample < columns*rows; curSample++){
+			int quantized = Math.round((heights[curSample]-heightOffset)/heightScale);
+			this.heights[curSample] = (short)Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, quantized));
+		}
+		computeHeightRange();
+	}
+
+	/**
+	 * Constructs a Heightfield from already quantized {@code heights}, the height of each sample is computed as
+	 * {@code heights[i]*heightScale+heightOffset}. The given array is used directly and is not copied.
+	 *
+	 * @param columns Number of samples along the x axis, must be at least 2
+	 * @param rows Number of samples along the z axis, must be at least 2
+	 * @param spacing Distance between adjacent samples
+	 * @param heights Quantized height samples in row major order, there must be {@code columns*rows} samples
+	 * @param heightScale Scale applied to the quantized heights
+	 * @param heightOffset Offset applied to the quantized heights after they are scaled
+	 * @throws IllegalArgumentException If there are fewer than 2 columns or rows, or the number of samples is wrong
+	 */
+	public Heightfield(int columns, int rows, float spacing, short[] heights, float heightScale, float heightOffset) 
+			throws IllegalArgumentException{
+		super();
+		init(columns, rows, spacing, heights.length);
+		this.heights = heights;
+		this.heightScale = heightScale;
+		this.heightOffset = heightOffset;
+		computeHeightRange();
+	}
+
+	/**
+	 * Constructs a Heightfield with the given Heightfield as a source to copy from, the height samples are shared between
+	 * the two Heightfields since they are never modified
+	 *
+	 * @param copy Heightfield to copy data from in the construction of this Heightfield
+	 */
+	public Heightfield(Heightfield copy){
+		super(copy);
+		heights = copy.heights;
+		columns = copy.columns;
+		rows = copy.rows;
+		spacing = copy.spacing;
+		heightScale = copy.heightScale;
+		heightOffset = copy.heightOffset;
+		minHeight = copy.minHeight;
+		maxHeight = copy.maxHeight;
+	}
+
+	private void init(int columns, int rows, float spacing, int samples){
+		if(columns < 2 || rows < 2){
+			throw new IllegalArgumentException("A Heightfield needs at least 2 columns and 2 rows, given: "+columns+"x"+rows);
+		}
+		if(samples != columns*rows){
+			throw new IllegalArgumentException("A "+columns+"x"+rows+" Heightfield needs "+columns*rows+" height samples, given: "+samples);
+		}
+		this.columns = columns;
+		this.rows = rows;
+		this.spacing = Math.abs(spacing);
+	}
+
+	private void computeHeightRange(){
+		minHeight = Float.POSITIVE_INFINITY;
+		maxHeight = Float.NEGATIVE_INFINITY;
+		for(int curSample = 0; curSample < heights.length; curSample++){
+			float height = heights[curSample]*heightScale+heightOffset;
+			minHeight = Math.min(minHeight, height);
+			maxHeight = Math.max(maxHeight, height);
+		}
+	}
+
+	/**
+	 * Gets the number of samples along the x axis
+	 *
+	 * @return Number of columns in this Heightfield
+	 */
+	public int getColumns(){
+		return columns;
+	}
+
+	/**
+	 * Gets the number of samples along the z axis
+	 *
+	 * @return Number of rows in this Heightfield
+	 */
+	public int getRows(){
+		return rows;
+	}
+
+	/**
+	 * Gets the height of the sample at the given {@code column} and {@code row}, the height is relative to the Heightfield
+	 * and does not include its transformations
+	 *
+	 * @param column Column of the sample
+	 * @param row Row of the sample
+	 *
+	 * @return Height of the sample
+	 * @throws IndexOutOfBoundsException
+	 */
+	public float getSample(int column, int row) throws IndexOutOfBoundsException{
+		if(column < 0 || column >= columns || row < 0 || row >= rows){
+			throw new IndexOutOfBoundsException("Sample: ("+column+", "+row+") is out of bounds for a Heightfield of size: "+columns+"x"+rows);
+		}
+		return sample(column, row);
+	}
+
+	private float sample(int column, int row){
+		return heights[row*columns+column]*heightScale+heightOffset;
+	}
+
+	/**
+	 * Gets the height of the surface of this Heightfield at the given world space {@code x} and {@code z}
+	 *
+	 * @param x X position to sample the height at
+	 * @param z Z position to sample the height at
+	 *
+	 * @return World space height of the surface at the given position, or NaN if the position is outside of the Heightfield
+	 */
+	public float getHeight(float x, float z){
+		Vec3 scalars = transforms.getScalars();
+		Vec3 pos = transforms.getTranslation();
+		float gridX = toGridX(x, pos, scalars);
+		float gridZ = toGridZ(z, pos, scalars);
+		if(gridX < 0 || gridX > columns-1 || gridZ < 0 || gridZ > rows-1){
+			return Float.NaN;
+		}
+		//clamp to the last cell so samples on the far edges don't read past the grid
+		int column = Math.min((int)gridX, columns-2);
+		int row = Math.min((int)gridZ, rows-2);
+		float u = gridX-column, v = gridZ-row;
+		float h00 = sample(column, row);
+		float h11 = sample(column+1, row+1);
+		float height;
+		//interpolate on the triangle of the cell the point is in
+		if(u >= v){
+			height = h00+(sample(column+1, row)-h00)*u+(h11-sample(column+1, row))*v;
+		}else{
+			height = h00+(sample(column, row+1)-h00)*v+(h11-sample(column, row+1))*u;
+		}
+		return height*scalars.y+pos.y;
+	}
+
+	/**
+	 * Gets the height of the surface of this Heightfield below or above the given world space {@code point}
+	 *
+	 * @param point Point to sample the height at, only the x and z components are used
+	 *
+	 * @return World space height of the surface at the given point, or NaN if the point is outside of the Heightfield
+	 */
+	public float getHeight(Vec3 point){
+		return getHeight(point.x, point.z);
+	}
+
+	/**
+	 * Determines whether the given world space {@code point} is on or below the surface of this Heightfield
+	 *
+	 * @param point Point to test
+	 *
+	 * @return True if the point is over the Heightfield and not above its surface, false otherwise
+	 */
+	public boolean contains(Vec3 point){
+		float height = getHeight(point.x, point.z);
+		//NaN comparisons are always false, so points outside the grid are never contained
+		return point.y <= height;
+	}
+
+	/**
+	 * Finds the range of cells that overlap the given world space box when projected onto the xz plane
+	 *
+	 * @param min Minimum corner of the box
+	 * @param max Maximum corner of the box
+	 * @param range Array of at least 4 elements the range is stored in as the minimum column, minimum row, maximum column,
+	 * and maximum row, all inclusive
+	 *
+	 * @return True if the box overlaps the Heightfield, false otherwise
+	 */
+	public boolean getCells(Vec3 min, Vec3 max, int[] range){
+		Vec3 scalars = transforms.getScalars();
+		Vec3 pos = transforms.getTranslation();
+		//reject boxes that are entirely above or below the heights of the terrain
+		if(min.y > maxHeight*scalars.y+pos.y || max.y < minHeight*scalars.y+pos.y){
+			return false;
+		}
+		float minX = toGridX(min.x, pos, scalars), maxX = toGridX(max.x, pos, scalars);
+		float minZ = toGridZ(min.z, pos, scalars), maxZ = toGridZ(max.z, pos, scalars);
+		if(maxX < 0 || minX > columns-1 || maxZ < 0 || minZ > rows-1){
+			return false;
+		}
+		range[0] = Math.max(0, (int)Math.floor(minX));
+		range[1] = Math.max(0, (int)Math.floor(minZ));
+		range[2] = Math.min(columns-2, (int)Math.floor(maxX));
+		range[3] = Math.min(rows-2, (int)Math.floor(maxZ));
+		return true;
+	}
+
+	/**
+	 * Sets the given {@code dest} triangle to one of the two world space triangles of the cell at {@code column, row}
+	 *
+	 * @param column Column of the cell
+	 * @param row Row of the cell
+	 * @param upper Whether to get the triangle on the maximum x side of the diagonal or the triangle on the maximum z side
+	 * @param dest Triangle to store the result in
+	 *
+	 * @return The {@code dest} triangle
+	 */
+	public CollisionTriangle getTriangle(int column, int row, boolean upper, CollisionTriangle dest){
+		Vec3 scalars = transforms.getScalars();
+		Vec3 pos = transforms.getTranslation();
+		float x0 = toWorldX(column, pos, scalars), x1 = toWorldX(column+1, pos, scalars);
+		float z0 = toWorldZ(row, pos, scalars), z1 = toWorldZ(row+1, pos, scalars);
+		float h00 = sample(column, row)*scalars.y+pos.y;
+		float h11 = sample(column+1, row+1)*scalars.y+pos.y;
+		if(upper){
+			dest.set(x0, h00, z0, x1, sample(column+1, row)*scalars.y+pos.y, z0, x1, h11, z1);
+		}else{
+			dest.set(x0, h00, z0, x1, h11, z1, x0, sample(column, row+1)*scalars.y+pos.y, z1);
+		}
+		return dest;
+	}
+
+	/**
+	 * Gets all the world space triangles of this Heightfield that lie in the cells overlapping the given box
+	 *
+	 * @param min Minimum corner of the box
+	 * @param max Maximum corner of the box
+	 *
+	 * @return List of the triangles in the region of the box
+	 */
+	public ArrayList<CollisionTriangle> getTriangles(Vec3 min, Vec3 max){
+		ArrayList<CollisionTriangle> triangles = new ArrayList<CollisionTriangle>();
+		getTriangles(min, max, triangles);
+		return triangles;
+	}
+
+	/**
+	 * Sets the triangles in the given list to the world space triangles of this Heightfield that lie in the cells
+	 * overlapping the given box. Triangles already in the list are overwritten and new ones are only added when the list
+	 * runs out, so a list kept between queries stops allocating once it is large enough. Triangles past the returned
+	 * count are left as they were.
+	 *
+	 * @param min Minimum corner of the box
+	 * @param max Maximum corner of the box
+	 * @param dest List to store the triangles in
+	 *
+	 * @return Number of triangles stored at the start of {@code dest}
+	 */
+	public int getTriangles(Vec3 min, Vec3 max, ArrayList<CollisionTriangle> dest){
+		int[] range = cellRanges.get();
+		int count = 0;
+		if(getCells(min, max, range)){
+			for(int row = range[1]; row <= range[3]; row++){
+				for(int column = range[0]; column <= range[2]; column++){
+					for(int half = 0; half < 2; half++){
+						if(count == dest.size()){
+							dest.add(new CollisionTriangle());
+						}
+						getTriangle(column, row, half == 0, dest.get(count++));
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the first point the given ray segment hits the surface of this Heightfield, by walking the cells under the ray
+	 * in order from the start of the ray and testing only the triangles of those cells
+	 *
+	 * @param start Start point of the ray segment in world space
+	 * @param end End point of the ray segment in world space
+	 *
+	 * @return Value from 0 to 1 along the segment where it first hits the surface, or NaN if it doesn't hit
+	 */
+	public float raycast(Vec3 start, Vec3 end){
+		Vec3 scalars = transforms.getScalars();
+		Vec3 pos = transforms.getTranslation();
+		//move the segment into grid space, where each cell is 1 unit wide, since the mapping is affine the values along
+		//the segment are the same in both spaces
+		float x0 = toGridX(start.x, pos, scalars), z0 = toGridZ(start.z, pos, scalars);
+		float y0 = (start.y-pos.y)/scalars.y;
+		float dx = toGridX(end.x, pos, scalars)-x0, dz = toGridZ(end.z, pos, scalars)-z0;
+		float dy = (end.y-pos.y)/scalars.y-y0;
+
+		//clip the segment to the bounds of the grid
+		float[] clip = clipRanges.get();
+		clip[0] = 0;
+		clip[1] = 1;
+		if(!clip(x0, dx, 0, columns-1, clip) || !clip(z0, dz, 0, rows-1, clip) || !clip(y0, dy, minHeight, maxHeight, clip)){
+			return Float.NaN;
+		}
+		float tMin = clip[0], tMax = clip[1];
+
+		//start the traversal from the cell the clipped segment enters the grid in
+		float entryX = x0+dx*tMin, entryZ = z0+dz*tMin;
+		int column = Math.min(Math.max((int)Math.floor(entryX), 0), columns-2);
+		int row = Math.min(Math.max((int)Math.floor(entryZ), 0), rows-2);
+		int stepX = dx > 0 ? 1 : -1, stepZ = dz > 0 ? 1 : -1;
+		//values along the segment where the next cell boundary on each axis is crossed
+		float deltaX = dx != 0 ? Math.abs(1.0f/dx) : Float.POSITIVE_INFINITY;
+		float deltaZ = dz != 0 ? Math.abs(1.0f/dz) : Float.POSITIVE_INFINITY;
+		float nextX = dx != 0 ? (column+(dx > 0 ? 1 : 0)-x0)/dx : Float.POSITIVE_INFINITY;
+		float nextZ = dz != 0 ? (row+(dz > 0 ? 1 : 0)-z0)/dz : Float.POSITIVE_INFINITY;
+
+		while(column >= 0 && column < columns-1 && row >= 0 && row < rows-1){
+			float hit = raycastCell(column, row, x0, y0, z0, dx, dy, dz);
+			//a hit in this cell must be the closest since the cells are visited in order along the segment
+			if(!Float.isNaN(hit) && hit >= tMin && hit <= tMax){
+				return hit;
+			}
+			//stop once the segment has left the grid
+			if(Math.min(nextX, nextZ) > tMax){
+				break;
+			}
+			//advance to the neighboring cell the segment enters first
+			if(nextX < nextZ){
+				column += stepX;
+				nextX += deltaX;
+			}else{
+				row += stepZ;
+				nextZ += deltaZ;
+			}
+		}
+		return Float.NaN;
+	}
+
+	/**
+	 * Clips the parametric range stored in {@code clip} to the part of a segment on one axis that is within {@code min}
+	 * and {@code max}
+	 *
+	 * @return False if the segment is entirely outside of the range, true otherwise
+	 */
+	private static boolean clip(float start, float delta, float min, float max, float[] clip){
+		if(delta == 0){
+			return start >= min && start <= max;
+		}
+		float t1 = (min-start)/delta, t2 = (max-start)/delta;
+		clip[0] = Math.max(clip[0], Math.min(t1, t2));
+		clip[1] = Math.min(clip[1], Math.max(t1, t2));
+		return clip[0] <= clip[1];
+	}
+
+	/**
+	 * Tests a segment in grid space against the two triangles of the given cell
+	 *
+	 * @return Value along the segment of the nearest hit in the cell, or NaN if the segment misses both triangles
+	 */
+	private float raycastCell(int column, int row, float x0, float y0, float z0, float dx, float dy, float dz){
+		float h00 = sample(column, row);
+		float h10 = sample(column+1, row);
+		float h01 = sample(column, row+1);
+		float h11 = sample(column+1, row+1);
+		float hitA = intersectTriangle(column, h00, row, column+1, h10, row, column+1, h11, row+1, x0, y0, z0, dx, dy, dz);
+		float hitB = intersectTriangle(column, h00, row, column+1, h11, row+1, column, h01, row+1, x0, y0, z0, dx, dy, dz);
+		if(Float.isNaN(hitA)){
+			return hitB;
+		}else if(Float.isNaN(hitB)){
+			return hitA;
+		}
+		return Math.min(hitA, hitB);
+	}
+
+	/**
+	 * Moller-Trumbore intersection of a segment with a triangle
+	 *
+	 * @return Value along the segment where it intersects the triangle, or NaN if it does not intersect
+	 */
+	private static float intersectTriangle(float ax, float ay, float az, float bx, float by, float bz, float cx, float cy, float cz,
+			float x0, float y0, float z0, float dx, float dy, float dz){
+		float e1x = bx-ax, e1y = by-ay, e1z = bz-az;
+		float e2x = cx-ax, e2y = cy-ay, e2z = cz-az;
+		//p = d x e2
+		float px = dy*e2z-dz*e2y, py = dz*e2x-dx*e2z, pz = dx*e2y-dy*e2x;
+		float det = e1x*px+e1y*py+e1z*pz;
+		//the segment is parallel to the triangle
+		if(Math.abs(det) < 1e-8f){
+			return Float.NaN;
+		}
+		float invDet = 1.0f/det;
+		float sx = x0-ax, sy = y0-ay, sz = z0-az;
+		float u = (sx*px+sy*py+sz*pz)*invDet;
+		if(u < 0 || u > 1){
+			return Float.NaN;
+		}
+		//q = s x e1
+		float qx = sy*e1z-sz*e1y, qy = sz*e1x-sx*e1z, qz = sx*e1y-sy*e1x;
+		float v = (dx*qx+dy*qy+dz*qz)*invDet;
+		if(v < 0 || u+v > 1){
+			return Float.NaN;
+		}
+		float t = (e2x*qx+e2y*qy+e2z*qz)*invDet;
+		return t >= 0 && t <= 1 ? t : Float.NaN;
+	}
+
+	private float toGridX(float x, Vec3 pos, Vec3 scalars){
+		return (x-pos.x)/(scalars.x*spacing)+(columns-1)/2.0f;
+	}
+
+	private float toGridZ(float z, Vec3 pos, Vec3 scalars){
+		return (z-pos.z)/(scalars.z*spacing)+(rows-1)/2.0f;
+	}
+
+	private float toWorldX(int column, Vec3 pos, Vec3 scalars){
+		return (column-(columns-1)/2.0f)*spacing*scalars.x+pos.x;
+	}
+
+	private float toWorldZ(int row, Vec3 pos, Vec3 scalars){
+		return (row-(rows-1)/2.0f)*spacing*scalars.z+pos.z;
+	}
+
+	@Override
+	public void transform(Transform transform){
+		transforms.translate(transform);
+		transforms.scale(transform);
+	}
+
+	@Override
+	public void setTransform(Transform trans){
+		transforms.setTranslation(trans);
+		transforms.setScale(trans);
+	}
+
+	@Override
+	public CollisionMesh clone(){
+		return new Heightfield(this);
+	}
+
+	/**
+	 * Gets the farthest point of the bounding box of this Heightfield in the given direction. A Heightfield is not convex
+	 * so this is only a conservative bound, precise tests should be done against the triangles of the Heightfield.
+	 */
+	@Override
+	public Vec3 support(Vec3 direction){
+		Vec3 scalars = transforms.getScalars();
+		return new Vec3(
+				Math.copySign((columns-1)*spacing/2.0f, direction.x)*scalars.x,
+				(direction.y >= 0 ? maxHeight : minHeight)*scalars.y,
+				Math.copySign((rows-1)*spacing/2.0f, direction.z)*scalars.z
+				).add(transforms.getTranslation());
+	}
+}
@@ -109,7 +109,18 @@ public class Ray extends SpatialAsset implements Cloneable{
 	 * to this Ray
 	 */
 	public Vec3 getDirection(){
-		return transforms.getOrientation().multVec(direction);
+		return getDirection(new Vec3());
+	}
+	
+	/**
+	 * Gets the direction this Ray is extending in storing it in {@code dest}
+	 * 
+	 * @param dest Vector to store the direction in
+	 * 
+	 * @return The {@code dest} vector
+	 */
+	public Vec3 getDirection(Vec3 dest){
+		return transforms.getOrientation().rotate(direction, dest);
 	}
 	
 	/**
@@ -122,7 +133,20 @@ public class Ray extends SpatialAsset implements Cloneable{
 	 * @return Point at t along the ray
 	 */
 	public Vec3 getPoint(float t){
-		return VecUtil.add(transforms.getTranslation(), VecUtil.scale(transforms.getOrientation().multVec(direction), length*t));
+		return getPoint(t, new Vec3());
+	}
+	
+	/**
+	 * Gets a point along the ray at the given {@code t} storing it in {@code dest}, see {@link #getPoint(float)}
+	 * 
+	 * @param t Value along the ray to get a point of
+	 * @param dest Vector to store the point in
+	 * 
+	 * @return The {@code dest} vector
+	 */
+	public Vec3 getPoint(float t, Vec3 dest){
+		transforms.getOrientation().rotate(direction, dest);
+		return VecUtil.scaleAdd(transforms.getTranslation(), dest, length*t, dest);
 //		return VecUtil.add(transforms.getTranslation(), VecUtil.scale(transforms.getOrientation().multVec(direction), length*Math.min(1, Math.max(0,t))));
 	}
 	
@@ -5,10 +5,20 @@ import glMath.vectors.Vec3;
 
 public class Simplex {
 	private Vec3 a, b, c, d;
+	//working vectors reused by each call to getDirection
+	private Vec3 ab, ac, ad, ao, abc, acd, adb, temp;
 	
 	public Simplex(Vec3 startA, Vec3 startB){
 		a = new Vec3(startA);
 		b = new Vec3(startB);
+		ab = new Vec3();
+		ac = new Vec3();
+		ad = new Vec3();
+		ao = new Vec3();
+		abc = new Vec3();
+		acd = new Vec3();
+		adb = new Vec3();
+		temp = new Vec3();
 	}
 	
 	public void add(Vec3 point){
@@ -31,39 +41,39 @@ public class Simplex {
 		//check what dimensionality the simplex has based on what variables are null
 		if(c == null && d == null){
 			//vector from the recently added point to the simplex to the origin
-			Vec3 ao = a.inverse();
+			ao.set(-a.x, -a.y, -a.z);
 			//vector from the recently added point in the simplex to the previous point
-			Vec3 ab = (Vec3)VecUtil.subtract(b, a);
+			VecUtil.sub(b, a, ab);
 			/*we know that the origin can't be behind B, since we just came from that
 			direction, and we know it can't be in front of A, since A is that farthest point 
 			on the sum and it would have failed the early exit test, we know then that the
 			origin is only in the direction perpendicular to the edge AB
 			*/				
-			direction.set(VecUtil.cross(ab,ao,ab));
+			tripleCross(ab, ao, direction);
 			return false;
 		}else if(d == null){
-			Vec3 ab = (Vec3)VecUtil.subtract( b, a );
-			Vec3 ac = (Vec3)VecUtil.subtract( c, a );
-			Vec3 ao = a.inverse();
-			Vec3 abc = ab.cross(ac);//triangle normal
+			VecUtil.sub(b, a, ab);
+			VecUtil.sub(c, a, ac);
+			ao.set(-a.x, -a.y, -a.z);
+			VecUtil.crossProduct(ab, ac, abc);//triangle normal
 			
 			//check which edge is closest to the origin and modify values to reflect the shift
-			if(abc.cross(ac).dot(ao) > 0){
+			if(VecUtil.crossProduct(abc, ac, temp).dot(ao) > 0){
 				//remove B and move C to B
 				b = c;
 				c = null;
-				direction.set(VecUtil.cross(ac,ao,ac));
-			}else if(ab.cross(abc).dot(ao) > 0){
+				tripleCross(ac, ao, direction);
+			}else if(VecUtil.crossProduct(ab, abc, temp).dot(ao) > 0){
 				//remove C
 				c = null;
-				direction.set(VecUtil.cross(ab,ao,ab));
+				tripleCross(ab, ao, direction);
 			}else{
 				//check which direction, above or below the triangle, the origin is in
 				//check the triangle normal
 				if(abc.dot(ao) > 0){
 					direction.set(abc);
 				}else{//check the inverted normal
-					direction.set(abc.inverse());
+					direction.set(-abc.x, -abc.y, -abc.z);
 					//change the order of the points to maintain the winding order
 					//swap B and C
 					Vec3 tempB = b;
@@ -73,13 +83,13 @@ public class Simplex {
 			}
 			return false;
 		}else{
-			Vec3 ab = (Vec3)VecUtil.subtract( b, a );
-			Vec3 ac = (Vec3)VecUtil.subtract( c, a );
-			Vec3 ad = (Vec3)VecUtil.subtract( d, a );
-			Vec3 abc = ab.cross(ac);
-			Vec3 acd = ac.cross(ad);
-			Vec3 adb = ad.cross(ab);
-			Vec3 ao = a.inverse();
+			VecUtil.sub(b, a, ab);
+			VecUtil.sub(c, a, ac);
+			VecUtil.sub(d, a, ad);
+			VecUtil.crossProduct(ab, ac, abc);
+			VecUtil.crossProduct(ac, ad, acd);
+			VecUtil.crossProduct(ad, ab, adb);
+			ao.set(-a.x, -a.y, -a.z);
 			
 			//test what face the origin might be located, we don't test the "bottom" triangle since that was 
 			//the triangle used to point towards A meaning that checking the opposite is meaningless as
@@ -125,4 +135,12 @@ public class Simplex {
 			return false;
 		}
 	}
+	
+	/**
+	 * Computes (edge x toOrigin) x edge, the direction perpendicular to the edge pointing towards the origin
+	 */
+	private void tripleCross(Vec3 edge, Vec3 toOrigin, Vec3 dest){
+		VecUtil.crossProduct(edge, toOrigin, temp);
+		VecUtil.crossProduct(temp, edge, dest);
+	}
 }
@@ -2,6 +2,8 @@ package physics.collision.data;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import physics.collision.CollisionMetrics;
+
 public class ContactRegister {
 	private HashMap<ContactPair, ContactPair> contacts;
 	private ArrayList<ContactPair> toResolve;
@@ -22,9 +24,11 @@ public class ContactRegister {
 	}
 	
 	public void resolve(int iterations){
+		long start = CollisionMetrics.begin();
 		for(ContactPair pair : toResolve){
 			pair.resolve(iterations);
 		}
 		toResolve.clear();
+		CollisionMetrics.end(CollisionMetrics.Phase.RESOLUTION, start);
 	}
 }
@@ -0,0 +1,516 @@
+package physics.collision.trees;
+
+import java.util.Collection;
+
+import core.Entity;
+import glMath.vectors.Vec3;
+import physics.collision.CollisionMesh;
+import physics.collision.Ray;
+
+/**
+ * Static 3 dimensional tree of Entities used for proximity queries. The tree is built once from the current positions
+ * and bounds of a set of Entities and is not updated as those Entities move, instead a new tree should be built when the
+ * Entities have changed.
+ * <p>
+ * Since the tree copies the bounds it needs at construction and never modifies them afterwards, a constructed tree can be
+ * queried from any number of threads at once while the Entities it was built from continue to be moved. Queries on the
+ * tree never read from the Entities themselves, the Entities are only stored so they can be identified from query results.
+ * </p>
+ * <p>
+ * The tree is stored implicitly in flat arrays, the node for the index range [lo, hi) is the element at the midpoint of
+ * that range, with its left subtree in [lo, mid) and its right subtree in [mid+1, hi). Each node additionally stores the
+ * bounds of every Entity in its subtree so that overlap queries can reject entire subtrees at once.
+ * </p>
+ */
+public class KDTree {
+	private final Entity[] entities;
+	private final float[] centers;//x, y, z of each entity position
+	private final float[] extents;//x, y, z half dimensions of each entity's bounds
+	private final float[] nodeMin, nodeMax;//bounds of the subtree rooted at each node
+	private final byte[] axes;//axis each node was split on
+	private final int size;
+	private final long epoch;
+	private int depth;
+
+	/**
+	 * Constructs a KDTree from the given Entities, the positions and bounds of the Entities are sampled at the time of
+	 * construction. Entities with a CollisionMesh use the bounds of that mesh, otherwise the Entity is treated as a point.
+	 *
+	 * @param objects Entities to build the tree from
+	 */
+	public KDTree(Collection<Entity> objects){
+		this(objects, 0);
+	}
+
+	/**
+	 * Constructs a KDTree from the given Entities, the positions and bounds of the Entities are sampled at the time of
+	 * construction. Entities with a CollisionMesh use the bounds of that mesh, otherwise the Entity is treated as a point.
+	 *
+	 * @param objects Entities to build the tree from
+	 * @param epoch Value identifying when this tree was built, used to tell snapshots of the same scene apart
+	 */
+	public KDTree(Collection<Entity> objects, long epoch){
+		this.epoch = epoch;
+		size = objects.size();
+		entities = objects.toArray(new Entity[size]);
+		centers = new float[size*3];
+		extents = new float[size*3];
+		nodeMin = new float[size*3];
+		nodeMax = new float[size*3];
+		axes = new byte[size];
+		depth = 0;
+
+		//sample the bounds of each entity
+		for(int curEntity = 0; curEntity < size; curEntity++){
+			sampleBounds(curEntity);
+		}
+		build(0, size, 1);
+	}
+
+	private void sampleBounds(int index){
+		int offset = index*3;
+		CollisionMesh collider = entities[index].getCollider();
+		if(collider != null){
+			//use the cached world bounds of the collider
+			Vec3 min = collider.getBoundsMin();
+			Vec3 max = collider.getBoundsMax();
+
+			centers[offset] = (min.x+max.x)/2.0f;
+			centers[offset+1] = (min.y+max.y)/2.0f;
+			centers[offset+2] = (min.z+max.z)/2.0f;
+
+			extents[offset] = (max.x-min.x)/2.0f;
+			extents[offset+1] = (max.y-min.y)/2.0f;
+			extents[offset+2] = (max.z-min.z)/2.0f;
+		}else{
+			Vec3 pos = entities[index].getPos();
+			centers[offset] = pos.x;
+			centers[offset+1] = pos.y;
+			centers[offset+2] = pos.z;
+		}
+	}
+
+	/**
+	 * Recursively builds the subtree over the range [lo, hi)
+	 *
+	 * @param lo Start of the range, inclusive
+	 * @param hi End of the range, exclusive
+	 * @param level Depth of the node being built
+	 */
+	private void build(int lo, int hi, int level){
+		if(lo >= hi){
+			return;
+		}
+		depth = Math.max(depth, level);
+		int mid = (lo+hi) >>> 1;
+		//split on the axis where the entity positions are the most spread out
+		float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+		for(int curEntity = lo; curEntity < hi; curEntity++){
+			int offset = curEntity*3;
+			minX = Math.min(minX, centers[offset]);
+			maxX = Math.max(maxX, centers[offset]);
+			minY = Math.min(minY, centers[offset+1]);
+			maxY = Math.max(maxY, centers[offset+1]);
+			minZ = Math.min(minZ, centers[offset+2]);
+			maxZ = Math.max(maxZ, centers[offset+2]);
+		}
+		int axis = 0;
+		if(maxY-minY > maxX-minX){
+			axis = 1;
+		}
+		if(maxZ-minZ > Math.max(maxX-minX, maxY-minY)){
+			axis = 2;
+		}
+		axes[mid] = (byte)axis;
+		//partition the range so the median is at the mid point
+		select(lo, hi-1, mid, axis);
+
+		build(lo, mid, level+1);
+		build(mid+1, hi, level+1);
+
+		//compute the bounds of this subtree from this node and its children
+		int offset = mid*3;
+		for(int component = 0; component < 3; component++){
+			nodeMin[offset+component] = centers[offset+component]-extents[offset+component];
+			nodeMax[offset+component] = centers[offset+component]+extents[offset+component];
+		}
+		if(lo < mid){
+			mergeBounds(offset, ((lo+mid) >>> 1)*3);
+		}
+		if(mid+1 < hi){
+			mergeBounds(offset, ((mid+1+hi) >>> 1)*3);
+		}
+	}
+
+	private void mergeBounds(int target, int source){
+		for(int component = 0; component < 3; component++){
+			nodeMin[target+component] = Math.min(nodeMin[target+component], nodeMin[source+component]);
+			nodeMax[target+component] = Math.max(nodeMax[target+component], nodeMax[source+component]);
+		}
+	}
+
+	/**
+	 * Quickselect that reorders the range [left, right] such that the element at {@code k} is the one that would be there
+	 * if the range was sorted along {@code axis}
+	 */
+	private void select(int left, int right, int k, int axis){
+		while(right > left){
+			//use the middle value as the pivot, this keeps already sorted input from degrading the selection
+			float pivot = centers[((left+right) >>> 1)*3+axis];
+			int i = left, j = right;
+			while(i <= j){
+				while(centers[i*3+axis] < pivot){
+					i++;
+				}
+				while(centers[j*3+axis] > pivot){
+					j--;
+				}
+				if(i <= j){
+					swap(i, j);
+					i++;
+					j--;
+				}
+			}
+			if(k <= j){
+				right = j;
+			}else if(k >= i){
+				left = i;
+			}else{
+				return;
+			}
+		}
+	}
+
+	private void swap(int a, int b){
+		Entity tempEntity = entities[a];
+		entities[a] = entities[b];
+		entities[b] = tempEntity;
+		int offsetA = a*3, offsetB = b*3;
+		for(int component = 0; component < 3; component++){
+			float temp = centers[offsetA+component];
+			centers[offsetA+component] = centers[offsetB+component];
+			centers[offsetB+component] = temp;
+
+			temp = extents[offsetA+component];
+			extents[offsetA+component] = extents[offsetB+component];
+			extents[offsetB+component] = temp;
+		}
+	}
+
+	/**
+	 * Gets the number of Entities stored in this tree
+	 *
+	 * @return Number of Entities in the tree
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Gets the depth of this tree, an empty tree has a depth of 0
+	 *
+	 * @return Number of levels in this tree
+	 */
+	public int getDepth(){
+		return depth;
+	}
+
+	/**
+	 * Gets the epoch this tree was built at, a tree with a larger epoch was built from a more recent state of the scene
+	 *
+	 * @return Epoch this tree was built at
+	 */
+	public long getEpoch(){
+		return epoch;
+	}
+
+	/**
+	 * Copies the center of the Entity at the given {@code index} as it was when this tree was built, this reads only the
+	 * tree so it is safe while the Entity is being moved by another thread
+	 *
+	 * @param index Index of the Entity, as stored in a QueryBuffer by this tree
+	 * @param dest Vector to store the center in
+	 *
+	 * @return The {@code dest} vector
+	 */
+	public Vec3 getCenter(int index, Vec3 dest){
+		return dest.set(centers[index*3], centers[index*3+1], centers[index*3+2]);
+	}
+
+	/**
+	 * Copies the half dimensions of the bounds of the Entity at the given {@code index} as they were when this tree was
+	 * built, Entities without a collider have no extents
+	 *
+	 * @param index Index of the Entity, as stored in a QueryBuffer by this tree
+	 * @param dest Vector to store the half dimensions in
+	 *
+	 * @return The {@code dest} vector
+	 */
+	public Vec3 getExtents(int index, Vec3 dest){
+		return dest.set(extents[index*3], extents[index*3+1], extents[index*3+2]);
+	}
+
+	/**
+	 * Gets the Entity stored at the given {@code index}, indices are those stored in a QueryBuffer by this tree
+	 *
+	 * @param index Index of the Entity to retrieve
+	 *
+	 * @return Entity at the given index
+	 */
+	public Entity getEntity(int index){
+		return entities[index];
+	}
+
+	/**
+	 * Finds all the Entities whose bounds overlap the sphere given by {@code center} and {@code radius}. The distance
+	 * stored with each result is the distance from {@code center} to the position of the Entity.
+	 *
+	 * @param center Center of the sphere
+	 * @param radius Radius of the sphere
+	 * @param results Buffer to store the results in, the buffer is cleared before the query is performed
+	 *
+	 * @return Number of Entities found
+	 */
+	public int sphereQuery(Vec3 center, float radius, QueryBuffer results){
+		results.clear();
+		sphereQuery(0, size, center.x, center.y, center.z, radius*radius, results);
+		return results.size();
+	}
+
+	private void sphereQuery(int lo, int hi, float x, float y, float z, float radiusSq, QueryBuffer results){
+		if(lo >= hi){
+			return;
+		}
+		int mid = (lo+hi) >>> 1;
+		int offset = mid*3;
+		//reject the entire subtree if the sphere doesn't touch its bounds
+		if(boxDistanceSq(nodeMin, nodeMax, offset, x, y, z) > radiusSq){
+			return;
+		}
+		//test the entity at this node against the sphere
+		if(entityDistanceSq(offset, x, y, z) <= radiusSq){
+			results.add(mid, centerDistance(offset, x, y, z));
+		}
+		sphereQuery(lo, mid, x, y, z, radiusSq, results);
+		sphereQuery(mid+1, hi, x, y, z, radiusSq, results);
+	}
+
+	/**
+	 * Finds all the Entities whose bounds overlap the axis aligned box given by {@code min} and {@code max}. The distance
+	 * stored with each result is 0.
+	 *
+	 * @param min Minimum corner of the box
+	 * @param max Maximum corner of the box
+	 * @param results Buffer to store the results in, the buffer is cleared before the query is performed
+	 *
+	 * @return Number of Entities found
+	 */
+	public int boxQuery(Vec3 min, Vec3 max, QueryBuffer results){
+		results.clear();
+		boxQuery(0, size, min.x, min.y, min.z, max.x, max.y, max.z, results);
+		return results.size();
+	}
+
+	private void boxQuery(int lo, int hi,
+			float minX, float minY, float minZ,
+			float maxX, float maxY, float maxZ,
+			QueryBuffer results){
+		if(lo >= hi){
+			return;
+		}
+		int mid = (lo+hi) >>> 1;
+		int offset = mid*3;
+		//reject the entire subtree if the box doesn't overlap its bounds
+		if(nodeMin[offset] > maxX || nodeMax[offset] < minX ||
+				nodeMin[offset+1] > maxY || nodeMax[offset+1] < minY ||
+				nodeMin[offset+2] > maxZ || nodeMax[offset+2] < minZ){
+			return;
+		}
+		//test the entity at this node against the box
+		if(centers[offset]-extents[offset] <= maxX && centers[offset]+extents[offset] >= minX &&
+				centers[offset+1]-extents[offset+1] <= maxY && centers[offset+1]+extents[offset+1] >= minY &&
+				centers[offset+2]-extents[offset+2] <= maxZ && centers[offset+2]+extents[offset+2] >= minZ){
+			results.add(mid, 0);
+		}
+		boxQuery(lo, mid, minX, minY, minZ, maxX, maxY, maxZ, results);
+		boxQuery(mid+1, hi, minX, minY, minZ, maxX, maxY, maxZ, results);
+	}
+
+	/**
+	 * Finds the {@code k} Entities whose positions are nearest to the given {@code point}. The results are ordered from
+	 * nearest to farthest, and the distance stored with each result is the distance from {@code point} to the position
+	 * of the Entity.
+	 *
+	 * @param point Point to search around
+	 * @param k Maximum number of Entities to find
+	 * @param results Buffer to store the results in, the buffer is cleared before the query is performed
+	 *
+	 * @return Number of Entities found, this will be less than {@code k} only if the tree has fewer than {@code k} Entities
+	 */
+	public int nearestQuery(Vec3 point, int k, QueryBuffer results){
+		results.clear();
+		if(k > 0){
+			results.ensureCapacity(Math.min(k, size));
+			nearestQuery(0, size, point.x, point.y, point.z, k, results);
+			results.heapSort();
+			//the heap stores squared distances to avoid square roots during the search
+			for(int curResult = 0; curResult < results.size(); curResult++){
+				results.setDistance(curResult, (float)Math.sqrt(results.getDistance(curResult)));
+			}
+		}
+		return results.size();
+	}
+
+	private void nearestQuery(int lo, int hi, float x, float y, float z, int k, QueryBuffer results){
+		if(lo >= hi){
+			return;
+		}
+		int mid = (lo+hi) >>> 1;
+		int offset = mid*3;
+		float dx = centers[offset]-x, dy = centers[offset+1]-y, dz = centers[offset+2]-z;
+		results.heapOffer(mid, dx*dx+dy*dy+dz*dz, k);
+
+		//search the side of the split the point is on first, since that is where the closest entities are likely to be
+		int axis = axes[mid];
+		float split = (axis == 0 ? x : axis == 1 ? y : z)-centers[offset+axis];
+		if(split < 0){
+			nearestQuery(lo, mid, x, y, z, k, results);
+			//only search the other side if it could contain something closer than what was found
+			if(results.size() < k || split*split < results.heapMax()){
+				nearestQuery(mid+1, hi, x, y, z, k, results);
+			}
+		}else{
+			nearestQuery(mid+1, hi, x, y, z, k, results);
+			if(results.size() < k || split*split < results.heapMax()){
+				nearestQuery(lo, mid, x, y, z, k, results);
+			}
+		}
+	}
+
+	/**
+	 * Finds all the Entities whose bounds are intersected by the given {@code ray}. The results are ordered from nearest to
+	 * farthest, and the distance stored with each result is the value from 0 to 1 along the ray where it enters the bounds
+	 * of the Entity. This only tests the bounds of each Entity, the results can be tested against the actual colliders
+	 * using the CollisionDetector if a more precise result is needed.
+	 * <p>
+	 * The Ray is sampled on the calling thread before the search is performed, the Ray should not be modified by another
+	 * thread while this method is running.
+	 * </p>
+	 *
+	 * @param ray Ray to test the Entities against
+	 * @param results Buffer to store the results in, the buffer is cleared before the query is performed
+	 *
+	 * @return Number of Entities found
+	 */
+	public int rayQuery(Ray ray, QueryBuffer results){
+		return rayQuery(ray.getPos(), ray.getDirection(), ray.getLength(), results);
+	}
+
+	/**
+	 * Finds all the Entities whose bounds are intersected by the ray starting at {@code origin}, extending {@code length}
+	 * along {@code direction}. The results are ordered from nearest to farthest, and the distance stored with each result
+	 * is the value from 0 to 1 along the ray where it enters the bounds of the Entity.
+	 *
+	 * @param origin Starting point of the ray
+	 * @param direction Normalized direction of the ray
+	 * @param length Length of the ray
+	 * @param results Buffer to store the results in, the buffer is cleared before the query is performed
+	 *
+	 * @return Number of Entities found
+	 */
+	public int rayQuery(Vec3 origin, Vec3 direction, float length, QueryBuffer results){
+		results.clear();
+		//scale the direction by the length so the intersection values are along the 0 to 1 range of the ray
+		float dirX = direction.x*length, dirY = direction.y*length, dirZ = direction.z*length;
+		//the inverse of a 0 component becomes infinity, the slab test checks those axes against the origin instead
+		rayQuery(0, size, origin.x, origin.y, origin.z, 1.0f/dirX, 1.0f/dirY, 1.0f/dirZ, results);
+		results.sort();
+		return results.size();
+	}
+
+	private void rayQuery(int lo, int hi, float x, float y, float z, float invX, float invY, float invZ, QueryBuffer results){
+		if(lo >= hi){
+			return;
+		}
+		int mid = (lo+hi) >>> 1;
+		int offset = mid*3;
+		//reject the entire subtree if the ray misses its bounds
+		if(Float.isNaN(slab(nodeMin[offset], nodeMin[offset+1], nodeMin[offset+2],
+				nodeMax[offset], nodeMax[offset+1], nodeMax[offset+2], x, y, z, invX, invY, invZ))){
+			return;
+		}
+		float entry = slab(centers[offset]-extents[offset], centers[offset+1]-extents[offset+1], centers[offset+2]-extents[offset+2],
+				centers[offset]+extents[offset], centers[offset+1]+extents[offset+1], centers[offset+2]+extents[offset+2],
+				x, y, z, invX, invY, invZ);
+		if(!Float.isNaN(entry)){
+			results.add(mid, entry);
+		}
+		rayQuery(lo, mid, x, y, z, invX, invY, invZ, results);
+		rayQuery(mid+1, hi, x, y, z, invX, invY, invZ, results);
+	}
+
+	/**
+	 * Slab test of a ray against an axis aligned box
+	 *
+	 * @return Value from 0 to 1 along the ray where it enters the box, 0 if the ray starts inside the box, or NaN if the
+	 * ray does not intersect the box
+	 */
+	private static float slab(float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+			float x, float y, float z, float invX, float invY, float invZ){
+		float enter = Float.NEGATIVE_INFINITY, exit = Float.POSITIVE_INFINITY;
+		//a ray parallel to a slab never crosses it, so it only hits if it starts between the planes, this also avoids the
+		//0*infinity NaN of a ray starting on one of the planes
+		if(Float.isInfinite(invX)){
+			if(x < minX || x > maxX){
+				return Float.NaN;
+			}
+		}else{
+			float t1 = (minX-x)*invX, t2 = (maxX-x)*invX;
+			enter = Math.min(t1, t2);
+			exit = Math.max(t1, t2);
+		}
+		if(Float.isInfinite(invY)){
+			if(y < minY || y > maxY){
+				return Float.NaN;
+			}
+		}else{
+			float t1 = (minY-y)*invY, t2 = (maxY-y)*invY;
+			enter = Math.max(enter, Math.min(t1, t2));
+			exit = Math.min(exit, Math.max(t1, t2));
+		}
+		if(Float.isInfinite(invZ)){
+			if(z < minZ || z > maxZ){
+				return Float.NaN;
+			}
+		}else{
+			float t1 = (minZ-z)*invZ, t2 = (maxZ-z)*invZ;
+			enter = Math.max(enter, Math.min(t1, t2));
+			exit = Math.min(exit, Math.max(t1, t2));
+		}
+		//an empty overlap or one outside of the segment of the ray means there was no intersection
+		if(enter > exit || exit < 0 || enter > 1){
+			return Float.NaN;
+		}
+		return Math.max(0, enter);
+	}
+
+	private float entityDistanceSq(int offset, float x, float y, float z){
+		float dx = Math.max(0, Math.abs(x-centers[offset])-extents[offset]);
+		float dy = Math.max(0, Math.abs(y-centers[offset+1])-extents[offset+1]);
+		float dz = Math.max(0, Math.abs(z-centers[offset+2])-extents[offset+2]);
+		return dx*dx+dy*dy+dz*dz;
+	}
+
+	private float centerDistance(int offset, float x, float y, float z){
+		float dx = centers[offset]-x, dy = centers[offset+1]-y, dz = centers[offset+2]-z;
+		return (float)Math.sqrt(dx*dx+dy*dy+dz*dz);
+	}
+
+	private static float boxDistanceSq(float[] min, float[] max, int offset, float x, float y, float z){
+		float dx = Math.max(0, Math.max(min[offset]-x, x-max[offset]));
+		float dy = Math.max(0, Math.max(min[offset+1]-y, y-max[offset+1]));
+		float dz = Math.max(0, Math.max(min[offset+2]-z, z-max[offset+2]));
+		return dx*dx+dy*dy+dz*dz;
+	}
+}
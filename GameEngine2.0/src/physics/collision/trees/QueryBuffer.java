@@ -0,0 +1,214 @@
+package physics.collision.trees;
+
+import java.util.Arrays;
+
+/**
+ * Reusable result storage for spatial queries. Results are stored as primitive indices into the structure that
+ * performed the query along with a distance value for each result, this allows the same buffer to be passed to queries
+ * every frame without generating garbage.
+ * <p>
+ * The indices stored in this buffer are only valid for the structure that filled it, and only until that structure
+ * is rebuilt.
+ * </p>
+ */
+public class QueryBuffer {
+	private int[] indices;
+	private float[] distances;
+	private int size;
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * Constructs a QueryBuffer with a default starting capacity
+	 */
+	public QueryBuffer(){
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a QueryBuffer with the given starting {@code capacity}, the buffer will grow when needed
+	 *
+	 * @param capacity Number of results this buffer can hold before it needs to grow
+	 */
+	public QueryBuffer(int capacity){
+		capacity = Math.max(1, capacity);
+		indices = new int[capacity];
+		distances = new float[capacity];
+		size = 0;
+	}
+
+	/**
+	 * Empties this buffer, the underlying storage is retained for reuse
+	 */
+	public void clear(){
+		size = 0;
+	}
+
+	/**
+	 * Gets the number of results currently stored in this buffer
+	 *
+	 * @return Number of results in this buffer
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Determines whether this buffer has any results stored in it
+	 *
+	 * @return True if there are no results in this buffer, false otherwise
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+	}
+
+	/**
+	 * Gets the index of the result at {@code result}, this index is relative to the structure that performed the query
+	 *
+	 * @param result Result to get the index of
+	 *
+	 * @return Index of the result in the structure that filled this buffer
+	 * @throws IndexOutOfBoundsException
+	 */
+	public int getIndex(int result) throws IndexOutOfBoundsException{
+		if(result < 0 || result >= size){
+			throw new IndexOutOfBoundsException("Result: "+result+" is out of bounds for a QueryBuffer of size: "+size);
+		}
+		return indices[result];
+	}
+
+	/**
+	 * Gets the distance associated with the result at {@code result}, what this distance represents is defined by the query
+	 * that produced the result
+	 *
+	 * @param result Result to get the distance of
+	 *
+	 * @return Distance value of the result
+	 * @throws IndexOutOfBoundsException
+	 */
+	public float getDistance(int result) throws IndexOutOfBoundsException{
+		if(result < 0 || result >= size){
+			throw new IndexOutOfBoundsException("Result: "+result+" is out of bounds for a QueryBuffer of size: "+size);
+		}
+		return distances[result];
+	}
+
+	/**
+	 * Appends a result to the end of this buffer, growing the buffer if needed
+	 *
+	 * @param index Index of the result
+	 * @param distance Distance value of the result
+	 */
+	void add(int index, float distance){
+		ensureCapacity(size+1);
+		indices[size] = index;
+		distances[size] = distance;
+		size++;
+	}
+
+	/**
+	 * Replaces the distance value of the result at {@code result}
+	 *
+	 * @param result Result to set the distance of
+	 * @param distance New distance value of the result
+	 */
+	void setDistance(int result, float distance){
+		distances[result] = distance;
+	}
+
+	/**
+	 * Makes sure this buffer can hold at least {@code capacity} results
+	 *
+	 * @param capacity Minimum number of results this buffer needs to be able to hold
+	 */
+	void ensureCapacity(int capacity){
+		if(capacity > indices.length){
+			int newCapacity = Math.max(capacity, indices.length*2);
+			indices = Arrays.copyOf(indices, newCapacity);
+			distances = Arrays.copyOf(distances, newCapacity);
+		}
+	}
+
+	/**
+	 * Gets the largest distance currently held by the k-nearest heap, this is only valid while the buffer is being
+	 * used as a heap by a k-nearest query
+	 *
+	 * @return Largest distance in the heap
+	 */
+	float heapMax(){
+		return distances[0];
+	}
+
+	/**
+	 * Inserts a result into this buffer treating it as a max heap keyed on distance with a maximum size of {@code k}.
+	 * If the heap is full the result will only be inserted if it is closer than the farthest result in the heap.
+	 *
+	 * @param index Index of the result
+	 * @param distance Distance value of the result
+	 * @param k Maximum number of results to retain
+	 */
+	void heapOffer(int index, float distance, int k){
+		if(size < k){
+			ensureCapacity(size+1);
+			//sift the new value up from the bottom of the heap
+			int child = size++;
+			while(child > 0){
+				int parent = (child-1) >>> 1;
+				if(distances[parent] >= distance){
+					break;
+				}
+				indices[child] = indices[parent];
+				distances[child] = distances[parent];
+				child = parent;
+			}
+			indices[child] = index;
+			distances[child] = distance;
+		}else if(distance < distances[0]){
+			//replace the farthest value and sift it down
+			siftDown(0, index, distance, size);
+		}
+	}
+
+	/**
+	 * Sorts the heap stored in this buffer so that results are ordered from nearest to farthest
+	 */
+	void heapSort(){
+		for(int end = size-1; end > 0; end--){
+			int maxIndex = indices[0];
+			float maxDist = distances[0];
+			//move the last value to the root and restore the heap for the remaining values
+			siftDown(0, indices[end], distances[end], end);
+			indices[end] = maxIndex;
+			distances[end] = maxDist;
+		}
+	}
+
+	/**
+	 * Sorts the results in this buffer by distance so that they are ordered from nearest to farthest
+	 */
+	void sort(){
+		//heap sort in place over the parallel arrays, O(n log n) without allocating
+		for(int parent = size/2-1; parent >= 0; parent--){
+			siftDown(parent, indices[parent], distances[parent], size);
+		}
+		heapSort();
+	}
+
+	private void siftDown(int parent, int index, float distance, int heapSize){
+		int child = parent*2+1;
+		while(child < heapSize){
+			//pick the larger of the two children
+			if(child+1 < heapSize && distances[child+1] > distances[child]){
+				child++;
+			}
+			if(distances[child] <= distance){
+				break;
+			}
+			indices[parent] = indices[child];
+			distances[parent] = distances[child];
+			parent = child;
+			child = parent*2+1;
+		}
+		indices[parent] = index;
+		distances[parent] = distance;
+	}
+}
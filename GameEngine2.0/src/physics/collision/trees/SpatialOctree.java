@@ -1,25 +1,58 @@
 package physics.collision.trees;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.List;
 
 import core.Entity;
 import glMath.Quaternion;
+import glMath.transforms.Transform;
 import glMath.transforms.TransformListener;
 import glMath.vectors.Vec3;
 import physics.collision.CollisionDetector;
 import physics.collision.CollisionMesh;
+import physics.collision.CollisionMetrics;
 import physics.collision.Ray;
 import physics.collision.data.ContactPair;
 import physics.collision.data.RayIntersection;
 
+/**
+ * Spatial structure containing the entities of a scene for collision and proximity queries. 
+ * <p>
+ * Threading contract:
+ * </p>
+ * <ul>
+ * <li>The methods of this class, and the entities, their Transforms and their colliders, belong to the thread that moves
+ * the entities. None of them are synchronized.</li>
+ * <li>Other threads query the scene through the snapshot given by {@link #getSnapshot()}. A snapshot is never modified
+ * once published, so any number of threads can query it without locking while the owning thread keeps moving entities
+ * and publishing newer snapshots.</li>
+ * <li>Snapshot queries only read the positions and bounds copied when the snapshot was built. Use
+ * {@link KDTree#getCenter(int, Vec3)} and {@link KDTree#getExtents(int, Vec3)} to read those copies.</li>
+ * <li>The Entities a snapshot returns are the live objects. Other threads may use them to identify what was found, but
+ * must not read or change their Transforms or colliders while the owning thread can be moving them. Hand that work
+ * back to the owning thread instead.</li>
+ * </ul>
+ * <p>
+ * The tree notices movement through listeners on the Transforms of the colliders it contains. Changes that don't notify
+ * those listeners, such as changing a collider's shape or editing the vector returned by
+ * {@link Transform#getTranslation()} in place, are picked up by the next call to {@link #update()}.
+ * </p>
+ */
 public class SpatialOctree {
 	//first half of nodes will represent the upper portion of space
 	//the nodes will read in counter clockwise from the -z, +x quadrant
 	private OctreeNode root;
 	private Vec3 halfDim, center;
 	private Hashtable<CollisionMesh, Entity> entities;
+	private volatile KDTree queryTree;
+	private long epoch;
+	private boolean stale;
+	private MoveListener moveListener;//marks the query tree stale when a collider in this tree moves
+	private QueryBuffer broadphaseResults;
+	private int[] candidates;//pairs of tree indices found by the broadphase
+	private int candidateCount;
 	private int leafCap;
 	
 //	public SpatialOctree(int leafCapacity, int depthCap){
@@ -71,6 +104,13 @@ public class SpatialOctree {
 //		root = new OctreeNode(null, this.center, this.halfDim, 0);
 		leafCap = leafCapacity;
 		entities = new Hashtable<CollisionMesh, Entity>();
+		epoch = 0;
+		queryTree = new KDTree(entities.values(), epoch);
+		stale = false;
+		moveListener = new MoveListener();
+		broadphaseResults = new QueryBuffer();
+		candidates = new int[64];
+		candidateCount = 0;
 	}
 	
 	public void add(Entity object){
@@ -91,7 +131,11 @@ public class SpatialOctree {
 //		}
 //		return true;
 		if(object.getCollider() != null){
-			entities.put(object.getCollider(), object);
+			if(entities.put(object.getCollider(), object) == null){
+				object.getCollider().getTransform().addListener(moveListener);
+			}
+			//the query tree no longer reflects the entities in this tree
+			stale = true;
 		}
 	}
 	
@@ -99,27 +143,81 @@ public class SpatialOctree {
 		//traverse the tree then iterate through the indices of the leaf node to find the array list element
 	}
 	
+	/**
+	 * Updates the structures used for proximity queries to reflect the current positions of the entities in this tree, this 
+	 * should be called once per frame after the entities have been moved and before any queries are performed.
+	 * <p>
+	 * This publishes a new snapshot for {@link #getSnapshot()}, snapshots retrieved before this call remain valid and 
+	 * unchanged so threads still using them are not affected.
+	 * </p>
+	 */
 	public void update(){
-		
+		//build the new tree completely before publishing it, readers only ever see a finished tree
+		queryTree = new KDTree(entities.values(), ++epoch);
+		stale = false;
+		CollisionMetrics.recordTree(queryTree.getDepth(), queryTree.size());
+	}
+	
+	/**
+	 * Gets a read only snapshot of the entities in this tree as of the last call to {@link #update()}. The snapshot can be
+	 * queried from any thread without synchronization while the thread that owns this tree continues to move, add and update
+	 * entities, each call to {@link #update()} publishes a new snapshot and leaves previously retrieved snapshots intact.
+	 * <p>
+	 * Getting the snapshot never rebuilds it, unlike the query methods of this tree. It only changes when this tree is
+	 * updated, or when one of its queries rebuilds it after entities were added or moved.
+	 * </p>
+	 * 
+	 * @return Most recently published snapshot of the entities in this tree
+	 */
+	public KDTree getSnapshot(){
+		return queryTree;
 	}
 	
+	/**
+	 * Finds all the pairs of entities in this tree that are colliding. If entities were added or any entity moved since the
+	 * last update the tree is updated before searching, publishing a new snapshot, otherwise the current snapshot is reused.
+	 * Movement is tracked by the listeners on the collider Transforms, so checking for it is constant time.
+	 * 
+	 * @return List of the pairs of entities that are colliding
+	 */
 	public ArrayList<ContactPair> getCollisions(){
-		ArrayList<ContactPair> pairs = new ArrayList<ContactPair>();
-		
-		Entity[] objects = entities.values().toArray(new Entity[0]);
-		//loop through each of the objects in the list
-		for(int curObject = 0; curObject < objects.length; curObject++){
-			//perform a second loop on all the remaining elements to determine if there is a collision
-			for(int secondObj = curObject+1; secondObj < objects.length; secondObj++){
-				Entity objA = objects[curObject];
-				Entity objB = objects[secondObj];
-				//check if they are colliding
-				if(CollisionDetector.intersects(objA.getCollider(), objB.getCollider()).areColliding()){
-					//if they are then add them to the results array
-					pairs.add(new ContactPair(objA, objB));
+		CollisionMetrics.beginStep();
+		//broadphase, find the pairs whose bounds overlap
+		long start = CollisionMetrics.begin();
+		//only rebuild when the snapshot no longer matches the scene, a scene at rest reuses the same tree
+		KDTree tree = getQueryTree();
+		for(int curObject = 0; curObject < tree.size(); curObject++){
+			CollisionMesh collider = tree.getEntity(curObject).getCollider();
+			tree.boxQuery(collider.getBoundsMin(), collider.getBoundsMax(), broadphaseResults);
+			for(int curResult = 0; curResult < broadphaseResults.size(); curResult++){
+				int other = broadphaseResults.getIndex(curResult);
+				//only keep each pair once
+				if(other > curObject){
+					if(candidateCount+2 > candidates.length){
+						candidates = Arrays.copyOf(candidates, candidates.length*2);
+					}
+					candidates[candidateCount++] = curObject;
+					candidates[candidateCount++] = other;
 				}
 			}
 		}
+		CollisionMetrics.end(CollisionMetrics.Phase.BROADPHASE, start);
+		
+		//narrowphase, test the candidate pairs for actual collisions
+		start = CollisionMetrics.begin();
+		ArrayList<ContactPair> pairs = new ArrayList<ContactPair>();
+		for(int curPair = 0; curPair < candidateCount; curPair += 2){
+			Entity objA = tree.getEntity(candidates[curPair]);
+			Entity objB = tree.getEntity(candidates[curPair+1]);
+			//check if they are colliding
+			if(CollisionDetector.intersects(objA.getCollider(), objB.getCollider()).areColliding()){
+				//if they are then add them to the results array
+				pairs.add(new ContactPair(objA, objB));
+			}
+		}
+		CollisionMetrics.end(CollisionMetrics.Phase.NARROWPHASE, start);
+		CollisionMetrics.recordPairs(candidateCount/2, pairs.size());
+		candidateCount = 0;
 		
 		return pairs;
 	}
@@ -167,6 +265,92 @@ public class SpatialOctree {
 		return entities.get(mesh);
 	}
 	
+	/**
+	 * Finds all the entities in this tree whose bounds overlap the sphere given by {@code center} and {@code radius}. The 
+	 * results are stored in the given QueryBuffer, where the distance of each result is the distance from {@code center}
+	 * to the position of the entity. Use {@link #getEntity(int)} to retrieve the entities from the results.
+	 * 
+	 * @param center Center of the sphere to search
+	 * @param radius Radius of the sphere to search
+	 * @param results Buffer to store the results of the query in
+	 * 
+	 * @return Number of entities found
+	 */
+	public int getWithin(Vec3 center, float radius, QueryBuffer results){
+		return getQueryTree().sphereQuery(center, radius, results);
+	}
+	
+	/**
+	 * Finds all the entities in this tree whose bounds overlap the axis aligned box given by {@code min} and {@code max}.
+	 * The results are stored in the given QueryBuffer. Use {@link #getEntity(int)} to retrieve the entities from the results.
+	 * 
+	 * @param min Minimum corner of the box to search
+	 * @param max Maximum corner of the box to search
+	 * @param results Buffer to store the results of the query in
+	 * 
+	 * @return Number of entities found
+	 */
+	public int getOverlapping(Vec3 min, Vec3 max, QueryBuffer results){
+		return getQueryTree().boxQuery(min, max, results);
+	}
+	
+	/**
+	 * Finds the {@code k} entities in this tree that are closest to the given {@code point}. The results are stored in the
+	 * given QueryBuffer ordered from nearest to farthest, where the distance of each result is the distance from 
+	 * {@code point} to the position of the entity. Use {@link #getEntity(int)} to retrieve the entities from the results.
+	 * 
+	 * @param point Point to search around
+	 * @param k Number of entities to find
+	 * @param results Buffer to store the results of the query in
+	 * 
+	 * @return Number of entities found
+	 */
+	public int getNearest(Vec3 point, int k, QueryBuffer results){
+		return getQueryTree().nearestQuery(point, k, results);
+	}
+	
+	/**
+	 * Gets the entity referenced by an index stored in a QueryBuffer filled by this tree, the index is only valid until the
+	 * tree is rebuilt by the next call to {@link #update()} or by a query made after entities were added or moved
+	 * 
+	 * @param index Index stored in a QueryBuffer
+	 * 
+	 * @return Entity the index refers to
+	 */
+	public Entity getEntity(int index){
+		//look up the tree that produced the index, never a rebuilt one
+		return queryTree.getEntity(index);
+	}
+	
+	private KDTree getQueryTree(){
+		//build the tree if entities have been added or moved since the last update
+		if(stale){
+			update();
+		}
+		return queryTree;
+	}
+	
+	/**
+	 * Marks the query tree stale whenever the Transform of a collider in this tree changes
+	 */
+	private class MoveListener implements TransformListener{
+
+		@Override
+		public void scaled(float x, float y, float z){
+			stale = true;
+		}
+
+		@Override
+		public void translated(float x, float y, float z){
+			stale = true;
+		}
+
+		@Override
+		public void rotated(Quaternion rotation){
+			stale = true;
+		}
+	}
+	
 	private class OctreeNode implements TransformListener{
 //		protected ArrayList<Integer> gameIndices;
 //		protected OctreeNode[] nodes;
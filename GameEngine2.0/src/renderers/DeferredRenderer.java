@@ -11,9 +11,11 @@ import core.Camera;
 import core.Entity;
 import core.managers.SceneManager;
 import framebuffer.GBuffer;
+import glMath.matrices.Mat4;
 import lights.Light;
 import mesh.Material;
 import mesh.Mesh;
+import mesh.lod.LODSelector;
 import mesh.primitives.geometry.Plane;
 import static renderers.ShaderProgramTypes.*;
 
@@ -21,6 +23,9 @@ public class DeferredRenderer extends Renderer{
 
 	private GBuffer gBuffer;
     private Camera main;
+    private Mat4 view;
+    private Mat4 positionDecode;//reused for each mesh's vertex position decode, see Mesh.getPositionDecode
+    private LODSelector lodSelector;
 //	public static final Plane quad = new Plane(2);
 	static{
 		SceneManager.meshes.put("unit_quad", new Plane(2));
@@ -29,6 +34,9 @@ public class DeferredRenderer extends Renderer{
 	public DeferredRenderer(int width, int height, Camera cam){
 		super(width, height);
 		main = cam;
+		view = new Mat4();
+		positionDecode = new Mat4();
+		lodSelector = new LODSelector();
 		gBuffer = new GBuffer(width, height);
 		
 		SceneManager.shaderPrograms.get("lightPass").setUniform("screenSpace", width, height);
@@ -67,17 +75,24 @@ public class DeferredRenderer extends Renderer{
 			RenderLogic logic){
 		
 		gBuffer.geoPass();//ready the gbuffer for the geometry pass
-		SceneManager.shaderPrograms.get("geoPass").setUniform("view", main.getLookAt());
-		SceneManager.shaderPrograms.get("stencilPass").setUniform("view", main.getLookAt());
-		SceneManager.shaderPrograms.get("lightPass").setUniform("view", main.getLookAt());
+		main.getLookAt(view);
+		SceneManager.shaderPrograms.get("geoPass").setUniform("view", view);
+		SceneManager.shaderPrograms.get("stencilPass").setUniform("view", view);
+		SceneManager.shaderPrograms.get("lightPass").setUniform("view", view);
 		SceneManager.shaderPrograms.get("lightPass").setUniform("eye", main.getPos());
 		
 		SceneManager.shaderPrograms.get("geoPass").bind();
 		//render geometry
 		for(Entity mesh : meshes){
 			SceneManager.shaderPrograms.get("geoPass").setUniform("model", mesh.getTransform().getMatrix());
+			//compact positions are stored relative to the mesh bounds, the shader maps them back to model space with
+			//this before applying the model matrix, meshes in the full layout upload the identity
+			SceneManager.shaderPrograms.get("geoPass").setUniform("positionDecode", 
+					mesh.getMesh().getPositionDecode(positionDecode));
 			Material mat = (Material) SceneManager.materials.get(mesh.getMaterial());
 			mat.bind(SceneManager.shaderPrograms.get("geoPass"));
+			mesh.getMesh().updateAttributes(mat);
+			lodSelector.select(mesh, main);
 			mesh.getMesh().render();
 		}
 		SceneManager.shaderPrograms.get("geoPass").unbind();
@@ -109,6 +124,15 @@ public class DeferredRenderer extends Renderer{
 //		glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 	}
 	
+	/**
+	 * Gets the selector that picks the level of detail of each Entity rendered
+	 * 
+	 * @return LODSelector used by this renderer
+	 */
+	public LODSelector getLODSelector(){
+		return lodSelector;
+	}
+	
 	public void debug(){
 		gBuffer.debug();
 	}
@@ -15,8 +15,6 @@ import java.io.File;
 import java.util.ArrayList;
 
 import core.Resource;
-import glMath.matrices.Mat2;
-import glMath.matrices.Mat3;
 import glMath.matrices.Matrix;
 import glMath.vectors.Vec2;
 import glMath.vectors.Vec3;
@@ -293,25 +291,7 @@ public class ShaderProgram implements Resource{
 	public void setUniform(String uniformName, Matrix value){
 		Uniform found = shaderData.getUniform(uniformName);
 		if(found != null){
-			if(value instanceof Mat2){
-				found.set(programId, false, 
-						value.valueAt(0), value.valueAt(1),
-						value.valueAt(2), value.valueAt(3)
-						);
-			}else if(value instanceof Mat3){
-				found.set(programId, false, 
-						value.valueAt(0), value.valueAt(1), value.valueAt(2), 
-						value.valueAt(3), value.valueAt(4), value.valueAt(5), 
-						value.valueAt(6), value.valueAt(7), value.valueAt(8)
-						);
-			}else{
-				found.set(programId, false, 
-						value.valueAt(0), value.valueAt(1), value.valueAt(2), value.valueAt(3),
-						value.valueAt(4), value.valueAt(5), value.valueAt(6), value.valueAt(7),
-						value.valueAt(8), value.valueAt(9), value.valueAt(10), value.valueAt(11),
-						value.valueAt(12), value.valueAt(13), value.valueAt(14), value.valueAt(15)
-						);
-			}
+			found.set(programId, false, value);
 		}
 	}
 	
@@ -326,25 +306,7 @@ public class ShaderProgram implements Resource{
 	public void setUniform(String uniformName, boolean transpose, Matrix value){
 		Uniform found = shaderData.getUniform(uniformName);
 		if(found != null){
-			if(value instanceof Mat2){
-				found.set(programId, transpose, 
-						value.valueAt(0), value.valueAt(1),
-						value.valueAt(2), value.valueAt(3)
-						);
-			}else if(value instanceof Mat3){
-				found.set(programId, transpose, 
-						value.valueAt(0), value.valueAt(1), value.valueAt(2), 
-						value.valueAt(3), value.valueAt(4), value.valueAt(5), 
-						value.valueAt(6), value.valueAt(7), value.valueAt(8)
-						);
-			}else{
-				found.set(programId, transpose, 
-						value.valueAt(0), value.valueAt(1), value.valueAt(2), value.valueAt(3),
-						value.valueAt(4), value.valueAt(5), value.valueAt(6), value.valueAt(7),
-						value.valueAt(8), value.valueAt(9), value.valueAt(10), value.valueAt(11),
-						value.valueAt(12), value.valueAt(13), value.valueAt(14), value.valueAt(15)
-						);
-			}
+			found.set(programId, transpose, value);
 		}
 	}
 }
@@ -2,10 +2,13 @@ package shaders;
 
 import static org.lwjgl.opengl.GL41.*;
 
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 
 import org.lwjgl.BufferUtils;
 
+import glMath.matrices.Matrix;
+
 public class Uniform {
 	private int location;
 	public UniformType type;
@@ -115,6 +118,29 @@ public class Uniform {
 		this.set(program, transpose);
 	}
 
+	/**
+	 * Sets the value of this uniform to the given matrix, the matrix is copied into the uniform buffer in bulk
+	 * rather than one value at a time. If the matrix is larger than the uniform it is truncated.
+	 * 
+	 * @param program Shader program to set the uniform value of with this uniform
+	 * @param transpose Whether or not to transpose the data as it is sent to the GPU
+	 * @param value Matrix to set this uniform to
+	 */
+	public void set(int program, boolean transpose, Matrix value){
+		dataBuffer.clear();
+		try{
+			value.store(dataBuffer);
+		}catch(BufferOverflowException e){
+			//the matrix doesn't fit in this uniform so copy only as much of it as the uniform holds
+			dataBuffer.clear();
+			for(int insert = 0; insert < type.size; insert++){
+				dataBuffer.putFloat(value.valueAt(insert));
+			}
+		}
+		dataBuffer.flip();//move the writer position back to the start of the buffer for reads
+		this.set(program, transpose);
+	}
+
 	public void set(int program, boolean... variables){
 		dataBuffer.position(0);
 		for (int insert = 0; insert < Math.min(type.size, variables.length); insert++) {